@@ -0,0 +1,127 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.action.bulk;
+
+import org.elasticsearch.action.bulk.BulkItemRequest;
+import org.elasticsearch.action.bulk.BulkRequestParser;
+import org.elasticsearch.action.bulk.BulkShardRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.support.WriteRequest;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.core.RestApiVersion;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.xcontent.XContentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Measures parsing a bulk body on the coordinating node and reading the resulting shard-level request on the primary, once copying
+ * every item source and once slicing the item sources out of the network buffer.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class BulkRequestParserBenchmark {
+    private static final ShardId SHARD_ID = new ShardId("index", "_na_", 0);
+
+    @Param({ "1000", "10000" })
+    private int docs;
+
+    @Param({ "100", "4096" })
+    private int docSize;
+
+    private BytesReference bulkBody;
+    private byte[] shardRequestBytes;
+
+    @Setup
+    public void setup() throws IOException {
+        final String value = "a".repeat(docSize);
+        final StringBuilder body = new StringBuilder();
+        for (int i = 0; i < docs; i++) {
+            body.append("{\"index\":{\"_index\":\"index\",\"_id\":\"").append(i).append("\"}}\n");
+            body.append("{\"@timestamp\":").append(i).append(",\"message\":\"").append(value).append("\"}\n");
+        }
+        bulkBody = new BytesArray(body.toString());
+
+        final List<IndexRequest> requests = new ArrayList<>(docs);
+        parse(requests::add);
+        final BulkItemRequest[] items = new BulkItemRequest[requests.size()];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = new BulkItemRequest(i, requests.get(i));
+        }
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            new BulkShardRequest(SHARD_ID, WriteRequest.RefreshPolicy.NONE, items).writeTo(out);
+            shardRequestBytes = BytesReference.toBytes(out.bytes());
+        }
+    }
+
+    private void parse(Consumer<IndexRequest> consumer) throws IOException {
+        new BulkRequestParser(false, RestApiVersion.current()).parse(
+            bulkBody,
+            null,
+            null,
+            null,
+            null,
+            null,
+            true,
+            XContentType.JSON,
+            (request, type) -> consumer.accept(request),
+            update -> { throw new AssertionError("unexpected update"); },
+            delete -> { throw new AssertionError("unexpected delete"); }
+        );
+    }
+
+    @Benchmark
+    public void parseBulkBody(Blackhole bh) throws IOException {
+        parse(bh::consume);
+    }
+
+    @Benchmark
+    public BulkShardRequest readShardRequestCopyingSources() throws IOException {
+        try (StreamInput in = StreamInput.wrap(shardRequestBytes)) {
+            return new BulkShardRequest(in);
+        }
+    }
+
+    @Benchmark
+    public BulkShardRequest readShardRequestSlicingSources() throws IOException {
+        final ReleasableBytesReference bytes = ReleasableBytesReference.wrap(new BytesArray(shardRequestBytes));
+        final BulkShardRequest request;
+        try (StreamInput in = bytes.streamInput()) {
+            request = new BulkShardRequest(in);
+        } finally {
+            bytes.close();
+        }
+        request.decRef();
+        return request;
+    }
+}
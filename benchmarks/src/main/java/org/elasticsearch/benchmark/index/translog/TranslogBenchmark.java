@@ -0,0 +1,121 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.index.translog;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.seqno.SequenceNumbers;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.index.translog.TranslogConfig;
+import org.elasticsearch.index.translog.TranslogDeletionPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures writing small operations to the translog and syncing them after every batch, rolling and trimming generations as the
+ * engine does under a high indexing rate, once with new generation files and once reusing the files of trimmed generations.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class TranslogBenchmark {
+    private static final ShardId SHARD_ID = new ShardId("index", "_na_", 0);
+    private static final long PRIMARY_TERM = 1L;
+
+    @Param({ "false", "true" })
+    private boolean recycleGenerationFiles;
+
+    @Param({ "100", "1000" })
+    private int operationSize;
+
+    @Param({ "10", "100" })
+    private int operationsPerSync;
+
+    @Param({ "1mb" })
+    private String generationSize;
+
+    private Path translogPath;
+    private Translog translog;
+    private long generationSizeInBytes;
+    private byte[] source;
+    private long seqNo;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        final Settings settings = Settings.builder()
+            .put(IndexMetadata.SETTING_VERSION_CREATED, Version.CURRENT)
+            .put(IndexMetadata.SETTING_NUMBER_OF_SHARDS, 1)
+            .put(IndexMetadata.SETTING_NUMBER_OF_REPLICAS, 0)
+            .put(IndexSettings.INDEX_TRANSLOG_RECYCLE_GENERATION_FILES_SETTING.getKey(), recycleGenerationFiles)
+            .put(IndexSettings.INDEX_TRANSLOG_GENERATION_THRESHOLD_SIZE_SETTING.getKey(), generationSize)
+            .build();
+        final IndexSettings indexSettings = new IndexSettings(IndexMetadata.builder("index").settings(settings).build(), Settings.EMPTY);
+        generationSizeInBytes = indexSettings.getGenerationThresholdSize().getBytes();
+        translogPath = Files.createTempDirectory("translog");
+        final String translogUUID =
+            Translog.createEmptyTranslog(translogPath, SequenceNumbers.NO_OPS_PERFORMED, SHARD_ID, PRIMARY_TERM);
+        translog = new Translog(
+            new TranslogConfig(SHARD_ID, translogPath, indexSettings, BigArrays.NON_RECYCLING_INSTANCE),
+            translogUUID,
+            new TranslogDeletionPolicy(),
+            () -> SequenceNumbers.NO_OPS_PERFORMED,
+            () -> PRIMARY_TERM,
+            persistedSeqNo -> {}
+        );
+        source = new byte[operationSize];
+        seqNo = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        translog.close();
+        IOUtils.rm(translogPath);
+    }
+
+    @Benchmark
+    public Translog.Location addAndSync() throws IOException {
+        Translog.Location location = null;
+        for (int i = 0; i < operationsPerSync; i++) {
+            location = translog.add(new Translog.Index(Long.toString(seqNo), seqNo, PRIMARY_TERM, source));
+            seqNo++;
+        }
+        translog.ensureSynced(location);
+        if (translog.sizeInBytesByMinGen(translog.currentFileGeneration()) > generationSizeInBytes) {
+            // pretend everything was flushed so that the previous generation can be trimmed, as a periodic flush would do
+            translog.rollGeneration();
+            translog.getDeletionPolicy().setLocalCheckpointOfSafeCommit(seqNo - 1);
+            translog.trimUnreferencedReaders();
+        }
+        return location;
+    }
+}
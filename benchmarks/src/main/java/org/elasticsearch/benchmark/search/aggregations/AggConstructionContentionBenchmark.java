@@ -73,6 +73,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Benchmarks the overhead of constructing {@link Aggregator}s in many
@@ -354,6 +355,11 @@ public class AggConstructionContentionBenchmark {
             return true;
         }
 
+        @Override
+        public <T> T pointInTimeState(String key, Supplier<T> builder) {
+            return null;
+        }
+
         @Override
         public void close() {
             List<Releasable> releaseMe = new ArrayList<>(this.releaseMe);
@@ -53,6 +53,17 @@ public class LongKeyedBucketOrdsBenchmark {
      * Number of distinct values to add to values within buckets.
      */
     private static final long DISTINCT_VALUES_IN_BUCKETS = 10;
+    /**
+     * The number of buckets to create in the {@link #multiBucketLarge} case.
+     * It is prime so the values scatter across all of them and the resulting
+     * {@code 200_140} bucket ords don't fit in the CPU caches.
+     */
+    private static final long DISTINCT_BUCKETS_LARGE = 10_007;
+    /**
+     * Number of distinct values to add to values within buckets in the
+     * {@link #multiBucketLarge} case.
+     */
+    private static final long DISTINCT_VALUES_IN_BUCKETS_LARGE = 20;
 
     private final PageCacheRecycler recycler = new PageCacheRecycler(Settings.EMPTY);
     private final BigArrays bigArrays = new BigArrays(recycler, null, "REQUEST");
@@ -206,6 +217,42 @@ public class LongKeyedBucketOrdsBenchmark {
         }
     }
 
+    /**
+     * Emulates an aggregation that collects many buckets from many buckets
+     * using a {@link LongKeyedBucketOrds.FromMany} that never switches to
+     * a swiss table.
+     */
+    @Benchmark
+    public void multiBucketManyLargeLinearProbing(Blackhole bh) {
+        try (LongKeyedBucketOrds ords = new LongKeyedBucketOrds.FromMany(bigArrays, Long.MAX_VALUE)) {
+            multiBucketLarge(bh, ords);
+        }
+    }
+
+    /**
+     * Emulates an aggregation that collects many buckets from many buckets
+     * using a {@link LongKeyedBucketOrds.FromMany} that uses a swiss table
+     * from the start.
+     */
+    @Benchmark
+    public void multiBucketManyLargeSwissTable(Blackhole bh) {
+        try (LongKeyedBucketOrds ords = new LongKeyedBucketOrds.FromMany(bigArrays, 0)) {
+            multiBucketLarge(bh, ords);
+        }
+    }
+
+    /**
+     * Emulates an aggregation that collects many buckets from many buckets
+     * the way aggregations build their {@link LongKeyedBucketOrds}, switching
+     * to a swiss table once it has enough buckets.
+     */
+    @Benchmark
+    public void multiBucketManyLarge(Blackhole bh) {
+        try (LongKeyedBucketOrds ords = LongKeyedBucketOrds.build(bigArrays, CardinalityUpperBound.MANY)) {
+            multiBucketLarge(bh, ords);
+        }
+    }
+
     private void multiBucket(Blackhole bh, LongKeyedBucketOrds ords) {
         for (long i = 0; i < LIMIT; i++) {
             ords.add(i % DISTINCT_BUCKETS, i % DISTINCT_VALUES_IN_BUCKETS);
@@ -215,4 +262,15 @@ public class LongKeyedBucketOrdsBenchmark {
         }
         bh.consume(ords);
     }
+
+    private void multiBucketLarge(Blackhole bh, LongKeyedBucketOrds ords) {
+        for (long i = 0; i < LIMIT; i++) {
+            ords.add(i % DISTINCT_BUCKETS_LARGE, i % DISTINCT_VALUES_IN_BUCKETS_LARGE);
+        }
+        long expected = Math.min(LIMIT, DISTINCT_BUCKETS_LARGE * DISTINCT_VALUES_IN_BUCKETS_LARGE);
+        if (ords.size() != expected) {
+            throw new IllegalArgumentException("Expected [" + expected + "] but found [" + ords.size() + "]");
+        }
+        bh.consume(ords);
+    }
 }
@@ -44,7 +44,7 @@ public class FetchSourcePhaseBenchmark {
     private FilterPath[] includesFilters;
     private FilterPath[] excludesFilters;
 
-    @Param({ "tiny", "short", "one_4k_field", "one_4m_field" })
+    @Param({ "tiny", "short", "one_4k_field", "one_4m_field", "many_fields_100k" })
     private String source;
     @Param({ "message" })
     private String includes;
@@ -66,6 +66,9 @@ public class FetchSourcePhaseBenchmark {
             case "one_4m_field":
                 sourceBytes = buildBigExample("huge".repeat(1024 * 1024));
                 break;
+            case "many_fields_100k":
+                sourceBytes = buildManyFieldsExample(100 * 1024);
+                break;
             default:
                 throw new IllegalArgumentException("Unknown source [" + source + "]");
         }
@@ -90,6 +93,21 @@ public class FetchSourcePhaseBenchmark {
         return new BytesArray(bigger);
     }
 
+    /**
+     * Builds a document of roughly {@code size} bytes out of many small objects
+     * followed by the fields of the 300 byte example.
+     */
+    private BytesReference buildManyFieldsExample(int size) throws IOException {
+        String example = read300BytesExample().utf8ToString();
+        StringBuilder bigger = new StringBuilder(size + example.length()).append('{');
+        for (int i = 0; bigger.length() < size; i++) {
+            bigger.append("\"field_").append(i).append("\": {\"id\": ").append(i).append(", \"value\": \"").append("text".repeat(16));
+            bigger.append("\", \"tags\": [\"a\", \"b\"]},");
+        }
+        bigger.append(example.substring(1));
+        return new BytesArray(bigger.toString());
+    }
+
     @Benchmark
     public BytesReference filterObjects() throws IOException {
         SourceLookup lookup = new SourceLookup();
@@ -98,6 +116,14 @@ public class FetchSourcePhaseBenchmark {
         return FetchSourcePhase.objectToBytes(value, XContentType.JSON, Math.min(1024, lookup.internalSourceRef().length()));
     }
 
+    @Benchmark
+    public BytesReference filterStreaming() throws IOException {
+        SourceLookup lookup = new SourceLookup();
+        lookup.setSource(sourceBytes);
+        lookup.setSourceContentType(XContentType.JSON);
+        return lookup.filterBytes(fetchContext, Math.min(1024, lookup.internalSourceRef().length()));
+    }
+
     @Benchmark
     public BytesReference filterXContentOnParser() throws IOException {
         BytesStreamOutput streamOutput = new BytesStreamOutput(Math.min(1024, sourceBytes.length()));
@@ -578,7 +578,8 @@ public class IndexShardIT extends ESSingleNodeTestCase {
                 () -> {},
                 RetentionLeaseSyncer.EMPTY,
                 cbs,
-                IndexModule.DEFAULT_SNAPSHOT_COMMIT_SUPPLIER);
+                IndexModule.DEFAULT_SNAPSHOT_COMMIT_SUPPLIER,
+                new TranslogSyncCoordinator(Settings.EMPTY, indexService.getThreadPool().getThreadContext()));
     }
 
     private static ShardRouting getInitializingShardRouting(ShardRouting existingShardRouting) {
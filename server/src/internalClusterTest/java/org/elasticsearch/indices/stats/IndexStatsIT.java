@@ -25,6 +25,7 @@ import org.elasticsearch.action.admin.indices.stats.ShardStats;
 import org.elasticsearch.action.bulk.BulkItemResponse;
 import org.elasticsearch.action.bulk.BulkRequest;
 import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
 import org.elasticsearch.action.get.GetResponse;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.index.IndexRequestBuilder;
@@ -734,7 +735,7 @@ public class IndexStatsIT extends ESIntegTestCase {
     public void testFlagOrdinalOrder() {
         Flag[] flags = new Flag[]{Flag.Store, Flag.Indexing, Flag.Get, Flag.Search, Flag.Merge, Flag.Flush, Flag.Refresh,
                 Flag.QueryCache, Flag.FieldData, Flag.Docs, Flag.Warmer, Flag.Completion, Flag.Segments,
-                Flag.Translog, Flag.RequestCache, Flag.Recovery, Flag.Bulk, Flag.Shards};
+                Flag.Translog, Flag.RequestCache, Flag.Recovery, Flag.Bulk, Flag.Shards, Flag.WriteLoad};
 
         assertThat(flags.length, equalTo(Flag.values().length));
         for (int i = 0; i < flags.length; i++) {
@@ -917,6 +918,9 @@ public class IndexStatsIT extends ESIntegTestCase {
                 // We don't actually expose shards in IndexStats, but this test fails if it isn't handled
                 builder.request().flags().set(Flag.Shards, set);
                 break;
+            case WriteLoad:
+                builder.setWriteLoad(set);
+                break;
             default:
                 fail("new flag? " + flag);
                 break;
@@ -961,6 +965,8 @@ public class IndexStatsIT extends ESIntegTestCase {
                 return response.getBulk() != null;
             case Shards:
                 return response.getShards() != null;
+            case WriteLoad:
+                return response.getWriteLoad() != null;
             default:
                 fail("new flag? " + flag);
                 return false;
@@ -1117,6 +1123,30 @@ public class IndexStatsIT extends ESIntegTestCase {
         assertThat(stats.getPrimaries().bulk.getAvgSizeInBytes(), greaterThan(0L));
     }
 
+    public void testWriteLoadStats() throws Exception {
+        final String index = "test";
+        assertAcked(prepareCreate(index).setSettings(settingsBuilder().put("index.number_of_shards", 2)
+            .put("index.number_of_replicas", 1)));
+        ensureGreen();
+        final BulkRequest request = new BulkRequest();
+        for (int i = 0; i < 20; ++i) {
+            request.add(new IndexRequest(index).id(Integer.toString(i)).source(Collections.singletonMap("key", "value" + i)));
+        }
+        request.add(new DeleteRequest(index, "0"));
+        request.setRefreshPolicy(WriteRequest.RefreshPolicy.IMMEDIATE);
+        assertThat(client().bulk(request).get().hasFailures(), equalTo(false));
+
+        IndicesStatsResponse stats = client().admin().indices().prepareStats(index).clear().setWriteLoad(true).get();
+        assertThat(stats.getPrimaries().getWriteLoad().getOperations(), equalTo(21L));
+        assertThat(stats.getTotal().getWriteLoad().getOperations(), equalTo(42L));
+        assertThat(stats.getTotal().getWriteLoad().getTotalTimeInMillis(), greaterThanOrEqualTo(0L));
+        assertThat(stats.getTotal().getWriteLoad().getParseTimeInMillis(), greaterThanOrEqualTo(0L));
+        assertThat(stats.getTotal().getWriteLoad().getIndexWriterTimeInMillis(), greaterThanOrEqualTo(0L));
+        assertThat(stats.getTotal().getWriteLoad().getTotalTimeInMillis(),
+            greaterThanOrEqualTo(stats.getTotal().getWriteLoad().getTranslogTimeInMillis()));
+        assertThat(stats.getTotal().getBulk(), nullValue());
+    }
+
     /**
      * Test that we can safely concurrently index and get stats. This test was inspired by a serialization issue that arose due to a race
      * getting doc stats during heavy indexing. The race could lead to deleted docs being negative which would then be serialized as a
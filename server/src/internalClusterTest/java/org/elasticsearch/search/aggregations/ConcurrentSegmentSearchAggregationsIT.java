@@ -0,0 +1,99 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.MergePolicyConfig;
+import org.elasticsearch.search.SearchService;
+import org.elasticsearch.test.ESIntegTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.elasticsearch.search.aggregations.AggregationBuilders.avg;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.cardinality;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.histogram;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.max;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.sum;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.terms;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertSearchResponse;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Checks that aggregations collected concurrently in slices of the segments of a shard have the same results as
+ * aggregations collected sequentially.
+ */
+public class ConcurrentSegmentSearchAggregationsIT extends ESIntegTestCase {
+
+    public void testSameResultsAsSequentialCollection() throws Exception {
+        assertAcked(
+            prepareCreate("index").setSettings(
+                Settings.builder()
+                    .put("index.number_of_shards", 1)
+                    .put("index.number_of_replicas", 0)
+                    // keep enough segments to search them in several slices
+                    .put(MergePolicyConfig.INDEX_MERGE_ENABLED, false)
+                    .put("index.refresh_interval", -1)
+            ).setMapping("tag", "type=keyword", "value", "type=long")
+        );
+        final int numSegments = randomIntBetween(8, 15);
+        for (int i = 0; i < numSegments; i++) {
+            final List<IndexRequestBuilder> docs = new ArrayList<>();
+            final int numDocs = randomIntBetween(1, 50);
+            for (int j = 0; j < numDocs; j++) {
+                docs.add(
+                    client().prepareIndex("index").setSource("tag", "tag" + randomIntBetween(0, 30), "value", randomIntBetween(0, 1000))
+                );
+            }
+            indexRandom(false, false, docs);
+            refresh("index");
+        }
+
+        final String sequential = searchAggregations(false);
+        try {
+            final String concurrent = searchAggregations(true);
+            assertThat(concurrent, equalTo(sequential));
+        } finally {
+            assertAcked(
+                client().admin()
+                    .cluster()
+                    .prepareUpdateSettings()
+                    .setPersistentSettings(Settings.builder().putNull(SearchService.CONCURRENT_SEGMENT_SEARCH_SETTING.getKey()))
+            );
+        }
+    }
+
+    private String searchAggregations(boolean concurrentSegmentSearch) {
+        assertAcked(
+            client().admin()
+                .cluster()
+                .prepareUpdateSettings()
+                .setPersistentSettings(
+                    Settings.builder().put(SearchService.CONCURRENT_SEGMENT_SEARCH_SETTING.getKey(), concurrentSegmentSearch)
+                )
+        );
+        SearchResponse response = client().prepareSearch("index")
+            .setRequestCache(false)
+            .setSize(0)
+            .addAggregation(
+                terms("by_key").field("tag").size(5).order(BucketOrder.key(true)).subAggregation(sum("sum").field("value"))
+            )
+            .addAggregation(terms("by_count").field("tag").size(5).subAggregation(max("max").field("value")))
+            .addAggregation(histogram("histogram").field("value").interval(100))
+            .addAggregation(avg("avg").field("value"))
+            .addAggregation(cardinality("cardinality").field("tag"))
+            .get();
+        assertSearchResponse(response);
+        return Strings.toString(response.getAggregations());
+    }
+}
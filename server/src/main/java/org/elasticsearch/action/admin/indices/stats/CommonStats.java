@@ -33,6 +33,7 @@ import org.elasticsearch.index.shard.DocsStats;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.IndexingStats;
 import org.elasticsearch.index.shard.ShardCountStats;
+import org.elasticsearch.index.shard.WriteLoadStats;
 import org.elasticsearch.index.store.StoreStats;
 import org.elasticsearch.index.translog.TranslogStats;
 import org.elasticsearch.index.warmer.WarmerStats;
@@ -100,6 +101,9 @@ public class CommonStats implements Writeable, ToXContentFragment {
     @Nullable
     public ShardCountStats shards;
 
+    @Nullable
+    public WriteLoadStats writeLoad;
+
     public CommonStats() {
         this(CommonStatsFlags.NONE);
     }
@@ -163,6 +167,9 @@ public class CommonStats implements Writeable, ToXContentFragment {
                 case Shards:
                     shards = new ShardCountStats();
                     break;
+                case WriteLoad:
+                    writeLoad = new WriteLoadStats();
+                    break;
                 default:
                     throw new IllegalStateException("Unknown Flag: " + flag);
             }
@@ -229,6 +236,9 @@ public class CommonStats implements Writeable, ToXContentFragment {
                         // Setting to 1 because the single IndexShard passed to this method implies 1 shard
                         shards = new ShardCountStats(1);
                         break;
+                    case WriteLoad:
+                        writeLoad = indexShard.writeLoadStats();
+                        break;
                     default:
                         throw new IllegalStateException("Unknown Flag: " + flag);
                 }
@@ -259,6 +269,9 @@ public class CommonStats implements Writeable, ToXContentFragment {
             bulk = in.readOptionalWriteable(BulkStats::new);
         }
         shards = in.readOptionalWriteable(ShardCountStats::new);
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            writeLoad = in.readOptionalWriteable(WriteLoadStats::new);
+        }
     }
 
     @Override
@@ -283,6 +296,9 @@ public class CommonStats implements Writeable, ToXContentFragment {
             out.writeOptionalWriteable(bulk);
         }
         out.writeOptionalWriteable(shards);
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeOptionalWriteable(writeLoad);
+        }
     }
 
     public void add(CommonStats stats) {
@@ -431,6 +447,14 @@ public class CommonStats implements Writeable, ToXContentFragment {
                 shards = shards.add(stats.shards);
             }
         }
+        if (writeLoad == null) {
+            if (stats.getWriteLoad() != null) {
+                writeLoad = new WriteLoadStats();
+                writeLoad.add(stats.getWriteLoad());
+            }
+        } else {
+            writeLoad.add(stats.getWriteLoad());
+        }
     }
 
     @Nullable
@@ -523,6 +547,11 @@ public class CommonStats implements Writeable, ToXContentFragment {
         return shards;
     }
 
+    @Nullable
+    public WriteLoadStats getWriteLoad() {
+        return writeLoad;
+    }
+
     /**
      * Utility method which computes total memory by adding
      * FieldData, PercolatorCache, Segments (index writer, version map)
@@ -548,7 +577,7 @@ public class CommonStats implements Writeable, ToXContentFragment {
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         final Stream<ToXContent> stream = Arrays.stream(new ToXContent[] {
             docs, shards, store, indexing, get, search, merge, refresh, flush, warmer, queryCache,
-            fieldData, completion, segments, translog, requestCache, recoveryStats, bulk})
+            fieldData, completion, segments, translog, requestCache, recoveryStats, bulk, writeLoad})
             .filter(Objects::nonNull);
         for (ToXContent toXContent : ((Iterable<ToXContent>)stream::iterator)) {
             toXContent.toXContent(builder, params);
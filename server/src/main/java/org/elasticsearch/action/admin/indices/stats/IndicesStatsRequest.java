@@ -255,6 +255,15 @@ public class IndicesStatsRequest extends BroadcastRequest<IndicesStatsRequest> {
         return flags.isSet(Flag.Bulk);
     }
 
+    public IndicesStatsRequest writeLoad(boolean writeLoad) {
+        flags.set(Flag.WriteLoad, writeLoad);
+        return this;
+    }
+
+    public boolean writeLoad() {
+        return flags.isSet(Flag.WriteLoad);
+    }
+
     public boolean includeSegmentFileSizes() {
         return flags.includeSegmentFileSizes();
     }
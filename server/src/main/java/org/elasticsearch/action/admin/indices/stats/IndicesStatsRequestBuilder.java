@@ -143,6 +143,11 @@ public class IndicesStatsRequestBuilder
         return this;
     }
 
+    public IndicesStatsRequestBuilder setWriteLoad(boolean writeLoad) {
+        request.writeLoad(writeLoad);
+        return this;
+    }
+
     public IndicesStatsRequestBuilder setIncludeSegmentFileSizes(boolean includeSegmentFileSizes) {
         request.includeSegmentFileSizes(includeSegmentFileSizes);
         return this;
@@ -0,0 +1,182 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.action.bulk;
+
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.common.util.concurrent.CountDown;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.mapper.DocumentMapper;
+import org.elasticsearch.index.mapper.ParsedDocument;
+import org.elasticsearch.index.mapper.SourceToParse;
+import org.elasticsearch.index.shard.IndexShard;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parses the documents of the index requests of a bulk shard request on several threads ahead of their execution on the primary.
+ * Items are still indexed one after the other in the order of the request, only turning their sources into Lucene documents is spread
+ * over the executor. Documents are parsed in windows of {@code parallelism * DOCS_PER_TASK} items so that the number of parsed
+ * documents held in memory is bounded, and the next window is only parsed once execution reaches it.
+ * <p>
+ * The executor is the one the bulk runs on, where forked tasks can queue behind whole bulk requests. So the calling thread never waits
+ * for a task that hasn't started: the tasks of a window are claimed by whichever thread gets to them first, and the calling thread
+ * parses all that remain unclaimed once it is done with its own. Helpers are only forked to threads of the pool that are idle.
+ * <p>
+ * A parsed document is only handed out if the mapping did not change since it was parsed, otherwise the item is parsed again when it
+ * is executed. Documents that fail to parse are also left to the regular execution, which reports the failure for the item.
+ */
+final class BulkItemParser {
+
+    static final int DOCS_PER_TASK = 32;
+
+    private final BulkShardRequest request;
+    private final IndexShard primary;
+    private final Executor executor;
+    private final int parallelism;
+    private final ParsedDocument[] parsedDocuments;
+    private final long[] parseNanos;
+
+    private DocumentMapper mapper;
+    private int usedDocuments;
+    private int windowStart;
+    private int windowEnd;
+
+    BulkItemParser(BulkShardRequest request, IndexShard primary, Executor executor, int parallelism) {
+        assert parallelism > 1 : parallelism;
+        this.request = request;
+        this.primary = primary;
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.parsedDocuments = new ParsedDocument[request.items().length];
+        this.parseNanos = new long[request.items().length];
+    }
+
+    /**
+     * Returns {@code true} if the item at the given position has not been considered for parsing yet.
+     */
+    boolean needsParsing(int itemIndex) {
+        return itemIndex >= windowEnd;
+    }
+
+    /**
+     * Parses the window of items that starts at the given position. The calling thread parses the documents that no idle thread of
+     * the executor claims before it gets to them.
+     *
+     * @return {@code true} if all documents of the window are parsed when this method returns, {@code false} if the given callback
+     *         will be invoked on another thread once the last document of the window is parsed
+     */
+    boolean parseWindow(int from, Runnable onParsedOnOtherThread) {
+        assert needsParsing(from);
+        for (int i = windowStart; i < windowEnd; i++) {
+            // release documents of the previous window that were not used, e.g. because the mapping changed
+            parsedDocuments[i] = null;
+        }
+        mapper = primary.mapperService().documentMapper();
+        windowStart = from;
+        windowEnd = Math.min(parsedDocuments.length, from + parallelism * DOCS_PER_TASK);
+        if (mapper == null) {
+            // the first document creates the mapping, all others depend on it
+            return true;
+        }
+        final DocumentMapper windowMapper = mapper;
+        final int end = windowEnd;
+        final int tasks = (end - from + DOCS_PER_TASK - 1) / DOCS_PER_TASK;
+        final AtomicInteger nextTask = new AtomicInteger();
+        // one count per task plus one that the calling thread counts down once all tasks are claimed
+        final CountDown countDown = new CountDown(tasks + 1);
+        final int helpers = Math.min(Math.min(parallelism, tasks) - 1, idleThreads());
+        for (int i = 0; i < helpers; i++) {
+            try {
+                executor.execute(() -> {
+                    if (parseTasks(windowMapper, from, end, tasks, nextTask, countDown)) {
+                        onParsedOnOtherThread.run();
+                    }
+                });
+            } catch (EsRejectedExecutionException e) {
+                // the calling thread parses the tasks that no helper claims
+                break;
+            }
+        }
+        final boolean completedLastTask = parseTasks(windowMapper, from, end, tasks, nextTask, countDown);
+        assert completedLastTask == false : "the count of the calling thread is still pending";
+        return countDown.countDown();
+    }
+
+    /**
+     * Parses tasks of the window until all of them are claimed.
+     *
+     * @return {@code true} if this thread completed the last task and the calling thread had already claimed all of them
+     */
+    private boolean parseTasks(DocumentMapper mapper, int from, int end, int tasks, AtomicInteger nextTask, CountDown countDown) {
+        boolean last = false;
+        int task;
+        while ((task = nextTask.getAndIncrement()) < tasks) {
+            final int taskStart = from + task * DOCS_PER_TASK;
+            parse(mapper, taskStart, Math.min(end, taskStart + DOCS_PER_TASK));
+            last = countDown.countDown();
+        }
+        return last;
+    }
+
+    /**
+     * Returns how many threads of the executor are idle, so that helpers are never queued behind other work.
+     */
+    private int idleThreads() {
+        if (executor instanceof ThreadPoolExecutor) {
+            final ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+            return Math.max(0, pool.getMaximumPoolSize() - pool.getActiveCount());
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    private void parse(DocumentMapper mapper, int from, int to) {
+        for (int i = from; i < to; i++) {
+            final BulkItemRequest item = request.items()[i];
+            if (item.request() instanceof IndexRequest == false || BulkPrimaryExecutionContext.isAborted(item.getPrimaryResponse())) {
+                continue;
+            }
+            final IndexRequest indexRequest = (IndexRequest) item.request();
+            final long startTime = System.nanoTime();
+            try {
+                parsedDocuments[i] = mapper.parse(new SourceToParse(indexRequest.index(), indexRequest.id(), indexRequest.source(),
+                    indexRequest.getContentType(), indexRequest.routing(), indexRequest.getDynamicTemplates()));
+            } catch (Exception e) {
+                // parsed again and reported once the item is executed
+            }
+            parseNanos[i] = System.nanoTime() - startTime;
+        }
+    }
+
+    /**
+     * Returns the parsed document of the item at the given position if it is still valid for the given mapper. Each document is only
+     * returned once since the engine modifies it while indexing. The time spent parsing is only accounted to the shard for documents
+     * that are returned, the shard accounts for the time it spends parsing the others again.
+     */
+    @Nullable
+    ParsedDocument takeParsedDocument(int itemIndex, DocumentMapper currentMapper) {
+        final ParsedDocument parsedDocument = parsedDocuments[itemIndex];
+        parsedDocuments[itemIndex] = null;
+        if (parsedDocument == null || currentMapper != mapper) {
+            return null;
+        }
+        usedDocuments++;
+        primary.addParseTime(parseNanos[itemIndex]);
+        return parsedDocument;
+    }
+
+    /**
+     * Returns the number of parsed documents that were handed out for execution.
+     */
+    int usedDocuments() {
+        return usedDocuments;
+    }
+}
@@ -16,9 +16,13 @@ import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.Releasables;
 import org.elasticsearch.index.shard.ShardId;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 public class BulkItemRequest implements Writeable, Accountable {
@@ -32,11 +36,21 @@ public class BulkItemRequest implements Writeable, Accountable {
     BulkItemRequest(@Nullable ShardId shardId, StreamInput in) throws IOException {
         id = in.readVInt();
         request = DocWriteRequest.readDocumentRequest(shardId, in);
-        if (in.readBoolean()) {
-            if (shardId == null) {
-                primaryResponse = new BulkItemResponse(in);
-            } else {
-                primaryResponse = new BulkItemResponse(shardId, in);
+        boolean success = false;
+        try {
+            if (in.readBoolean()) {
+                if (shardId == null) {
+                    primaryResponse = new BulkItemResponse(in);
+                } else {
+                    primaryResponse = new BulkItemResponse(shardId, in);
+                }
+            }
+            success = true;
+        } finally {
+            if (success == false) {
+                final List<Releasable> sources = new ArrayList<>();
+                BulkShardRequest.addReleasableSources(sources, request);
+                Releasables.close(sources);
             }
         }
     }
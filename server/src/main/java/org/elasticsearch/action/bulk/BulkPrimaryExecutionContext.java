@@ -11,14 +11,19 @@ package org.elasticsearch.action.bulk;
 import org.elasticsearch.action.DocWriteRequest;
 import org.elasticsearch.action.DocWriteResponse;
 import org.elasticsearch.action.delete.DeleteResponse;
+import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.action.support.replication.ReplicationResponse;
 import org.elasticsearch.action.support.replication.TransportWriteAction;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.mapper.ParsedDocument;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.translog.Translog;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 /**
  * This is a utility class that holds the per request state needed to perform bulk operations on the primary.
@@ -59,11 +64,14 @@ class BulkPrimaryExecutionContext {
     private final IndexShard primary;
     private Translog.Location locationToSync = null;
     private int currentIndex = -1;
+    // the last item returned by nextPendingIndexRequest
+    private int lastPendingIndex = -1;
 
     private ItemProcessingState currentItemState;
     private DocWriteRequest<?> requestToExecute;
     private BulkItemResponse executionResult;
     private int retryCounter;
+    private BulkItemParser itemParser;
 
 
     BulkPrimaryExecutionContext(BulkShardRequest request, IndexShard primary) {
@@ -81,7 +89,7 @@ class BulkPrimaryExecutionContext {
         return startIndex;
     }
 
-    private static boolean isAborted(BulkItemResponse response) {
+    static boolean isAborted(BulkItemResponse response) {
         return response != null && response.isFailed() && response.getFailure().isAborted();
     }
 
@@ -156,6 +164,79 @@ class BulkPrimaryExecutionContext {
     }
 
 
+    /** sets the parser that parses the documents of this request ahead of their execution */
+    void setItemParser(BulkItemParser itemParser) {
+        this.itemParser = itemParser;
+    }
+
+    /** returns the parser that parses the documents of this request ahead of their execution, if any */
+    @Nullable
+    BulkItemParser getItemParser() {
+        return itemParser;
+    }
+
+    /** returns the position of the current item in the request */
+    int getCurrentItemIndex() {
+        return currentIndex;
+    }
+
+    /**
+     * returns the document of the current, untranslated index request if it was parsed ahead of execution with the current mapping
+     */
+    @Nullable
+    public ParsedDocument takeParsedDocument() {
+        if (itemParser == null || requestToExecute != getCurrent()) {
+            return null;
+        }
+        return itemParser.takeParsedDocument(currentIndex, primary.mapperService().documentMapper());
+    }
+
+    /**
+     * returns the document of the index request at the given position if it was parsed ahead of execution with the current mapping
+     */
+    @Nullable
+    ParsedDocument takeParsedDocument(int itemIndex) {
+        if (itemParser == null) {
+            return null;
+        }
+        return itemParser.takeParsedDocument(itemIndex, primary.mapperService().documentMapper());
+    }
+
+    /**
+     * returns the positions of up to {@code maxItems} consecutive, non-aborted index requests with auto-generated ids that are not
+     * retries, starting at the current item
+     */
+    List<Integer> getAppendOnlyIndexRequestPositions(int maxItems) {
+        final List<Integer> positions = new ArrayList<>();
+        for (int i = currentIndex; i < request.items().length && positions.size() < maxItems; i = findNextNonAborted(i + 1)) {
+            if (request.items()[i].request() instanceof IndexRequest == false) {
+                break;
+            }
+            final IndexRequest indexRequest = (IndexRequest) request.items()[i].request();
+            if (indexRequest.getAutoGeneratedTimestamp() == IndexRequest.UNSET_AUTO_GENERATED_TIMESTAMP || indexRequest.isRetry()) {
+                break;
+            }
+            positions.add(i);
+        }
+        return positions;
+    }
+
+    /**
+     * returns the next index request after the current item that has not been aborted, in the order they will be executed, or
+     * {@code null} if there is none. Each item is returned at most once per shard request, so that the items that a previous
+     * item already parsed for its mapping update are not parsed again for the mapping update of the next ones.
+     */
+    public IndexRequest nextPendingIndexRequest() {
+        for (int i = findNextNonAborted(Math.max(currentIndex, lastPendingIndex) + 1); i < request.items().length;
+             i = findNextNonAborted(i + 1)) {
+            lastPendingIndex = i;
+            if (request.items()[i].request() instanceof IndexRequest) {
+                return (IndexRequest) request.items()[i].request();
+            }
+        }
+        return null;
+    }
+
     /** returns the name of the index the current request used */
     public String getConcreteIndex() {
         return getCurrentItem().index();
@@ -15,13 +15,19 @@ import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.support.replication.ReplicatedWriteRequest;
 import org.elasticsearch.action.support.replication.ReplicationRequest;
 import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.core.AbstractRefCounted;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.Releasables;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.transport.RawIndexingDataTransportRequest;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Stream;
 
@@ -31,17 +37,59 @@ public class BulkShardRequest extends ReplicatedWriteRequest<BulkShardRequest> i
 
     private final BulkItemRequest[] items;
 
+    /**
+     * Tracks the users of the item sources that were read from the wire. These sources may be slices of a pooled network buffer
+     * which are only released once the last reference to this request is released.
+     */
+    private final AbstractRefCounted refCounted;
+
     public BulkShardRequest(StreamInput in) throws IOException {
         super(in);
-        items = in.readArray(i -> i.readOptionalWriteable(inpt -> new BulkItemRequest(shardId, inpt)), BulkItemRequest[]::new);
+        final List<Releasable> sources = new ArrayList<>();
+        boolean success = false;
+        try {
+            items = in.readArray(i -> {
+                final BulkItemRequest item = i.readOptionalWriteable(inpt -> new BulkItemRequest(shardId, inpt));
+                if (item != null) {
+                    addReleasableSources(sources, item.request());
+                }
+                return item;
+            }, BulkItemRequest[]::new);
+            success = true;
+        } finally {
+            if (success == false) {
+                // release the slices of the network buffer kept by the items that were read before the failure
+                Releasables.close(sources);
+            }
+        }
+        refCounted = AbstractRefCounted.of(() -> Releasables.close(sources));
     }
 
     public BulkShardRequest(ShardId shardId, RefreshPolicy refreshPolicy, BulkItemRequest[] items) {
         super(shardId);
         this.items = items;
+        this.refCounted = AbstractRefCounted.of(() -> {});
         setRefreshPolicy(refreshPolicy);
     }
 
+    /**
+     * Adds the sources of the given request that are slices of a network buffer to the given list.
+     */
+    static void addReleasableSources(List<Releasable> sources, DocWriteRequest<?> request) {
+        if (request instanceof IndexRequest) {
+            addIfReleasable(sources, (IndexRequest) request);
+        } else if (request instanceof UpdateRequest) {
+            addIfReleasable(sources, ((UpdateRequest) request).doc());
+            addIfReleasable(sources, ((UpdateRequest) request).upsertRequest());
+        }
+    }
+
+    private static void addIfReleasable(List<Releasable> sources, IndexRequest request) {
+        if (request != null && request.source() instanceof ReleasableBytesReference) {
+            sources.add((ReleasableBytesReference) request.source());
+        }
+    }
+
     public long totalSizeInBytes() {
         long totalSizeInBytes = 0;
         for (int i = 0; i < items.length; i++) {
@@ -144,6 +192,26 @@ public class BulkShardRequest extends ReplicatedWriteRequest<BulkShardRequest> i
         }
     }
 
+    @Override
+    public void incRef() {
+        refCounted.incRef();
+    }
+
+    @Override
+    public boolean tryIncRef() {
+        return refCounted.tryIncRef();
+    }
+
+    @Override
+    public boolean decRef() {
+        return refCounted.decRef();
+    }
+
+    @Override
+    public boolean hasReferences() {
+        return refCounted.hasReferences();
+    }
+
     @Override
     public long ramBytesUsed() {
         return SHALLOW_SIZE + Stream.of(items).mapToLong(Accountable::ramBytesUsed).sum();
@@ -40,17 +40,21 @@ import org.elasticsearch.core.Tuple;
 import org.elasticsearch.common.compress.CompressedXContent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.lucene.uid.Versions;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.xcontent.XContentType;
 import org.elasticsearch.index.IndexingPressure;
+import org.elasticsearch.index.VersionType;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.engine.VersionConflictEngineException;
 import org.elasticsearch.index.get.GetResult;
+import org.elasticsearch.index.mapper.DocumentMapper;
 import org.elasticsearch.index.mapper.MapperException;
 import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.mapper.Mapping;
 import org.elasticsearch.index.mapper.SourceToParse;
 import org.elasticsearch.index.seqno.SequenceNumbers;
 import org.elasticsearch.index.shard.IndexShard;
@@ -65,6 +69,8 @@ import org.elasticsearch.transport.TransportRequestOptions;
 import org.elasticsearch.transport.TransportService;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executor;
 import java.util.function.Consumer;
@@ -128,7 +134,9 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
                 public void onTimeout(TimeValue timeout) {
                     mappingUpdateListener.onFailure(new MapperException("timed out while waiting for a dynamic mapping update"));
                 }
-            }), listener, threadPool, executor(primary)
+            }), listener, threadPool, executor(primary),
+            primary.indexSettings().isBulkParallelParsing() ? threadPool.info(executor(primary)).getMax() : 1,
+            primary.indexSettings().isBulkBatchAppendOnly()
         );
     }
 
@@ -142,6 +150,11 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
         return request.items().length;
     }
 
+    /**
+     * The maximum number of items that {@link #executeAppendOnlyBatch} indexes with a single call to the engine.
+     */
+    static final int MAX_APPEND_ONLY_BATCH_SIZE = 128;
+
     public static void performOnPrimary(
         BulkShardRequest request,
         IndexShard primary,
@@ -152,17 +165,55 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
         ActionListener<PrimaryResult<BulkShardRequest, BulkShardResponse>> listener,
         ThreadPool threadPool,
         String executorName) {
+        performOnPrimary(request, primary, updateHelper, nowInMillisSupplier, mappingUpdater, waitForMappingUpdate, listener, threadPool,
+            executorName, 1, false);
+    }
+
+    /**
+     * Same as {@link #performOnPrimary(BulkShardRequest, IndexShard, UpdateHelper, LongSupplier, MappingUpdatePerformer, Consumer,
+     * ActionListener, ThreadPool, String)} but parses the documents of large requests on up to {@code parseParallelism} threads of the
+     * given executor ahead of indexing them, and if {@code batchAppendOnly} is set indexes runs of consecutive index requests with
+     * auto-generated ids with a single call to the engine.
+     */
+    public static void performOnPrimary(
+        BulkShardRequest request,
+        IndexShard primary,
+        UpdateHelper updateHelper,
+        LongSupplier nowInMillisSupplier,
+        MappingUpdatePerformer mappingUpdater,
+        Consumer<ActionListener<Void>> waitForMappingUpdate,
+        ActionListener<PrimaryResult<BulkShardRequest, BulkShardResponse>> listener,
+        ThreadPool threadPool,
+        String executorName,
+        int parseParallelism,
+        boolean batchAppendOnly) {
+        final BulkPrimaryExecutionContext executionContext = new BulkPrimaryExecutionContext(request, primary);
+        // parsing in parallel only pays off if there are enough documents to keep several threads busy
+        if (parseParallelism > 1 && request.items().length > BulkItemParser.DOCS_PER_TASK) {
+            executionContext.setItemParser(
+                new BulkItemParser(request, primary, threadPool.executor(executorName), parseParallelism));
+        }
         new ActionRunnable<>(listener) {
 
             private final Executor executor = threadPool.executor(executorName);
 
-            private final BulkPrimaryExecutionContext context = new BulkPrimaryExecutionContext(request, primary);
+            private final BulkPrimaryExecutionContext context = executionContext;
 
             final long startBulkTime = System.nanoTime();
 
             @Override
             protected void doRun() throws Exception {
                 while (context.hasMoreOperationsToExecute()) {
+                    final BulkItemParser itemParser = context.getItemParser();
+                    if (itemParser != null && itemParser.needsParsing(context.getCurrentItemIndex())
+                        && itemParser.parseWindow(context.getCurrentItemIndex(), this::run) == false) {
+                        // The documents are still being parsed on another thread, that will invoke this action again once its done
+                        // so we just break out here.
+                        return;
+                    }
+                    if (batchAppendOnly && executeAppendOnlyBatch(context)) {
+                        continue;
+                    }
                     if (executeBulkItemRequest(context, updateHelper, nowInMillisSupplier, mappingUpdater, waitForMappingUpdate,
                         ActionListener.wrap(v -> executor.execute(this), this::onRejection)) == false) {
                         // We are waiting for a mapping update on another thread, that will invoke this action again once its done
@@ -212,6 +263,48 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
         }.run();
     }
 
+    /**
+     * Indexes the run of consecutive index requests with auto-generated ids that starts at the current item with a single call to
+     * {@link IndexShard#applyIndexOperationsOnPrimary}. The run ends before the first document that fails to parse or requires a
+     * mapping update, that item is left to {@link #executeBulkItemRequest} which handles these cases.
+     *
+     * @return {@code true} if at least one item was executed and completed, {@code false} if the current item must be executed on its own
+     */
+    static boolean executeAppendOnlyBatch(BulkPrimaryExecutionContext context) throws Exception {
+        final List<Integer> positions = context.getAppendOnlyIndexRequestPositions(MAX_APPEND_ONLY_BATCH_SIZE);
+        if (positions.size() < 2) {
+            return false;
+        }
+        final IndexShard primary = context.getPrimary();
+        final List<Engine.Index> operations = new ArrayList<>(positions.size());
+        for (int position : positions) {
+            final IndexRequest request = (IndexRequest) context.getBulkShardRequest().items()[position].request();
+            final SourceToParse sourceToParse = new SourceToParse(request.index(), request.id(), request.source(),
+                request.getContentType(), request.routing(), request.getDynamicTemplates());
+            final Engine.Index operation;
+            try {
+                operation = primary.prepareIndexOnPrimary(request.version(), request.versionType(), sourceToParse, request.ifSeqNo(),
+                    request.ifPrimaryTerm(), request.getAutoGeneratedTimestamp(), request.isRetry(), context.takeParsedDocument(position));
+            } catch (Exception e) {
+                break;
+            }
+            if (operation.parsedDoc().dynamicMappingsUpdate() != null) {
+                break;
+            }
+            operations.add(operation);
+        }
+        if (operations.isEmpty()) {
+            return false;
+        }
+        final List<Engine.IndexResult> results = primary.applyIndexOperationsOnPrimary(operations);
+        for (int i = 0; i < results.size(); i++) {
+            assert context.getCurrentItemIndex() == positions.get(i) : context.getCurrentItemIndex() + " != " + positions.get(i);
+            context.setRequestToExecute(context.getCurrent());
+            onComplete(results.get(i), context, null);
+        }
+        return true;
+    }
+
     /**
      * Executes bulk item requests and handles request execution exceptions.
      * @return {@code true} if request completed on this thread and the listener was invoked, {@code false} if the request triggered
@@ -277,12 +370,14 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
             final SourceToParse sourceToParse = new SourceToParse(request.index(), request.id(), request.source(),
                 request.getContentType(), request.routing(), request.getDynamicTemplates());
             result = primary.applyIndexOperationOnPrimary(version, request.versionType(), sourceToParse,
-                    request.ifSeqNo(), request.ifPrimaryTerm(), request.getAutoGeneratedTimestamp(), request.isRetry());
+                    request.ifSeqNo(), request.ifPrimaryTerm(), request.getAutoGeneratedTimestamp(), request.isRetry(),
+                    context.takeParsedDocument());
         }
         if (result.getResultType() == Engine.Result.Type.MAPPING_UPDATE_REQUIRED) {
 
+            final DocumentMapper preflightMapper;
             try {
-                primary.mapperService().merge(MapperService.SINGLE_MAPPING_NAME,
+                preflightMapper = primary.mapperService().merge(MapperService.SINGLE_MAPPING_NAME,
                     new CompressedXContent(result.getRequiredMappingUpdate(), XContentType.JSON, ToXContent.EMPTY_PARAMS),
                     MapperService.MergeReason.MAPPING_UPDATE_PREFLIGHT);
             } catch (Exception e) {
@@ -291,35 +386,46 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
                 return true;
             }
 
-            mappingUpdater.updateMappings(result.getRequiredMappingUpdate(), primary.shardId(),
-                new ActionListener<>() {
-                    @Override
-                    public void onResponse(Void v) {
-                        context.markAsRequiringMappingUpdate();
-                        waitForMappingUpdate.accept(
-                            ActionListener.runAfter(new ActionListener<>() {
-                                @Override
-                                public void onResponse(Void v) {
-                                    assert context.requiresWaitingForMappingUpdate();
-                                    context.resetForExecutionForRetry();
-                                }
-
-                                @Override
-                                public void onFailure(Exception e) {
-                                    context.failOnMappingUpdate(e);
-                                }
-                            }, () -> itemDoneListener.onResponse(null))
-                        );
-                    }
+            final Mapping ownMappingUpdate = result.getRequiredMappingUpdate();
+            final ActionListener<Void> mappingUpdateListener = new ActionListener<>() {
+                @Override
+                public void onResponse(Void v) {
+                    context.markAsRequiringMappingUpdate();
+                    waitForMappingUpdate.accept(
+                        ActionListener.runAfter(new ActionListener<>() {
+                            @Override
+                            public void onResponse(Void v) {
+                                assert context.requiresWaitingForMappingUpdate();
+                                context.resetForExecutionForRetry();
+                            }
+
+                            @Override
+                            public void onFailure(Exception e) {
+                                context.failOnMappingUpdate(e);
+                            }
+                        }, () -> itemDoneListener.onResponse(null))
+                    );
+                }
 
-                    @Override
-                    public void onFailure(Exception e) {
-                        onComplete(exceptionToResult(e, primary, isDelete, version), context, updateResult);
-                        // Requesting mapping update failed, so we don't have to wait for a cluster state update
-                        assert context.isInitial();
-                        itemDoneListener.onResponse(null);
-                    }
-                });
+                @Override
+                public void onFailure(Exception e) {
+                    onComplete(exceptionToResult(e, primary, isDelete, version), context, updateResult);
+                    // Requesting mapping update failed, so we don't have to wait for a cluster state update
+                    assert context.isInitial();
+                    itemDoneListener.onResponse(null);
+                }
+            };
+            final Mapping mappingUpdate = addMappingUpdatesOfPendingItems(context, ownMappingUpdate, preflightMapper);
+            if (mappingUpdate == ownMappingUpdate) {
+                mappingUpdater.updateMappings(ownMappingUpdate, primary.shardId(), mappingUpdateListener);
+            } else {
+                mappingUpdater.updateMappings(mappingUpdate, primary.shardId(), mappingUpdateListener.delegateResponse((l, e) -> {
+                    // the update of the pending items must not fail the current item, they request their own update once executed
+                    logger.debug(() -> new ParameterizedMessage("{} grouped mapping update rejected, only requesting the update of " +
+                        "the current item", primary.shardId()), e);
+                    mappingUpdater.updateMappings(ownMappingUpdate, primary.shardId(), l);
+                }));
+            }
             return false;
         } else {
             onComplete(result, context, updateResult);
@@ -327,6 +433,61 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
         return true;
     }
 
+    /**
+     * Parses the index requests that follow the current item against the mappings the current item requires, and adds the dynamic
+     * mapping updates they need to the given update. This way a shard request that introduces many new fields waits for a single
+     * mapping update round-trip to the master instead of one per item. Only requests that can't fail on a version conflict are
+     * considered so that the mappings don't get fields of documents that are never indexed. Items that fail to parse are left out,
+     * they fail once they are executed. The updates are added in item order and stop at the first item whose update conflicts with
+     * the previous ones, so that a later item never maps a field that an earlier item would have mapped differently. Each item is
+     * parsed for the update of at most one previous item, so a request that introduces fields in every item isn't parsed
+     * quadratically. If the primary rejects the merged update then only the given update, which already passed the preflight check,
+     * is returned.
+     */
+    static Mapping addMappingUpdatesOfPendingItems(BulkPrimaryExecutionContext context, Mapping update, DocumentMapper preflightMapper) {
+        final IndexShard primary = context.getPrimary();
+        Mapping mergedUpdate = update;
+        for (IndexRequest request = context.nextPendingIndexRequest(); request != null; request = context.nextPendingIndexRequest()) {
+            if (request.opType() != DocWriteRequest.OpType.INDEX || request.ifSeqNo() != SequenceNumbers.UNASSIGNED_SEQ_NO
+                || request.versionType() != VersionType.INTERNAL || request.version() != Versions.MATCH_ANY) {
+                continue;
+            }
+            final Mapping requiredUpdate;
+            try {
+                requiredUpdate = preflightMapper.parse(new SourceToParse(request.index(), request.id(), request.source(),
+                    request.getContentType(), request.routing(), request.getDynamicTemplates())).dynamicMappingsUpdate();
+            } catch (MapperException e) {
+                final String id = request.id();
+                logger.trace(() -> new ParameterizedMessage("{} failed to parse pending item [{}]", primary.shardId(), id), e);
+                continue;
+            }
+            if (requiredUpdate == null) {
+                continue;
+            }
+            try {
+                mergedUpdate = MapperService.mergeDynamicMappingUpdates(mergedUpdate, requiredUpdate);
+            } catch (IllegalArgumentException e) {
+                final String id = request.id();
+                logger.trace(() -> new ParameterizedMessage("{} mapping update of pending item [{}] conflicts with the previous items",
+                    primary.shardId(), id), e);
+                break;
+            }
+        }
+        if (mergedUpdate == update) {
+            return update;
+        }
+        try {
+            primary.mapperService().merge(MapperService.SINGLE_MAPPING_NAME,
+                new CompressedXContent(mergedUpdate, XContentType.JSON, ToXContent.EMPTY_PARAMS),
+                MapperService.MergeReason.MAPPING_UPDATE_PREFLIGHT);
+        } catch (Exception e) {
+            logger.debug(() -> new ParameterizedMessage("{} grouped mapping update rejected by primary, only requesting the update " +
+                "of the current item", primary.shardId()), e);
+            return update;
+        }
+        return mergedUpdate;
+    }
+
     private static Engine.Result exceptionToResult(Exception e, IndexShard primary, boolean isDelete, long version) {
         return isDelete ? primary.getFailedDeleteResult(e, version) : primary.getFailedIndexResult(e, version);
     }
@@ -25,6 +25,7 @@ import org.elasticsearch.core.Nullable;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.lucene.uid.Versions;
@@ -123,33 +124,44 @@ public class IndexRequest extends ReplicatedWriteRequest<IndexRequest> implement
         }
         id = in.readOptionalString();
         routing = in.readOptionalString();
-        source = in.readBytesReference();
-        opType = OpType.fromId(in.readByte());
-        version = in.readLong();
-        versionType = VersionType.fromValue(in.readByte());
-        pipeline = in.readOptionalString();
-        if (in.getVersion().onOrAfter(Version.V_7_5_0)) {
-            finalPipeline = in.readOptionalString();
-        }
-        if (in.getVersion().onOrAfter(Version.V_7_5_0)) {
-            isPipelineResolved = in.readBoolean();
-        }
-        isRetry = in.readBoolean();
-        autoGeneratedTimestamp = in.readLong();
-        if (in.readBoolean()) {
-            contentType = in.readEnum(XContentType.class);
-        } else {
-            contentType = null;
-        }
-        ifSeqNo = in.readZLong();
-        ifPrimaryTerm = in.readVLong();
-        if (in.getVersion().onOrAfter(Version.V_7_10_0)) {
-            requireAlias = in.readBoolean();
-        } else {
-            requireAlias = false;
-        }
-        if (in.getVersion().onOrAfter(Version.V_7_13_0)) {
-            dynamicTemplates = in.readMap(StreamInput::readString, StreamInput::readString);
+        // items of a shard-level bulk request keep a slice of the (possibly pooled) network buffer instead of copying it,
+        // the owning BulkShardRequest releases it once the replication round-trip is done
+        source = shardId == null ? in.readBytesReference() : in.readReleasableBytesReference();
+        boolean success = false;
+        try {
+            opType = OpType.fromId(in.readByte());
+            version = in.readLong();
+            versionType = VersionType.fromValue(in.readByte());
+            pipeline = in.readOptionalString();
+            if (in.getVersion().onOrAfter(Version.V_7_5_0)) {
+                finalPipeline = in.readOptionalString();
+            }
+            if (in.getVersion().onOrAfter(Version.V_7_5_0)) {
+                isPipelineResolved = in.readBoolean();
+            }
+            isRetry = in.readBoolean();
+            autoGeneratedTimestamp = in.readLong();
+            if (in.readBoolean()) {
+                contentType = in.readEnum(XContentType.class);
+            } else {
+                contentType = null;
+            }
+            ifSeqNo = in.readZLong();
+            ifPrimaryTerm = in.readVLong();
+            if (in.getVersion().onOrAfter(Version.V_7_10_0)) {
+                requireAlias = in.readBoolean();
+            } else {
+                requireAlias = false;
+            }
+            if (in.getVersion().onOrAfter(Version.V_7_13_0)) {
+                dynamicTemplates = in.readMap(StreamInput::readString, StreamInput::readString);
+            }
+            success = true;
+        } finally {
+            if (success == false) {
+                // don't leak the slice of the network buffer if the rest of the request can't be read
+                releaseSource();
+            }
         }
     }
 
@@ -336,6 +348,12 @@ public class IndexRequest extends ReplicatedWriteRequest<IndexRequest> implement
         return source;
     }
 
+    private void releaseSource() {
+        if (source instanceof ReleasableBytesReference) {
+            ((ReleasableBytesReference) source).close();
+        }
+    }
+
     public Map<String, Object> sourceAsMap() {
         return XContentHelper.convertToMap(source, false, contentType).v2();
     }
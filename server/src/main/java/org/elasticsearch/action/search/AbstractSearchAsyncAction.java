@@ -25,8 +25,10 @@ import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.routing.GroupShardsIterator;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.common.util.concurrent.AtomicArray;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.core.Releasables;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.search.SearchContextMissingException;
 import org.elasticsearch.search.SearchPhaseResult;
@@ -38,6 +40,8 @@ import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.internal.ShardSearchContextId;
 import org.elasticsearch.search.internal.ShardSearchRequest;
 import org.elasticsearch.tasks.TaskCancelledException;
+import org.elasticsearch.threadpool.Scheduler;
+import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.Transport;
 
 import java.util.ArrayDeque;
@@ -50,6 +54,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
@@ -96,6 +101,8 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
     private final Map<String, PendingExecutions> pendingExecutionsPerNode = new ConcurrentHashMap<>();
     private final boolean throttleConcurrentRequests;
     private final AtomicBoolean requestCancelled = new AtomicBoolean();
+    private SearchHedgingPolicy hedgingPolicy;
+    private AtomicReferenceArray<HedgedShardRequest> hedgedRequests;
 
     private final List<Releasable> releasables = new ArrayList<>();
 
@@ -283,7 +290,43 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
         return true;
     }
 
+    /**
+     * Enables hedged requests, see {@link SearchHedgingPolicy}. Must be called before the phase runs.
+     */
+    void setHedgingPolicy(SearchHedgingPolicy hedgingPolicy) {
+        assert totalOps.get() == 0 : "hedging must be enabled before the phase runs";
+        this.hedgingPolicy = hedgingPolicy;
+        this.hedgedRequests = new AtomicReferenceArray<>(shardIterators.length);
+    }
+
     protected void performPhaseOnShard(final int shardIndex, final SearchShardIterator shardIt, final SearchShardTarget shard) {
+        HedgedShardRequest hedge = null;
+        if (hedgingPolicy != null && shard != null && shardIt.remaining() > 0 && hedgedRequests.get(shardIndex) == null
+            && shardIt.getSearchContextId() == null) {
+            // only the first attempt on a shard is hedged, attempts that fail over to another copy are not. Requests on a point
+            // in time are not hedged either, their reader context only lives on the copy that opened it.
+            final TimeValue delay = hedgingPolicy.hedgeDelay(shard);
+            if (delay != null) {
+                hedge = new HedgedShardRequest();
+                hedgedRequests.set(shardIndex, hedge);
+                final HedgedShardRequest hedgedRequest = hedge;
+                hedge.scheduleHedge(hedgingPolicy.threadPool().schedule(
+                    () -> fork(() -> maybeHedge(shardIndex, shardIt, hedgedRequest)), delay, ThreadPool.Names.SAME));
+            }
+        }
+        performPhaseOnShard(shardIndex, shardIt, shard, hedge);
+    }
+
+    private void maybeHedge(int shardIndex, SearchShardIterator shardIt, HedgedShardRequest hedge) {
+        final SearchShardTarget nextShard = hedge.tryHedge(shardIt);
+        if (nextShard != null) {
+            logger.debug("hedging request for shard {} to {}", shardIt.shardId(), nextShard);
+            performPhaseOnShard(shardIndex, shardIt, nextShard, hedge);
+        }
+    }
+
+    private void performPhaseOnShard(final int shardIndex, final SearchShardIterator shardIt, final SearchShardTarget shard,
+                                     @Nullable final HedgedShardRequest hedge) {
         /*
          * We capture the thread that this phase is starting on. When we are called back after executing the phase, we are either on the
          * same thread (because we never went async, or the same thread was selected from the thread pool) or a different thread. If we
@@ -306,6 +349,15 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
                         new SearchActionListener<Result>(shard, shardIndex) {
                             @Override
                             public void innerOnResponse(Result result) {
+                                if (hedge != null && hedge.onAttemptResponse() == false) {
+                                    // another copy responded first
+                                    try {
+                                        releaseHedgedResult(result);
+                                    } finally {
+                                        executeNext(pendingExecutions, thread);
+                                    }
+                                    return;
+                                }
                                 try {
                                     onShardResult(result, shardIt);
                                 } catch (Exception exc) {
@@ -318,7 +370,7 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
                             @Override
                             public void onFailure(Exception t) {
                                 try {
-                                    onShardFailure(shardIndex, shard, shardIt, t);
+                                    onAttemptFailure(shardIndex, shard, shardIt, hedge, t);
                                 } finally {
                                     executeNext(pendingExecutions, thread);
                                 }
@@ -330,7 +382,7 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
                          * It is possible to run into connection exceptions here because we are getting the connection early and might
                          * run into nodes that are not connected. In this case, on shard failure will move us to the next shard copy.
                          */
-                        fork(() -> onShardFailure(shardIndex, shard, shardIt, e));
+                        fork(() -> onAttemptFailure(shardIndex, shard, shardIt, hedge, e));
                     } finally {
                         executeNext(pendingExecutions, thread);
                     }
@@ -344,6 +396,43 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
         }
     }
 
+    private void onAttemptFailure(int shardIndex, SearchShardTarget shard, SearchShardIterator shardIt,
+                                  @Nullable HedgedShardRequest hedge, Exception e) {
+        final HedgedShardRequest.Outcome outcome = hedge == null ? HedgedShardRequest.Outcome.FAIL_OVER : hedge.onAttemptFailure();
+        switch (outcome) {
+            case FAIL_OVER:
+                onShardFailure(shardIndex, shard, shardIt, e);
+                break;
+            case WAIT_FOR_OTHER_ATTEMPT:
+                logger.debug(() -> new ParameterizedMessage("{}: hedged request failed, waiting for the other copy", shard), e);
+                final int totalOps = this.totalOps.incrementAndGet();
+                // the other attempt still accounts for at least one operation
+                assert totalOps < expectedTotalOps : "unexpected total ops [" + totalOps + "] expected [" + expectedTotalOps + "]";
+                break;
+            case IGNORE:
+                // another copy already returned a result which accounted for this attempt
+                break;
+            default:
+                throw new AssertionError("unknown outcome " + outcome);
+        }
+    }
+
+    /**
+     * Frees the resources held for the result of a hedged request that lost against another copy of the shard.
+     */
+    private void releaseHedgedResult(Result result) {
+        final ShardSearchContextId contextId = result.getContextId();
+        final SearchShardTarget shardTarget = result.getSearchShardTarget();
+        if (contextId != null && shardTarget != null && isPartOfPointInTime(contextId) == false) {
+            try {
+                Transport.Connection connection = getConnection(shardTarget.getClusterAlias(), shardTarget.getNodeId());
+                sendReleaseSearchContext(contextId, connection, getOriginalIndices(result.getShardIndex()));
+            } catch (Exception e) {
+                logger.trace("failed to release context of hedged request", e);
+            }
+        }
+    }
+
     /**
      * Sends the request to the actual shard.
      * @param shardIt the shards iterator
@@ -467,7 +556,7 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
             }
             onShardGroupFailure(shardIndex, shard, e);
         }
-        final int totalOps = this.totalOps.incrementAndGet();
+        final int totalOps = this.totalOps.addAndGet(1 + takeAbandonedOps(shardIndex));
         if (totalOps == expectedTotalOps) {
             onPhaseDone();
         } else if (totalOps > expectedTotalOps) {
@@ -570,10 +659,26 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
         // cause the successor to read a wrong value from successfulOps if second phase is very fast ie. count etc.
         // increment all the "future" shards to update the total ops since we some may work and some may not...
         // and when that happens, we break on total ops, so we must maintain them
-        successfulShardExecution(shardIt);
+        successfulShardExecution(shardIt, takeAbandonedOps(result.getShardIndex()));
+    }
+
+    /**
+     * Returns the number of attempts on other copies of the shard that were still running when a hedged request won, these
+     * attempts are accounted for by the winner so that the phase doesn't wait for them.
+     */
+    private int takeAbandonedOps(int shardIndex) {
+        if (hedgedRequests == null) {
+            return 0;
+        }
+        final HedgedShardRequest hedge = hedgedRequests.get(shardIndex);
+        return hedge == null ? 0 : hedge.takeAbandonedAttempts();
     }
 
     private void successfulShardExecution(SearchShardIterator shardsIt) {
+        successfulShardExecution(shardsIt, 0);
+    }
+
+    private void successfulShardExecution(SearchShardIterator shardsIt, int abandonedOps) {
         final int remainingOpsOnIterator;
         if (shardsIt.skip()) {
             // It's possible that we're skipping a shard that's unavailable
@@ -584,7 +689,7 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
         } else {
             remainingOpsOnIterator = shardsIt.remaining() + 1;
         }
-        final int xTotalOps = totalOps.addAndGet(remainingOpsOnIterator);
+        final int xTotalOps = totalOps.addAndGet(remainingOpsOnIterator + abandonedOps);
         if (xTotalOps == expectedTotalOps) {
             onPhaseDone();
         } else if (xTotalOps > expectedTotalOps) {
@@ -809,4 +914,88 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
             return toExecute;
         }
     }
+
+    /**
+     * Tracks the attempts of a shard request that was hedged, see {@link SearchHedgingPolicy}. At most one duplicate is sent,
+     * the first attempt to respond wins and the attempts that are still running at that point are abandoned.
+     */
+    private static final class HedgedShardRequest {
+        enum Outcome {
+            /** the failure is the last one of the attempts, move on to the next copy */
+            FAIL_OVER,
+            /** another attempt is still running */
+            WAIT_FOR_OTHER_ATTEMPT,
+            /** another attempt already won */
+            IGNORE
+        }
+
+        private int inFlight = 1;
+        private boolean hedged = false;
+        private boolean completed = false;
+        private int abandonedAttempts = 0;
+        private Scheduler.Cancellable scheduledHedge;
+
+        synchronized void scheduleHedge(Scheduler.Cancellable scheduledHedge) {
+            if (completed) {
+                scheduledHedge.cancel();
+            } else {
+                this.scheduledHedge = scheduledHedge;
+            }
+        }
+
+        /**
+         * Returns the copy to send the duplicate request to, or {@code null} if the request shouldn't be hedged anymore.
+         */
+        synchronized SearchShardTarget tryHedge(SearchShardIterator shardIt) {
+            if (completed || hedged) {
+                return null;
+            }
+            hedged = true;
+            final SearchShardTarget nextShard = shardIt.nextOrNull();
+            if (nextShard != null) {
+                inFlight++;
+            }
+            return nextShard;
+        }
+
+        /**
+         * Returns {@code true} if this response is the first one.
+         */
+        synchronized boolean onAttemptResponse() {
+            if (completed) {
+                return false;
+            }
+            inFlight--;
+            complete();
+            return true;
+        }
+
+        synchronized Outcome onAttemptFailure() {
+            if (completed) {
+                return Outcome.IGNORE;
+            }
+            inFlight--;
+            if (inFlight > 0) {
+                return Outcome.WAIT_FOR_OTHER_ATTEMPT;
+            }
+            // the failure moves on to the next copy like any other failure, which is not hedged
+            complete();
+            return Outcome.FAIL_OVER;
+        }
+
+        private void complete() {
+            completed = true;
+            abandonedAttempts = inFlight;
+            inFlight = 0;
+            if (scheduledHedge != null) {
+                scheduledHedge.cancel();
+            }
+        }
+
+        synchronized int takeAbandonedAttempts() {
+            final int attempts = abandonedAttempts;
+            abandonedAttempts = 0;
+            return attempts;
+        }
+    }
 }
@@ -10,7 +10,9 @@ package org.elasticsearch.action.search;
 
 import org.apache.lucene.search.FieldComparator;
 import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TopFieldDocs;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.SearchSortValuesAndFormats;
@@ -21,6 +23,12 @@ import static org.elasticsearch.core.Types.forciblyCast;
  * Utility class to keep track of the bottom doc's sort values in a distributed search.
  */
 class BottomSortValuesCollector {
+    /**
+     * The sort fields of searches that sort by score, whose shards return plain {@link TopDocs}.
+     */
+    static final SortField[] SCORE_SORT_FIELDS = new SortField[] { SortField.FIELD_SCORE };
+    private static final DocValueFormat[] SCORE_SORT_VALUE_FORMATS = new DocValueFormat[] { DocValueFormat.RAW };
+
     private final int topNSize;
     private final SortField[] sortFields;
     private final FieldComparator<?>[] comparators;
@@ -61,9 +69,29 @@ class BottomSortValuesCollector {
         if (shardBottomDoc == null) {
             return;
         }
+        consumeBottom(shardBottomDoc.fields, sortValuesFormat);
+    }
+
+    /**
+     * Consumes the top docs of a shard that sorts by score. Their bottom is ignored unless the collector was
+     * created with {@link #SCORE_SORT_FIELDS}.
+     */
+    synchronized void consumeScoreTopDocs(TopDocs topDocs) {
+        totalHits += topDocs.totalHits.value;
+        if (sortFields != SCORE_SORT_FIELDS) {
+            return;
+        }
+        ScoreDoc shardBottomDoc = topNSize > 0 && topDocs.scoreDocs.length == topNSize ? topDocs.scoreDocs[topNSize - 1] : null;
+        if (shardBottomDoc == null || Float.isNaN(shardBottomDoc.score)) {
+            return;
+        }
+        consumeBottom(new Object[] { shardBottomDoc.score }, SCORE_SORT_VALUE_FORMATS);
+    }
+
+    private void consumeBottom(Object[] shardBottomValues, DocValueFormat[] sortValuesFormat) {
         if (bottomSortValues == null
-                || compareValues(shardBottomDoc.fields, bottomSortValues.getRawSortValues()) < 0) {
-            bottomSortValues = new SearchSortValuesAndFormats(shardBottomDoc.fields, sortValuesFormat);
+                || compareValues(shardBottomValues, bottomSortValues.getRawSortValues()) < 0) {
+            bottomSortValues = new SearchSortValuesAndFormats(shardBottomValues, sortValuesFormat);
         }
     }
 
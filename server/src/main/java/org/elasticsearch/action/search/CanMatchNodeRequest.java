@@ -18,6 +18,7 @@ import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.shard.ShardFieldRanges;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.search.Scroll;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
@@ -63,6 +64,7 @@ public class CanMatchNodeRequest extends TransportRequest implements IndicesRequ
         private final ShardSearchContextId readerId;
         private final TimeValue keepAlive;
         private final long waitForCheckpoint;
+        private final boolean requestFieldRanges;
 
         public Shard(String[] indices,
                      ShardId shardId,
@@ -72,6 +74,21 @@ public class CanMatchNodeRequest extends TransportRequest implements IndicesRequ
                      ShardSearchContextId readerId,
                      TimeValue keepAlive,
                      long waitForCheckpoint) {
+            this(indices, shardId, shardRequestIndex, aliasFilter, indexBoost, readerId, keepAlive, waitForCheckpoint, false);
+        }
+
+        /**
+         * @param requestFieldRanges whether the shard should return the summary of its values, see {@link ShardFieldRanges}
+         */
+        public Shard(String[] indices,
+                     ShardId shardId,
+                     int shardRequestIndex,
+                     AliasFilter aliasFilter,
+                     float indexBoost,
+                     ShardSearchContextId readerId,
+                     TimeValue keepAlive,
+                     long waitForCheckpoint,
+                     boolean requestFieldRanges) {
             this.indices = indices;
             this.shardId = shardId;
             this.shardRequestIndex = shardRequestIndex;
@@ -80,6 +97,7 @@ public class CanMatchNodeRequest extends TransportRequest implements IndicesRequ
             this.readerId = readerId;
             this.keepAlive = keepAlive;
             this.waitForCheckpoint = waitForCheckpoint;
+            this.requestFieldRanges = requestFieldRanges;
             assert keepAlive == null || readerId != null : "readerId: " + readerId + " keepAlive: " + keepAlive;
         }
 
@@ -92,6 +110,11 @@ public class CanMatchNodeRequest extends TransportRequest implements IndicesRequ
             readerId = in.readOptionalWriteable(ShardSearchContextId::new);
             keepAlive = in.readOptionalTimeValue();
             waitForCheckpoint = in.readLong();
+            if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+                requestFieldRanges = in.readBoolean();
+            } else {
+                requestFieldRanges = false;
+            }
             assert keepAlive == null || readerId != null : "readerId: " + readerId + " keepAlive: " + keepAlive;
         }
 
@@ -105,6 +128,9 @@ public class CanMatchNodeRequest extends TransportRequest implements IndicesRequ
             out.writeOptionalWriteable(readerId);
             out.writeOptionalTimeValue(keepAlive);
             out.writeLong(waitForCheckpoint);
+            if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+                out.writeBoolean(requestFieldRanges);
+            }
         }
 
         public int getShardRequestIndex() {
@@ -118,6 +144,10 @@ public class CanMatchNodeRequest extends TransportRequest implements IndicesRequ
         public ShardId shardId() {
             return shardId;
         }
+
+        public boolean requestFieldRanges() {
+            return requestFieldRanges;
+        }
     }
 
     public CanMatchNodeRequest(
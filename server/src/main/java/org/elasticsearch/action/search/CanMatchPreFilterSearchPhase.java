@@ -20,6 +20,7 @@ import org.elasticsearch.common.util.concurrent.CountDown;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.index.query.CoordinatorRewriteContext;
 import org.elasticsearch.index.query.CoordinatorRewriteContextProvider;
+import org.elasticsearch.index.shard.ShardFieldRanges;
 import org.elasticsearch.search.CanMatchShardResponse;
 import org.elasticsearch.search.SearchService;
 import org.elasticsearch.search.SearchShardTarget;
@@ -39,9 +40,11 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.BiFunction;
@@ -82,6 +85,8 @@ final class CanMatchPreFilterSearchPhase extends SearchPhase {
 
     private final CanMatchSearchPhaseResults results;
     private final CoordinatorRewriteContextProvider coordinatorRewriteContextProvider;
+    // the shards that we don't need to ask for a summary of their values since we have one already
+    private final Set<SearchShardIterator> shardsWithCachedFieldRanges = new HashSet<>();
 
 
     CanMatchPreFilterSearchPhase(Logger logger, SearchTransportService searchTransportService,
@@ -149,13 +154,17 @@ final class CanMatchPreFilterSearchPhase extends SearchPhase {
         assert assertSearchCoordinationThread();
         final List<SearchShardIterator> matchedShardLevelRequests = new ArrayList<>();
         for (SearchShardIterator searchShardIterator : shardsIts) {
+            final ShardFieldRanges fieldRanges = getCachedFieldRanges(searchShardIterator);
+            if (fieldRanges != null) {
+                shardsWithCachedFieldRanges.add(searchShardIterator);
+            }
             final CanMatchNodeRequest canMatchNodeRequest =
                 new CanMatchNodeRequest(request, searchShardIterator.getOriginalIndices().indicesOptions(),
                 Collections.emptyList(), getNumShards(), timeProvider.getAbsoluteStartMillis(), searchShardIterator.getClusterAlias());
             final ShardSearchRequest request = canMatchNodeRequest.createShardSearchRequest(buildShardLevelRequest(searchShardIterator));
             boolean canMatch = true;
             CoordinatorRewriteContext coordinatorRewriteContext =
-                coordinatorRewriteContextProvider.getCoordinatorRewriteContext(request.shardId().getIndex());
+                coordinatorRewriteContextProvider.getCoordinatorRewriteContext(request.shardId().getIndex(), fieldRanges);
             if (coordinatorRewriteContext != null) {
                 try {
                     canMatch = SearchService.queryStillMatchesAfterRewrite(request, coordinatorRewriteContext);
@@ -180,6 +189,22 @@ final class CanMatchPreFilterSearchPhase extends SearchPhase {
         }
     }
 
+    /**
+     * Returns the summary of the values of the shard that one of its copies returned with a previous can-match response, if
+     * it is still valid. Summaries are only used for local shards and when the request doesn't define runtime fields, that
+     * could shadow the fields of the summary. They describe the live shard so they are not used for point in time searches,
+     * whose reader may hold values that were since deleted or merged away.
+     */
+    @Nullable
+    private ShardFieldRanges getCachedFieldRanges(SearchShardIterator shardIt) {
+        if (shardIt.getClusterAlias() != null
+            || shardIt.getSearchContextId() != null
+            || (request.source() != null && request.source().runtimeMappings().isEmpty() == false)) {
+            return null;
+        }
+        return coordinatorRewriteContextProvider.getShardFieldRanges(shardIt.shardId(), shardIt.getTargetNodeIds());
+    }
+
     private void checkNoMissingShards() {
         assert assertSearchCoordinationThread();
         assert request.allowPartialSearchResults() != null : "SearchRequest missing setting for allowPartialSearchResults";
@@ -266,6 +291,10 @@ final class CanMatchPreFilterSearchPhase extends SearchPhase {
                                     if (response.getResponse() != null) {
                                         CanMatchShardResponse shardResponse = response.getResponse();
                                         shardResponse.setShardIndex(shardLevelRequests.get(i).getShardRequestIndex());
+                                        if (shardResponse.fieldRanges() != null) {
+                                            coordinatorRewriteContextProvider.putShardFieldRanges(shardLevelRequests.get(i).shardId(),
+                                                entry.getKey().nodeId, shardResponse.fieldRanges());
+                                        }
                                         onOperation(shardResponse.getShardIndex(), shardResponse);
                                     } else {
                                         Exception failure = response.getException();
@@ -397,7 +426,9 @@ final class CanMatchPreFilterSearchPhase extends SearchPhase {
         int shardRequestIndex = shardItIndexMap.get(shardIt);
         return new CanMatchNodeRequest.Shard(shardIt.getOriginalIndices().indices(), shardIt.shardId(),
             shardRequestIndex, filter, indexBoost, shardIt.getSearchContextId(), shardIt.getSearchContextKeepAlive(),
-            ShardSearchRequest.computeWaitForCheckpoint(request.getWaitForCheckpoints(), shardIt.shardId(), shardRequestIndex));
+            ShardSearchRequest.computeWaitForCheckpoint(request.getWaitForCheckpoints(), shardIt.shardId(), shardRequestIndex),
+            shardIt.getClusterAlias() == null && shardIt.getSearchContextId() == null
+                && shardsWithCachedFieldRanges.contains(shardIt) == false);
     }
 
     private boolean checkMinimumVersion(GroupShardsIterator<SearchShardIterator> shardsIts) {
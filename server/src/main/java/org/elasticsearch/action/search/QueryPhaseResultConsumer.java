@@ -21,6 +21,7 @@ import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.search.aggregations.AggregationsAccumulator;
 import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContextBuilder;
 import org.elasticsearch.search.aggregations.InternalAggregations;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
@@ -48,6 +49,9 @@ import static org.elasticsearch.action.search.SearchPhaseController.setShardInde
  * in the {@link CircuitBreaker#REQUEST} circuit breaker. Before any partial or final reduce, the memory
  * needed to reduce the aggregations is estimated and a {@link CircuitBreakingException} is thrown if it
  * exceeds the maximum memory allowed in this breaker.
+ * When streaming reduce is enabled, the aggregations of every shard result are merged into a single
+ * {@link AggregationsAccumulator} as soon as they arrive instead of being buffered for a batched reduce,
+ * so the memory needed for the aggregations doesn't grow with the number of shards.
  */
 public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhaseResult> implements Releasable {
     private static final Logger logger = LogManager.getLogger(QueryPhaseResultConsumer.class);
@@ -66,6 +70,14 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
     private final PendingMerges pendingMerges;
     private final Consumer<Exception> onPartialMergeFailure;
 
+    // the running reduction of the aggregations if streaming reduce is enabled, null otherwise
+    private final AggregationsAccumulator aggsAccumulator;
+    private final int materializeEvery;
+    // only accessed by merge tasks, which never run concurrently, or after all merges completed
+    private long materializedAggsSize;
+    private long unmaterializedAggsSize;
+    private int unmaterializedResults;
+
     /**
      * Creates a {@link QueryPhaseResultConsumer} that incrementally reduces aggregation results
      * as shard results are consumed.
@@ -78,6 +90,26 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
                                     SearchProgressListener progressListener,
                                     int expectedResultSize,
                                     Consumer<Exception> onPartialMergeFailure) {
+        this(request, executor, circuitBreaker, controller, isCanceled, progressListener, expectedResultSize,
+            onPartialMergeFailure, false);
+    }
+
+    /**
+     * Creates a {@link QueryPhaseResultConsumer} that incrementally reduces aggregation results
+     * as shard results are consumed.
+     * @param streamingReduce whether to merge the aggregations of each shard result into the running
+     *                        reduction as it arrives rather than in batches of
+     *                        {@link SearchRequest#getBatchedReduceSize()} results
+     */
+    public QueryPhaseResultConsumer(SearchRequest request,
+                                    Executor executor,
+                                    CircuitBreaker circuitBreaker,
+                                    SearchPhaseController controller,
+                                    Supplier<Boolean> isCanceled,
+                                    SearchProgressListener progressListener,
+                                    int expectedResultSize,
+                                    Consumer<Exception> onPartialMergeFailure,
+                                    boolean streamingReduce) {
         super(expectedResultSize);
         this.executor = executor;
         this.circuitBreaker = circuitBreaker;
@@ -91,7 +123,16 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         SearchSourceBuilder source = request.source();
         this.hasTopDocs = source == null || source.size() != 0;
         this.hasAggs = source != null && source.aggregations() != null;
-        int batchReduceSize = (hasAggs || hasTopDocs) ? Math.min(request.getBatchedReduceSize(), expectedResultSize)  : expectedResultSize;
+        this.materializeEvery = request.getBatchedReduceSize();
+        final int batchReduceSize;
+        if (hasAggs && streamingReduce) {
+            this.aggsAccumulator = new AggregationsAccumulator(aggReduceContextBuilder.forPartialReduction());
+            // merge every result with the running reduction as soon as the previous merge completes
+            batchReduceSize = Math.min(2, expectedResultSize);
+        } else {
+            this.aggsAccumulator = null;
+            batchReduceSize = (hasAggs || hasTopDocs) ? Math.min(request.getBatchedReduceSize(), expectedResultSize)  : expectedResultSize;
+        }
         this.pendingMerges = new PendingMerges(batchReduceSize, request.resolveTrackTotalHitsUpTo());
     }
 
@@ -174,7 +215,31 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         }
 
         final InternalAggregations newAggs;
-        if (hasAggs) {
+        final long aggsSize;
+        if (hasAggs == false) {
+            newAggs = null;
+            aggsSize = 0;
+        } else if (aggsAccumulator != null) {
+            for (QuerySearchResult result : toConsume) {
+                unmaterializedAggsSize += result.aggregations().getSerializedSize();
+                aggsAccumulator.accept(result.consumeAggs());
+            }
+            unmaterializedResults += toConsume.length;
+            /*
+             * Merging a result grows the running reduction by at most the size of the result, so we account for that upper bound
+             * and only materialize the reduction to measure it once every batched_reduce_size results. Until then the breaker
+             * holds at most as much as it would for the results buffered by a batched reduce.
+             */
+            if (unmaterializedResults >= materializeEvery) {
+                newAggs = aggsAccumulator.get();
+                materializedAggsSize = DelayableWriteable.getSerializedSize(newAggs);
+                unmaterializedAggsSize = 0;
+                unmaterializedResults = 0;
+            } else {
+                newAggs = null;
+            }
+            aggsSize = materializedAggsSize + unmaterializedAggsSize;
+        } else {
             List<InternalAggregations> aggsList = new ArrayList<>();
             if (lastMerge != null) {
                 aggsList.add(lastMerge.reducedAggs);
@@ -183,8 +248,9 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
                 aggsList.add(result.consumeAggs());
             }
             newAggs = InternalAggregations.topLevelReduce(aggsList, aggReduceContextBuilder.forPartialReduction());
-        } else {
-            newAggs = null;
+            // we leave the results un-serialized because serializing is slow but we compute the serialized
+            // size as an estimate of the memory used by the newly reduced aggregations.
+            aggsSize = DelayableWriteable.getSerializedSize(newAggs);
         }
         List<SearchShard> processedShards = new ArrayList<>(emptyResults);
         if (lastMerge != null) {
@@ -194,11 +260,11 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             SearchShardTarget target = result.getSearchShardTarget();
             processedShards.add(new SearchShard(target.getClusterAlias(), target.getShardId()));
         }
-        progressListener.notifyPartialReduce(processedShards, topDocsStats.getTotalHits(), newAggs, numReducePhases);
-        // we leave the results un-serialized because serializing is slow but we compute the serialized
-        // size as an estimate of the memory used by the newly reduced aggregations.
-        long serializedSize = hasAggs ? DelayableWriteable.getSerializedSize(newAggs) : 0;
-        return new MergeResult(processedShards, newTopDocs, newAggs, hasAggs ? serializedSize : 0);
+        if (aggsAccumulator == null || newAggs != null) {
+            // the running reduction of a streaming reduce is only reported when it is materialized
+            progressListener.notifyPartialReduce(processedShards, topDocsStats.getTotalHits(), newAggs, numReducePhases);
+        }
+        return new MergeResult(processedShards, newTopDocs, aggsAccumulator == null ? newAggs : null, aggsSize);
     }
 
     public int getNumReducePhases() {
@@ -456,6 +522,13 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             if (hasAggs == false) {
                 return Collections.emptyList();
             }
+            if (aggsAccumulator != null) {
+                for (QuerySearchResult result : buffer) {
+                    aggsAccumulator.accept(result.consumeAggs());
+                }
+                InternalAggregations reducedAggs = aggsAccumulator.get();
+                return reducedAggs == null ? Collections.emptyList() : Collections.singletonList(reducedAggs);
+            }
             List<InternalAggregations> aggsList = new ArrayList<>();
             if (mergeResult != null) {
                 aggsList.add(mergeResult.reducedAggs);
@@ -9,6 +9,8 @@
 package org.elasticsearch.action.search;
 
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.node.ResponseCollectorService;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.query.QuerySearchResult;
@@ -20,21 +22,28 @@ import java.util.function.BiFunction;
 /**
  * A wrapper of search action listeners (search results) that unwraps the query
  * result to get the piggybacked queue size and service time EWMA, adding those
- * values to the coordinating nodes' {@link ResponseCollectorService}.
+ * values to the coordinating nodes' {@link ResponseCollectorService}. It also
+ * records the response time of the shard copy and the requests in flight to it.
  */
 public final class SearchExecutionStatsCollector extends ActionListener.Delegating<SearchPhaseResult, SearchPhaseResult> {
 
     private final String nodeId;
+    private final ShardId shardId;
     private final ResponseCollectorService collector;
     private final long startNanos;
 
     SearchExecutionStatsCollector(ActionListener<SearchPhaseResult> listener,
                                   ResponseCollectorService collector,
-                                  String nodeId) {
+                                  String nodeId,
+                                  @Nullable ShardId shardId) {
         super(Objects.requireNonNull(listener, "listener cannot be null"));
         this.collector = Objects.requireNonNull(collector, "response collector cannot be null");
         this.startNanos = System.nanoTime();
         this.nodeId = nodeId;
+        this.shardId = shardId;
+        if (nodeId != null && shardId != null) {
+            collector.onShardCopyRequestSent(shardId, nodeId);
+        }
     }
 
     @SuppressWarnings("unchecked")
@@ -44,7 +53,8 @@ public final class SearchExecutionStatsCollector extends ActionListener.Delegati
         return (connection, originalListener) -> new SearchExecutionStatsCollector(
             (ActionListener<SearchPhaseResult>) originalListener,
             service,
-            connection.getNode().getId()
+            connection.getNode().getId(),
+            originalListener.getSearchShardTarget() == null ? null : originalListener.getSearchShardTarget().getShardId()
         );
     }
 
@@ -59,7 +69,20 @@ public final class SearchExecutionStatsCollector extends ActionListener.Delegati
             if (serviceTimeEWMA > 0 && queueSize >= 0) {
                 collector.addNodeStatistics(nodeId, queueSize, responseDuration, serviceTimeEWMA);
             }
+            if (shardId != null) {
+                collector.addShardCopyStatistics(shardId, nodeId, responseDuration);
+            }
+        } else if (nodeId != null && shardId != null) {
+            collector.onShardCopyRequestFailed(shardId, nodeId);
         }
         delegate.onResponse(response);
     }
+
+    @Override
+    public void onFailure(Exception e) {
+        if (nodeId != null && shardId != null) {
+            collector.onShardCopyRequestFailed(shardId, nodeId);
+        }
+        super.onFailure(e);
+    }
 }
@@ -0,0 +1,50 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.node.ResponseCollectorService;
+import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.threadpool.ThreadPool;
+
+/**
+ * Decides when the initial phase of a search sends a duplicate (hedged) request to another copy of a shard. A request is
+ * hedged once it has been running for longer than the predicted 95th percentile of the response time of the copy it was
+ * sent to, so that a copy that is slow because its node is in a long GC or merging heavily doesn't drive the latency of
+ * the whole search. The first response wins and the other one is discarded.
+ */
+final class SearchHedgingPolicy {
+
+    private final ThreadPool threadPool;
+    private final ResponseCollectorService collector;
+    private final TimeValue minDelay;
+
+    SearchHedgingPolicy(ThreadPool threadPool, ResponseCollectorService collector, TimeValue minDelay) {
+        this.threadPool = threadPool;
+        this.collector = collector;
+        this.minDelay = minDelay;
+    }
+
+    ThreadPool threadPool() {
+        return threadPool;
+    }
+
+    /**
+     * Returns the delay after which a request sent to the given shard copy should be hedged, or {@code null} if it
+     * shouldn't be hedged because we don't know enough about the copy yet.
+     */
+    TimeValue hedgeDelay(SearchShardTarget shard) {
+        if (shard.getNodeId() == null) {
+            return null;
+        }
+        return collector.getShardCopyStatistics(shard.getShardId(), shard.getNodeId())
+            .map(stats -> TimeValue.timeValueNanos(Math.max(minDelay.nanos(), (long) stats.predictedP95())))
+            .orElse(null);
+    }
+}
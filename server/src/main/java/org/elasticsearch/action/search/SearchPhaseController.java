@@ -646,8 +646,23 @@ public final class SearchPhaseController {
                                                    SearchRequest request,
                                                    int numShards,
                                                    Consumer<Exception> onPartialMergeFailure) {
+        return newSearchPhaseResults(executor, circuitBreaker, isCanceled, listener, request, numShards, onPartialMergeFailure, false);
+    }
+
+    /**
+     * Returns a new {@link QueryPhaseResultConsumer} instance that reduces search responses incrementally,
+     * merging the aggregations of each response into the running reduction as it arrives if {@code streamingReduce} is set.
+     */
+    QueryPhaseResultConsumer newSearchPhaseResults(Executor executor,
+                                                   CircuitBreaker circuitBreaker,
+                                                   Supplier<Boolean> isCanceled,
+                                                   SearchProgressListener listener,
+                                                   SearchRequest request,
+                                                   int numShards,
+                                                   Consumer<Exception> onPartialMergeFailure,
+                                                   boolean streamingReduce) {
         return new QueryPhaseResultConsumer(request, executor, circuitBreaker,
-            this, isCanceled, listener, numShards, onPartialMergeFailure);
+            this, isCanceled, listener, numShards, onPartialMergeFailure, streamingReduce);
     }
 
     static final class TopDocsStats {
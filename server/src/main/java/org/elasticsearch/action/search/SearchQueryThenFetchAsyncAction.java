@@ -9,12 +9,15 @@
 package org.elasticsearch.action.search;
 
 import org.apache.logging.log4j.Logger;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TopFieldDocs;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.routing.GroupShardsIterator;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.internal.AliasFilter;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.internal.ShardSearchRequest;
@@ -84,21 +87,30 @@ class SearchQueryThenFetchAsyncAction extends AbstractSearchAsyncAction<SearchPh
                 && getRequest().scroll() == null
                 // top docs are already consumed if the query was cancelled or in error.
                 && queryResult.hasConsumedTopDocs() == false
-                && queryResult.topDocs() != null
-                && queryResult.topDocs().topDocs.getClass() == TopFieldDocs.class) {
-            TopFieldDocs topDocs = (TopFieldDocs) queryResult.topDocs().topDocs;
-            if (bottomSortCollector == null) {
-                synchronized (this) {
-                    if (bottomSortCollector == null) {
-                        bottomSortCollector = new BottomSortValuesCollector(topDocsSize, topDocs.fields);
-                    }
-                }
+                && queryResult.topDocs() != null) {
+            TopDocs topDocs = queryResult.topDocs().topDocs;
+            if (topDocs.getClass() == TopFieldDocs.class) {
+                TopFieldDocs topFieldDocs = (TopFieldDocs) topDocs;
+                initBottomSortCollector(topFieldDocs.fields).consumeTopDocs(topFieldDocs, queryResult.sortValueFormats());
+            } else if (topDocs.getClass() == TopDocs.class) {
+                // sorted by score, the bottom score lets the next shards drop the hits that cannot make it to the top hits
+                initBottomSortCollector(BottomSortValuesCollector.SCORE_SORT_FIELDS).consumeScoreTopDocs(topDocs);
             }
-            bottomSortCollector.consumeTopDocs(topDocs, queryResult.sortValueFormats());
         }
         super.onShardResult(result, shardIt);
     }
 
+    private BottomSortValuesCollector initBottomSortCollector(SortField[] sortFields) {
+        if (bottomSortCollector == null) {
+            synchronized (this) {
+                if (bottomSortCollector == null) {
+                    bottomSortCollector = new BottomSortValuesCollector(topDocsSize, sortFields);
+                }
+            }
+        }
+        return bottomSortCollector;
+    }
+
     @Override
     protected SearchPhase getNextPhase(final SearchPhaseResults<SearchPhaseResult> results, SearchPhaseContext context) {
         return new FetchSearchPhase(results, searchPhaseController, null, this);
@@ -112,7 +124,9 @@ class SearchQueryThenFetchAsyncAction extends AbstractSearchAsyncAction<SearchPh
         // disable tracking total hits if we already reached the required estimation.
         if (trackTotalHitsUpTo != SearchContext.TRACK_TOTAL_HITS_ACCURATE
                 && bottomSortCollector.getTotalHits() > trackTotalHitsUpTo) {
-            request.source(request.source().shallowCopy().trackTotalHits(false));
+            // the source is null for requests that only use the defaults, which score sorted results also rewrite
+            SearchSourceBuilder source = request.source() == null ? new SearchSourceBuilder() : request.source().shallowCopy();
+            request.source(source.trackTotalHits(false));
         }
 
         // set the current best bottom field doc
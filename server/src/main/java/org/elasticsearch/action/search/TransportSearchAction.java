@@ -109,6 +109,25 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
     public static final Setting<Integer> DEFAULT_PRE_FILTER_SHARD_SIZE = Setting.intSetting(
         "action.search.pre_filter_shard_size.default", SearchRequest.DEFAULT_PRE_FILTER_SHARD_SIZE, 1, Property.NodeScope);
 
+    /**
+     * Whether the coordinating node merges the aggregations of each shard response into a single running reduction as it
+     * arrives rather than buffering them for batched reduces, see {@link QueryPhaseResultConsumer}.
+     */
+    public static final Setting<Boolean> STREAMING_AGGS_REDUCE_SETTING = Setting.boolSetting(
+        "action.search.streaming_aggs_reduce.enabled", false, Property.Dynamic, Property.NodeScope);
+
+    /**
+     * Whether the initial phase of a search sends a duplicate request to another copy of a shard when the first copy
+     * is slower than its predicted 95th percentile response time, see {@link SearchHedgingPolicy}.
+     */
+    public static final Setting<Boolean> HEDGED_REQUESTS_ENABLED_SETTING = Setting.boolSetting(
+        "action.search.hedged_requests.enabled", false, Property.Dynamic, Property.NodeScope);
+    /**
+     * The minimum delay before a shard request is hedged, so that fast and noisy shards are not hedged all the time.
+     */
+    public static final Setting<TimeValue> HEDGED_REQUESTS_MIN_DELAY_SETTING = Setting.positiveTimeSetting(
+        "action.search.hedged_requests.min_delay", TimeValue.timeValueMillis(50), Property.Dynamic, Property.NodeScope);
+
     private final ThreadPool threadPool;
     private final ClusterService clusterService;
     private final SearchTransportService searchTransportService;
@@ -872,7 +891,8 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
         } else {
             final QueryPhaseResultConsumer queryResultConsumer = searchPhaseController.newSearchPhaseResults(executor,
                 circuitBreaker, task::isCancelled, task.getProgressListener(), searchRequest, shardIterators.size(),
-                exc -> searchTransportService.cancelSearchTask(task, "failed to merge result [" + exc.getMessage() + "]"));
+                exc -> searchTransportService.cancelSearchTask(task, "failed to merge result [" + exc.getMessage() + "]"),
+                clusterService.getClusterSettings().get(STREAMING_AGGS_REDUCE_SETTING));
             AbstractSearchAsyncAction<? extends SearchPhaseResult> searchAsyncAction;
             switch (searchRequest.searchType()) {
                 case DFS_QUERY_THEN_FETCH:
@@ -888,6 +908,10 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
                 default:
                     throw new IllegalStateException("Unknown search type: [" + searchRequest.searchType() + "]");
             }
+            if (clusterService.getClusterSettings().get(HEDGED_REQUESTS_ENABLED_SETTING)) {
+                searchAsyncAction.setHedgingPolicy(new SearchHedgingPolicy(threadPool, searchService.getResponseCollectorService(),
+                    clusterService.getClusterSettings().get(HEDGED_REQUESTS_MIN_DELAY_SETTING)));
+            }
             return searchAsyncAction;
         }
     }
@@ -275,8 +275,10 @@ public abstract class TransportReplicationAction<
 
     private void handleOperationRequest(final Request request, final TransportChannel channel, Task task) {
         Releasable releasable = checkOperationLimits(request);
-        ActionListener<Response> listener =
-            ActionListener.runBefore(new ChannelActionListener<>(channel, actionName, request), releasable::close);
+        // the request may hold on to pooled network buffers, keep it alive until the reroute phase is done with it
+        request.incRef();
+        ActionListener<Response> listener = ActionListener.runAfter(
+            ActionListener.runBefore(new ChannelActionListener<>(channel, actionName, request), releasable::close), request::decRef);
         runReroutePhase(task, request, listener, false);
     }
 
@@ -287,8 +289,10 @@ public abstract class TransportReplicationAction<
     protected void handlePrimaryRequest(final ConcreteShardRequest<Request> request, final TransportChannel channel, final Task task) {
         Releasable releasable = checkPrimaryLimits(request.getRequest(), request.sentFromLocalReroute(),
             request.localRerouteInitiatedByNodeClient());
-        ActionListener<Response> listener =
-            ActionListener.runBefore(new ChannelActionListener<>(channel, transportPrimaryAction, request), releasable::close);
+        request.incRef();
+        ActionListener<Response> listener = ActionListener.runAfter(
+            ActionListener.runBefore(new ChannelActionListener<>(channel, transportPrimaryAction, request), releasable::close),
+            request::decRef);
 
         try {
             new AsyncPrimaryAction(request, listener, (ReplicationTask) task).run();
@@ -511,8 +515,10 @@ public abstract class TransportReplicationAction<
     protected void handleReplicaRequest(final ConcreteReplicaRequest<ReplicaRequest> replicaRequest, final TransportChannel channel,
                                         final Task task) {
         Releasable releasable = checkReplicaLimits(replicaRequest.getRequest());
-        ActionListener<ReplicaResponse> listener =
-            ActionListener.runBefore(new ChannelActionListener<>(channel, transportReplicaAction, replicaRequest), releasable::close);
+        replicaRequest.incRef();
+        ActionListener<ReplicaResponse> listener = ActionListener.runAfter(
+            ActionListener.runBefore(new ChannelActionListener<>(channel, transportReplicaAction, replicaRequest), releasable::close),
+            replicaRequest::decRef);
 
         try {
             new AsyncReplicaAction(replicaRequest, listener, (ReplicationTask) task).run();
@@ -1190,6 +1196,26 @@ public abstract class TransportReplicationAction<
             return primaryTerm;
         }
 
+        @Override
+        public void incRef() {
+            request.incRef();
+        }
+
+        @Override
+        public boolean tryIncRef() {
+            return request.tryIncRef();
+        }
+
+        @Override
+        public boolean decRef() {
+            return request.decRef();
+        }
+
+        @Override
+        public boolean hasReferences() {
+            return request.hasReferences();
+        }
+
         @Override
         public boolean isRawIndexingData() {
             if (request instanceof RawIndexingDataTransportRequest) {
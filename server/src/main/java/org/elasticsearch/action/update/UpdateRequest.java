@@ -21,6 +21,7 @@ import org.elasticsearch.core.Nullable;
 import org.elasticsearch.xcontent.ParseField;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.lucene.uid.Versions;
@@ -139,22 +140,32 @@ public class UpdateRequest extends InstanceShardOperationRequest<UpdateRequest>
         }
         retryOnConflict = in.readVInt();
         refreshPolicy = RefreshPolicy.readFrom(in);
-        if (in.readBoolean()) {
-            doc = new IndexRequest(shardId, in);
-        }
-        fetchSourceContext = in.readOptionalWriteable(FetchSourceContext::new);
-        if (in.readBoolean()) {
-            upsertRequest = new IndexRequest(shardId, in);
-        }
-        docAsUpsert = in.readBoolean();
-        ifSeqNo = in.readZLong();
-        ifPrimaryTerm = in.readVLong();
-        detectNoop = in.readBoolean();
-        scriptedUpsert = in.readBoolean();
-        if (in.getVersion().onOrAfter(Version.V_7_10_0)) {
-            requireAlias = in.readBoolean();
-        } else {
-            requireAlias = false;
+        boolean success = false;
+        try {
+            if (in.readBoolean()) {
+                doc = new IndexRequest(shardId, in);
+            }
+            fetchSourceContext = in.readOptionalWriteable(FetchSourceContext::new);
+            if (in.readBoolean()) {
+                upsertRequest = new IndexRequest(shardId, in);
+            }
+            docAsUpsert = in.readBoolean();
+            ifSeqNo = in.readZLong();
+            ifPrimaryTerm = in.readVLong();
+            detectNoop = in.readBoolean();
+            scriptedUpsert = in.readBoolean();
+            if (in.getVersion().onOrAfter(Version.V_7_10_0)) {
+                requireAlias = in.readBoolean();
+            } else {
+                requireAlias = false;
+            }
+            success = true;
+        } finally {
+            if (success == false) {
+                // don't leak the slices of the network buffer that the sources read so far were kept in
+                releaseSource(doc);
+                releaseSource(upsertRequest);
+            }
         }
     }
 
@@ -201,6 +212,12 @@ public class UpdateRequest extends InstanceShardOperationRequest<UpdateRequest>
         return validationException;
     }
 
+    private static void releaseSource(@Nullable IndexRequest request) {
+        if (request != null && request.source() instanceof ReleasableBytesReference) {
+            ((ReleasableBytesReference) request.source()).close();
+        }
+    }
+
     /**
      * The id of the indexed document.
      */
@@ -0,0 +1,233 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.util;
+
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.Releasables;
+
+/**
+ * Hash table that maps two long values to ids like {@link LongLongHash} but
+ * that is laid out like a "swiss table". Slots are split in groups of 8 and
+ * every slot has a control byte that is either empty or holds 7 bits of the
+ * hash of the keys in the slot. The control bytes of a group are packed in a
+ * single {@code long} so a lookup compares the hash against all slots of a
+ * group at once and only reads the keys of the slots whose control byte
+ * matches. That keeps probing cheap at a much higher load factor than linear
+ * probing allows, which matters once the table no longer fits in the CPU
+ * caches.
+ * <p>
+ * Entries can't be removed so the table doesn't need tombstones. It grows by
+ * rebuilding the slots from the keys, which are stored densely by id.
+ * This class is not thread-safe.
+ */
+public final class SwissLongLongHash implements Releasable {
+    private static final int GROUP_SHIFT = 3;
+    private static final int GROUP_SIZE = 1 << GROUP_SHIFT;
+    /**
+     * The number of slots per group that may be used before growing. This is
+     * a load factor of {@code 7/8}.
+     */
+    private static final int MAX_USED_PER_GROUP = 7;
+    private static final long H2_MASK = 0x7FL;
+    private static final long LOW_BITS = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    /**
+     * A group that only contains empty slots. A slot is empty if the top bit
+     * of its control byte is set which can't clash with the 7 bits of hash
+     * stored in the control byte of a used slot.
+     */
+    private static final long EMPTY_GROUP = HIGH_BITS;
+
+    private final BigArrays bigArrays;
+    /**
+     * The control bytes, {@code 8} per {@code long}.
+     */
+    private LongArray control;
+    /**
+     * The id stored in each slot. The result is undefined for empty slots.
+     */
+    private LongArray ids;
+    /**
+     * The keys of the hash, stored one after another like in {@link LongLongHash}.
+     */
+    private LongArray keys;
+    private long groupMask;
+    private long size;
+    private long maxSize;
+
+    public SwissLongLongHash(long capacity, BigArrays bigArrays) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must be >= 0");
+        }
+        this.bigArrays = bigArrays;
+        long groups = Math.max(1, (capacity + MAX_USED_PER_GROUP - 1) / MAX_USED_PER_GROUP);
+        groups = Math.max(1, Long.highestOneBit(groups - 1) << 1); // next power of two
+        boolean success = false;
+        try {
+            allocateSlots(groups);
+            keys = bigArrays.newLongArray(2 * capacity, false);
+            success = true;
+        } finally {
+            if (success == false) {
+                close();
+            }
+        }
+    }
+
+    /**
+     * Return the number of allocated slots to store this hash table.
+     */
+    public long capacity() {
+        return (groupMask + 1) << GROUP_SHIFT;
+    }
+
+    /**
+     * Return the number of entries in this hash table.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Return the first key of {@code 0 &lt;= id &lt; size()}.
+     */
+    public long getKey1(long id) {
+        return keys.get(2 * id);
+    }
+
+    /**
+     * Return the second key of {@code 0 &lt;= id &lt; size()}.
+     */
+    public long getKey2(long id) {
+        return keys.get(2 * id + 1);
+    }
+
+    /**
+     * Get the id associated with the keys or -1 if they are not contained in the hash.
+     */
+    public long find(long key1, long key2) {
+        final long hash = LongLongHash.hash(key1, key2);
+        final long pattern = LOW_BITS * (hash & H2_MASK);
+        long group = (hash >>> 7) & groupMask;
+        for (long step = 1;; step++) {
+            final long word = control.get(group);
+            for (long matches = matches(word, pattern); matches != 0; matches &= matches - 1) {
+                final long id = ids.get(slot(group, matches));
+                if (keys.get(2 * id) == key1 && keys.get(2 * id + 1) == key2) {
+                    return id;
+                }
+            }
+            if ((word & HIGH_BITS) != 0) {
+                // entries are never removed so the keys would be in this group if it had room for them
+                return -1;
+            }
+            group = (group + step) & groupMask; // triangular probing visits every group
+        }
+    }
+
+    /**
+     * Try to add the keys. Return their newly allocated id if they weren't in
+     * the hash table yet, or {@code -1-id} if they were already present in
+     * the hash table.
+     */
+    public long add(long key1, long key2) {
+        // This is in the critical path for collecting aggs. Be careful of performance.
+        if (size >= maxSize) {
+            assert size == maxSize;
+            grow();
+        }
+        final long hash = LongLongHash.hash(key1, key2);
+        final long h2 = hash & H2_MASK;
+        final long pattern = LOW_BITS * h2;
+        long group = (hash >>> 7) & groupMask;
+        for (long step = 1;; step++) {
+            final long word = control.get(group);
+            for (long matches = matches(word, pattern); matches != 0; matches &= matches - 1) {
+                final long id = ids.get(slot(group, matches));
+                if (keys.get(2 * id) == key1 && keys.get(2 * id + 1) == key2) {
+                    return -1 - id;
+                }
+            }
+            final long empty = word & HIGH_BITS;
+            if (empty != 0) {
+                final long id = size++;
+                insert(group, word, empty, h2, id);
+                append(id, key1, key2);
+                return id;
+            }
+            group = (group + step) & groupMask;
+        }
+    }
+
+    /**
+     * Find the bytes of a group whose control byte is equal to the 7 bits of
+     * hash in {@code pattern}. This can report false positives for the byte
+     * that follows a real match but never reports an empty slot, so callers
+     * must check the keys anyway.
+     */
+    private static long matches(long word, long pattern) {
+        final long x = word ^ pattern;
+        return (x - LOW_BITS) & ~x & HIGH_BITS;
+    }
+
+    /**
+     * The slot of the lowest byte set in {@code bytes} within {@code group}.
+     */
+    private static long slot(long group, long bytes) {
+        return (group << GROUP_SHIFT) | (Long.numberOfTrailingZeros(bytes) >>> 3);
+    }
+
+    private void insert(long group, long word, long empty, long h2, long id) {
+        final int shift = Long.numberOfTrailingZeros(empty) & ~7;
+        control.set(group, (word & ~(0xFFL << shift)) | (h2 << shift));
+        ids.set((group << GROUP_SHIFT) | (shift >>> 3), id);
+    }
+
+    private void append(long id, long key1, long key2) {
+        final long keyOffset = 2 * id;
+        keys = bigArrays.grow(keys, keyOffset + 2);
+        keys.set(keyOffset, key1);
+        keys.set(keyOffset + 1, key2);
+    }
+
+    private void allocateSlots(long groups) {
+        control = bigArrays.newLongArray(groups, false);
+        control.fill(0, groups, EMPTY_GROUP);
+        ids = bigArrays.newLongArray(groups << GROUP_SHIFT, false);
+        groupMask = groups - 1;
+        maxSize = groups * MAX_USED_PER_GROUP;
+    }
+
+    private void grow() {
+        final long newGroups = (groupMask + 1) << 1;
+        Releasables.close(control, ids);
+        control = null;
+        ids = null;
+        allocateSlots(newGroups);
+        // The keys are stored by id so we can rebuild the slots from them without looking up anything
+        for (long id = 0; id < size; id++) {
+            final long hash = LongLongHash.hash(keys.get(2 * id), keys.get(2 * id + 1));
+            long group = (hash >>> 7) & groupMask;
+            for (long step = 1;; step++) {
+                final long word = control.get(group);
+                final long empty = word & HIGH_BITS;
+                if (empty != 0) {
+                    insert(group, word, empty, hash & H2_MASK, id);
+                    break;
+                }
+                group = (group + step) & groupMask;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        Releasables.close(control, ids, keys);
+    }
+}
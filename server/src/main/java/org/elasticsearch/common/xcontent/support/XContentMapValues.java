@@ -13,12 +13,16 @@ import org.apache.lucene.util.automaton.Automaton;
 import org.apache.lucene.util.automaton.CharacterRunAutomaton;
 import org.apache.lucene.util.automaton.Operations;
 import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.common.CheckedBiConsumer;
 import org.elasticsearch.core.Booleans;
 import org.elasticsearch.common.Numbers;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.xcontent.XContentBuilder;
+import org.elasticsearch.xcontent.XContentParser;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -267,16 +271,54 @@ public class XContentMapValues {
      */
     public static Function<Map<String, ?>, Map<String, Object>> filter(String[] includes, String[] excludes) {
         CharacterRunAutomaton matchAllAutomaton = new CharacterRunAutomaton(Automata.makeAnyString());
+        CharacterRunAutomaton include = includeAutomaton(includes, matchAllAutomaton);
+        CharacterRunAutomaton exclude = excludeAutomaton(excludes);
 
-        CharacterRunAutomaton include;
+        // NOTE: We cannot use Operations.minus because of the special case that
+        // we want all sub properties to match as soon as an object matches
+
+        return (map) -> filter(map,
+            include, 0,
+            exclude, 0,
+            matchAllAutomaton);
+    }
+
+    /**
+     * Returns a function that reads a document object from a parser and writes the parts of it that match the given
+     * include and exclude rules to a builder. The rules have the same semantics as in {@link #filter(String[], String[])},
+     * but matching subtrees are copied straight from the parser, so the document is never materialized as a map, numbers
+     * keep their original representation and fields keep their original order.
+     */
+    public static CheckedBiConsumer<XContentParser, XContentBuilder, IOException> streamingFilter(String[] includes, String[] excludes) {
+        CharacterRunAutomaton matchAllAutomaton = new CharacterRunAutomaton(Automata.makeAnyString());
+        CharacterRunAutomaton include = includeAutomaton(includes, matchAllAutomaton);
+        CharacterRunAutomaton exclude = excludeAutomaton(excludes);
+
+        return (parser, builder) -> {
+            if (parser.currentToken() == null) {
+                parser.nextToken();
+            }
+            if (parser.currentToken() != XContentParser.Token.START_OBJECT) {
+                throw new ElasticsearchParseException("expected an object but got [{}]", parser.currentToken());
+            }
+            StreamingFilter filter = new StreamingFilter(builder, exclude, matchAllAutomaton);
+            PendingContainer root = new PendingContainer(null, null, true);
+            // the root object is written even if nothing matches
+            root.start(builder);
+            filter.filterObject(parser, root, include, 0, 0, true);
+        };
+    }
+
+    private static CharacterRunAutomaton includeAutomaton(String[] includes, CharacterRunAutomaton matchAllAutomaton) {
         if (includes == null || includes.length == 0) {
-            include = matchAllAutomaton;
-        } else {
-            Automaton includeA = Regex.simpleMatchToAutomaton(includes);
-            includeA = makeMatchDotsInFieldNames(includeA);
-            include = new CharacterRunAutomaton(includeA, MAX_DETERMINIZED_STATES);
+            return matchAllAutomaton;
         }
+        Automaton includeA = Regex.simpleMatchToAutomaton(includes);
+        includeA = makeMatchDotsInFieldNames(includeA);
+        return new CharacterRunAutomaton(includeA, MAX_DETERMINIZED_STATES);
+    }
 
+    private static CharacterRunAutomaton excludeAutomaton(String[] excludes) {
         Automaton excludeA;
         if (excludes == null || excludes.length == 0) {
             excludeA = Automata.makeEmpty();
@@ -284,15 +326,7 @@ public class XContentMapValues {
             excludeA = Regex.simpleMatchToAutomaton(excludes);
             excludeA = makeMatchDotsInFieldNames(excludeA);
         }
-        CharacterRunAutomaton exclude = new CharacterRunAutomaton(excludeA, MAX_DETERMINIZED_STATES);
-
-        // NOTE: We cannot use Operations.minus because of the special case that
-        // we want all sub properties to match as soon as an object matches
-
-        return (map) -> filter(map,
-            include, 0,
-            exclude, 0,
-            matchAllAutomaton);
+        return new CharacterRunAutomaton(excludeA, MAX_DETERMINIZED_STATES);
     }
 
     /** Make matches on objects also match dots in field names.
@@ -425,6 +459,169 @@ public class XContentMapValues {
         return filtered;
     }
 
+    /**
+     * An object or array that was entered by the {@link StreamingFilter} but is only written to the builder once something
+     * inside of it matches, so that objects and arrays which end up empty can be dropped like the map based filter does.
+     */
+    private static final class PendingContainer {
+        private final PendingContainer parent;
+        private final String name;
+        private final boolean object;
+        private boolean started;
+
+        PendingContainer(PendingContainer parent, String name, boolean object) {
+            this.parent = parent;
+            this.name = name;
+            this.object = object;
+        }
+
+        void start(XContentBuilder builder) throws IOException {
+            if (started) {
+                return;
+            }
+            if (parent != null) {
+                parent.start(builder);
+            }
+            if (name != null) {
+                builder.field(name);
+            }
+            if (object) {
+                builder.startObject();
+            } else {
+                builder.startArray();
+            }
+            started = true;
+        }
+
+        void end(XContentBuilder builder, boolean keepIfEmpty) throws IOException {
+            if (started == false) {
+                if (keepIfEmpty == false) {
+                    return;
+                }
+                start(builder);
+            }
+            if (object) {
+                builder.endObject();
+            } else {
+                builder.endArray();
+            }
+        }
+    }
+
+    /**
+     * Streaming counterpart of {@link #filter(Map, CharacterRunAutomaton, int, CharacterRunAutomaton, int, CharacterRunAutomaton)}
+     * and {@link #filter(Iterable, CharacterRunAutomaton, int, CharacterRunAutomaton, int, CharacterRunAutomaton)}, the
+     * two must be kept in sync.
+     */
+    private static final class StreamingFilter {
+        private final XContentBuilder builder;
+        private final CharacterRunAutomaton excludeAutomaton;
+        private final CharacterRunAutomaton matchAllAutomaton;
+
+        StreamingFilter(XContentBuilder builder, CharacterRunAutomaton excludeAutomaton, CharacterRunAutomaton matchAllAutomaton) {
+            this.builder = builder;
+            this.excludeAutomaton = excludeAutomaton;
+            this.matchAllAutomaton = matchAllAutomaton;
+        }
+
+        /**
+         * Filters the object the parser is positioned on and leaves the parser on its end.
+         */
+        void filterObject(XContentParser parser, PendingContainer container,
+                          CharacterRunAutomaton includeAutomaton, int initialIncludeState,
+                          int initialExcludeState, boolean keepIfEmpty) throws IOException {
+            XContentParser.Token token;
+            while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+                assert token == XContentParser.Token.FIELD_NAME : token;
+                String key = parser.currentName();
+                token = parser.nextToken();
+
+                int includeState = step(includeAutomaton, key, initialIncludeState);
+                if (includeState == -1) {
+                    parser.skipChildren();
+                    continue;
+                }
+
+                int excludeState = step(excludeAutomaton, key, initialExcludeState);
+                if (excludeState != -1 && excludeAutomaton.isAccept(excludeState)) {
+                    parser.skipChildren();
+                    continue;
+                }
+
+                boolean included = includeAutomaton.isAccept(includeState);
+                CharacterRunAutomaton subIncludeAutomaton = includeAutomaton;
+                int subIncludeState = includeState;
+                if (included) {
+                    if (excludeState == -1 || excludeAutomaton.step(excludeState, '.') == -1) {
+                        // the exclude has no chances to match inner properties
+                        container.start(builder);
+                        builder.field(key);
+                        builder.copyCurrentStructure(parser);
+                        continue;
+                    } else {
+                        subIncludeAutomaton = matchAllAutomaton;
+                        subIncludeState = 0;
+                    }
+                }
+
+                if (token == XContentParser.Token.START_OBJECT) {
+                    subIncludeState = subIncludeAutomaton.step(subIncludeState, '.');
+                    if (subIncludeState == -1) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    if (excludeState != -1) {
+                        excludeState = excludeAutomaton.step(excludeState, '.');
+                    }
+                    filterObject(parser, new PendingContainer(container, key, true),
+                        subIncludeAutomaton, subIncludeState, excludeState, included);
+                } else if (token == XContentParser.Token.START_ARRAY) {
+                    filterArray(parser, new PendingContainer(container, key, false),
+                        subIncludeAutomaton, subIncludeState, excludeState, included);
+                } else if (included) {
+                    // leaf property, excluded ones were skipped above
+                    container.start(builder);
+                    builder.field(key);
+                    builder.copyCurrentStructure(parser);
+                }
+            }
+            container.end(builder, keepIfEmpty);
+        }
+
+        /**
+         * Filters the array the parser is positioned on and leaves the parser on its end.
+         */
+        void filterArray(XContentParser parser, PendingContainer container,
+                         CharacterRunAutomaton includeAutomaton, int initialIncludeState,
+                         int initialExcludeState, boolean keepIfEmpty) throws IOException {
+            boolean isInclude = includeAutomaton.isAccept(initialIncludeState);
+            XContentParser.Token token;
+            while ((token = parser.nextToken()) != XContentParser.Token.END_ARRAY) {
+                if (token == XContentParser.Token.START_OBJECT) {
+                    int includeState = includeAutomaton.step(initialIncludeState, '.');
+                    if (includeState == -1) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    int excludeState = initialExcludeState;
+                    if (excludeState != -1) {
+                        excludeState = excludeAutomaton.step(excludeState, '.');
+                    }
+                    filterObject(parser, new PendingContainer(container, null, true),
+                        includeAutomaton, includeState, excludeState, false);
+                } else if (token == XContentParser.Token.START_ARRAY) {
+                    filterArray(parser, new PendingContainer(container, null, false),
+                        includeAutomaton, initialIncludeState, initialExcludeState, false);
+                } else if (isInclude) {
+                    // #22557: only accept this array value if the key we are on is accepted:
+                    container.start(builder);
+                    builder.copyCurrentStructure(parser);
+                }
+            }
+            container.end(builder, keepIfEmpty);
+        }
+    }
+
     public static boolean isObject(Object node) {
         return node instanceof Map;
     }
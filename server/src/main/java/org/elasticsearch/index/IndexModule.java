@@ -43,6 +43,7 @@ import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.shard.IndexEventListener;
 import org.elasticsearch.index.shard.IndexingOperationListener;
 import org.elasticsearch.index.shard.SearchOperationListener;
+import org.elasticsearch.index.shard.TranslogSyncCoordinator;
 import org.elasticsearch.index.similarity.SimilarityService;
 import org.elasticsearch.index.store.FsDirectoryFactory;
 import org.elasticsearch.indices.IndicesQueryCache;
@@ -130,6 +131,7 @@ public final class IndexModule {
     private final AtomicBoolean frozen = new AtomicBoolean(false);
     private final BooleanSupplier allowExpensiveQueries;
     private final Map<String, IndexStorePlugin.RecoveryStateFactory> recoveryStateFactories;
+    private final TranslogSyncCoordinator translogSyncCoordinator;
 
     /**
      * Construct the index module for the index with the specified index settings. The index module contains extension points for plugins
@@ -139,6 +141,7 @@ public final class IndexModule {
      * @param analysisRegistry    the analysis registry
      * @param engineFactory       the engine factory
      * @param directoryFactories the available store types
+     * @param translogSyncCoordinator the node-level coordinator that groups translog syncs per data path
      */
     public IndexModule(
             final IndexSettings indexSettings,
@@ -147,7 +150,8 @@ public final class IndexModule {
             final Map<String, IndexStorePlugin.DirectoryFactory> directoryFactories,
             final BooleanSupplier allowExpensiveQueries,
             final IndexNameExpressionResolver expressionResolver,
-            final Map<String, IndexStorePlugin.RecoveryStateFactory> recoveryStateFactories) {
+            final Map<String, IndexStorePlugin.RecoveryStateFactory> recoveryStateFactories,
+            final TranslogSyncCoordinator translogSyncCoordinator) {
         this.indexSettings = indexSettings;
         this.analysisRegistry = analysisRegistry;
         this.engineFactory = Objects.requireNonNull(engineFactory);
@@ -157,6 +161,7 @@ public final class IndexModule {
         this.allowExpensiveQueries = allowExpensiveQueries;
         this.expressionResolver = expressionResolver;
         this.recoveryStateFactories = recoveryStateFactories;
+        this.translogSyncCoordinator = Objects.requireNonNull(translogSyncCoordinator);
     }
 
     /**
@@ -433,7 +438,8 @@ public final class IndexModule {
                 engineFactory, circuitBreakerService, bigArrays, threadPool, scriptService, clusterService, client, queryCache,
                 directoryFactory, eventListener, readerWrapperFactory, mapperRegistry, indicesFieldDataCache, searchOperationListeners,
                 indexOperationListeners, namedWriteableRegistry, idFieldDataEnabled, allowExpensiveQueries, expressionResolver,
-                valuesSourceRegistry, recoveryStateFactory, indexFoldersDeletionListener, snapshotCommitSupplier);
+                valuesSourceRegistry, recoveryStateFactory, indexFoldersDeletionListener, snapshotCommitSupplier,
+                translogSyncCoordinator);
             success = true;
             return indexService;
         } finally {
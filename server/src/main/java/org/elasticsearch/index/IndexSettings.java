@@ -177,6 +177,14 @@ public final class IndexSettings {
     public static final Setting<TimeValue> INDEX_REFRESH_INTERVAL_SETTING =
         Setting.timeSetting("index.refresh_interval", DEFAULT_REFRESH_INTERVAL, new TimeValue(-1, TimeUnit.MILLISECONDS),
             Property.Dynamic, Property.IndexScope);
+    /**
+     * The longest interval that scheduled refreshes of a shard may be stretched to by the adaptive refresh scheduler while the node is
+     * under indexing load. Has no effect unless {@code indices.refresh.adaptive.enabled} is set on the node, or if it is not larger
+     * than {@link #INDEX_REFRESH_INTERVAL_SETTING}.
+     */
+    public static final Setting<TimeValue> INDEX_REFRESH_ADAPTIVE_MAX_INTERVAL_SETTING =
+        Setting.timeSetting("index.refresh.adaptive.max_interval", TimeValue.timeValueSeconds(10), TimeValue.ZERO,
+            Property.Dynamic, Property.IndexScope);
     public static final Setting<ByteSizeValue> INDEX_TRANSLOG_FLUSH_THRESHOLD_SIZE_SETTING =
         Setting.byteSizeSetting("index.translog.flush_threshold_size", new ByteSizeValue(512, ByteSizeUnit.MB),
             /*
@@ -215,6 +223,14 @@ public final class IndexSettings {
                     new ByteSizeValue(Long.MAX_VALUE, ByteSizeUnit.BYTES),
                     Property.Dynamic, Property.IndexScope);
 
+    /**
+     * If enabled, the file of a trimmed translog generation is kept and reused for the next generation instead of being deleted. The
+     * reused file is already allocated on disk, so writes to the new generation don't extend the file and syncs don't need to persist
+     * file size changes in addition to the data, which helps ingest-heavy shards that roll generations frequently.
+     */
+    public static final Setting<Boolean> INDEX_TRANSLOG_RECYCLE_GENERATION_FILES_SETTING =
+        Setting.boolSetting("index.translog.recycle_generation_files", false, Property.Dynamic, Property.IndexScope);
+
     /**
      * Index setting to enable / disable deletes garbage collection.
      * This setting is realtime updateable
@@ -231,6 +247,28 @@ public final class IndexSettings {
     public static final Setting<Boolean> INDEX_SOFT_DELETES_SETTING =
         Setting.boolSetting("index.soft_deletes.enabled", true, Property.IndexScope, Property.Final);
 
+    /**
+     * Specifies if the engine keeps the uid to version mapping of documents that have not been refreshed yet in paged primitive
+     * arrays instead of a map of objects. This reduces the number of objects the garbage collector has to trace for update-heavy
+     * indices with long refresh intervals, and accounts the memory of the version map on the accounting circuit breaker.
+     */
+    public static final Setting<Boolean> INDEX_VERSION_MAP_PAGED_SETTING =
+        Setting.boolSetting("index.version_map.paged", false, Property.IndexScope, Property.Final);
+
+    /**
+     * If enabled, the documents of large bulk shard requests are parsed on several threads of the write pool ahead of being indexed
+     * on the primary. Documents are still indexed one after the other in the order of the request.
+     */
+    public static final Setting<Boolean> INDEX_BULK_PARALLEL_PARSING_SETTING =
+        Setting.boolSetting("index.bulk.parallel_parsing", false, Property.IndexScope, Property.Dynamic);
+
+    /**
+     * If enabled, runs of consecutive index requests with auto-generated ids in a bulk shard request are indexed on the primary with a
+     * single call to the engine, which adds their documents to Lucene and the translog in one go.
+     */
+    public static final Setting<Boolean> INDEX_BULK_BATCH_APPEND_ONLY_SETTING =
+        Setting.boolSetting("index.bulk.batch_append_only", false, Property.IndexScope, Property.Dynamic);
+
     /**
      * Controls how many soft-deleted documents will be kept around before being merged away. Keeping more deleted
      * documents increases the chance of operation-based recoveries and allows querying a longer history of documents.
@@ -385,8 +423,10 @@ public final class IndexSettings {
     private volatile Translog.Durability durability;
     private volatile TimeValue syncInterval;
     private volatile TimeValue refreshInterval;
+    private volatile TimeValue adaptiveRefreshMaxInterval;
     private volatile ByteSizeValue flushThresholdSize;
     private volatile ByteSizeValue generationThresholdSize;
+    private volatile boolean translogRecycleGenerationFiles;
     private volatile ByteSizeValue flushAfterMergeThresholdSize;
     private final MergeSchedulerConfig mergeSchedulerConfig;
     private final MergePolicyConfig mergePolicyConfig;
@@ -394,6 +434,7 @@ public final class IndexSettings {
     private final IndexScopedSettings scopedSettings;
     private long gcDeletesInMillis = DEFAULT_GC_DELETES.millis();
     private final boolean softDeleteEnabled;
+    private final boolean versionMapPaged;
     private volatile long softDeleteRetentionOperations;
 
     private volatile long retentionLeaseMillis;
@@ -412,6 +453,8 @@ public final class IndexSettings {
     }
 
     private volatile boolean warmerEnabled;
+    private volatile boolean bulkParallelParsing;
+    private volatile boolean bulkBatchAppendOnly;
     private volatile int maxResultWindow;
     private volatile int maxInnerResultWindow;
     private volatile int maxRescoreWindow;
@@ -525,16 +568,21 @@ public final class IndexSettings {
         defaultFields = scopedSettings.get(DEFAULT_FIELD_SETTING);
         syncInterval = INDEX_TRANSLOG_SYNC_INTERVAL_SETTING.get(settings);
         refreshInterval = scopedSettings.get(INDEX_REFRESH_INTERVAL_SETTING);
+        adaptiveRefreshMaxInterval = scopedSettings.get(INDEX_REFRESH_ADAPTIVE_MAX_INTERVAL_SETTING);
         flushThresholdSize = scopedSettings.get(INDEX_TRANSLOG_FLUSH_THRESHOLD_SIZE_SETTING);
         generationThresholdSize = scopedSettings.get(INDEX_TRANSLOG_GENERATION_THRESHOLD_SIZE_SETTING);
+        translogRecycleGenerationFiles = scopedSettings.get(INDEX_TRANSLOG_RECYCLE_GENERATION_FILES_SETTING);
         flushAfterMergeThresholdSize = scopedSettings.get(INDEX_FLUSH_AFTER_MERGE_THRESHOLD_SIZE_SETTING);
         mergeSchedulerConfig = new MergeSchedulerConfig(this);
         gcDeletesInMillis = scopedSettings.get(INDEX_GC_DELETES_SETTING).getMillis();
         softDeleteEnabled = scopedSettings.get(INDEX_SOFT_DELETES_SETTING);
         assert softDeleteEnabled || version.before(Version.V_8_0_0) : "soft deletes must be enabled in version " + version;
+        versionMapPaged = scopedSettings.get(INDEX_VERSION_MAP_PAGED_SETTING);
         softDeleteRetentionOperations = scopedSettings.get(INDEX_SOFT_DELETES_RETENTION_OPERATIONS_SETTING);
         retentionLeaseMillis = scopedSettings.get(INDEX_SOFT_DELETES_RETENTION_LEASE_PERIOD_SETTING).millis();
         warmerEnabled = scopedSettings.get(INDEX_WARMER_ENABLED_SETTING);
+        bulkParallelParsing = scopedSettings.get(INDEX_BULK_PARALLEL_PARSING_SETTING);
+        bulkBatchAppendOnly = scopedSettings.get(INDEX_BULK_BATCH_APPEND_ONLY_SETTING);
         maxResultWindow = scopedSettings.get(MAX_RESULT_WINDOW_SETTING);
         maxInnerResultWindow = scopedSettings.get(MAX_INNER_RESULT_WINDOW_SETTING);
         maxRescoreWindow = scopedSettings.get(MAX_RESCORE_WINDOW_SETTING);
@@ -589,13 +637,17 @@ public final class IndexSettings {
         scopedSettings.addSettingsUpdateConsumer(MAX_NGRAM_DIFF_SETTING, this::setMaxNgramDiff);
         scopedSettings.addSettingsUpdateConsumer(MAX_SHINGLE_DIFF_SETTING, this::setMaxShingleDiff);
         scopedSettings.addSettingsUpdateConsumer(INDEX_WARMER_ENABLED_SETTING, this::setEnableWarmer);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_BULK_PARALLEL_PARSING_SETTING, this::setBulkParallelParsing);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_BULK_BATCH_APPEND_ONLY_SETTING, this::setBulkBatchAppendOnly);
         scopedSettings.addSettingsUpdateConsumer(INDEX_GC_DELETES_SETTING, this::setGCDeletes);
         scopedSettings.addSettingsUpdateConsumer(INDEX_TRANSLOG_FLUSH_THRESHOLD_SIZE_SETTING, this::setTranslogFlushThresholdSize);
         scopedSettings.addSettingsUpdateConsumer(INDEX_FLUSH_AFTER_MERGE_THRESHOLD_SIZE_SETTING, this::setFlushAfterMergeThresholdSize);
         scopedSettings.addSettingsUpdateConsumer(
                 INDEX_TRANSLOG_GENERATION_THRESHOLD_SIZE_SETTING,
                 this::setGenerationThresholdSize);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_TRANSLOG_RECYCLE_GENERATION_FILES_SETTING, this::setTranslogRecycleGenerationFiles);
         scopedSettings.addSettingsUpdateConsumer(INDEX_REFRESH_INTERVAL_SETTING, this::setRefreshInterval);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_REFRESH_ADAPTIVE_MAX_INTERVAL_SETTING, this::setAdaptiveRefreshMaxInterval);
         scopedSettings.addSettingsUpdateConsumer(MAX_REFRESH_LISTENERS_PER_SHARD, this::setMaxRefreshListeners);
         scopedSettings.addSettingsUpdateConsumer(MAX_ANALYZED_OFFSET_SETTING, this::setHighlightMaxAnalyzedOffset);
         scopedSettings.addSettingsUpdateConsumer(MAX_TERMS_COUNT_SETTING, this::setMaxTermsCount);
@@ -630,6 +682,10 @@ public final class IndexSettings {
         this.generationThresholdSize = generationThresholdSize;
     }
 
+    private void setTranslogRecycleGenerationFiles(boolean translogRecycleGenerationFiles) {
+        this.translogRecycleGenerationFiles = translogRecycleGenerationFiles;
+    }
+
     private void setGCDeletes(TimeValue timeValue) {
         this.gcDeletesInMillis = timeValue.getMillis();
     }
@@ -638,6 +694,10 @@ public final class IndexSettings {
         this.refreshInterval = timeValue;
     }
 
+    private void setAdaptiveRefreshMaxInterval(TimeValue timeValue) {
+        this.adaptiveRefreshMaxInterval = timeValue;
+    }
+
     /**
      * Returns the settings for this index. These settings contain the node and index level settings where
      * settings that are specified on both index and node level are overwritten by the index settings.
@@ -787,6 +847,30 @@ public final class IndexSettings {
         this.warmerEnabled = enableWarmer;
     }
 
+    /**
+     * Returns <code>true</code> if documents of bulk shard requests are parsed in parallel on the primary.
+     * See {@link #INDEX_BULK_PARALLEL_PARSING_SETTING}.
+     */
+    public boolean isBulkParallelParsing() {
+        return bulkParallelParsing;
+    }
+
+    private void setBulkParallelParsing(boolean bulkParallelParsing) {
+        this.bulkParallelParsing = bulkParallelParsing;
+    }
+
+    /**
+     * Returns <code>true</code> if runs of append-only index requests of bulk shard requests are indexed together on the primary.
+     * See {@link #INDEX_BULK_BATCH_APPEND_ONLY_SETTING}.
+     */
+    public boolean isBulkBatchAppendOnly() {
+        return bulkBatchAppendOnly;
+    }
+
+    private void setBulkBatchAppendOnly(boolean bulkBatchAppendOnly) {
+        this.bulkBatchAppendOnly = bulkBatchAppendOnly;
+    }
+
     /**
      * Returns the translog sync interval. This is the interval in which the transaction log is asynchronously fsynced unless
      * the transaction log is fsyncing on every operations
@@ -806,6 +890,13 @@ public final class IndexSettings {
         return refreshInterval;
     }
 
+    /**
+     * See {@link #INDEX_REFRESH_ADAPTIVE_MAX_INTERVAL_SETTING}
+     */
+    public TimeValue getAdaptiveRefreshMaxInterval() {
+        return adaptiveRefreshMaxInterval;
+    }
+
     /**
      * Returns the transaction log threshold size when to forcefully flush the index and clear the transaction log.
      */
@@ -829,6 +920,14 @@ public final class IndexSettings {
         return generationThresholdSize;
     }
 
+    /**
+     * Returns <code>true</code> if files of trimmed translog generations are reused for new generations.
+     * See {@link #INDEX_TRANSLOG_RECYCLE_GENERATION_FILES_SETTING}.
+     */
+    public boolean isTranslogRecycleGenerationFiles() {
+        return translogRecycleGenerationFiles;
+    }
+
     /**
      * Returns the {@link MergeSchedulerConfig}
      */
@@ -1024,6 +1123,13 @@ public final class IndexSettings {
         return softDeleteEnabled;
     }
 
+    /**
+     * Returns <code>true</code> if the live version map is kept in paged arrays. See {@link #INDEX_VERSION_MAP_PAGED_SETTING}.
+     */
+    public boolean isVersionMapPaged() {
+        return versionMapPaged;
+    }
+
     private void setSoftDeleteRetentionOperations(long ops) {
         this.softDeleteRetentionOperations = ops;
     }
@@ -65,6 +65,7 @@ import org.elasticsearch.search.suggest.completion.CompletionStats;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -329,6 +330,22 @@ public abstract class Engine implements Closeable {
      */
     public abstract IndexResult index(Index index) throws IOException;
 
+    /**
+     * Perform several document index operations on the engine. Engines may process a run of operations more efficiently than one by
+     * one, the default implementation indexes them one after the other.
+     * @param operations operations to perform
+     * @return one {@link IndexResult} per operation, in the same order as the operations
+     *
+     * Note: engine level failures (i.e. persistent engine failures) are thrown
+     */
+    public List<IndexResult> index(List<Index> operations) throws IOException {
+        final List<IndexResult> results = new ArrayList<>(operations.size());
+        for (Index operation : operations) {
+            results.add(index(operation));
+        }
+        return results;
+    }
+
     /**
      * Perform document delete operation on the engine
      * @param delete operation to perform
@@ -357,6 +374,9 @@ public abstract class Engine implements Closeable {
         private final Mapping requiredMappingUpdate;
         private Translog.Location translogLocation;
         private long took;
+        private long versionMapTook;
+        private long indexWriterTook;
+        private long translogTook;
 
         protected Result(Operation.TYPE operationType, Exception failure, long version, long term, long seqNo) {
             this.operationType = operationType;
@@ -434,6 +454,21 @@ public abstract class Engine implements Closeable {
             return took;
         }
 
+        /** get the time in nanoseconds spent resolving the current version of the document */
+        public long getVersionMapTook() {
+            return versionMapTook;
+        }
+
+        /** get the time in nanoseconds spent in the index writer */
+        public long getIndexWriterTook() {
+            return indexWriterTook;
+        }
+
+        /** get the time in nanoseconds spent adding the operation to the translog */
+        public long getTranslogTook() {
+            return translogTook;
+        }
+
         public Operation.TYPE getOperationType() {
             return operationType;
         }
@@ -454,6 +489,16 @@ public abstract class Engine implements Closeable {
             }
         }
 
+        void setPhasesTook(long versionMapTook, long indexWriterTook, long translogTook) {
+            if (freeze.get() == null) {
+                this.versionMapTook = versionMapTook;
+                this.indexWriterTook = indexWriterTook;
+                this.translogTook = translogTook;
+            } else {
+                throw new IllegalStateException("result is already frozen");
+            }
+        }
+
         void freeze() {
             freeze.set(true);
         }
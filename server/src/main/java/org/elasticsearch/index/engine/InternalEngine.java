@@ -44,6 +44,7 @@ import org.elasticsearch.Assertions;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.lucene.LoggerInfoStream;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
@@ -52,12 +53,14 @@ import org.elasticsearch.common.lucene.uid.Versions;
 import org.elasticsearch.common.lucene.uid.VersionsAndSeqNoResolver;
 import org.elasticsearch.common.lucene.uid.VersionsAndSeqNoResolver.DocIdAndSeqNo;
 import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.common.util.concurrent.KeyedLock;
 import org.elasticsearch.common.util.concurrent.ReleasableLock;
 import org.elasticsearch.core.Booleans;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.Releasables;
 import org.elasticsearch.core.SuppressForbidden;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.index.IndexSettings;
@@ -87,8 +90,10 @@ import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -129,7 +134,7 @@ public class InternalEngine extends Engine {
 
     // A uid (in the form of BytesRef) to the version map
     // we use the hashed variant since we iterate over it and check removal and additions on existing keys
-    private final LiveVersionMap versionMap = new LiveVersionMap();
+    private final LiveVersionMap versionMap;
 
     private volatile SegmentInfos lastCommittedSegmentInfos;
 
@@ -194,6 +199,12 @@ public class InternalEngine extends Engine {
     InternalEngine(EngineConfig engineConfig, int maxDocs, BiFunction<Long, Long, LocalCheckpointTracker> localCheckpointTrackerSupplier) {
         super(engineConfig);
         this.maxDocs = maxDocs;
+        if (engineConfig.getIndexSettings().isVersionMapPaged()) {
+            // accounted against the accounting breaker without ever tripping it, indexing must not fail because of the version map
+            versionMap = new LiveVersionMap(new BigArrays(null, engineConfig.getCircuitBreakerService(), CircuitBreaker.ACCOUNTING));
+        } else {
+            versionMap = new LiveVersionMap();
+        }
         final TranslogDeletionPolicy translogDeletionPolicy = new TranslogDeletionPolicy();
         store.incRef();
         IndexWriter writer = null;
@@ -887,10 +898,13 @@ public class InternalEngine extends Engine {
                  *  if A arrives on the shard first we use addDocument since maxUnsafeAutoIdTimestamp is < 10. A` will then just be skipped
                  *  or calls updateDocument.
                  */
+                final long planStartTime = System.nanoTime();
                 final IndexingStrategy plan = indexingStrategyForOperation(index);
+                final long versionMapTook = System.nanoTime() - planStartTime;
                 reservedDocs = plan.reservedDocs;
 
                 final IndexResult indexResult;
+                long indexWriterTook = 0;
                 if (plan.earlyResultOnPreFlightError.isPresent()) {
                     assert index.origin() == Operation.Origin.PRIMARY : index.origin();
                     indexResult = plan.earlyResultOnPreFlightError.get();
@@ -913,13 +927,17 @@ public class InternalEngine extends Engine {
                     assert index.seqNo() >= 0 : "ops should have an assigned seq no.; origin: " + index.origin();
 
                     if (plan.indexIntoLucene || plan.addStaleOpToLucene) {
+                        final long indexWriterStartTime = System.nanoTime();
                         indexResult = indexIntoLucene(index, plan);
+                        indexWriterTook = System.nanoTime() - indexWriterStartTime;
                     } else {
                         indexResult = new IndexResult(
                             plan.versionForIndexing, index.primaryTerm(), index.seqNo(), plan.currentNotFoundOrDeleted);
                     }
                 }
+                long translogTook = 0;
                 if (index.origin().isFromTranslog() == false) {
+                    final long translogStartTime = System.nanoTime();
                     final Translog.Location location;
                     if (indexResult.getResultType() == Result.Type.SUCCESS) {
                         location = translog.add(new Translog.Index(index, indexResult));
@@ -932,6 +950,7 @@ public class InternalEngine extends Engine {
                         location = null;
                     }
                     indexResult.setTranslogLocation(location);
+                    translogTook = System.nanoTime() - translogStartTime;
                 }
                 if (plan.indexIntoLucene && indexResult.getResultType() == Result.Type.SUCCESS) {
                     final Translog.Location translogLocation = trackTranslogLocation.get() ? indexResult.getTranslogLocation() : null;
@@ -944,6 +963,7 @@ public class InternalEngine extends Engine {
                     assert index.origin().isFromTranslog() || indexResult.getSeqNo() == SequenceNumbers.UNASSIGNED_SEQ_NO;
                     localCheckpointTracker.markSeqNoAsPersisted(indexResult.getSeqNo());
                 }
+                indexResult.setPhasesTook(versionMapTook, indexWriterTook, translogTook);
                 indexResult.setTook(System.nanoTime() - index.startTime());
                 indexResult.freeze();
                 return indexResult;
@@ -964,6 +984,152 @@ public class InternalEngine extends Engine {
         }
     }
 
+    /**
+     * Indexes a run of append-only operations on the primary with a single {@link IndexWriter#addDocuments} call and a single translog
+     * write. All operations must have an auto-generated id and must not be retries, otherwise they are indexed one by one. Operations
+     * that turn out to need a version lookup are still indexed individually, as are all operations of the run if Lucene rejects one
+     * of its documents, so that the failure is reported for the right operation only.
+     */
+    @Override
+    public List<IndexResult> index(List<Index> operations) throws IOException {
+        if (operations.size() < 2 || operations.stream().allMatch(this::canIndexInBatch) == false) {
+            return super.index(operations);
+        }
+        final Index[] indices = operations.toArray(new Index[0]);
+        final IndexingStrategy[] plans = new IndexingStrategy[indices.length];
+        final IndexResult[] results = new IndexResult[indices.length];
+        final long[] versionMapTook = new long[indices.length];
+        final long[] indexWriterTook = new long[indices.length];
+        try (ReleasableLock releasableLock = readLock.acquire()) {
+            ensureOpen();
+            for (Index index : indices) {
+                assert assertIncomingSequenceNumber(index.origin(), index.seqNo());
+            }
+            int reservedDocs = 0;
+            // auto-generated ids are unique and retries are excluded, so no other thread can hold a lock on one of these uids while
+            // waiting for another one of them. Like index(Index), the uid locks are taken before the throttle.
+            final List<Releasable> locks = new ArrayList<>(indices.length + 1);
+            try {
+                for (Index index : indices) {
+                    locks.add(versionMap.acquireLock(index.uid().bytes()));
+                }
+                locks.add(throttle.acquireThrottle());
+                lastWriteNanos = indices[indices.length - 1].startTime();
+                final List<LuceneDocument> appendedDocs = new ArrayList<>();
+                for (int i = 0; i < indices.length; i++) {
+                    final long planStartTime = System.nanoTime();
+                    final IndexingStrategy plan = indexingStrategyForOperation(indices[i]);
+                    versionMapTook[i] = System.nanoTime() - planStartTime;
+                    plans[i] = plan;
+                    reservedDocs += plan.reservedDocs;
+                    if (plan.earlyResultOnPreFlightError.isPresent()) {
+                        results[i] = plan.earlyResultOnPreFlightError.get();
+                        assert results[i].getResultType() == Result.Type.FAILURE : results[i].getResultType();
+                        continue;
+                    }
+                    final Index index = indices[i];
+                    indices[i] = new Index(index.uid(), index.parsedDoc(), generateSeqNoForOperationOnPrimary(index), index.primaryTerm(),
+                        index.version(), index.versionType(), index.origin(), index.startTime(), index.getAutoGeneratedIdTimestamp(),
+                        index.isRetry(), index.getIfSeqNo(), index.getIfPrimaryTerm());
+                    if (plan.indexIntoLucene && plan.useLuceneUpdateDocument == false) {
+                        indices[i].parsedDoc().updateSeqID(indices[i].seqNo(), indices[i].primaryTerm());
+                        indices[i].parsedDoc().version().setLongValue(plan.versionForIndexing);
+                        assert assertDocDoesNotExist(indices[i], false);
+                        appendedDocs.addAll(indices[i].docs());
+                    } else {
+                        advanceMaxSeqNoOfUpdatesOnPrimary(indices[i].seqNo());
+                        final long indexWriterStartTime = System.nanoTime();
+                        results[i] = indexIntoLucene(indices[i], plan);
+                        indexWriterTook[i] = System.nanoTime() - indexWriterStartTime;
+                    }
+                }
+                if (appendedDocs.isEmpty() == false) {
+                    boolean addedAll = false;
+                    final long indexWriterStartTime = System.nanoTime();
+                    try {
+                        indexWriter.addDocuments(appendedDocs);
+                        numDocAppends.inc(appendedDocs.size());
+                        addedAll = true;
+                    } catch (Exception ex) {
+                        if (ex instanceof AlreadyClosedException || indexWriter.getTragicException() != null) {
+                            throw ex;
+                        }
+                        // a document failure discards the whole block, index the operations one by one to find the failing ones
+                    }
+                    // the time of the shared addDocuments call, including a failed one, is split evenly over the appended documents
+                    final long appendedTook = (System.nanoTime() - indexWriterStartTime) / appendedDocs.size();
+                    for (int i = 0; i < indices.length; i++) {
+                        if (results[i] == null) {
+                            final long startTime = System.nanoTime();
+                            results[i] = addedAll
+                                ? new IndexResult(plans[i].versionForIndexing, indices[i].primaryTerm(), indices[i].seqNo(),
+                                    plans[i].currentNotFoundOrDeleted)
+                                : indexIntoLucene(indices[i], plans[i]);
+                            indexWriterTook[i] = appendedTook * indices[i].docs().size() + System.nanoTime() - startTime;
+                        }
+                    }
+                }
+                final long translogStartTime = System.nanoTime();
+                addToTranslog(indices, results);
+                final long translogTook = (System.nanoTime() - translogStartTime) / indices.length;
+                for (int i = 0; i < indices.length; i++) {
+                    final IndexResult indexResult = results[i];
+                    if (plans[i].indexIntoLucene && indexResult.getResultType() == Result.Type.SUCCESS) {
+                        final Translog.Location translogLocation =
+                            trackTranslogLocation.get() ? indexResult.getTranslogLocation() : null;
+                        versionMap.maybePutIndexUnderLock(indices[i].uid().bytes(), new IndexVersionValue(translogLocation,
+                            plans[i].versionForIndexing, indices[i].seqNo(), indices[i].primaryTerm()));
+                    }
+                    localCheckpointTracker.markSeqNoAsProcessed(indexResult.getSeqNo());
+                    if (indexResult.getTranslogLocation() == null) {
+                        // the op does not have a sequence number
+                        assert indexResult.getSeqNo() == SequenceNumbers.UNASSIGNED_SEQ_NO;
+                        localCheckpointTracker.markSeqNoAsPersisted(indexResult.getSeqNo());
+                    }
+                    indexResult.setPhasesTook(versionMapTook[i], indexWriterTook[i], translogTook);
+                    indexResult.setTook(System.nanoTime() - indices[i].startTime());
+                    indexResult.freeze();
+                }
+                return List.of(results);
+            } finally {
+                Releasables.close(locks);
+                releaseInFlightDocs(reservedDocs);
+            }
+        } catch (RuntimeException | IOException e) {
+            try {
+                maybeFailEngine("index batch of [" + indices.length + "] operations", e);
+            } catch (Exception inner) {
+                e.addSuppressed(inner);
+            }
+            throw e;
+        }
+    }
+
+    private boolean canIndexInBatch(Index index) {
+        return index.origin() == Operation.Origin.PRIMARY && index.isRetry() == false && canOptimizeAddDocument(index);
+    }
+
+    private void addToTranslog(Index[] indices, IndexResult[] results) throws IOException {
+        final List<Translog.Index> operations = new ArrayList<>(indices.length);
+        for (int i = 0; i < indices.length; i++) {
+            if (results[i].getResultType() == Result.Type.SUCCESS) {
+                operations.add(new Translog.Index(indices[i], results[i]));
+            }
+        }
+        final Iterator<Translog.Location> locations = translog.add(operations).iterator();
+        for (int i = 0; i < indices.length; i++) {
+            final IndexResult indexResult = results[i];
+            if (indexResult.getResultType() == Result.Type.SUCCESS) {
+                indexResult.setTranslogLocation(locations.next());
+            } else if (indexResult.getSeqNo() != SequenceNumbers.UNASSIGNED_SEQ_NO) {
+                // if we have document failure, record it as a no-op in the translog and Lucene with the generated seq_no
+                final NoOp noOp = new NoOp(indexResult.getSeqNo(), indices[i].primaryTerm(), indices[i].origin(),
+                    indices[i].startTime(), indexResult.getFailure().toString());
+                indexResult.setTranslogLocation(innerNoOp(noOp).getTranslogLocation());
+            }
+        }
+    }
+
     protected final IndexingStrategy planIndexingAsNonPrimary(Index index) throws IOException {
         assert assertNonPrimaryOrigin(index);
         // needs to maintain the auto_id timestamp in case this replica becomes primary
@@ -1268,7 +1434,10 @@ public class InternalEngine extends Engine {
         try (ReleasableLock ignored = readLock.acquire(); Releasable ignored2 = versionMap.acquireLock(delete.uid().bytes())) {
             ensureOpen();
             lastWriteNanos = delete.startTime();
+            final long planStartTime = System.nanoTime();
             final DeletionStrategy plan = deletionStrategyForOperation(delete);
+            final long versionMapTook = System.nanoTime() - planStartTime;
+            long indexWriterTook = 0;
             reservedDocs = plan.reservedDocs;
             if (plan.earlyResultOnPreflightError.isPresent()) {
                 assert delete.origin() == Operation.Origin.PRIMARY : delete.origin();
@@ -1288,7 +1457,9 @@ public class InternalEngine extends Engine {
                 assert delete.seqNo() >= 0 : "ops should have an assigned seq no.; origin: " + delete.origin();
 
                 if (plan.deleteFromLucene || plan.addStaleOpToLucene) {
+                    final long indexWriterStartTime = System.nanoTime();
                     deleteResult = deleteInLucene(delete, plan);
+                    indexWriterTook = System.nanoTime() - indexWriterStartTime;
                 } else {
                     deleteResult = new DeleteResult(
                         plan.versionOfDeletion, delete.primaryTerm(), delete.seqNo(), plan.currentlyDeleted == false);
@@ -1300,9 +1471,12 @@ public class InternalEngine extends Engine {
                             engineConfig.getThreadPool().relativeTimeInMillis()));
                 }
             }
+            long translogTook = 0;
             if (delete.origin().isFromTranslog() == false && deleteResult.getResultType() == Result.Type.SUCCESS) {
+                final long translogStartTime = System.nanoTime();
                 final Translog.Location location = translog.add(new Translog.Delete(delete, deleteResult));
                 deleteResult.setTranslogLocation(location);
+                translogTook = System.nanoTime() - translogStartTime;
             }
             localCheckpointTracker.markSeqNoAsProcessed(deleteResult.getSeqNo());
             if (deleteResult.getTranslogLocation() == null) {
@@ -1310,6 +1484,7 @@ public class InternalEngine extends Engine {
                 assert delete.origin().isFromTranslog() || deleteResult.getSeqNo() == SequenceNumbers.UNASSIGNED_SEQ_NO;
                 localCheckpointTracker.markSeqNoAsPersisted(deleteResult.getSeqNo());
             }
+            deleteResult.setPhasesTook(versionMapTook, indexWriterTook, translogTook);
             deleteResult.setTook(System.nanoTime() - delete.startTime());
             deleteResult.freeze();
         } catch (RuntimeException | IOException e) {
@@ -12,22 +12,25 @@ import org.apache.lucene.search.ReferenceManager;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.KeyedLock;
+import org.elasticsearch.core.Releasables;
 
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
 
 /** Maps _uid value to its version information. */
 final class LiveVersionMap implements ReferenceManager.RefreshListener, Accountable {
 
     private final KeyedLock<BytesRef> keyedLock = new KeyedLock<>();
 
-    private static final class VersionLookup {
+    private static final class VersionLookup implements Releasable {
 
         /** Tracks bytes used by current map, i.e. what is freed on refresh. For deletes, which are also added to tombstones,
          *  we only account for the CHM entry here, and account for BytesRef/VersionValue against the tombstones, since refresh would not
@@ -90,6 +93,21 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
             minDeleteTimestamp.updateAndGet(prev -> Math.min(time, prev));
         }
 
+        long ramBytesUsed() {
+            // a paged map accounts for the entries it holds, a heap map relies on the estimates tracked by the maps
+            return map instanceof Accountable ? ((Accountable) map).ramBytesUsed() : ramBytesUsed.get();
+        }
+
+        @Override
+        public void close() {
+            if (map instanceof Releasable) {
+                ((Releasable) map).close();
+            }
+        }
+    }
+
+    private static VersionLookup newHeapLookup(int expectedSize) {
+        return new VersionLookup(ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency(expectedSize));
     }
 
     private static final class Maps {
@@ -105,16 +123,18 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
         boolean needsSafeAccess;
         final boolean previousMapsNeededSafeAccess;
 
+        // creates the lookup that receives the writes after a refresh, given the number of entries in the current one
+        private final IntFunction<VersionLookup> lookupFactory;
 
-        Maps(VersionLookup current, VersionLookup old, boolean previousMapsNeededSafeAccess) {
+        Maps(VersionLookup current, VersionLookup old, boolean previousMapsNeededSafeAccess, IntFunction<VersionLookup> lookupFactory) {
             this.current = current;
             this.old = old;
             this.previousMapsNeededSafeAccess = previousMapsNeededSafeAccess;
+            this.lookupFactory = lookupFactory;
         }
 
-        Maps() {
-            this(new VersionLookup(ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency()),
-                VersionLookup.EMPTY, false);
+        Maps(IntFunction<VersionLookup> lookupFactory) {
+            this(lookupFactory.apply(0), VersionLookup.EMPTY, false, lookupFactory);
         }
 
         boolean isSafeAccessMode() {
@@ -132,15 +152,14 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
          * Builds a new map for the refresh transition this should be called in beforeRefresh()
          */
         Maps buildTransitionMap() {
-            return new Maps(new VersionLookup(ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency(current.size())), current,
-                shouldInheritSafeAccess());
+            return new Maps(lookupFactory.apply(current.size()), current, shouldInheritSafeAccess(), lookupFactory);
         }
 
         /**
          * builds a new map that invalidates the old map but maintains the current. This should be called in afterRefresh()
          */
         Maps invalidateOldMap() {
-            return new Maps(current, VersionLookup.EMPTY, previousMapsNeededSafeAccess);
+            return new Maps(current, VersionLookup.EMPTY, previousMapsNeededSafeAccess, lookupFactory);
         }
 
         void put(BytesRef uid, VersionValue version) {
@@ -180,10 +199,26 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
     // All deletes also go here, and delete "tombstones" are retained after refresh:
     private final Map<BytesRef, DeleteVersionValue> tombstones = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
 
-    private volatile Maps maps = new Maps();
+    private volatile Maps maps;
     // we maintain a second map that only receives the updates that we skip on the actual map (unsafe ops)
     // this map is only maintained if assertions are enabled
-    private volatile Maps unsafeKeysMap = new Maps();
+    private volatile Maps unsafeKeysMap = new Maps(LiveVersionMap::newHeapLookup);
+
+    /**
+     * Creates a version map that keeps live versions in concurrent hash maps on the heap.
+     */
+    LiveVersionMap() {
+        this.maps = new Maps(LiveVersionMap::newHeapLookup);
+    }
+
+    /**
+     * Creates a version map that keeps live versions in {@link PagedVersionMap}s allocated from the given {@link BigArrays}, which
+     * greatly reduces the number of objects on the heap when many documents are indexed between two refreshes. Deletes are rare
+     * compared to indexing operations so tombstones are kept on the heap in both cases.
+     */
+    LiveVersionMap(BigArrays bigArrays) {
+        this.maps = new Maps(expectedSize -> new VersionLookup(new PagedVersionMap(bigArrays, expectedSize)));
+    }
 
     /**
      * Bytes consumed for each BytesRef UID:
@@ -246,8 +281,11 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
         // reopen, and so any concurrent indexing requests can still sneak in a few additions to that current map that are in fact
         // reflected in the previous reader.   We don't touch tombstones here: they expire on their own index.gc_deletes timeframe:
 
-        maps = maps.invalidateOldMap();
+        final Maps previous = maps;
+        maps = previous.invalidateOldMap();
         assert (unsafeKeysMap = unsafeKeysMap.invalidateOldMap()) != null;
+        // lookups that still hold the previous maps find nothing in the released old map and fall back to the refreshed reader
+        previous.old.close();
 
     }
 
@@ -404,7 +442,10 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
      * Called when this index is closed.
      */
     synchronized void clear() {
-        maps = new Maps();
+        final Maps previous = maps;
+        // the engine is closed, so there is no point in allocating paged maps for the operations that might still sneak in
+        maps = new Maps(LiveVersionMap::newHeapLookup);
+        Releasables.close(previous.current, previous.old);
         tombstones.clear();
         // NOTE: we can't zero this here, because a refresh thread could be calling InternalEngine.pruneDeletedTombstones at the same time,
         // and this will lead to an assert trip.  Presumably it's fine if our ramBytesUsedTombstones is non-zero after clear since the
@@ -414,7 +455,7 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
 
     @Override
     public long ramBytesUsed() {
-        return maps.current.ramBytesUsed.get() + ramBytesUsedTombstones.get();
+        return maps.current.ramBytesUsed() + ramBytesUsedTombstones.get();
     }
 
     /**
@@ -422,7 +463,7 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
      * don't clear on refresh.
      */
     long ramBytesUsedForRefresh() {
-        return maps.current.ramBytesUsed.get();
+        return maps.current.ramBytesUsed();
     }
 
     /**
@@ -430,7 +471,7 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
      * except does not include tombstones because they don't clear on refresh.
      */
     long getRefreshingBytes() {
-        return maps.old.ramBytesUsed.get();
+        return maps.old.ramBytesUsed();
     }
 
     @Override
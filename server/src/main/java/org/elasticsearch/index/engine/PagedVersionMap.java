@@ -0,0 +1,272 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.engine;
+
+import com.carrotsearch.hppc.BitMixer;
+
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.BytesRefHash;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.Releasables;
+import org.elasticsearch.index.translog.Translog;
+
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A uid to {@link IndexVersionValue} map that is backed by {@link BigArrays} instead of a map of objects. Every entry is stored as
+ * the uid bytes in a {@link BytesRefHash} and a fixed number of longs, so a map with millions of entries is a handful of large arrays
+ * rather than millions of small objects the garbage collector has to trace.
+ * <p>
+ * The map is split into segments by uid hash, each guarded by its own monitor, so concurrent indexing threads working on different uids
+ * rarely contend. Removed entries keep their slot until the map is closed, which is fine since version maps only live for one refresh
+ * cycle. Lookups on a closed map return {@code null} and writes are ignored: a map is only closed once its entries are visible to the
+ * internal searcher, so callers fall back to loading the version from Lucene.
+ * <p>
+ * {@link #ramBytesUsed()} reports the bytes of the entries the map holds rather than the capacity of its arrays. A map is pre-sized
+ * for the number of entries of the previous refresh cycle, and reporting that capacity would make a freshly refreshed map look as
+ * expensive as the one it replaced, which would keep triggering refreshes that can't free anything.
+ */
+final class PagedVersionMap extends AbstractMap<BytesRef, VersionValue> implements Accountable, Releasable {
+
+    private static final int SEGMENT_BITS = 4;
+
+    private static final int VERSION = 0;
+    private static final int SEQ_NO = 1;
+    private static final int TERM = 2;
+    private static final int GENERATION = 3;
+    private static final int TRANSLOG_LOCATION = 4;
+    private static final int TRANSLOG_SIZE = 5;
+    private static final int STATE = 6;
+    private static final int STRIDE = 7;
+
+    // the longs of an entry plus what the uid hash keeps per entry: a start offset, a hash and about two slots of its id table
+    private static final long BYTES_PER_ENTRY = STRIDE * Long.BYTES + Long.BYTES + 3 * Integer.BYTES;
+
+    // values of the STATE slot
+    private static final long REMOVED = 0;
+    private static final long NO_LOCATION = 1;
+    private static final long HAS_LOCATION = 2;
+
+    private final Segment[] segments;
+
+    PagedVersionMap(BigArrays bigArrays, int expectedSize) {
+        segments = new Segment[1 << SEGMENT_BITS];
+        final int expectedSizePerSegment = Math.max(16, expectedSize >> SEGMENT_BITS);
+        boolean success = false;
+        try {
+            for (int i = 0; i < segments.length; i++) {
+                segments[i] = new Segment(bigArrays, expectedSizePerSegment);
+            }
+            success = true;
+        } finally {
+            if (success == false) {
+                close();
+            }
+        }
+    }
+
+    private Segment segment(int hash) {
+        // the segment is picked from the top bits of a mixed hash, the hash table within a segment uses the low bits
+        return segments[BitMixer.mix32(hash) >>> (Integer.SIZE - SEGMENT_BITS)];
+    }
+
+    @Override
+    public VersionValue get(Object key) {
+        final BytesRef uid = (BytesRef) key;
+        final int hash = uid.hashCode();
+        return segment(hash).get(uid, hash);
+    }
+
+    @Override
+    public VersionValue put(BytesRef uid, VersionValue value) {
+        if (value instanceof IndexVersionValue == false) {
+            throw new IllegalArgumentException("only index versions can be stored in a paged version map but got [" + value + "]");
+        }
+        final int hash = uid.hashCode();
+        return segment(hash).put(uid, hash, (IndexVersionValue) value);
+    }
+
+    @Override
+    public VersionValue remove(Object key) {
+        final BytesRef uid = (BytesRef) key;
+        final int hash = uid.hashCode();
+        return segment(hash).remove(uid, hash);
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (Segment segment : segments) {
+            if (segment.size() > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a point in time copy of all entries. This is expensive and only meant for tests and assertions.
+     */
+    @Override
+    public Set<Entry<BytesRef, VersionValue>> entrySet() {
+        final Map<BytesRef, VersionValue> copy = new HashMap<>();
+        for (Segment segment : segments) {
+            segment.copyTo(copy);
+        }
+        return copy.entrySet();
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        long ramBytesUsed = 0;
+        for (Segment segment : segments) {
+            ramBytesUsed += segment.ramBytesUsed();
+        }
+        return ramBytesUsed;
+    }
+
+    @Override
+    public void close() {
+        Releasables.close(segments);
+    }
+
+    private static final class Segment implements Releasable {
+        private final BigArrays bigArrays;
+        private BytesRefHash uids;
+        private LongArray values;
+        private int size;
+        private long bytesUsed;
+        private boolean closed;
+
+        Segment(BigArrays bigArrays, int expectedSize) {
+            this.bigArrays = bigArrays;
+            boolean success = false;
+            try {
+                uids = new BytesRefHash(expectedSize, bigArrays);
+                values = bigArrays.newLongArray((long) expectedSize * STRIDE, false);
+                success = true;
+            } finally {
+                if (success == false) {
+                    close();
+                }
+            }
+        }
+
+        synchronized VersionValue get(BytesRef uid, int hash) {
+            if (closed) {
+                return null;
+            }
+            final long id = uids.find(uid, hash);
+            return id < 0 ? null : read(id);
+        }
+
+        synchronized VersionValue put(BytesRef uid, int hash, IndexVersionValue value) {
+            if (closed) {
+                // an indexing thread raced with the refresh that released this map. Like with a heap map that was dropped, the
+                // entry is lost and lookups fall back to the refreshed reader.
+                return null;
+            }
+            long id = uids.add(uid, hash);
+            final VersionValue previous;
+            if (id < 0) {
+                id = -1 - id;
+                previous = read(id);
+            } else {
+                values = bigArrays.grow(values, (id + 1) * STRIDE);
+                previous = null;
+            }
+            if (previous == null) {
+                size++;
+                bytesUsed += BYTES_PER_ENTRY + uid.length;
+            }
+            final long offset = id * STRIDE;
+            values.set(offset + VERSION, value.version);
+            values.set(offset + SEQ_NO, value.seqNo);
+            values.set(offset + TERM, value.term);
+            final Translog.Location location = value.getLocation();
+            if (location == null) {
+                values.set(offset + STATE, NO_LOCATION);
+            } else {
+                values.set(offset + GENERATION, location.generation);
+                values.set(offset + TRANSLOG_LOCATION, location.translogLocation);
+                values.set(offset + TRANSLOG_SIZE, location.size);
+                values.set(offset + STATE, HAS_LOCATION);
+            }
+            return previous;
+        }
+
+        synchronized VersionValue remove(BytesRef uid, int hash) {
+            if (closed) {
+                return null;
+            }
+            final long id = uids.find(uid, hash);
+            if (id < 0) {
+                return null;
+            }
+            final VersionValue previous = read(id);
+            if (previous != null) {
+                values.set(id * STRIDE + STATE, REMOVED);
+                size--;
+                bytesUsed -= BYTES_PER_ENTRY + uid.length;
+            }
+            return previous;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized void copyTo(Map<BytesRef, VersionValue> copy) {
+            if (closed) {
+                return;
+            }
+            for (long id = 0; id < uids.size(); id++) {
+                final VersionValue value = read(id);
+                if (value != null) {
+                    copy.put(BytesRef.deepCopyOf(uids.get(id, new BytesRef())), value);
+                }
+            }
+        }
+
+        synchronized long ramBytesUsed() {
+            return closed ? 0 : bytesUsed;
+        }
+
+        private IndexVersionValue read(long id) {
+            final long offset = id * STRIDE;
+            final long state = values.get(offset + STATE);
+            if (state == REMOVED) {
+                return null;
+            }
+            final Translog.Location location = state == NO_LOCATION ? null : new Translog.Location(
+                values.get(offset + GENERATION), values.get(offset + TRANSLOG_LOCATION), (int) values.get(offset + TRANSLOG_SIZE));
+            return new IndexVersionValue(location, values.get(offset + VERSION), values.get(offset + SEQ_NO), values.get(offset + TERM));
+        }
+
+        @Override
+        public synchronized void close() {
+            closed = true;
+            Releasables.close(uids, values);
+        }
+    }
+}
@@ -435,6 +435,17 @@ public enum FieldData {
             return values.advanceExact(doc);
         }
 
+        @Override
+        public int readValues(int[] docs, int count, double[] values) throws IOException {
+            int numValues = 0;
+            for (int i = 0; i < count; i++) {
+                if (this.values.advanceExact(docs[i])) {
+                    values[numValues++] = this.values.longValue();
+                }
+            }
+            return numValues;
+        }
+
     }
 
     private static class SortedDoubleCastedValues extends SortedNumericDoubleValues {
@@ -10,9 +10,14 @@ package org.elasticsearch.index.fielddata;
 
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.OrdinalMap;
 import org.apache.lucene.util.Accountable;
+import org.elasticsearch.common.CheckedSupplier;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.index.shard.ShardId;
 
+import java.io.IOException;
+
 /**
  * A simple field data cache abstraction on the *index* level.
  */
@@ -23,6 +28,41 @@ public interface IndexFieldDataCache {
     <FD extends LeafFieldData, IFD extends IndexFieldData.Global<FD>> IFD load(DirectoryReader indexReader, IFD indexFieldData)
         throws Exception;
 
+    /**
+     * Returns the global field data that was last loaded for the shard of the provided reader, if it is still cached.
+     * Global field data can be built incrementally from it since the provided reader likely shares most of its segments.
+     */
+    @Nullable
+    default IndexFieldData.Global<?> getLastLoadedGlobal(DirectoryReader indexReader) {
+        return null;
+    }
+
+    /**
+     * Returns whether the global field data of the provided reader is cached, in which case loading it doesn't build anything.
+     */
+    default boolean isGlobalCached(DirectoryReader indexReader) {
+        return false;
+    }
+
+    /**
+     * Registers global field data that is being loaded for a reader of a shard as sharing the memory of the global field data
+     * that was loaded for a previous reader of the shard with the same segments, so that this memory is only accounted once.
+     * Returns <code>false</code> if it can't be shared because the previous global field data is no longer cached.
+     */
+    default boolean shareGlobal(IndexFieldData.Global<?> previous, IndexFieldData.Global<?> globalFieldData) {
+        return false;
+    }
+
+    /**
+     * Loads the {@link OrdinalMap} over all segments that the provided global field data builds lazily, for global ordinals
+     * that were built incrementally. It is weighed and accounted as an entry of its own, shared by the global field data that
+     * share their memory, and is removed along with the last of them.
+     */
+    default OrdinalMap loadOrdinalMap(IndexFieldData.Global<?> globalFieldData, CheckedSupplier<OrdinalMap, IOException> builder)
+        throws Exception {
+        return builder.get();
+    }
+
     /**
      * Clears all the field data stored cached in on this index.
      */
@@ -11,6 +11,7 @@ package org.elasticsearch.index.fielddata;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.OrdinalMap;
+import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinalMap;
 
 
 /**
@@ -31,12 +32,31 @@ public interface IndexOrdinalsFieldData extends IndexFieldData.Global<LeafOrdina
     @Override
     IndexOrdinalsFieldData loadGlobalDirect(DirectoryReader indexReader) throws Exception;
 
+    /**
+     * Whether the global ordinals of the given {@link IndexReader} are already
+     * loaded, so that {@link #loadGlobal} returns them without building them.
+     */
+    default boolean isGlobalLoaded(DirectoryReader indexReader) {
+        return true;
+    }
+
     /**
      * Returns the underlying {@link OrdinalMap} for this fielddata
      * or null if global ordinals are not needed (constant value or single segment).
      */
     OrdinalMap getOrdinalMap();
 
+    /**
+     * Returns the mapping between segment and global ordinals for this fielddata
+     * or null if global ordinals are not needed (constant value or single segment).
+     * Unlike {@link #getOrdinalMap}, the mapping may have been built incrementally
+     * from the global ordinals of a previous reader.
+     */
+    default GlobalOrdinalMap getGlobalOrdinalMap() {
+        OrdinalMap ordinalMap = getOrdinalMap();
+        return ordinalMap == null ? null : GlobalOrdinalMap.wrap(ordinalMap);
+    }
+
     /**
      * Whether this field data is able to provide a mapping between global and segment ordinals,
      * by returning the underlying {@link OrdinalMap}. If this method returns false, then calling
@@ -22,6 +22,23 @@ public abstract class NumericDoubleValues extends DoubleValues {
    * constructors, typically implicit.) */
   protected NumericDoubleValues() {}
 
+  /**
+   * Reads the values of the first {@code count} docs of {@code docs}, which
+   * must be in increasing order, into {@code values} and returns the number
+   * of docs that have a value. Docs without a value are skipped so
+   * {@code values} is only aligned with {@code docs} if they all have one.
+   * This leaves the values positioned on the last doc of the block.
+   */
+  public int readValues(int[] docs, int count, double[] values) throws IOException {
+      int numValues = 0;
+      for (int i = 0; i < count; i++) {
+          if (advanceExact(docs[i])) {
+              values[numValues++] = doubleValue();
+          }
+      }
+      return numValues;
+  }
+
   // TODO: this interaction with sort comparators is really ugly...
   /** Returns numeric docvalues view of raw double bits */
   public NumericDocValues getRawDoubleValues() {
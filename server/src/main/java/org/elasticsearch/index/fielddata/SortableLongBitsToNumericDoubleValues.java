@@ -36,6 +36,18 @@ final class SortableLongBitsToNumericDoubleValues extends NumericDoubleValues {
         return values.advanceExact(doc);
     }
 
+    @Override
+    public int readValues(int[] docs, int count, double[] values) throws IOException {
+        // read straight from the doc values rather than through our own virtual methods
+        int numValues = 0;
+        for (int i = 0; i < count; i++) {
+            if (this.values.advanceExact(docs[i])) {
+                values[numValues++] = NumericUtils.sortableLongToDouble(this.values.longValue());
+            }
+        }
+        return numValues;
+    }
+
     /** Return the wrapped values. */
     public NumericDocValues getLongValues() {
         return values;
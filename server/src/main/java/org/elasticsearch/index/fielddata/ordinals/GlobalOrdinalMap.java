@@ -0,0 +1,90 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.fielddata.ordinals;
+
+import org.apache.lucene.index.OrdinalMap;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.LongValues;
+
+import java.util.Collection;
+
+/**
+ * Maps the ordinals of each segment to global ordinals, which are the ordinals of the terms across all segments,
+ * and global ordinals back to a segment that contains the term. This is the subset of {@link OrdinalMap} that
+ * global ordinals need, so that they can also be backed by a mapping that was built incrementally from the
+ * global ordinals of a previous reader, see {@link IncrementalOrdinalMap}.
+ */
+public abstract class GlobalOrdinalMap implements Accountable {
+
+    /**
+     * Wraps an {@link OrdinalMap} that was built over all segments.
+     */
+    public static GlobalOrdinalMap wrap(OrdinalMap ordinalMap) {
+        return new LuceneOrdinalMap(ordinalMap);
+    }
+
+    /**
+     * Returns the total number of unique terms in the global ord space.
+     */
+    public abstract long getValueCount();
+
+    /**
+     * Returns a mapping from the ordinals of the segment at index <code>segmentIndex</code> to global ordinals.
+     */
+    public abstract LongValues getGlobalOrds(int segmentIndex);
+
+    /**
+     * Returns the index of a segment that contains the term of the provided global ordinal.
+     */
+    public abstract int getFirstSegmentNumber(long globalOrd);
+
+    /**
+     * Returns the ordinal of the term of the provided global ordinal in the segment returned by
+     * {@link #getFirstSegmentNumber(long)}.
+     */
+    public abstract long getFirstSegmentOrd(long globalOrd);
+
+    private static final class LuceneOrdinalMap extends GlobalOrdinalMap {
+        private final OrdinalMap ordinalMap;
+
+        private LuceneOrdinalMap(OrdinalMap ordinalMap) {
+            this.ordinalMap = ordinalMap;
+        }
+
+        @Override
+        public long getValueCount() {
+            return ordinalMap.getValueCount();
+        }
+
+        @Override
+        public LongValues getGlobalOrds(int segmentIndex) {
+            return ordinalMap.getGlobalOrds(segmentIndex);
+        }
+
+        @Override
+        public int getFirstSegmentNumber(long globalOrd) {
+            return ordinalMap.getFirstSegmentNumber(globalOrd);
+        }
+
+        @Override
+        public long getFirstSegmentOrd(long globalOrd) {
+            return ordinalMap.getFirstSegmentOrd(globalOrd);
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            return ordinalMap.ramBytesUsed();
+        }
+
+        @Override
+        public Collection<Accountable> getChildResources() {
+            return ordinalMap.getChildResources();
+        }
+    }
+}
@@ -11,12 +11,15 @@ package org.elasticsearch.index.fielddata.ordinals;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.OrdinalMap;
 import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.packed.PackedInts;
 import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.fielddata.IndexFieldDataCache;
 import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
 import org.elasticsearch.index.fielddata.LeafOrdinalsFieldData;
 import org.elasticsearch.index.fielddata.ScriptDocValues;
@@ -26,6 +29,8 @@ import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
@@ -37,36 +42,111 @@ public enum GlobalOrdinalsBuilder {
 
     /**
      * Build global ordinals for the provided {@link IndexReader}.
+     * @param previous the global ordinals of a previous reader of the same shard, if any. If the provided reader still has all
+     *                 of its segments, the global ordinals are built incrementally by merging only the terms of the new segments
+     *                 into them. If it has the same segments, their memory is shared with the provided reader if they are still
+     *                 cached.
+     * @param cache    the cache that the global ordinals are loaded through
      */
     public static IndexOrdinalsFieldData build(final IndexReader indexReader, IndexOrdinalsFieldData indexFieldData,
-            CircuitBreakerService breakerService, Logger logger,
-            Function<SortedSetDocValues, ScriptDocValues<?>> scriptFunction) throws IOException {
+            @Nullable GlobalOrdinalsIndexFieldData previous, IndexFieldDataCache cache, CircuitBreakerService breakerService,
+            Logger logger, Function<SortedSetDocValues, ScriptDocValues<?>> scriptFunction) throws IOException {
         assert indexReader.leaves().size() > 1;
         long startTimeNS = System.nanoTime();
 
         final LeafOrdinalsFieldData[] atomicFD = new LeafOrdinalsFieldData[indexReader.leaves().size()];
         final SortedSetDocValues[] subs = new SortedSetDocValues[indexReader.leaves().size()];
+        final IndexReader.CacheKey[] segmentKeys = new IndexReader.CacheKey[indexReader.leaves().size()];
+        final long[] segmentValueCounts = new long[indexReader.leaves().size()];
         for (int i = 0; i < indexReader.leaves().size(); ++i) {
-            atomicFD[i] = indexFieldData.load(indexReader.leaves().get(i));
+            final LeafReaderContext context = indexReader.leaves().get(i);
+            atomicFD[i] = indexFieldData.load(context);
             subs[i] = atomicFD[i].getOrdinalsValues();
+            final IndexReader.CacheHelper cacheHelper = context.reader().getCoreCacheHelper();
+            segmentKeys[i] = cacheHelper == null ? null : cacheHelper.getKey();
+            segmentValueCounts[i] = subs[i].getValueCount();
+        }
+        GlobalOrdinalMap ordinalMap = previous == null ? null : buildIncrementally(previous, segmentKeys, segmentValueCounts, subs);
+        if (ordinalMap != null && ordinalMap == previous.getGlobalOrdinalMap()) {
+            // only deletes changed, the ordinal map is reused but the field data of the segments must be the new reader's ones
+            // since the previous reader may be closed before the new one
+            GlobalOrdinalsIndexFieldData shared = new GlobalOrdinalsIndexFieldData(indexFieldData.getFieldName(),
+                    indexFieldData.getValuesSourceType(), atomicFD, ordinalMap, previous.getLuceneOrdinalMap(), segmentKeys,
+                    segmentValueCounts, previous.ramBytesUsed(), cache, breakerService, scriptFunction
+            );
+            if (cache.shareGlobal(previous, shared)) {
+                logger.debug("global-ordinals [{}][{}] reused", indexFieldData.getFieldName(), ordinalMap.getValueCount());
+                return shared;
+            }
+        }
+        final boolean incremental = ordinalMap != null;
+        OrdinalMap luceneOrdinalMap = null;
+        if (incremental == false) {
+            luceneOrdinalMap = OrdinalMap.build(null, subs, PackedInts.DEFAULT);
+            ordinalMap = GlobalOrdinalMap.wrap(luceneOrdinalMap);
         }
-        final OrdinalMap ordinalMap = OrdinalMap.build(null, subs, PackedInts.DEFAULT);
         final long memorySizeInBytes = ordinalMap.ramBytesUsed();
         breakerService.getBreaker(CircuitBreaker.FIELDDATA).addWithoutBreaking(memorySizeInBytes);
 
         if (logger.isDebugEnabled()) {
             logger.debug(
-                    "global-ordinals [{}][{}] took [{}]",
+                    "global-ordinals [{}][{}] took [{}], incremental [{}]",
                     indexFieldData.getFieldName(),
                     ordinalMap.getValueCount(),
-                    new TimeValue(System.nanoTime() - startTimeNS, TimeUnit.NANOSECONDS)
+                    new TimeValue(System.nanoTime() - startTimeNS, TimeUnit.NANOSECONDS),
+                    incremental
             );
         }
         return new GlobalOrdinalsIndexFieldData(indexFieldData.getFieldName(), indexFieldData.getValuesSourceType(),
-                atomicFD, ordinalMap, memorySizeInBytes, scriptFunction
+                atomicFD, ordinalMap, luceneOrdinalMap, segmentKeys, segmentValueCounts, memorySizeInBytes, cache, breakerService,
+                scriptFunction
         );
     }
 
+    /**
+     * Builds the global ordinals of a reader from the global ordinals of a previous reader, or returns <code>null</code>
+     * if they need to be built from scratch because segments of the previous reader were merged away.
+     */
+    @Nullable
+    private static GlobalOrdinalMap buildIncrementally(GlobalOrdinalsIndexFieldData previous, IndexReader.CacheKey[] segmentKeys,
+            long[] segmentValueCounts, SortedSetDocValues[] subs) throws IOException {
+        final IndexReader.CacheKey[] previousKeys = previous.getSegmentKeys();
+        final long[] previousValueCounts = previous.getSegmentValueCounts();
+        final Map<IndexReader.CacheKey, Integer> previousSegmentsByKey = new HashMap<>();
+        for (int i = 0; i < previousKeys.length; i++) {
+            if (previousKeys[i] == null) {
+                return null;
+            }
+            previousSegmentsByKey.put(previousKeys[i], i);
+        }
+        final int[] previousSegments = new int[segmentKeys.length];
+        int numShared = 0;
+        boolean sameSegments = segmentKeys.length == previousKeys.length;
+        for (int i = 0; i < segmentKeys.length; i++) {
+            final Integer previousSegment = segmentKeys[i] == null ? null : previousSegmentsByKey.get(segmentKeys[i]);
+            if (previousSegment == null) {
+                previousSegments[i] = -1;
+                sameSegments = false;
+            } else if (previousValueCounts[previousSegment] != segmentValueCounts[i]) {
+                // the segment doesn't expose the same terms as when the previous global ordinals were built,
+                // this happens with readers that hide fields
+                return null;
+            } else {
+                previousSegments[i] = previousSegment;
+                sameSegments &= previousSegment == i;
+                numShared++;
+            }
+        }
+        if (numShared < previousKeys.length) {
+            return null;
+        }
+        if (sameSegments) {
+            // only deletes changed
+            return previous.getGlobalOrdinalMap();
+        }
+        return IncrementalOrdinalMap.build(previous.getGlobalOrdinalMap(), previousSegments, subs);
+    }
+
     public static IndexOrdinalsFieldData buildEmpty(IndexReader indexReader, IndexOrdinalsFieldData indexFieldData) throws IOException {
         assert indexReader.leaves().size() > 1;
 
@@ -97,7 +177,8 @@ public enum GlobalOrdinalsBuilder {
         }
         final OrdinalMap ordinalMap = OrdinalMap.build(null, subs, PackedInts.DEFAULT);
         return new GlobalOrdinalsIndexFieldData(indexFieldData.getFieldName(), indexFieldData.getValuesSourceType(),
-                atomicFD, ordinalMap, 0, AbstractLeafOrdinalsFieldData.DEFAULT_SCRIPT_FUNCTION
+                atomicFD, GlobalOrdinalMap.wrap(ordinalMap), ordinalMap, new IndexReader.CacheKey[atomicFD.length],
+                new long[atomicFD.length], 0, null, null, AbstractLeafOrdinalsFieldData.DEFAULT_SCRIPT_FUNCTION
         );
     }
 
@@ -8,19 +8,25 @@
 package org.elasticsearch.index.fielddata.ordinals;
 
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.OrdinalMap;
 import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.search.SortField;
 import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.packed.PackedInts;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.index.fielddata.IndexFieldData.XFieldComparatorSource.Nested;
+import org.elasticsearch.index.fielddata.IndexFieldDataCache;
 import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
 import org.elasticsearch.index.fielddata.LeafOrdinalsFieldData;
 import org.elasticsearch.index.fielddata.ScriptDocValues;
 import org.elasticsearch.index.fielddata.plain.AbstractLeafOrdinalsFieldData;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.MultiValueMode;
 import org.elasticsearch.search.aggregations.support.ValuesSourceType;
@@ -41,6 +47,9 @@ import java.util.function.Function;
  * Each instance of {@link Consumer} uses a new set of {@link TermsEnum} that can be reused during the collection,
  * this is done to avoid creating all segment's {@link TermsEnum} each time we want to access the values of a single
  * segment.
+ * The segments that global ordinals were built for are recorded so that the global ordinals of the next reader
+ * can be built incrementally from them, see {@link GlobalOrdinalsBuilder}. The instances of readers that have the same
+ * segments share their ordinal map.
  */
 public final class GlobalOrdinalsIndexFieldData implements IndexOrdinalsFieldData, Accountable {
 
@@ -48,21 +57,48 @@ public final class GlobalOrdinalsIndexFieldData implements IndexOrdinalsFieldDat
     private final ValuesSourceType valuesSourceType;
     private final long memorySizeInBytes;
 
-    private final OrdinalMap ordinalMap;
+    private final GlobalOrdinalMap ordinalMap;
     private final LeafOrdinalsFieldData[] segmentAfd;
+    private final IndexReader.CacheKey[] segmentKeys;
+    private final long[] segmentValueCounts;
     private final Function<SortedSetDocValues, ScriptDocValues<?>> scriptFunction;
+    private final IndexFieldDataCache cache;
+    private final CircuitBreakerService breakerService;
+    private final OrdinalMap luceneOrdinalMap;
 
+    /**
+     * @param ordinalMap          the mapping between segment and global ordinals
+     * @param luceneOrdinalMap    the {@link OrdinalMap} that backs <code>ordinalMap</code>, or <code>null</code> if it
+     *                            was built incrementally, in which case one is only built if {@link #getOrdinalMap()}
+     *                            is called
+     * @param segmentKeys         the core cache key of each segment, <code>null</code> if it doesn't have one
+     * @param segmentValueCounts  the number of terms of each segment
+     * @param cache               the cache that the {@link OrdinalMap} that {@link #getOrdinalMap()} builds is loaded through,
+     *                            only needed if <code>luceneOrdinalMap</code> is <code>null</code>
+     * @param breakerService      the breaker to account the {@link OrdinalMap} that {@link #getOrdinalMap()} builds with,
+     *                            only needed if <code>luceneOrdinalMap</code> is <code>null</code>
+     */
     protected GlobalOrdinalsIndexFieldData(String fieldName,
                                            ValuesSourceType valuesSourceType,
                                            LeafOrdinalsFieldData[] segmentAfd,
-                                           OrdinalMap ordinalMap,
+                                           GlobalOrdinalMap ordinalMap,
+                                           @Nullable OrdinalMap luceneOrdinalMap,
+                                           IndexReader.CacheKey[] segmentKeys,
+                                           long[] segmentValueCounts,
                                            long memorySizeInBytes,
+                                           @Nullable IndexFieldDataCache cache,
+                                           @Nullable CircuitBreakerService breakerService,
                                            Function<SortedSetDocValues, ScriptDocValues<?>> scriptFunction) {
         this.fieldName = fieldName;
         this.valuesSourceType = valuesSourceType;
         this.memorySizeInBytes = memorySizeInBytes;
         this.ordinalMap = ordinalMap;
+        this.luceneOrdinalMap = luceneOrdinalMap;
         this.segmentAfd = segmentAfd;
+        this.segmentKeys = segmentKeys;
+        this.segmentValueCounts = segmentValueCounts;
+        this.cache = cache;
+        this.breakerService = breakerService;
         this.scriptFunction = scriptFunction;
     }
 
@@ -124,9 +160,62 @@ public final class GlobalOrdinalsIndexFieldData implements IndexOrdinalsFieldDat
 
     @Override
     public OrdinalMap getOrdinalMap() {
+        if (luceneOrdinalMap != null) {
+            return luceneOrdinalMap;
+        }
+        // the global ordinals were built incrementally, the OrdinalMap is cached on its own so that the cache weighs it
+        try {
+            return cache.loadOrdinalMap(this, this::buildLuceneOrdinalMap);
+        } catch (Exception e) {
+            if (e instanceof ElasticsearchException) {
+                throw (ElasticsearchException) e;
+            } else {
+                throw new ElasticsearchException(e);
+            }
+        }
+    }
+
+    /**
+     * Builds an {@link OrdinalMap} over all segments for the consumers that need one, like joins, when the global
+     * ordinals were built incrementally.
+     */
+    private OrdinalMap buildLuceneOrdinalMap() throws IOException {
+        final SortedSetDocValues[] subs = new SortedSetDocValues[segmentAfd.length];
+        for (int i = 0; i < segmentAfd.length; i++) {
+            subs[i] = segmentAfd[i].getOrdinalsValues();
+        }
+        final OrdinalMap map = OrdinalMap.build(null, subs, PackedInts.DEFAULT);
+        breakerService.getBreaker(CircuitBreaker.FIELDDATA).addWithoutBreaking(map.ramBytesUsed());
+        return map;
+    }
+
+    /**
+     * Returns the {@link OrdinalMap} that backs the global ordinals if it was built with them, <code>null</code> otherwise.
+     */
+    @Nullable
+    OrdinalMap getLuceneOrdinalMap() {
+        return luceneOrdinalMap;
+    }
+
+    @Override
+    public GlobalOrdinalMap getGlobalOrdinalMap() {
         return ordinalMap;
     }
 
+    /**
+     * Returns the core cache key of each segment that these global ordinals were built for.
+     */
+    IndexReader.CacheKey[] getSegmentKeys() {
+        return segmentKeys;
+    }
+
+    /**
+     * Returns the number of terms of each segment that these global ordinals were built for.
+     */
+    long[] getSegmentValueCounts() {
+        return segmentValueCounts;
+    }
+
     @Override
     public boolean supportsGlobalOrdinalsMapping() {
         return true;
@@ -199,7 +288,7 @@ public final class GlobalOrdinalsIndexFieldData implements IndexOrdinalsFieldDat
 
         @Override
         public long ramBytesUsed() {
-            return memorySizeInBytes;
+            return GlobalOrdinalsIndexFieldData.this.ramBytesUsed();
         }
 
         @Override
@@ -251,6 +340,11 @@ public final class GlobalOrdinalsIndexFieldData implements IndexOrdinalsFieldDat
 
         @Override
         public OrdinalMap getOrdinalMap() {
+            return GlobalOrdinalsIndexFieldData.this.getOrdinalMap();
+        }
+
+        @Override
+        public GlobalOrdinalMap getGlobalOrdinalMap() {
             return ordinalMap;
         }
 
@@ -0,0 +1,226 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.fielddata.ordinals;
+
+import org.apache.lucene.index.OrdinalMap;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.LongValues;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.packed.PackedInts;
+import org.apache.lucene.util.packed.PackedLongValues;
+import org.elasticsearch.core.Nullable;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * A {@link GlobalOrdinalMap} that is built from the global ordinals of a previous reader rather than from the terms
+ * of all segments. The terms of the segments that both readers share are already merged in the previous global
+ * ordinals, so only the terms of the new segments need to be merged: each of them is looked up in the terms of the
+ * shared segments and, if it doesn't exist yet, is inserted in the global ordinals. Inserting a term shifts the
+ * global ordinals of the terms that sort after it, which is applied to the mapping of the shared segments without
+ * reading their terms.
+ */
+final class IncrementalOrdinalMap extends GlobalOrdinalMap {
+
+    private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(IncrementalOrdinalMap.class);
+
+    /**
+     * Builds the global ordinals of a reader from the global ordinals of a previous reader.
+     *
+     * @param previous          the global ordinals of the previous reader
+     * @param previousSegments  the index of each segment in the previous reader, or -1 if it is new. Every segment
+     *                          of the previous reader must still be there.
+     * @param subs              the ordinals of each segment
+     * @return the global ordinals, or <code>null</code> if the new segments have too many terms for looking them up
+     *         one by one to be cheaper than merging the terms of all segments
+     */
+    @Nullable
+    static IncrementalOrdinalMap build(GlobalOrdinalMap previous, int[] previousSegments, SortedSetDocValues[] subs)
+            throws IOException {
+        int numShared = 0;
+        for (int previousSegment : previousSegments) {
+            if (previousSegment != -1) {
+                numShared++;
+            }
+        }
+        final int[] sharedSegments = new int[numShared];
+        final int[] newSegments = new int[subs.length - numShared];
+        final int[] currentSegments = new int[numShared];
+        for (int segment = 0, shared = 0, added = 0; segment < subs.length; segment++) {
+            if (previousSegments[segment] == -1) {
+                newSegments[added++] = segment;
+            } else {
+                sharedSegments[shared++] = segment;
+                currentSegments[previousSegments[segment]] = segment;
+            }
+        }
+
+        // merge the terms of the new segments together first
+        final SortedSetDocValues[] newSubs = new SortedSetDocValues[newSegments.length];
+        for (int i = 0; i < newSegments.length; i++) {
+            newSubs[i] = subs[newSegments[i]];
+        }
+        final OrdinalMap newTerms = newSubs.length == 0 ? null : OrdinalMap.build(null, newSubs, PackedInts.DEFAULT);
+        final long numNewTerms = newTerms == null ? 0 : newTerms.getValueCount();
+        if (numNewTerms * numShared > previous.getValueCount()) {
+            return null;
+        }
+
+        final TermsEnum[] newTermsEnums = new TermsEnum[newSegments.length];
+        for (int i = 0; i < newSegments.length; i++) {
+            newTermsEnums[i] = newSubs[i].termsEnum();
+        }
+        final TermsEnum[] sharedTermsEnums = new TermsEnum[numShared];
+        final LongValues[] previousGlobalOrds = new LongValues[numShared];
+        for (int i = 0; i < numShared; i++) {
+            sharedTermsEnums[i] = subs[sharedSegments[i]].termsEnum();
+            previousGlobalOrds[i] = previous.getGlobalOrds(previousSegments[sharedSegments[i]]);
+        }
+
+        /*
+         * Look up each new term in the shared segments, in order. The global ordinal of a term of the
+         * previous reader is shifted by the number of terms that were inserted before it, and a term that
+         * gets inserted takes the place of the first term of the previous reader that sorts after it.
+         */
+        final long[] newTermGlobalOrds = new long[Math.toIntExact(numNewTerms)];
+        final PackedLongValues.Builder insertionPoints = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+        final PackedLongValues.Builder insertedFirstSegments = PackedLongValues.packedBuilder(PackedInts.COMPACT);
+        final PackedLongValues.Builder insertedFirstSegmentOrds = PackedLongValues.packedBuilder(PackedInts.COMPACT);
+        final boolean[] exhausted = new boolean[numShared];
+        long numInserted = 0;
+        for (int ord = 0; ord < numNewTerms; ord++) {
+            final int newSegment = newTerms.getFirstSegmentNumber(ord);
+            final long segmentOrd = newTerms.getFirstSegmentOrd(ord);
+            newTermsEnums[newSegment].seekExact(segmentOrd);
+            final BytesRef term = newTermsEnums[newSegment].term();
+            long insertionPoint = previous.getValueCount();
+            boolean found = false;
+            for (int i = 0; i < numShared && found == false; i++) {
+                if (exhausted[i]) {
+                    continue;
+                }
+                final TermsEnum.SeekStatus status = sharedTermsEnums[i].seekCeil(term);
+                if (status == TermsEnum.SeekStatus.END) {
+                    // terms are looked up in order so this segment has no term left for the next ones either
+                    exhausted[i] = true;
+                    continue;
+                }
+                found = status == TermsEnum.SeekStatus.FOUND;
+                insertionPoint = Math.min(insertionPoint, previousGlobalOrds[i].get(sharedTermsEnums[i].ord()));
+            }
+            newTermGlobalOrds[ord] = insertionPoint + numInserted;
+            if (found == false) {
+                insertionPoints.add(insertionPoint);
+                insertedFirstSegments.add(newSegments[newSegment]);
+                insertedFirstSegmentOrds.add(segmentOrd);
+                numInserted++;
+            }
+        }
+        final PackedLongValues insertions = insertionPoints.build();
+        final PackedLongValues insertionFirstSegments = insertedFirstSegments.build();
+        final PackedLongValues insertionFirstSegmentOrds = insertedFirstSegmentOrds.build();
+        final long valueCount = previous.getValueCount() + numInserted;
+
+        final PackedLongValues[] segmentToGlobalOrds = new PackedLongValues[subs.length];
+        for (int i = 0; i < numShared; i++) {
+            final long segmentValueCount = subs[sharedSegments[i]].getValueCount();
+            final PackedLongValues.Builder globalOrds = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+            long shift = 0;
+            for (long segmentOrd = 0; segmentOrd < segmentValueCount; segmentOrd++) {
+                final long previousGlobalOrd = previousGlobalOrds[i].get(segmentOrd);
+                while (shift < numInserted && insertions.get(shift) <= previousGlobalOrd) {
+                    shift++;
+                }
+                globalOrds.add(previousGlobalOrd + shift);
+            }
+            segmentToGlobalOrds[sharedSegments[i]] = globalOrds.build();
+        }
+        for (int i = 0; i < newSegments.length; i++) {
+            final long segmentValueCount = newSubs[i].getValueCount();
+            final LongValues newTermOrds = newTerms.getGlobalOrds(i);
+            final PackedLongValues.Builder globalOrds = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+            for (long segmentOrd = 0; segmentOrd < segmentValueCount; segmentOrd++) {
+                globalOrds.add(newTermGlobalOrds[(int) newTermOrds.get(segmentOrd)]);
+            }
+            segmentToGlobalOrds[newSegments[i]] = globalOrds.build();
+        }
+
+        final PackedLongValues.Builder firstSegments = PackedLongValues.packedBuilder(PackedInts.COMPACT);
+        final PackedLongValues.Builder globalOrdDeltas = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+        long previousGlobalOrd = 0;
+        long inserted = 0;
+        for (long globalOrd = 0; globalOrd < valueCount; globalOrd++) {
+            final long firstSegmentOrd;
+            if (inserted < numInserted && insertions.get(inserted) + inserted == globalOrd) {
+                firstSegments.add(insertionFirstSegments.get(inserted));
+                firstSegmentOrd = insertionFirstSegmentOrds.get(inserted);
+                inserted++;
+            } else {
+                firstSegments.add(currentSegments[previous.getFirstSegmentNumber(previousGlobalOrd)]);
+                firstSegmentOrd = previous.getFirstSegmentOrd(previousGlobalOrd);
+                previousGlobalOrd++;
+            }
+            globalOrdDeltas.add(globalOrd - firstSegmentOrd);
+        }
+        return new IncrementalOrdinalMap(valueCount, segmentToGlobalOrds, firstSegments.build(), globalOrdDeltas.build());
+    }
+
+    private final long valueCount;
+    private final PackedLongValues[] segmentToGlobalOrds;
+    private final PackedLongValues firstSegments;
+    private final PackedLongValues globalOrdDeltas;
+
+    private IncrementalOrdinalMap(long valueCount, PackedLongValues[] segmentToGlobalOrds,
+                                  PackedLongValues firstSegments, PackedLongValues globalOrdDeltas) {
+        this.valueCount = valueCount;
+        this.segmentToGlobalOrds = segmentToGlobalOrds;
+        this.firstSegments = firstSegments;
+        this.globalOrdDeltas = globalOrdDeltas;
+    }
+
+    @Override
+    public long getValueCount() {
+        return valueCount;
+    }
+
+    @Override
+    public LongValues getGlobalOrds(int segmentIndex) {
+        return segmentToGlobalOrds[segmentIndex];
+    }
+
+    @Override
+    public int getFirstSegmentNumber(long globalOrd) {
+        return (int) firstSegments.get(globalOrd);
+    }
+
+    @Override
+    public long getFirstSegmentOrd(long globalOrd) {
+        return globalOrd - globalOrdDeltas.get(globalOrd);
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        long ramBytesUsed = BASE_RAM_BYTES_USED + RamUsageEstimator.shallowSizeOf(segmentToGlobalOrds)
+            + firstSegments.ramBytesUsed() + globalOrdDeltas.ramBytesUsed();
+        for (PackedLongValues globalOrds : segmentToGlobalOrds) {
+            ramBytesUsed += globalOrds.ramBytesUsed();
+        }
+        return ramBytesUsed;
+    }
+
+    @Override
+    public Collection<Accountable> getChildResources() {
+        return Collections.emptyList();
+    }
+}
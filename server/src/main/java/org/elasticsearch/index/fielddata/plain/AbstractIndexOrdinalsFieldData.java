@@ -17,6 +17,7 @@ import org.apache.lucene.index.Terms;
 import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.fielddata.IndexFieldDataCache;
 import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
 import org.elasticsearch.index.fielddata.LeafOrdinalsFieldData;
@@ -101,6 +102,12 @@ public abstract class AbstractIndexOrdinalsFieldData implements IndexOrdinalsFie
         }
     }
 
+    @Override
+    public boolean isGlobalLoaded(DirectoryReader indexReader) {
+        // the ordinals of a single segment are already global
+        return indexReader.leaves().size() <= 1 || cache.isGlobalCached(indexReader);
+    }
+
     private IndexOrdinalsFieldData loadGlobalInternal(DirectoryReader indexReader) {
         if (indexReader.leaves().size() <= 1) {
             // ordinals are already global
@@ -137,9 +144,12 @@ public abstract class AbstractIndexOrdinalsFieldData implements IndexOrdinalsFie
 
     @Override
     public IndexOrdinalsFieldData loadGlobalDirect(DirectoryReader indexReader) throws Exception {
+        final IndexFieldData.Global<?> previous = cache.getLastLoadedGlobal(indexReader);
         return GlobalOrdinalsBuilder.build(
             indexReader,
             this,
+            previous instanceof GlobalOrdinalsIndexFieldData ? (GlobalOrdinalsIndexFieldData) previous : null,
+            cache,
             breakerService,
             logger,
             scriptFunction
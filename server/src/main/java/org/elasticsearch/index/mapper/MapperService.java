@@ -314,6 +314,13 @@ public class MapperService extends AbstractIndexComponent implements Closeable {
         return newMapping;
     }
 
+    /**
+     * Merges two dynamic mapping updates, e.g. the updates required by several documents so that they can be sent to the master at once.
+     */
+    public static Mapping mergeDynamicMappingUpdates(Mapping update, Mapping other) {
+        return update.merge(other, MergeReason.MAPPING_UPDATE);
+    }
+
     private boolean assertSerialization(DocumentMapper mapper) {
         // capture the source now, it may change due to concurrent parsing
         final CompressedXContent mappingSource = mapper.mappingSource();
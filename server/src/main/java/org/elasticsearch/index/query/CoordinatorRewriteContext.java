@@ -16,6 +16,7 @@ import org.elasticsearch.index.Index;
 import org.elasticsearch.index.mapper.DateFieldMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.shard.IndexLongFieldRange;
+import org.elasticsearch.index.shard.ShardFieldRanges;
 
 import java.util.function.LongSupplier;
 
@@ -25,23 +26,28 @@ import java.util.function.LongSupplier;
  * Right now this context object is able to rewrite range queries that include a known timestamp field
  * (i.e. the timestamp field for DataStreams) into a MatchNoneQueryBuilder and skip the shards that
  * don't hold queried data. See IndexMetadata#getTimestampRange() for more details
+ * It can also rewrite range queries on the numeric, date and keyword fields of a shard of a read-only index, given the
+ * {@link ShardFieldRanges} that the coordinator cached for one of the copies of the shard.
  */
 public class CoordinatorRewriteContext extends QueryRewriteContext {
     private final Index index;
     private IndexLongFieldRange indexLongFieldRange;
     private final DateFieldMapper.DateFieldType timestampFieldType;
+    private final ShardFieldRanges shardFieldRanges;
 
     public CoordinatorRewriteContext(NamedXContentRegistry xContentRegistry,
                                      NamedWriteableRegistry writeableRegistry,
                                      Client client,
                                      LongSupplier nowInMillis,
                                      Index index,
-                                     IndexLongFieldRange indexLongFieldRange,
-                                     DateFieldMapper.DateFieldType timestampFieldType) {
+                                     @Nullable IndexLongFieldRange indexLongFieldRange,
+                                     @Nullable DateFieldMapper.DateFieldType timestampFieldType,
+                                     @Nullable ShardFieldRanges shardFieldRanges) {
         super(xContentRegistry, writeableRegistry, client, nowInMillis);
         this.index = index;
         this.indexLongFieldRange = indexLongFieldRange;
         this.timestampFieldType = timestampFieldType;
+        this.shardFieldRanges = shardFieldRanges;
     }
 
     long getMinTimestamp() {
@@ -58,13 +64,21 @@ public class CoordinatorRewriteContext extends QueryRewriteContext {
 
     @Nullable
     public MappedFieldType getFieldType(String fieldName) {
-        if (fieldName.equals(timestampFieldType.name()) == false) {
+        if (timestampFieldType == null || fieldName.equals(timestampFieldType.name()) == false) {
             return null;
         }
 
         return timestampFieldType;
     }
 
+    /**
+     * Returns the range of values of the given field in the shard, or {@code null} if it is unknown.
+     */
+    @Nullable
+    public ShardFieldRanges.FieldRange getFieldRange(String fieldName) {
+        return shardFieldRanges == null ? null : shardFieldRanges.getFieldRange(fieldName);
+    }
+
     @Override
     public CoordinatorRewriteContext convertToCoordinatorRewriteContext() {
         return this;
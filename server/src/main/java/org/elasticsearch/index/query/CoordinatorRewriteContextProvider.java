@@ -17,7 +17,11 @@ import org.elasticsearch.xcontent.NamedXContentRegistry;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.mapper.DateFieldMapper;
 import org.elasticsearch.index.shard.IndexLongFieldRange;
+import org.elasticsearch.index.shard.ShardFieldRanges;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.ShardFieldRangesCache;
 
+import java.util.List;
 import java.util.function.Function;
 import java.util.function.LongSupplier;
 import java.util.function.Supplier;
@@ -29,44 +33,80 @@ public class CoordinatorRewriteContextProvider {
     private final LongSupplier nowInMillis;
     private final Supplier<ClusterState> clusterStateSupplier;
     private final Function<Index, DateFieldMapper.DateFieldType> mappingSupplier;
+    private final ShardFieldRangesCache shardFieldRangesCache;
 
     public CoordinatorRewriteContextProvider(NamedXContentRegistry xContentRegistry,
                                              NamedWriteableRegistry writeableRegistry,
                                              Client client,
                                              LongSupplier nowInMillis,
                                              Supplier<ClusterState> clusterStateSupplier,
-                                             Function<Index, DateFieldMapper.DateFieldType> mappingSupplier) {
+                                             Function<Index, DateFieldMapper.DateFieldType> mappingSupplier,
+                                             ShardFieldRangesCache shardFieldRangesCache) {
         this.xContentRegistry = xContentRegistry;
         this.writeableRegistry = writeableRegistry;
         this.client = client;
         this.nowInMillis = nowInMillis;
         this.clusterStateSupplier = clusterStateSupplier;
         this.mappingSupplier = mappingSupplier;
+        this.shardFieldRangesCache = shardFieldRangesCache;
     }
 
     @Nullable
     public CoordinatorRewriteContext getCoordinatorRewriteContext(Index index) {
+        return getCoordinatorRewriteContext(index, null);
+    }
+
+    /**
+     * Returns a context that can rewrite queries on the timestamp field of the index and, if the summary of the shard is
+     * provided, on the fields of the summary. Returns {@code null} if neither is available.
+     */
+    @Nullable
+    public CoordinatorRewriteContext getCoordinatorRewriteContext(Index index, @Nullable ShardFieldRanges shardFieldRanges) {
         ClusterState clusterState = clusterStateSupplier.get();
         IndexMetadata indexMetadata = clusterState.metadata().index(index);
 
-        if (indexMetadata == null || indexMetadata.getTimestampRange().containsAllShardRanges() == false) {
+        if (indexMetadata == null) {
             return null;
         }
 
-        DateFieldMapper.DateFieldType dateFieldType = mappingSupplier.apply(index);
+        DateFieldMapper.DateFieldType dateFieldType = null;
+        IndexLongFieldRange timestampRange = null;
+        if (indexMetadata.getTimestampRange().containsAllShardRanges()) {
+            dateFieldType = mappingSupplier.apply(index);
+            timestampRange = indexMetadata.getTimestampRange();
+        }
 
-        if (dateFieldType == null) {
+        if (dateFieldType == null && shardFieldRanges == null) {
             return null;
         }
 
-        IndexLongFieldRange timestampRange = indexMetadata.getTimestampRange();
         return new CoordinatorRewriteContext(xContentRegistry,
             writeableRegistry,
             client,
             nowInMillis,
             index,
             timestampRange,
-            dateFieldType
+            dateFieldType,
+            shardFieldRanges
         );
     }
+
+    /**
+     * Returns the cached summary of any of the given copies of the shard, if it is still valid.
+     */
+    @Nullable
+    public ShardFieldRanges getShardFieldRanges(ShardId shardId, List<String> nodeIds) {
+        IndexMetadata indexMetadata = clusterStateSupplier.get().metadata().index(shardId.getIndex());
+        if (indexMetadata == null) {
+            return null;
+        }
+        return shardFieldRangesCache.get(shardId, nodeIds, indexMetadata);
+    }
+
+    /**
+     * Caches the summary that a copy of a shard returned with its can-match response.
+     */
+    public void putShardFieldRanges(ShardId shardId, String nodeId, ShardFieldRanges shardFieldRanges) {
+        shardFieldRangesCache.put(shardId, nodeId, shardFieldRanges);
+    }
 }
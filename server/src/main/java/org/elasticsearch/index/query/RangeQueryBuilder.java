@@ -24,6 +24,7 @@ import org.elasticsearch.xcontent.XContentParser;
 import org.elasticsearch.index.mapper.DateFieldMapper;
 import org.elasticsearch.index.mapper.FieldNamesFieldMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.shard.ShardFieldRanges;
 
 import java.io.IOException;
 import java.time.DateTimeException;
@@ -432,6 +433,11 @@ public class RangeQueryBuilder extends AbstractQueryBuilder<RangeQueryBuilder> i
                 return dateFieldType.isFieldWithinQuery(minTimestamp, maxTimestamp, from, to, includeLower,
                     includeUpper, timeZone, dateMathParser, queryRewriteContext);
             }
+            final ShardFieldRanges.FieldRange fieldRange = coordinatorRewriteContext.getFieldRange(fieldName);
+            if (fieldRange != null) {
+                return fieldRange.relation(fieldName, from, to, includeLower, includeUpper, timeZone, getForceDateParser(),
+                    queryRewriteContext);
+            }
         }
 
         SearchExecutionContext searchExecutionContext = queryRewriteContext.convertToSearchExecutionContext();
@@ -96,6 +96,8 @@ public class SearchExecutionContext extends QueryRewriteContext {
     private final int shardRequestIndex;
     private final IndexSearcher searcher;
     private boolean cacheable = true;
+    private boolean queryResultCacheable = true;
+    private boolean queriesParsed = false;
     private final SetOnce<Boolean> frozen = new SetOnce<>();
 
     private final Index fullyQualifiedIndex;
@@ -548,7 +550,18 @@ public class SearchExecutionContext extends QueryRewriteContext {
      * class says a request can be cached.
      */
     protected final void failIfFrozen() {
+        failIfFrozen(false);
+    }
+
+    /**
+     * Same as {@link #failIfFrozen()} but if {@code capturedByQueries} is true the value that prevents caching is captured
+     * in the parsed queries and the result can still be cached by a cache that is keyed on these queries.
+     */
+    private void failIfFrozen(boolean capturedByQueries) {
         this.cacheable = false;
+        if (capturedByQueries == false) {
+            this.queryResultCacheable = false;
+        }
         if (frozen.get() == Boolean.TRUE) {
             throw new IllegalArgumentException("features that prevent cachability are disabled on this context");
         } else {
@@ -576,6 +589,23 @@ public class SearchExecutionContext extends QueryRewriteContext {
         return cacheable;
     }
 
+    /**
+     * Marks the end of the parsing of the main query and of the post filter. Calls to {@link #nowInMillis()} made before
+     * this marker are captured in the parsed queries.
+     */
+    public final void markQueriesParsed() {
+        this.queriesParsed = true;
+    }
+
+    /**
+     * Returns <code>true</code> iff the result of the processed search request can be cached by a cache that is keyed on the
+     * parsed queries, see {@link org.elasticsearch.indices.IndicesQueryResultCache}. Unlike {@link #isCacheable()} this
+     * allows the queries to use {@link #nowInMillis()}.
+     */
+    public final boolean isQueryResultCacheable() {
+        return queryResultCacheable;
+    }
+
     /**
      * Returns the shard ID this context was created for.
      */
@@ -593,7 +623,7 @@ public class SearchExecutionContext extends QueryRewriteContext {
 
     @Override
     public final long nowInMillis() {
-        failIfFrozen();
+        failIfFrozen(queriesParsed == false);
         return super.nowInMillis();
     }
 
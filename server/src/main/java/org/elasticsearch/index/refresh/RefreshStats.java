@@ -34,6 +34,16 @@ public class RefreshStats implements Writeable, ToXContentFragment {
      */
     private int listeners;
 
+    /**
+     * Number of scheduled refreshes that were skipped because the adaptive refresh interval had not passed yet.
+     */
+    private long adaptiveSkipped;
+
+    /**
+     * The longest adaptive refresh interval currently in effect, or {@code -1} if scheduled refreshes are not delayed.
+     */
+    private long adaptiveIntervalInMillis = -1;
+
     public RefreshStats() {
     }
 
@@ -45,6 +55,10 @@ public class RefreshStats implements Writeable, ToXContentFragment {
             externalTotalTimeInMillis = in.readVLong();
         }
         listeners = in.readVInt();
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            adaptiveSkipped = in.readVLong();
+            adaptiveIntervalInMillis = in.readLong();
+        }
     }
 
     @Override
@@ -56,6 +70,10 @@ public class RefreshStats implements Writeable, ToXContentFragment {
             out.writeVLong(externalTotalTimeInMillis);
         }
         out.writeVInt(listeners);
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeVLong(adaptiveSkipped);
+            out.writeLong(adaptiveIntervalInMillis);
+        }
     }
 
     public RefreshStats(long total, long totalTimeInMillis, long externalTotal, long externalTotalTimeInMillis, int listeners) {
@@ -66,6 +84,13 @@ public class RefreshStats implements Writeable, ToXContentFragment {
         this.listeners = listeners;
     }
 
+    public RefreshStats(long total, long totalTimeInMillis, long externalTotal, long externalTotalTimeInMillis, int listeners,
+                        long adaptiveSkipped, long adaptiveIntervalInMillis) {
+        this(total, totalTimeInMillis, externalTotal, externalTotalTimeInMillis, listeners);
+        this.adaptiveSkipped = adaptiveSkipped;
+        this.adaptiveIntervalInMillis = adaptiveIntervalInMillis;
+    }
+
     public void add(RefreshStats refreshStats) {
         addTotals(refreshStats);
     }
@@ -79,6 +104,8 @@ public class RefreshStats implements Writeable, ToXContentFragment {
         this.externalTotal += refreshStats.externalTotal;
         this.externalTotalTimeInMillis += refreshStats.externalTotalTimeInMillis;
         this.listeners += refreshStats.listeners;
+        this.adaptiveSkipped += refreshStats.adaptiveSkipped;
+        this.adaptiveIntervalInMillis = Math.max(this.adaptiveIntervalInMillis, refreshStats.adaptiveIntervalInMillis);
     }
 
     /**
@@ -127,6 +154,20 @@ public class RefreshStats implements Writeable, ToXContentFragment {
         return listeners;
     }
 
+    /**
+     * The number of scheduled refreshes that were skipped because the adaptive refresh interval had not passed yet.
+     */
+    public long getAdaptiveSkipped() {
+        return adaptiveSkipped;
+    }
+
+    /**
+     * The longest adaptive refresh interval currently in effect (in milliseconds), or {@code -1} if scheduled refreshes are not delayed.
+     */
+    public long getAdaptiveIntervalInMillis() {
+        return adaptiveIntervalInMillis;
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject("refresh");
@@ -135,6 +176,12 @@ public class RefreshStats implements Writeable, ToXContentFragment {
         builder.field("external_total", externalTotal);
         builder.humanReadableField("external_total_time_in_millis", "external_total_time", getExternalTotalTime());
         builder.field("listeners", listeners);
+        if (adaptiveIntervalInMillis >= 0) {
+            builder.startObject("adaptive");
+            builder.field("skipped", adaptiveSkipped);
+            builder.humanReadableField("interval_in_millis", "interval", new TimeValue(adaptiveIntervalInMillis));
+            builder.endObject();
+        }
         builder.endObject();
         return builder;
     }
@@ -149,11 +196,14 @@ public class RefreshStats implements Writeable, ToXContentFragment {
                 && totalTimeInMillis == rhs.totalTimeInMillis
                 && externalTotal == rhs.externalTotal
                 && externalTotalTimeInMillis == rhs.externalTotalTimeInMillis
-                && listeners == rhs.listeners;
+                && listeners == rhs.listeners
+                && adaptiveSkipped == rhs.adaptiveSkipped
+                && adaptiveIntervalInMillis == rhs.adaptiveIntervalInMillis;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(total, totalTimeInMillis, externalTotal, externalTotalTimeInMillis, listeners);
+        return Objects.hash(total, totalTimeInMillis, externalTotal, externalTotalTimeInMillis, listeners,
+            adaptiveSkipped, adaptiveIntervalInMillis);
     }
 }
@@ -185,6 +185,7 @@ import java.util.function.LongSupplier;
 import java.util.function.LongUnaryOperator;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import static org.elasticsearch.cluster.metadata.DataStream.TIMESERIES_LEAF_READERS_SORTER;
@@ -198,6 +199,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     private final IndexCache indexCache;
     private final Store store;
     private final InternalIndexingStats internalIndexingStats;
+    private final InternalWriteLoadStats internalWriteLoadStats;
     private final ShardSearchStats searchStats = new ShardSearchStats();
     private final ShardFieldUsageTracker fieldUsageTracker;
     private final String shardUuid = UUIDs.randomBase64UUID();
@@ -222,6 +224,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     private final SearchOperationListener searchOperationListener;
 
     private final ShardBulkStats bulkOperationListener;
+    private final BulkOperationListener bulkOperationListeners;
     private final GlobalCheckpointListeners globalCheckpointListeners;
     private final PendingReplicationActions pendingReplicationActions;
     private final ReplicationTracker replicationTracker;
@@ -253,6 +256,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     private final MeanMetric externalRefreshMetric = new MeanMetric();
     private final MeanMetric flushMetric = new MeanMetric();
     private final CounterMetric periodicFlushMetric = new CounterMetric();
+    private final CounterMetric adaptiveSkippedRefreshMetric = new CounterMetric();
 
     private final ShardEventListener shardEventListener = new ShardEventListener();
 
@@ -283,6 +287,12 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     private final RefreshListeners refreshListeners;
 
     private final AtomicLong lastSearcherAccess = new AtomicLong();
+    /**
+     * The interval set by the {@link org.elasticsearch.indices.AdaptiveRefreshScheduler} that scheduled refreshes wait for since the
+     * last scheduled refresh, or {@code -1} if scheduled refreshes are not delayed.
+     */
+    private volatile long adaptiveRefreshIntervalMillis = -1;
+    private volatile long lastScheduledRefreshMillis;
     private final AtomicReference<Translog.Location> pendingRefreshLocation = new AtomicReference<>();
     private final RefreshPendingLocationListener refreshPendingLocationListener;
     private volatile boolean useRetentionLeasesInPeerRecovery;
@@ -308,7 +318,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             final Runnable globalCheckpointSyncer,
             final RetentionLeaseSyncer retentionLeaseSyncer,
             final CircuitBreakerService circuitBreakerService,
-            final IndexStorePlugin.SnapshotCommitSupplier snapshotCommitSupplier) throws IOException {
+            final IndexStorePlugin.SnapshotCommitSupplier snapshotCommitSupplier,
+            final TranslogSyncCoordinator translogSyncCoordinator) throws IOException {
         super(shardRouting.shardId(), indexSettings);
         assert shardRouting.initializing();
         this.shardRouting = shardRouting;
@@ -323,14 +334,24 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         this.indexSortSupplier = indexSortSupplier;
         this.indexEventListener = indexEventListener;
         this.threadPool = threadPool;
-        this.translogSyncProcessor = createTranslogSyncProcessor(logger, threadPool.getThreadContext(), this::getEngine);
+        this.translogSyncProcessor = createTranslogSyncProcessor(logger, threadPool.getThreadContext(), this::ensureTranslogSynced);
+        this.translogSyncCoordinator = Objects.requireNonNull(translogSyncCoordinator);
         this.mapperService = mapperService;
         this.indexCache = indexCache;
         this.internalIndexingStats = new InternalIndexingStats();
         final List<IndexingOperationListener> listenersList = new ArrayList<>(listeners);
         listenersList.add(internalIndexingStats);
+        this.internalWriteLoadStats = new InternalWriteLoadStats();
+        listenersList.add(internalWriteLoadStats);
         this.indexingOperationListeners = new IndexingOperationListener.CompositeListener(listenersList, logger);
         this.bulkOperationListener = new ShardBulkStats();
+        this.bulkOperationListeners = new BulkOperationListener() {
+            @Override
+            public void afterBulk(long bulkShardSizeInBytes, long tookInNanos) {
+                bulkOperationListener.afterBulk(bulkShardSizeInBytes, tookInNanos);
+                internalWriteLoadStats.afterBulk(bulkShardSizeInBytes, tookInNanos);
+            }
+        };
         this.globalCheckpointSyncer = globalCheckpointSyncer;
         this.retentionLeaseSyncer = Objects.requireNonNull(retentionLeaseSyncer);
         this.searchOperationListener =
@@ -434,7 +455,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     }
 
     public BulkOperationListener getBulkOperationListener() {
-        return this.bulkOperationListener;
+        return this.bulkOperationListeners;
     }
 
     public ShardIndexWarmerService warmerService() {
@@ -839,29 +860,94 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
                                                            long ifSeqNo, long ifPrimaryTerm, long autoGeneratedTimestamp,
                                                            boolean isRetry)
         throws IOException {
+        return applyIndexOperationOnPrimary(version, versionType, sourceToParse, ifSeqNo, ifPrimaryTerm, autoGeneratedTimestamp, isRetry,
+            null);
+    }
+
+    /**
+     * Same as {@link #applyIndexOperationOnPrimary(long, VersionType, SourceToParse, long, long, long, boolean)} but uses the given
+     * document instead of parsing the source again. The document must have been parsed from the given source with the current
+     * {@link MapperService#documentMapper()}.
+     */
+    public Engine.IndexResult applyIndexOperationOnPrimary(long version, VersionType versionType, SourceToParse sourceToParse,
+                                                           long ifSeqNo, long ifPrimaryTerm, long autoGeneratedTimestamp,
+                                                           boolean isRetry, @Nullable ParsedDocument parsedDocument)
+        throws IOException {
         assert versionType.validateVersionForWrites(version);
         return applyIndexOperation(getEngine(), UNASSIGNED_SEQ_NO, getOperationPrimaryTerm(), version, versionType, ifSeqNo,
-            ifPrimaryTerm, autoGeneratedTimestamp, isRetry, Engine.Operation.Origin.PRIMARY, sourceToParse);
+            ifPrimaryTerm, autoGeneratedTimestamp, isRetry, Engine.Operation.Origin.PRIMARY, sourceToParse, parsedDocument);
+    }
+
+    /**
+     * Parses the given source into an index operation on the primary without executing it, see
+     * {@link #applyIndexOperationsOnPrimary(List)}. Parsing failures are thrown, a dynamic mapping update is left on the returned
+     * operation's document for the caller to check.
+     */
+    public Engine.Index prepareIndexOnPrimary(long version, VersionType versionType, SourceToParse sourceToParse, long ifSeqNo,
+                                              long ifPrimaryTerm, long autoGeneratedTimestamp, boolean isRetry,
+                                              @Nullable ParsedDocument parsedDocument) {
+        assert versionType.validateVersionForWrites(version);
+        final long startTime = System.nanoTime();
+        try {
+            return prepareIndex(mapperService, sourceToParse, parsedDocument, UNASSIGNED_SEQ_NO, getOperationPrimaryTerm(), version,
+                versionType, Engine.Operation.Origin.PRIMARY, autoGeneratedTimestamp, isRetry, ifSeqNo, ifPrimaryTerm);
+        } finally {
+            if (parsedDocument == null) {
+                internalWriteLoadStats.addParseTime(System.nanoTime() - startTime);
+            }
+        }
+    }
+
+    /**
+     * Executes the given index operations, prepared with {@link #prepareIndexOnPrimary}, in one call to the engine so that it can
+     * index runs of append-only operations together.
+     */
+    public List<Engine.IndexResult> applyIndexOperationsOnPrimary(List<Engine.Index> operations) throws IOException {
+        ensureWriteAllowed(Engine.Operation.Origin.PRIMARY);
+        active.set(true);
+        final List<Engine.Index> indices = new ArrayList<>(operations.size());
+        for (Engine.Index operation : operations) {
+            assert operation.origin() == Engine.Operation.Origin.PRIMARY : operation.origin();
+            indices.add(indexingOperationListeners.preIndex(shardId, operation));
+        }
+        final List<Engine.IndexResult> results;
+        try {
+            results = getEngine().index(indices);
+        } catch (Exception e) {
+            for (Engine.Index index : indices) {
+                indexingOperationListeners.postIndex(shardId, index, e);
+            }
+            throw e;
+        }
+        for (int i = 0; i < indices.size(); i++) {
+            indexingOperationListeners.postIndex(shardId, indices.get(i), results.get(i));
+        }
+        return results;
     }
 
     public Engine.IndexResult applyIndexOperationOnReplica(long seqNo, long opPrimaryTerm, long version, long autoGeneratedTimeStamp,
         boolean isRetry, SourceToParse sourceToParse)
         throws IOException {
         return applyIndexOperation(getEngine(), seqNo, opPrimaryTerm, version, null, UNASSIGNED_SEQ_NO, 0,
-            autoGeneratedTimeStamp, isRetry, Engine.Operation.Origin.REPLICA, sourceToParse);
+            autoGeneratedTimeStamp, isRetry, Engine.Operation.Origin.REPLICA, sourceToParse, null);
     }
 
     private Engine.IndexResult applyIndexOperation(Engine engine, long seqNo, long opPrimaryTerm, long version,
                                                    @Nullable VersionType versionType, long ifSeqNo, long ifPrimaryTerm,
                                                    long autoGeneratedTimeStamp, boolean isRetry, Engine.Operation.Origin origin,
-                                                   SourceToParse sourceToParse) throws IOException {
+                                                   SourceToParse sourceToParse, @Nullable ParsedDocument parsedDocument)
+        throws IOException {
         assert opPrimaryTerm <= getOperationPrimaryTerm()
                 : "op term [ " + opPrimaryTerm + " ] > shard term [" + getOperationPrimaryTerm() + "]";
         ensureWriteAllowed(origin);
         Engine.Index operation;
+        final long startTime = System.nanoTime();
         try {
-            operation = prepareIndex(mapperService, sourceToParse,
+            operation = prepareIndex(mapperService, sourceToParse, parsedDocument,
                 seqNo, opPrimaryTerm, version, versionType, origin, autoGeneratedTimeStamp, isRetry, ifSeqNo, ifPrimaryTerm);
+            if (parsedDocument == null && origin.isRecovery() == false) {
+                internalWriteLoadStats.addParseTime(System.nanoTime() - startTime);
+            }
             Mapping update = operation.parsedDoc().dynamicMappingsUpdate();
             if (update != null) {
                 return new Engine.IndexResult(update);
@@ -882,6 +968,14 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
                                             long primaryTerm, long version, VersionType versionType, Engine.Operation.Origin origin,
                                             long autoGeneratedIdTimestamp, boolean isRetry,
                                             long ifSeqNo, long ifPrimaryTerm) {
+        return prepareIndex(mapperService, source, null, seqNo, primaryTerm, version, versionType, origin, autoGeneratedIdTimestamp,
+            isRetry, ifSeqNo, ifPrimaryTerm);
+    }
+
+    private static Engine.Index prepareIndex(MapperService mapperService, SourceToParse source, @Nullable ParsedDocument parsedDocument,
+                                             long seqNo, long primaryTerm, long version, VersionType versionType,
+                                             Engine.Operation.Origin origin, long autoGeneratedIdTimestamp, boolean isRetry,
+                                             long ifSeqNo, long ifPrimaryTerm) {
         long startTime = System.nanoTime();
         assert source.dynamicTemplates().isEmpty() || origin == Engine.Operation.Origin.PRIMARY :
             "dynamic_templates parameter can only be associated with primary operations";
@@ -891,7 +985,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             documentMapper = DocumentMapper.createEmpty(mapperService);
             mapping = documentMapper.mapping();
         }
-        ParsedDocument doc = documentMapper.parse(source);
+        assert parsedDocument == null || mapping == null : "document was parsed without mappings";
+        ParsedDocument doc = parsedDocument != null ? parsedDocument : documentMapper.parse(source);
         if (mapping != null) {
             //If we are indexing but there is no mapping we create one. This is to ensure that whenever at least a document is indexed
             // some mappings do exist. It covers for the case of indexing an empty doc (`{}`).
@@ -1054,7 +1149,9 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             TimeUnit.NANOSECONDS.toMillis(refreshMetric.sum()),
             externalRefreshMetric.count(),
             TimeUnit.NANOSECONDS.toMillis(externalRefreshMetric.sum()),
-            listeners);
+            listeners,
+            adaptiveSkippedRefreshMetric.count(),
+            adaptiveRefreshIntervalMillis);
     }
 
     public FlushStats flushStats() {
@@ -1160,6 +1257,18 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         return bulkOperationListener.stats();
     }
 
+    public WriteLoadStats writeLoadStats() {
+        return internalWriteLoadStats.stats();
+    }
+
+    /**
+     * Accounts for the time spent parsing documents of this shard outside of {@link #applyIndexOperationOnPrimary}, e.g. when they
+     * are parsed ahead of execution.
+     */
+    public void addParseTime(long parseNanos) {
+        internalWriteLoadStats.addParseTime(parseNanos);
+    }
+
     /**
      * Executes the given flush request against the engine.
      *
@@ -1590,7 +1699,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
                 result = applyIndexOperation(engine, index.seqNo(), index.primaryTerm(), index.version(),
                     versionType, UNASSIGNED_SEQ_NO, 0, index.getAutoGeneratedIdTimestamp(), true, origin,
                     new SourceToParse(shardId.getIndexName(), index.id(), index.source(),
-                        XContentHelper.xContentType(index.source()), index.routing(), Map.of()));
+                        XContentHelper.xContentType(index.source()), index.routing(), Map.of()), null);
                 break;
             case DELETE:
                 final Translog.Delete delete = (Translog.Delete) operation;
@@ -3255,24 +3364,33 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
 
     private final AsyncIOProcessor<Translog.Location> translogSyncProcessor;
 
-    private static AsyncIOProcessor<Translog.Location> createTranslogSyncProcessor(Logger logger, ThreadContext threadContext,
-                                                                                   Supplier<Engine> engineSupplier) {
+    private final TranslogSyncCoordinator translogSyncCoordinator;
+
+    private static AsyncIOProcessor<Translog.Location> createTranslogSyncProcessor(
+        Logger logger, ThreadContext threadContext, CheckedConsumer<Stream<Translog.Location>, IOException> syncer) {
         return new AsyncIOProcessor<>(logger, 1024, threadContext) {
             @Override
             protected void write(List<Tuple<Translog.Location, Consumer<Exception>>> candidates) throws IOException {
-                try {
-                    engineSupplier.get().ensureTranslogSynced(candidates.stream().map(Tuple::v1));
-                } catch (AlreadyClosedException ex) {
-                    // that's fine since we already synced everything on engine close - this also is conform with the methods
-                    // documentation
-                } catch (IOException ex) { // if this fails we are in deep shit - fail the request
-                    logger.debug("failed to sync translog", ex);
-                    throw ex;
-                }
+                syncer.accept(candidates.stream().map(Tuple::v1));
             }
         };
     }
 
+    /**
+     * Ensures that all given locations are synced with the underlying storage.
+     */
+    void ensureTranslogSynced(Stream<Translog.Location> locations) throws IOException {
+        try {
+            getEngine().ensureTranslogSynced(locations);
+        } catch (AlreadyClosedException ex) {
+            // that's fine since we already synced everything on engine close - this also is conform with the methods
+            // documentation
+        } catch (IOException ex) { // if this fails we are in deep shit - fail the request
+            logger.debug("failed to sync translog", ex);
+            throw ex;
+        }
+    }
+
     /**
      * Syncs the given location with the underlying storage unless already synced. This method might return immediately without
      * actually fsyncing the location until the sync listener is called. Yet, unless there is already another thread fsyncing
@@ -3284,7 +3402,11 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
      */
     public final void sync(Translog.Location location, Consumer<Exception> syncListener) {
         verifyNotClosed();
-        translogSyncProcessor.put(location, syncListener);
+        if (translogSyncCoordinator.isEnabled()) {
+            translogSyncCoordinator.sync(this, location, syncListener);
+        } else {
+            translogSyncProcessor.put(location, syncListener);
+        }
     }
 
     public void sync() throws IOException {
@@ -3435,9 +3557,17 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
                 setRefreshPending(engine);
                 return false;
             } else {
+                final long now = threadPool.relativeTimeInMillis();
+                if (listenerNeedsRefresh == false && now - lastScheduledRefreshMillis < adaptiveRefreshIntervalMillis) {
+                    // the node is under indexing load, let this refresh wait for the adaptive interval to pass
+                    getEngine().maybePruneDeletes();
+                    adaptiveSkippedRefreshMetric.inc();
+                    return false;
+                }
                 if (logger.isTraceEnabled()) {
                     logger.trace("refresh with source [schedule]");
                 }
+                lastScheduledRefreshMillis = now;
                 return getEngine().maybeRefresh("schedule");
             }
         }
@@ -3446,6 +3576,24 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         return false;
     }
 
+    /**
+     * Sets the minimum interval between two scheduled refreshes of this shard, or {@code null} to refresh on every scheduled
+     * refresh as usual. Refreshes that listeners wait for are never delayed.
+     */
+    public void setAdaptiveRefreshInterval(@Nullable TimeValue interval) {
+        adaptiveRefreshIntervalMillis = interval == null ? -1 : interval.millis();
+    }
+
+    /**
+     * Returns the minimum interval between two scheduled refreshes set by the adaptive refresh scheduler, or {@code null} if
+     * scheduled refreshes are not delayed.
+     */
+    @Nullable
+    public TimeValue getAdaptiveRefreshInterval() {
+        final long millis = adaptiveRefreshIntervalMillis;
+        return millis < 0 ? null : TimeValue.timeValueMillis(millis);
+    }
+
     /**
      * Returns true if this shards is search idle
      */
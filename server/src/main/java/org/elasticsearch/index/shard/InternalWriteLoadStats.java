@@ -0,0 +1,69 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.shard;
+
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.index.bulk.stats.BulkOperationListener;
+import org.elasticsearch.index.engine.Engine;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Internal class that accumulates the time spent executing write operations on a shard, see {@link WriteLoadStats}.
+ * @see IndexShard
+ */
+final class InternalWriteLoadStats implements IndexingOperationListener, BulkOperationListener {
+
+    private final CounterMetric operations = new CounterMetric();
+    private final CounterMetric totalNanos = new CounterMetric();
+    private final CounterMetric parseNanos = new CounterMetric();
+    private final CounterMetric versionMapNanos = new CounterMetric();
+    private final CounterMetric indexWriterNanos = new CounterMetric();
+    private final CounterMetric translogNanos = new CounterMetric();
+
+    WriteLoadStats stats() {
+        return new WriteLoadStats(
+            operations.count(),
+            TimeUnit.NANOSECONDS.toMillis(totalNanos.count()),
+            TimeUnit.NANOSECONDS.toMillis(parseNanos.count()),
+            TimeUnit.NANOSECONDS.toMillis(versionMapNanos.count()),
+            TimeUnit.NANOSECONDS.toMillis(indexWriterNanos.count()),
+            TimeUnit.NANOSECONDS.toMillis(translogNanos.count()));
+    }
+
+    void addParseTime(long parseNanos) {
+        this.parseNanos.inc(parseNanos);
+    }
+
+    @Override
+    public void afterBulk(long bulkShardSizeInBytes, long tookInNanos) {
+        totalNanos.inc(tookInNanos);
+    }
+
+    @Override
+    public void postIndex(ShardId shardId, Engine.Index index, Engine.IndexResult result) {
+        if (index.origin().isRecovery() == false) {
+            addPhases(result);
+        }
+    }
+
+    @Override
+    public void postDelete(ShardId shardId, Engine.Delete delete, Engine.DeleteResult result) {
+        if (delete.origin().isRecovery() == false) {
+            addPhases(result);
+        }
+    }
+
+    private void addPhases(Engine.Result result) {
+        operations.inc();
+        versionMapNanos.inc(result.getVersionMapTook());
+        indexWriterNanos.inc(result.getIndexWriterTook());
+        translogNanos.inc(result.getTranslogTook());
+    }
+}
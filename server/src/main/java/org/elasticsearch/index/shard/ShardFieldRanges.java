@@ -0,0 +1,404 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.shard;
+
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.lucene.BytesRefs;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.time.DateFormatter;
+import org.elasticsearch.common.time.DateMathParser;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.KeywordFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.index.query.QueryRewriteContext;
+
+import java.io.IOException;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * A summary of the values of a shard: the minimum and maximum value of every numeric and date field, taken from the points,
+ * and the smallest and largest term of every keyword field, taken from the terms dictionary. The coordinating node caches the
+ * summaries of the shard copies it sent can-match requests to, so that it can rule out shards that don't hold values in the
+ * range of a query without sending a request at all, see {@link org.elasticsearch.index.query.CoordinatorRewriteContext}.
+ * <p>
+ * A summary is only valid as long as the shard doesn't accept writes, so shards only build summaries when their index has a
+ * write block, and a summary is only used while the index still has the write block and the settings and mapping versions
+ * it was built with.
+ */
+public final class ShardFieldRanges implements Writeable {
+
+    private final long settingsVersion;
+    private final long mappingVersion;
+    private final Map<String, FieldRange> ranges;
+
+    ShardFieldRanges(long settingsVersion, long mappingVersion, Map<String, FieldRange> ranges) {
+        this.settingsVersion = settingsVersion;
+        this.mappingVersion = mappingVersion;
+        this.ranges = Collections.unmodifiableMap(ranges);
+    }
+
+    public ShardFieldRanges(StreamInput in) throws IOException {
+        settingsVersion = in.readVLong();
+        mappingVersion = in.readVLong();
+        ranges = in.readMap(StreamInput::readString, FieldRange::new);
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(settingsVersion);
+        out.writeVLong(mappingVersion);
+        out.writeMap(ranges, StreamOutput::writeString, (o, range) -> range.writeTo(o));
+    }
+
+    /**
+     * Returns the range of values of the given field, or {@code null} if the field has no values in the shard or isn't
+     * a numeric, date or keyword field.
+     */
+    @Nullable
+    public FieldRange getFieldRange(String field) {
+        return ranges.get(field);
+    }
+
+    /**
+     * Whether this summary still describes the shard, given the current metadata of its index.
+     */
+    public boolean isValidFor(IndexMetadata indexMetadata) {
+        return isWriteBlocked(indexMetadata)
+            && indexMetadata.getSettingsVersion() == settingsVersion
+            && indexMetadata.getMappingVersion() == mappingVersion;
+    }
+
+    /**
+     * Whether the index has an index level block that prevents indexing. Removing the block bumps the settings version, which
+     * invalidates the summaries that were built while the block was in place.
+     */
+    public static boolean isWriteBlocked(IndexMetadata indexMetadata) {
+        return IndexMetadata.INDEX_BLOCKS_WRITE_SETTING.get(indexMetadata.getSettings())
+            || IndexMetadata.INDEX_READ_ONLY_SETTING.get(indexMetadata.getSettings())
+            || IndexMetadata.INDEX_BLOCKS_READ_ONLY_ALLOW_DELETE_SETTING.get(indexMetadata.getSettings());
+    }
+
+    public long ramBytesUsed() {
+        long ramBytesUsed = RamUsageEstimator.shallowSizeOfInstance(ShardFieldRanges.class);
+        for (Map.Entry<String, FieldRange> entry : ranges.entrySet()) {
+            ramBytesUsed += RamUsageEstimator.sizeOf(entry.getKey()) + entry.getValue().ramBytesUsed();
+        }
+        return ramBytesUsed;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ShardFieldRanges that = (ShardFieldRanges) o;
+        return settingsVersion == that.settingsVersion && mappingVersion == that.mappingVersion && ranges.equals(that.ranges);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(settingsVersion, mappingVersion, ranges);
+    }
+
+    /**
+     * The range of values of a field in a shard. Values are {@link Long}s for integer and date fields, {@link Double}s for
+     * floating point fields and {@link BytesRef}s for keyword fields.
+     */
+    public static final class FieldRange implements Writeable {
+        private final String typeName;
+        @Nullable
+        private final String format;
+        @Nullable
+        private final String locale;
+        private final Comparable<?> min;
+        private final Comparable<?> max;
+        // built once rather than for every range query, null if the field isn't a date
+        @Nullable
+        private final DateFormatter dateFormatter;
+
+        FieldRange(String typeName, @Nullable String format, @Nullable String locale, Comparable<?> min, Comparable<?> max) {
+            this.typeName = Objects.requireNonNull(typeName);
+            this.format = format;
+            this.locale = locale;
+            this.min = Objects.requireNonNull(min);
+            this.max = Objects.requireNonNull(max);
+            this.dateFormatter = buildDateFormatter();
+        }
+
+        FieldRange(StreamInput in) throws IOException {
+            typeName = in.readString();
+            format = in.readOptionalString();
+            locale = in.readOptionalString();
+            if (isKeyword()) {
+                min = in.readBytesRef();
+                max = in.readBytesRef();
+            } else if (isFloatingPoint()) {
+                min = in.readDouble();
+                max = in.readDouble();
+            } else {
+                min = in.readLong();
+                max = in.readLong();
+            }
+            dateFormatter = buildDateFormatter();
+        }
+
+        @Nullable
+        private DateFormatter buildDateFormatter() {
+            return isDate() ? DateFormatter.forPattern(format).withLocale(Locale.forLanguageTag(locale)) : null;
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(typeName);
+            out.writeOptionalString(format);
+            out.writeOptionalString(locale);
+            if (isKeyword()) {
+                out.writeBytesRef((BytesRef) min);
+                out.writeBytesRef((BytesRef) max);
+            } else if (isFloatingPoint()) {
+                out.writeDouble((Double) min);
+                out.writeDouble((Double) max);
+            } else {
+                out.writeLong((Long) min);
+                out.writeLong((Long) max);
+            }
+        }
+
+        public String typeName() {
+            return typeName;
+        }
+
+        public Comparable<?> min() {
+            return min;
+        }
+
+        public Comparable<?> max() {
+            return max;
+        }
+
+        private boolean isKeyword() {
+            return typeName.equals(KeywordFieldMapper.CONTENT_TYPE);
+        }
+
+        private boolean isDate() {
+            return typeName.equals(DateFieldMapper.CONTENT_TYPE) || typeName.equals(DateFieldMapper.DATE_NANOS_CONTENT_TYPE);
+        }
+
+        private boolean isFloatingPoint() {
+            return typeName.equals(NumberFieldMapper.NumberType.DOUBLE.typeName())
+                || typeName.equals(NumberFieldMapper.NumberType.FLOAT.typeName())
+                || typeName.equals(NumberFieldMapper.NumberType.HALF_FLOAT.typeName());
+        }
+
+        /**
+         * Returns how the values of the field relate to the given range. Only dates may be {@link MappedFieldType.Relation#WITHIN}
+         * the range, numbers and terms are compared conservatively and are either {@link MappedFieldType.Relation#DISJOINT} or
+         * {@link MappedFieldType.Relation#INTERSECTS}.
+         */
+        public MappedFieldType.Relation relation(String field, Object from, Object to, boolean includeLower, boolean includeUpper,
+                                                 ZoneId timeZone, @Nullable DateMathParser dateMathParser,
+                                                 QueryRewriteContext context) throws IOException {
+            if (isDate()) {
+                DateFieldMapper.Resolution resolution = typeName.equals(DateFieldMapper.CONTENT_TYPE)
+                    ? DateFieldMapper.Resolution.MILLISECONDS
+                    : DateFieldMapper.Resolution.NANOSECONDS;
+                DateFieldMapper.DateFieldType fieldType = new DateFieldMapper.DateFieldType(field, resolution, dateFormatter);
+                return fieldType.isFieldWithinQuery((Long) min, (Long) max, from, to, includeLower, includeUpper, timeZone,
+                    dateMathParser, context);
+            }
+            // the bounds are compared with < and >, so an exclusive bound that is equal to the min or max intersects
+            final boolean disjoint;
+            if (isKeyword()) {
+                disjoint = (from != null && ((BytesRef) max).compareTo(BytesRefs.toBytesRef(from)) < 0)
+                    || (to != null && ((BytesRef) min).compareTo(BytesRefs.toBytesRef(to)) > 0);
+            } else {
+                NumberFieldMapper.NumberType type = NumberFieldMapper.NumberType.valueOf(typeName.toUpperCase(Locale.ROOT));
+                // coercion truncates decimal bounds on integer fields, which only ever widens the range
+                disjoint = (from != null && ((Number) max).doubleValue() < type.parse(toNumberValue(from), true).doubleValue())
+                    || (to != null && ((Number) min).doubleValue() > type.parse(toNumberValue(to), true).doubleValue());
+            }
+            return disjoint ? MappedFieldType.Relation.DISJOINT : MappedFieldType.Relation.INTERSECTS;
+        }
+
+        private static Object toNumberValue(Object value) {
+            return value instanceof BytesRef ? ((BytesRef) value).utf8ToString() : value;
+        }
+
+        FieldRange union(FieldRange other) {
+            if (typeName.equals(other.typeName) == false || Objects.equals(format, other.format) == false) {
+                return null;
+            }
+            return new FieldRange(typeName, format, locale, min(min, other.min), max(max, other.max));
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        private static Comparable<?> min(Comparable a, Comparable b) {
+            return a.compareTo(b) <= 0 ? a : b;
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        private static Comparable<?> max(Comparable a, Comparable b) {
+            return a.compareTo(b) >= 0 ? a : b;
+        }
+
+        long ramBytesUsed() {
+            long ramBytesUsed = RamUsageEstimator.shallowSizeOfInstance(FieldRange.class) + RamUsageEstimator.sizeOf(typeName);
+            if (format != null) {
+                ramBytesUsed += RamUsageEstimator.sizeOf(format) + RamUsageEstimator.sizeOf(locale);
+            }
+            if (isKeyword()) {
+                return ramBytesUsed + 2 * RamUsageEstimator.shallowSizeOfInstance(BytesRef.class)
+                    + RamUsageEstimator.sizeOf(((BytesRef) min).bytes) + RamUsageEstimator.sizeOf(((BytesRef) max).bytes);
+            }
+            return ramBytesUsed + 2 * Long.BYTES;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            FieldRange that = (FieldRange) o;
+            return typeName.equals(that.typeName) && Objects.equals(format, that.format) && Objects.equals(locale, that.locale)
+                && min.equals(that.min) && max.equals(that.max);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(typeName, format, locale, min, max);
+        }
+
+        @Override
+        public String toString() {
+            return typeName + "[" + min + ", " + max + "]";
+        }
+    }
+
+    /**
+     * Builds shard summaries out of per-segment summaries. Segment summaries are cached until the segment is closed, so after
+     * a refresh or a merge only the new segments are read.
+     */
+    public static final class Builder {
+        private final Map<Object, Map<String, FieldRange>> segmentRanges = ConcurrentCollections.newConcurrentMap();
+
+        /**
+         * Builds the summary of the given reader of a shard of the given index.
+         * @param fieldTypes resolves the field types of the index, without the runtime fields of the request
+         */
+        public ShardFieldRanges build(IndexMetadata indexMetadata, IndexReader reader,
+                                      Function<String, MappedFieldType> fieldTypes) throws IOException {
+            Map<String, FieldRange> ranges = new HashMap<>();
+            for (LeafReaderContext leaf : reader.leaves()) {
+                for (Map.Entry<String, FieldRange> entry : segmentRanges(leaf.reader(), fieldTypes).entrySet()) {
+                    ranges.merge(entry.getKey(), entry.getValue(), FieldRange::union);
+                }
+            }
+            // a field can be shadowed by a runtime field of the index after some segments were summarized
+            ranges.entrySet().removeIf(e -> e.getValue().typeName.equals(supportedTypeName(fieldTypes.apply(e.getKey()))) == false);
+            return new ShardFieldRanges(indexMetadata.getSettingsVersion(), indexMetadata.getMappingVersion(), ranges);
+        }
+
+        private Map<String, FieldRange> segmentRanges(LeafReader reader, Function<String, MappedFieldType> fieldTypes)
+                throws IOException {
+            final IndexReader.CacheHelper cacheHelper = reader.getCoreCacheHelper();
+            if (cacheHelper == null) {
+                return computeSegmentRanges(reader, fieldTypes);
+            }
+            Map<String, FieldRange> ranges = segmentRanges.get(cacheHelper.getKey());
+            if (ranges == null) {
+                ranges = computeSegmentRanges(reader, fieldTypes);
+                if (segmentRanges.putIfAbsent(cacheHelper.getKey(), ranges) == null) {
+                    cacheHelper.addClosedListener(segmentRanges::remove);
+                }
+            }
+            return ranges;
+        }
+
+        private static Map<String, FieldRange> computeSegmentRanges(LeafReader reader, Function<String, MappedFieldType> fieldTypes)
+                throws IOException {
+            Map<String, FieldRange> ranges = new HashMap<>();
+            for (FieldInfo fieldInfo : reader.getFieldInfos()) {
+                final String field = fieldInfo.name;
+                final MappedFieldType fieldType = fieldTypes.apply(field);
+                final String typeName = supportedTypeName(fieldType);
+                if (typeName == null || field.equals(fieldType.name()) == false) {
+                    continue;
+                }
+                if (fieldType instanceof KeywordFieldMapper.KeywordFieldType) {
+                    Terms terms = fieldInfo.getIndexOptions() != IndexOptions.NONE ? reader.terms(field) : null;
+                    if (terms != null && terms.getMin() != null) {
+                        ranges.put(field, new FieldRange(typeName, null, null,
+                            BytesRef.deepCopyOf(terms.getMin()), BytesRef.deepCopyOf(terms.getMax())));
+                    }
+                    continue;
+                }
+                PointValues points = fieldInfo.getPointDimensionCount() == 1 ? reader.getPointValues(field) : null;
+                if (points == null || points.size() == 0) {
+                    continue;
+                }
+                if (fieldType instanceof DateFieldMapper.DateFieldType) {
+                    DateFormatter formatter = ((DateFieldMapper.DateFieldType) fieldType).dateTimeFormatter();
+                    ranges.put(field, new FieldRange(typeName, formatter.pattern(), formatter.locale().toLanguageTag(),
+                        LongPoint.decodeDimension(points.getMinPackedValue(), 0),
+                        LongPoint.decodeDimension(points.getMaxPackedValue(), 0)));
+                } else {
+                    NumberFieldMapper.NumberFieldType numberFieldType = (NumberFieldMapper.NumberFieldType) fieldType;
+                    Number min = numberFieldType.parsePoint(points.getMinPackedValue());
+                    Number max = numberFieldType.parsePoint(points.getMaxPackedValue());
+                    FieldRange range = new FieldRange(typeName, null, null, min.longValue(), max.longValue());
+                    if (range.isFloatingPoint()) {
+                        range = new FieldRange(typeName, null, null, min.doubleValue(), max.doubleValue());
+                    }
+                    ranges.put(field, range);
+                }
+            }
+            return ranges;
+        }
+
+        /**
+         * Returns the type name of the summary of fields of the given type, or {@code null} if fields of this type are not
+         * summarized.
+         */
+        @Nullable
+        private static String supportedTypeName(@Nullable MappedFieldType fieldType) {
+            if (fieldType == null || fieldType.isSearchable() == false) {
+                return null;
+            }
+            if (fieldType instanceof KeywordFieldMapper.KeywordFieldType) {
+                // terms are normalized at index time, so we can only compare the bounds of a query with the terms dictionary
+                // if the field has no normalizer
+                return fieldType.getTextSearchInfo().getSearchAnalyzer() == Lucene.KEYWORD_ANALYZER ? fieldType.typeName() : null;
+            }
+            if (fieldType instanceof DateFieldMapper.DateFieldType || fieldType.getClass() == NumberFieldMapper.NumberFieldType.class) {
+                return fieldType.typeName();
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.index.shard;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.AsyncIOProcessor;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.core.Tuple;
+import org.elasticsearch.index.translog.Translog;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Groups the translog syncs of all shards that share a data path. Instead of every shard fsyncing its own translog as soon as a
+ * request asks for it, pending locations are queued per data path and the first caller that finds no sync in progress on that path
+ * syncs the pending locations of all shards on it in one round, completing all waiting listeners at once. Other callers enqueue their
+ * location and continue, so at most one write thread per data path blocks on fsync. Listeners are only notified once their location
+ * is durable, which keeps the guarantees of {@link Translog.Durability#REQUEST}.
+ */
+public class TranslogSyncCoordinator {
+
+    private static final Logger logger = LogManager.getLogger(TranslogSyncCoordinator.class);
+
+    /**
+     * Whether translog syncs of shards on the same data path are grouped. This mostly helps on storage where concurrent small fsyncs
+     * are expensive, such as spinning disks or network-attached block devices.
+     */
+    public static final Setting<Boolean> GROUP_SYNC_ENABLED_SETTING =
+        Setting.boolSetting("indices.translog.group_sync.enabled", false, Setting.Property.NodeScope);
+
+    private static final int QUEUE_SIZE = 4096;
+
+    private final boolean enabled;
+    private final ThreadContext threadContext;
+    private final Map<Path, AsyncIOProcessor<PendingSync>> processors = ConcurrentCollections.newConcurrentMap();
+
+    public TranslogSyncCoordinator(Settings settings, ThreadContext threadContext) {
+        this.enabled = GROUP_SYNC_ENABLED_SETTING.get(settings);
+        this.threadContext = threadContext;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Syncs the given location of the given shard together with the pending locations of all other shards on the same data path.
+     * The listener is notified with {@code null} once the location is synced, or with the exception that failed the sync of this shard.
+     */
+    void sync(IndexShard shard, Translog.Location location, Consumer<Exception> listener) {
+        assert enabled : "translog group sync is disabled";
+        final PendingSync pendingSync = new PendingSync(shard, location);
+        processors.computeIfAbsent(shard.shardPath().getRootDataPath(), path -> new DataPathSyncProcessor(threadContext))
+            .put(pendingSync, e -> listener.accept(e != null ? e : pendingSync.failure));
+    }
+
+    private static final class PendingSync {
+        private final IndexShard shard;
+        private final Translog.Location location;
+        // written by the thread that processes the batch, read after the batch was processed by the same thread
+        private Exception failure;
+
+        PendingSync(IndexShard shard, Translog.Location location) {
+            this.shard = shard;
+            this.location = location;
+        }
+    }
+
+    private static final class DataPathSyncProcessor extends AsyncIOProcessor<PendingSync> {
+
+        DataPathSyncProcessor(ThreadContext threadContext) {
+            super(logger, QUEUE_SIZE, threadContext);
+        }
+
+        @Override
+        protected void write(List<Tuple<PendingSync, Consumer<Exception>>> candidates) throws IOException {
+            final Map<IndexShard, List<PendingSync>> byShard = new IdentityHashMap<>();
+            for (Tuple<PendingSync, Consumer<Exception>> candidate : candidates) {
+                byShard.computeIfAbsent(candidate.v1().shard, shard -> new ArrayList<>()).add(candidate.v1());
+            }
+            for (Map.Entry<IndexShard, List<PendingSync>> entry : byShard.entrySet()) {
+                final List<PendingSync> pendingSyncs = entry.getValue();
+                try {
+                    entry.getKey().ensureTranslogSynced(pendingSyncs.stream().map(pendingSync -> pendingSync.location));
+                } catch (Exception e) {
+                    // a failing shard must not fail the syncs of the other shards on this data path
+                    logger.debug(() -> new ParameterizedMessage("{} failed to sync translog", entry.getKey().shardId()), e);
+                    for (PendingSync pendingSync : pendingSyncs) {
+                        pendingSync.failure = e;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.shard;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.xcontent.ToXContentFragment;
+import org.elasticsearch.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * The time a shard spent executing write operations, in total and broken down by the phases of indexing a document. Analysis is
+ * done by Lucene while it adds a document, so it is accounted for in the index writer time.
+ */
+public class WriteLoadStats implements Writeable, ToXContentFragment {
+
+    private long operations;
+    private long totalTimeInMillis;
+    private long parseTimeInMillis;
+    private long versionMapTimeInMillis;
+    private long indexWriterTimeInMillis;
+    private long translogTimeInMillis;
+
+    public WriteLoadStats() {
+    }
+
+    public WriteLoadStats(StreamInput in) throws IOException {
+        operations = in.readVLong();
+        totalTimeInMillis = in.readVLong();
+        parseTimeInMillis = in.readVLong();
+        versionMapTimeInMillis = in.readVLong();
+        indexWriterTimeInMillis = in.readVLong();
+        translogTimeInMillis = in.readVLong();
+    }
+
+    public WriteLoadStats(long operations, long totalTimeInMillis, long parseTimeInMillis, long versionMapTimeInMillis,
+                          long indexWriterTimeInMillis, long translogTimeInMillis) {
+        this.operations = operations;
+        this.totalTimeInMillis = totalTimeInMillis;
+        this.parseTimeInMillis = parseTimeInMillis;
+        this.versionMapTimeInMillis = versionMapTimeInMillis;
+        this.indexWriterTimeInMillis = indexWriterTimeInMillis;
+        this.translogTimeInMillis = translogTimeInMillis;
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(operations);
+        out.writeVLong(totalTimeInMillis);
+        out.writeVLong(parseTimeInMillis);
+        out.writeVLong(versionMapTimeInMillis);
+        out.writeVLong(indexWriterTimeInMillis);
+        out.writeVLong(translogTimeInMillis);
+    }
+
+    public void add(WriteLoadStats writeLoadStats) {
+        addTotals(writeLoadStats);
+    }
+
+    public void addTotals(WriteLoadStats writeLoadStats) {
+        if (writeLoadStats == null) {
+            return;
+        }
+        this.operations += writeLoadStats.operations;
+        this.totalTimeInMillis += writeLoadStats.totalTimeInMillis;
+        this.parseTimeInMillis += writeLoadStats.parseTimeInMillis;
+        this.versionMapTimeInMillis += writeLoadStats.versionMapTimeInMillis;
+        this.indexWriterTimeInMillis += writeLoadStats.indexWriterTimeInMillis;
+        this.translogTimeInMillis += writeLoadStats.translogTimeInMillis;
+    }
+
+    /**
+     * The number of index and delete operations executed.
+     */
+    public long getOperations() {
+        return operations;
+    }
+
+    /**
+     * The total time the write threads spent executing shard level bulk requests, including the time of all phases below.
+     */
+    public TimeValue getTotalTime() {
+        return new TimeValue(totalTimeInMillis);
+    }
+
+    public long getTotalTimeInMillis() {
+        return totalTimeInMillis;
+    }
+
+    /**
+     * The time spent parsing document sources, including parsing done ahead of execution on other threads.
+     */
+    public TimeValue getParseTime() {
+        return new TimeValue(parseTimeInMillis);
+    }
+
+    public long getParseTimeInMillis() {
+        return parseTimeInMillis;
+    }
+
+    /**
+     * The time spent resolving the current version of documents, in the live version map or in the index.
+     */
+    public TimeValue getVersionMapTime() {
+        return new TimeValue(versionMapTimeInMillis);
+    }
+
+    public long getVersionMapTimeInMillis() {
+        return versionMapTimeInMillis;
+    }
+
+    /**
+     * The time spent in the index writer, which includes analyzing the documents.
+     */
+    public TimeValue getIndexWriterTime() {
+        return new TimeValue(indexWriterTimeInMillis);
+    }
+
+    public long getIndexWriterTimeInMillis() {
+        return indexWriterTimeInMillis;
+    }
+
+    /**
+     * The time spent adding operations to the translog.
+     */
+    public TimeValue getTranslogTime() {
+        return new TimeValue(translogTimeInMillis);
+    }
+
+    public long getTranslogTimeInMillis() {
+        return translogTimeInMillis;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(Fields.WRITE_LOAD);
+        builder.field(Fields.OPERATIONS, operations);
+        builder.humanReadableField(Fields.TOTAL_TIME_IN_MILLIS, Fields.TOTAL_TIME, getTotalTime());
+        builder.humanReadableField(Fields.PARSE_TIME_IN_MILLIS, Fields.PARSE_TIME, getParseTime());
+        builder.humanReadableField(Fields.VERSION_MAP_TIME_IN_MILLIS, Fields.VERSION_MAP_TIME, getVersionMapTime());
+        builder.humanReadableField(Fields.INDEX_WRITER_TIME_IN_MILLIS, Fields.INDEX_WRITER_TIME, getIndexWriterTime());
+        builder.humanReadableField(Fields.TRANSLOG_TIME_IN_MILLIS, Fields.TRANSLOG_TIME, getTranslogTime());
+        builder.endObject();
+        return builder;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final WriteLoadStats that = (WriteLoadStats) o;
+        return operations == that.operations
+            && totalTimeInMillis == that.totalTimeInMillis
+            && parseTimeInMillis == that.parseTimeInMillis
+            && versionMapTimeInMillis == that.versionMapTimeInMillis
+            && indexWriterTimeInMillis == that.indexWriterTimeInMillis
+            && translogTimeInMillis == that.translogTimeInMillis;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(operations, totalTimeInMillis, parseTimeInMillis, versionMapTimeInMillis, indexWriterTimeInMillis,
+            translogTimeInMillis);
+    }
+
+    static final class Fields {
+        static final String WRITE_LOAD = "write_load";
+        static final String OPERATIONS = "operations";
+        static final String TOTAL_TIME = "total_time";
+        static final String TOTAL_TIME_IN_MILLIS = "total_time_in_millis";
+        static final String PARSE_TIME = "parse_time";
+        static final String PARSE_TIME_IN_MILLIS = "parse_time_in_millis";
+        static final String VERSION_MAP_TIME = "version_map_time";
+        static final String VERSION_MAP_TIME_IN_MILLIS = "version_map_time_in_millis";
+        static final String INDEX_WRITER_TIME = "index_writer_time";
+        static final String INDEX_WRITER_TIME_IN_MILLIS = "index_writer_time_in_millis";
+        static final String TRANSLOG_TIME = "translog_time";
+        static final String TRANSLOG_TIME_IN_MILLIS = "translog_time_in_millis";
+    }
+}
@@ -42,6 +42,7 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
@@ -103,6 +104,11 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
     public static final String TRANSLOG_FILE_SUFFIX = ".tlog";
     public static final String CHECKPOINT_SUFFIX = ".ckp";
     public static final String CHECKPOINT_FILE_NAME = "translog" + CHECKPOINT_SUFFIX;
+    /**
+     * The name of the file of a trimmed generation that is kept to be reused for the next generation, see
+     * {@link IndexSettings#INDEX_TRANSLOG_RECYCLE_GENERATION_FILES_SETTING}.
+     */
+    static final String RECYCLED_FILE_NAME = TRANSLOG_FILE_PREFIX + "recycled" + TRANSLOG_FILE_SUFFIX;
 
     static final Pattern PARSE_STRICT_ID_PATTERN = Pattern.compile("^" + TRANSLOG_FILE_PREFIX + "(\\d+)(\\.tlog)$");
     public static final int DEFAULT_HEADER_SIZE_IN_BYTES = TranslogHeader.headerSizeInBytes(UUIDs.randomBase64UUID());
@@ -173,7 +179,8 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
             //
             // For this to happen we must have already copied the translog.ckp file into translog-gen.ckp so we first check if that
             // file exists. If not we don't even try to clean it up and wait until we fail creating it
-            assert Files.exists(nextTranslogFile) == false ||
+            // a recycled file keeps its size so we can't tell whether it was written to beyond the header
+            assert Files.exists(nextTranslogFile) == false || config.getIndexSettings().isTranslogRecycleGenerationFiles() ||
                     Files.size(nextTranslogFile) <= TranslogHeader.headerSizeInBytes(translogUUID) :
                         "unexpected translog file: [" + nextTranslogFile + "]";
             if (Files.exists(currentCheckpointFile) // current checkpoint is already copied
@@ -491,12 +498,13 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
                                 LongConsumer persistedSequenceNumberConsumer) throws IOException {
         final TranslogWriter newWriter;
         try {
+            final Path file = location.resolve(getFilename(fileGeneration));
             newWriter = TranslogWriter.create(
                 shardId,
                 translogUUID,
                 fileGeneration,
-                location.resolve(getFilename(fileGeneration)),
-                getChannelFactory(),
+                file,
+                reuseRecycledFile(file) ? reusingChannelFactory(getChannelFactory()) : getChannelFactory(),
                 config.getBufferSize(),
                 initialMinTranslogGen, initialGlobalCheckpoint,
                 globalCheckpointSupplier, this::getMinFileGeneration, primaryTermSupplier.getAsLong(), tragedy,
@@ -508,6 +516,42 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
         return newWriter;
     }
 
+    /**
+     * Moves the recycled file of a trimmed generation to the given path if there is one and recycling is enabled. Such a file already
+     * has its blocks allocated, so writing the new generation over it doesn't grow the file and syncs don't have to update the file's
+     * size and block map in addition to its data. The reader of a generation never reads beyond the offset of its checkpoint, so the
+     * stale operations after the written part of the file are never read.
+     *
+     * @return {@code true} if the recycled file was moved to the given path
+     */
+    private boolean reuseRecycledFile(Path file) throws IOException {
+        final Path recycledFile = location.resolve(RECYCLED_FILE_NAME);
+        if (config.getIndexSettings().isTranslogRecycleGenerationFiles() == false) {
+            Files.deleteIfExists(recycledFile);
+            return false;
+        }
+        if (Files.exists(recycledFile) == false) {
+            return false;
+        }
+        Files.move(recycledFile, file, StandardCopyOption.ATOMIC_MOVE);
+        return true;
+    }
+
+    private static ChannelFactory reusingChannelFactory(ChannelFactory channelFactory) {
+        return new ChannelFactory() {
+            @Override
+            public FileChannel open(Path path) throws IOException {
+                // the file exists already, its content is overwritten from the start
+                return channelFactory.open(path, StandardOpenOption.WRITE, StandardOpenOption.READ);
+            }
+
+            @Override
+            public FileChannel open(Path path, OpenOption... options) throws IOException {
+                return channelFactory.open(path, options);
+            }
+        };
+    }
+
     /**
      * Adds an operation to the transaction log.
      *
@@ -518,24 +562,11 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
     public Location add(final Operation operation) throws IOException {
         final ReleasableBytesStreamOutput out = new ReleasableBytesStreamOutput(bigArrays);
         try {
-            final long start = out.position();
-            out.skip(Integer.BYTES);
-            writeOperationNoSize(new BufferedChecksumStreamOutput(out), operation);
-            final long end = out.position();
-            final int operationSize = (int) (end - Integer.BYTES - start);
-            out.seek(start);
-            out.writeInt(operationSize);
-            out.seek(end);
+            writeOperationWithSize(out, operation);
             final BytesReference bytes = out.bytes();
             try (ReleasableLock ignored = readLock.acquire()) {
                 ensureOpen();
-                if (operation.primaryTerm() > current.getPrimaryTerm()) {
-                    assert false :
-                        "Operation term is newer than the current term; "
-                            + "current term[" + current.getPrimaryTerm() + "], operation term[" + operation + "]";
-                    throw new IllegalArgumentException("Operation term is newer than the current term; "
-                        + "current term[" + current.getPrimaryTerm() + "], operation term[" + operation + "]");
-                }
+                ensureTermIsNotNewer(operation);
                 return current.add(bytes, operation.seqNo());
             }
         } catch (final AlreadyClosedException | IOException ex) {
@@ -549,6 +580,67 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
         }
     }
 
+    /**
+     * Adds several operations to the transaction log. The operations are serialized into a single buffer and added while holding the
+     * read lock once, which is cheaper than adding them one by one.
+     *
+     * @param operations the operations to add
+     * @return the locations of the operations in the translog, in the same order as the operations
+     * @throws IOException if adding the operations to the translog resulted in an I/O exception
+     */
+    public List<Location> add(final List<? extends Operation> operations) throws IOException {
+        final ReleasableBytesStreamOutput out = new ReleasableBytesStreamOutput(bigArrays);
+        try {
+            final long[] ends = new long[operations.size()];
+            for (int i = 0; i < ends.length; i++) {
+                writeOperationWithSize(out, operations.get(i));
+                ends[i] = out.position();
+            }
+            final BytesReference bytes = out.bytes();
+            final List<Location> locations = new ArrayList<>(operations.size());
+            try (ReleasableLock ignored = readLock.acquire()) {
+                ensureOpen();
+                long start = 0;
+                for (int i = 0; i < ends.length; i++) {
+                    final Operation operation = operations.get(i);
+                    ensureTermIsNotNewer(operation);
+                    locations.add(current.add(bytes.slice(Math.toIntExact(start), Math.toIntExact(ends[i] - start)), operation.seqNo()));
+                    start = ends[i];
+                }
+            }
+            return locations;
+        } catch (final AlreadyClosedException | IOException ex) {
+            closeOnTragicEvent(ex);
+            throw ex;
+        } catch (final Exception ex) {
+            closeOnTragicEvent(ex);
+            throw new TranslogException(shardId, "Failed to write [" + operations.size() + "] operations", ex);
+        } finally {
+            Releasables.close(out);
+        }
+    }
+
+    private static void writeOperationWithSize(ReleasableBytesStreamOutput out, Operation operation) throws IOException {
+        final long start = out.position();
+        out.skip(Integer.BYTES);
+        writeOperationNoSize(new BufferedChecksumStreamOutput(out), operation);
+        final long end = out.position();
+        final int operationSize = (int) (end - Integer.BYTES - start);
+        out.seek(start);
+        out.writeInt(operationSize);
+        out.seek(end);
+    }
+
+    private void ensureTermIsNotNewer(Operation operation) {
+        if (operation.primaryTerm() > current.getPrimaryTerm()) {
+            assert false :
+                "Operation term is newer than the current term; "
+                    + "current term[" + current.getPrimaryTerm() + "], operation term[" + operation + "]";
+            throw new IllegalArgumentException("Operation term is newer than the current term; "
+                + "current term[" + current.getPrimaryTerm() + "], operation term[" + operation + "]");
+        }
+    }
+
     /**
      * Tests whether or not the translog generation should be rolled to a new generation. This test
      * is based on the size of the current generation compared to the configured generation
@@ -1698,6 +1790,15 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
      * deletes all files associated with a reader. package-private to be able to simulate node failures at this point
      */
     void deleteReaderFiles(TranslogReader reader) {
+        final Path recycledFile = location.resolve(RECYCLED_FILE_NAME);
+        if (config.getIndexSettings().isTranslogRecycleGenerationFiles() && Files.exists(recycledFile) == false) {
+            try {
+                // the checkpoint no longer references this generation so its file can be reused for the next one
+                Files.move(reader.path(), recycledFile, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                logger.debug(() -> new ParameterizedMessage("failed to recycle translog file [{}]", reader.path()), e);
+            }
+        }
         IOUtils.deleteFilesIgnoringExceptions(reader.path(),
             reader.path().resolveSibling(getCommitCheckpointFileName(reader.getGeneration())));
     }
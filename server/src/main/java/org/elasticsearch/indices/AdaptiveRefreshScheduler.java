@@ -0,0 +1,155 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.IndexingPressure;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.IndexShardState;
+import org.elasticsearch.threadpool.Scheduler.Cancellable;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.threadpool.ThreadPool.Names;
+
+import java.io.Closeable;
+
+/**
+ * Stretches the refresh cadence of shards while the node is under indexing load. Every shard is still refreshed on its
+ * {@code index.refresh_interval} schedule, but a scheduled refresh is skipped until the adaptive interval computed here has elapsed
+ * since the last one. The adaptive interval moves between the shard's refresh interval and
+ * {@link IndexSettings#INDEX_REFRESH_ADAPTIVE_MAX_INTERVAL_SETTING} with the highest of the node's indexing pressure and the shard's
+ * merge backlog. Shards that were searched recently are stretched half as much, since their searches want to see recent changes.
+ * <p>
+ * Fewer refreshes under heavy ingest mean fewer tiny segments, which in turn means less merging. Refreshes that are waited on by refresh
+ * listeners, e.g. requests with {@code refresh=wait_for}, are never delayed.
+ */
+public class AdaptiveRefreshScheduler implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger(AdaptiveRefreshScheduler.class);
+
+    /** Whether the refresh cadence of shards adapts to the indexing load of the node (default: false). */
+    public static final Setting<Boolean> ENABLED_SETTING =
+        Setting.boolSetting("indices.refresh.adaptive.enabled", false, Property.NodeScope, Property.Dynamic);
+
+    /** How frequently the adaptive refresh intervals of the shards are recomputed (default: 1 second). */
+    public static final Setting<TimeValue> INTERVAL_SETTING =
+        Setting.positiveTimeSetting("indices.refresh.adaptive.interval", TimeValue.timeValueSeconds(1), Property.NodeScope);
+
+    private final Iterable<IndexShard> indexShards;
+    private final IndexingPressure indexingPressure;
+    private final long indexingPressureLimit;
+    private final ThreadPool threadPool;
+    private final TimeValue interval;
+    private volatile boolean enabled;
+    // guarded by this, only scheduled while enabled
+    private Cancellable scheduler;
+    private boolean closed;
+
+    public AdaptiveRefreshScheduler(Settings settings, ClusterSettings clusterSettings, ThreadPool threadPool,
+                                    IndexingPressure indexingPressure, Iterable<IndexShard> indexShards) {
+        this.indexShards = indexShards;
+        this.indexingPressure = indexingPressure;
+        this.indexingPressureLimit = IndexingPressure.MAX_INDEXING_BYTES.get(settings).getBytes();
+        this.threadPool = threadPool;
+        this.interval = INTERVAL_SETTING.get(settings);
+        setEnabled(ENABLED_SETTING.get(settings));
+        clusterSettings.addSettingsUpdateConsumer(ENABLED_SETTING, this::setEnabled);
+    }
+
+    private synchronized void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (closed) {
+            return;
+        }
+        if (enabled && scheduler == null) {
+            // it's fine to run it on the scheduler thread, no busy work
+            scheduler = threadPool.scheduleWithFixedDelay(this::updateRefreshIntervals, interval, Names.SAME);
+        } else if (enabled == false && scheduler != null) {
+            scheduler.cancel();
+            scheduler = null;
+            // stop delaying the refreshes of the shards that were stretched while enabled
+            updateRefreshIntervals();
+        }
+    }
+
+    /**
+     * Returns {@code true} if the adaptive refresh intervals are periodically recomputed.
+     */
+    synchronized boolean isScheduled() {
+        return scheduler != null;
+    }
+
+    synchronized void updateRefreshIntervals() {
+        final boolean enabled = this.enabled;
+        final double indexingLoad = enabled ? indexingPressureLoad() : 0;
+        for (IndexShard shard : indexShards) {
+            try {
+                shard.setAdaptiveRefreshInterval(enabled ? computeRefreshInterval(shard, indexingLoad) : null);
+            } catch (Exception e) {
+                logger.debug(() -> "failed to update the adaptive refresh interval of " + shard.shardId(), e);
+            }
+        }
+    }
+
+    /**
+     * Returns the fraction of the node's indexing pressure limit that is currently used by coordinating and primary operations.
+     */
+    double indexingPressureLoad() {
+        if (indexingPressureLimit <= 0) {
+            return 0;
+        }
+        final long current = indexingPressure.stats().getCurrentCombinedCoordinatingAndPrimaryBytes();
+        return Math.min(1.0, (double) current / indexingPressureLimit);
+    }
+
+    /**
+     * Returns the interval the given shard should wait between scheduled refreshes, or {@code null} if its refreshes should not be
+     * delayed.
+     */
+    @Nullable
+    static TimeValue computeRefreshInterval(IndexShard shard, double indexingLoad) {
+        if (shard.state() != IndexShardState.STARTED) {
+            return null;
+        }
+        final IndexSettings indexSettings = shard.indexSettings();
+        final long minMillis = indexSettings.getRefreshInterval().millis();
+        final long maxMillis = indexSettings.getAdaptiveRefreshMaxInterval().millis();
+        if (minMillis <= 0 || maxMillis <= minMillis) {
+            return null;
+        }
+        final int maxMergeCount = indexSettings.getMergeSchedulerConfig().getMaxMergeCount();
+        final double mergeLoad = Math.min(1.0, (double) shard.mergeStats().getCurrent() / maxMergeCount);
+        return computeRefreshInterval(minMillis, maxMillis, indexingLoad, mergeLoad, shard.isSearchIdle() == false);
+    }
+
+    static TimeValue computeRefreshInterval(long minMillis, long maxMillis, double indexingLoad, double mergeLoad, boolean searched) {
+        assert minMillis > 0 && maxMillis > minMillis : minMillis + " / " + maxMillis;
+        double load = Math.max(indexingLoad, mergeLoad);
+        if (searched) {
+            load /= 2;
+        }
+        return TimeValue.timeValueMillis(minMillis + Math.round((maxMillis - minMillis) * load));
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (scheduler != null) {
+            scheduler.cancel();
+            scheduler = null;
+        }
+    }
+}
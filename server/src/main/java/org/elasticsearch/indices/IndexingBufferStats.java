@@ -0,0 +1,139 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.xcontent.ToXContentFragment;
+import org.elasticsearch.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * The decisions the {@link IndexingMemoryController} of a node took to keep the indexing buffers of its shards within budget.
+ */
+public class IndexingBufferStats implements Writeable, ToXContentFragment {
+
+    private final long bufferSizeInBytes;
+    private final long writes;
+    private final long deferredWrites;
+    private final long throttleActivations;
+    private final int throttledShards;
+
+    public IndexingBufferStats(long bufferSizeInBytes, long writes, long deferredWrites, long throttleActivations, int throttledShards) {
+        this.bufferSizeInBytes = bufferSizeInBytes;
+        this.writes = writes;
+        this.deferredWrites = deferredWrites;
+        this.throttleActivations = throttleActivations;
+        this.throttledShards = throttledShards;
+    }
+
+    public IndexingBufferStats(StreamInput in) throws IOException {
+        bufferSizeInBytes = in.readVLong();
+        writes = in.readVLong();
+        deferredWrites = in.readVLong();
+        throttleActivations = in.readVLong();
+        throttledShards = in.readVInt();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(bufferSizeInBytes);
+        out.writeVLong(writes);
+        out.writeVLong(deferredWrites);
+        out.writeVLong(throttleActivations);
+        out.writeVInt(throttledShards);
+    }
+
+    /**
+     * The budget shared by the indexing buffers of all shards on the node, see
+     * {@link IndexingMemoryController#INDEX_BUFFER_SIZE_SETTING}.
+     */
+    public ByteSizeValue getBufferSize() {
+        return new ByteSizeValue(bufferSizeInBytes);
+    }
+
+    public long getBufferSizeInBytes() {
+        return bufferSizeInBytes;
+    }
+
+    /**
+     * The number of times a shard was asked to write its indexing buffer to disk to free up heap.
+     */
+    public long getWrites() {
+        return writes;
+    }
+
+    /**
+     * The number of times a shard over its share of the budget had to wait because another shard was still writing its buffer.
+     */
+    public long getDeferredWrites() {
+        return deferredWrites;
+    }
+
+    /**
+     * The number of times indexing into a shard was throttled because segment writing could not keep up.
+     */
+    public long getThrottleActivations() {
+        return throttleActivations;
+    }
+
+    /**
+     * The number of shards whose indexing is currently throttled.
+     */
+    public int getThrottledShards() {
+        return throttledShards;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(Fields.INDEXING_BUFFER);
+        builder.humanReadableField(Fields.BUFFER_SIZE_IN_BYTES, Fields.BUFFER_SIZE, getBufferSize());
+        builder.field(Fields.WRITES, writes);
+        builder.field(Fields.DEFERRED_WRITES, deferredWrites);
+        builder.field(Fields.THROTTLE_ACTIVATIONS, throttleActivations);
+        builder.field(Fields.THROTTLED_SHARDS, throttledShards);
+        builder.endObject();
+        return builder;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final IndexingBufferStats that = (IndexingBufferStats) o;
+        return bufferSizeInBytes == that.bufferSizeInBytes
+            && writes == that.writes
+            && deferredWrites == that.deferredWrites
+            && throttleActivations == that.throttleActivations
+            && throttledShards == that.throttledShards;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(bufferSizeInBytes, writes, deferredWrites, throttleActivations, throttledShards);
+    }
+
+    static final class Fields {
+        static final String INDEXING_BUFFER = "indexing_buffer";
+        static final String BUFFER_SIZE = "buffer_size";
+        static final String BUFFER_SIZE_IN_BYTES = "buffer_size_in_bytes";
+        static final String WRITES = "writes";
+        static final String DEFERRED_WRITES = "deferred_writes";
+        static final String THROTTLE_ACTIVATIONS = "throttle_activations";
+        static final String THROTTLED_SHARDS = "throttled_shards";
+    }
+}
@@ -12,6 +12,8 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.message.ParameterizedMessage;
 import org.apache.lucene.store.AlreadyClosedException;
+import org.elasticsearch.common.ExponentiallyWeightedMovingAverage;
+import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
@@ -19,6 +21,7 @@ import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.IndexShardState;
@@ -32,9 +35,12 @@ import java.io.Closeable;
 import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -78,6 +84,14 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
         TimeValue.timeValueSeconds(5),
         Property.NodeScope);
 
+    /** Whether each shard gets a share of the indexing buffer weighted by its recent indexing rate, and shards that outgrow their
+     * share write their buffers to disk one at a time, well before the node runs out of budget (default: false). */
+    public static final Setting<Boolean> INCREMENTAL_SETTING =
+        Setting.boolSetting("indices.memory.incremental.enabled", false, Property.NodeScope);
+
+    /** Weight of the most recent check in the per-shard indexing rates that the buffer is shared by */
+    private static final double INDEXING_RATE_ALPHA = 0.3;
+
     private final ThreadPool threadPool;
 
     private final Iterable<IndexShard> indexShards;
@@ -90,6 +104,16 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
     /** Contains shards currently being throttled because we can't write segments quickly enough */
     private final Set<IndexShard> throttled = new HashSet<>();
 
+    private final boolean incremental;
+
+    /** Bytes indexed into each shard since the last check and the resulting indexing rate, only tracked in incremental mode */
+    private final Map<ShardId, ShardIndexingRate> indexingRates = ConcurrentCollections.newConcurrentMap();
+
+    private final CounterMetric bufferWrites = new CounterMetric();
+    private final CounterMetric deferredBufferWrites = new CounterMetric();
+    private final CounterMetric throttleActivations = new CounterMetric();
+    private volatile int throttledShards;
+
     private final Cancellable scheduler;
 
     private static final EnumSet<IndexShardState> CAN_WRITE_INDEX_BUFFER_STATES = EnumSet.of(
@@ -120,13 +144,15 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
         this.inactiveTime = SHARD_INACTIVE_TIME_SETTING.get(settings);
         // we need to have this relatively small to free up heap quickly enough
         this.interval = SHARD_MEMORY_INTERVAL_TIME_SETTING.get(settings);
+        this.incremental = INCREMENTAL_SETTING.get(settings);
 
         this.statusChecker = new ShardsIndicesStatusChecker();
 
-        logger.debug("using indexing buffer size [{}] with {} [{}], {} [{}]",
+        logger.debug("using indexing buffer size [{}] with {} [{}], {} [{}], {} [{}]",
                      this.indexingBuffer,
                      SHARD_INACTIVE_TIME_SETTING.getKey(), this.inactiveTime,
-                     SHARD_MEMORY_INTERVAL_TIME_SETTING.getKey(), this.interval);
+                     SHARD_MEMORY_INTERVAL_TIME_SETTING.getKey(), this.interval,
+                     INCREMENTAL_SETTING.getKey(), this.incremental);
         this.scheduler = scheduleTask(threadPool);
 
         // Need to save this so we can later launch async "write indexing buffer to disk" on shards:
@@ -151,6 +177,14 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
         return indexingBuffer;
     }
 
+    /**
+     * returns the writes and throttling decisions taken so far to keep the indexing buffers within budget
+     */
+    IndexingBufferStats stats() {
+        return new IndexingBufferStats(indexingBuffer.getBytes(), bufferWrites.count(), deferredBufferWrites.count(),
+            throttleActivations.count(), throttledShards);
+    }
+
     protected List<IndexShard> availableShards() {
         List<IndexShard> availableShards = new ArrayList<>();
         for (IndexShard shard : indexShards) {
@@ -203,21 +237,66 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
 
     @Override
     public void postIndex(ShardId shardId, Engine.Index index, Engine.IndexResult result) {
-        recordOperationBytes(index, result);
+        recordOperationBytes(shardId, index, result);
     }
 
     @Override
     public void postDelete(ShardId shardId, Engine.Delete delete, Engine.DeleteResult result) {
-        recordOperationBytes(delete, result);
+        recordOperationBytes(shardId, delete, result);
     }
 
     /** called by IndexShard to record estimated bytes written to translog for the operation */
-    private void recordOperationBytes(Engine.Operation operation, Engine.Result result) {
+    private void recordOperationBytes(ShardId shardId, Engine.Operation operation, Engine.Result result) {
         if (result.getResultType() == Engine.Result.Type.SUCCESS) {
+            if (incremental) {
+                recordShardBytes(shardId, operation.estimatedSizeInBytes());
+            }
             statusChecker.bytesWritten(operation.estimatedSizeInBytes());
         }
     }
 
+    /** records bytes indexed into this shard, which its share of the indexing buffer is derived from at the next check */
+    void recordShardBytes(ShardId shardId, long bytes) {
+        ShardIndexingRate rate = indexingRates.get(shardId);
+        if (rate == null) {
+            rate = indexingRates.computeIfAbsent(shardId, k -> new ShardIndexingRate());
+        }
+        rate.bytesSinceCheck.addAndGet(bytes);
+    }
+
+    private static final class ShardIndexingRate {
+        final AtomicLong bytesSinceCheck = new AtomicLong();
+        final ExponentiallyWeightedMovingAverage bytesPerSecond = new ExponentiallyWeightedMovingAverage(INDEXING_RATE_ALPHA, 0);
+
+        double update(double elapsedSeconds) {
+            bytesPerSecond.addValue(bytesSinceCheck.getAndSet(0) / elapsedSeconds);
+            return bytesPerSecond.getAverage();
+        }
+    }
+
+    private static final class ShardBudget implements Comparable<ShardBudget> {
+        final IndexShard shard;
+        final long bytesUsed;
+        final double indexingRate;
+        long share;
+
+        ShardBudget(IndexShard shard, long bytesUsed, double indexingRate) {
+            this.shard = shard;
+            this.bytesUsed = bytesUsed;
+            this.indexingRate = indexingRate;
+        }
+
+        boolean overShare() {
+            return bytesUsed > share;
+        }
+
+        @Override
+        public int compareTo(ShardBudget other) {
+            // Sort the shards that exceed their share the most first:
+            return Long.compare(other.bytesUsed - other.share, bytesUsed - share);
+        }
+    }
+
     private static final class ShardAndBytesUsed implements Comparable<ShardAndBytesUsed> {
         final long bytesUsed;
         final IndexShard shard;
@@ -240,6 +319,9 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
         final AtomicLong bytesWrittenSinceCheck = new AtomicLong();
         final ReentrantLock runLock = new ReentrantLock();
 
+        /** When the indexing rates were last updated, guarded by {@link #runLock} */
+        long lastCheckNanos = System.nanoTime();
+
         /** Shard calls this on each indexing/delete op */
         public void bytesWritten(int bytes) {
             long totalBytes = bytesWrittenSinceCheck.addAndGet(bytes);
@@ -286,6 +368,11 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
             // NOTE: even if we hit an errant exc here, our ThreadPool.scheduledWithFixedDelay will log the exception and re-invoke us
             // again, on schedule
 
+            if (incremental) {
+                runIncrementalUnlocked();
+                return;
+            }
+
             // First pass to sum up how much heap all shards' indexing buffers are using now, and how many bytes they are currently moving
             // to disk:
             long totalBytesUsed = 0;
@@ -364,23 +451,145 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
                     ShardAndBytesUsed largest = queue.poll();
                     logger.debug("write indexing buffer to disk for shard [{}] to free up its [{}] indexing buffer",
                         largest.shard.shardId(), new ByteSizeValue(largest.bytesUsed));
-                    writeIndexingBufferAsync(largest.shard);
+                    writeIndexingBuffer(largest.shard);
                     totalBytesUsed -= largest.bytesUsed;
-                    if (doThrottle && throttled.contains(largest.shard) == false) {
-                        logger.info("now throttling indexing for shard [{}]: segment writing can't keep up", largest.shard.shardId());
-                        throttled.add(largest.shard);
-                        activateThrottling(largest.shard);
+                    if (doThrottle) {
+                        throttle(largest.shard);
                     }
                 }
             }
 
             if (doThrottle == false) {
-                for(IndexShard shard : throttled) {
-                    logger.info("stop throttling indexing for shard [{}]", shard.shardId());
-                    deactivateThrottling(shard);
+                stopThrottling();
+            }
+        }
+
+        /**
+         * Like {@link #runUnlocked()}, but each shard owns a share of the budget that is proportional to its recent indexing rate.
+         * Shards that outgrow their share write their buffers to disk as soon as half of the budget is used, one shard at a time so
+         * that large shards don't all write their segments at once, and only these shards are throttled when writing can't keep up.
+         */
+        private void runIncrementalUnlocked() {
+            final long now = System.nanoTime();
+            final long elapsedNanos = Math.max(now - lastCheckNanos, TimeUnit.MILLISECONDS.toNanos(1));
+            final double elapsedSeconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+            lastCheckNanos = now;
+
+            final List<ShardBudget> budgets = new ArrayList<>();
+            final Set<ShardId> shardIds = new HashSet<>();
+            long totalBytesUsed = 0;
+            long totalBytesWriting = 0;
+            double totalIndexingRate = 0;
+            for (IndexShard shard : availableShards()) {
+                checkIdle(shard, inactiveTime.nanos());
+
+                shardIds.add(shard.shardId());
+                ShardIndexingRate rate = indexingRates.computeIfAbsent(shard.shardId(), k -> new ShardIndexingRate());
+                final double indexingRate = rate.update(elapsedSeconds);
+                totalIndexingRate += indexingRate;
+
+                long shardWritingBytes = getShardWritingBytes(shard);
+                long shardBytesUsed = getIndexBufferRAMBytesUsed(shard) - shardWritingBytes;
+                totalBytesWriting += shardWritingBytes;
+
+                // The refresh may have completed between pulling the two values, in which case the shard is using very little heap:
+                if (shardBytesUsed < 0) {
+                    continue;
+                }
+                totalBytesUsed += shardBytesUsed;
+                budgets.add(new ShardBudget(shard, shardBytesUsed, indexingRate));
+            }
+            // forget about the rates of shards that were closed or relocated
+            indexingRates.keySet().retainAll(shardIds);
+
+            final long budget = indexingBuffer.getBytes();
+            for (ShardBudget shardBudget : budgets) {
+                if (totalIndexingRate > 0) {
+                    shardBudget.share = (long) (budget * (shardBudget.indexingRate / totalIndexingRate));
+                } else {
+                    shardBudget.share = budget / budgets.size();
+                }
+            }
+
+            if (logger.isTraceEnabled()) {
+                logger.trace("total indexing heap bytes used [{}] vs {} [{}], currently writing bytes [{}]",
+                    new ByteSizeValue(totalBytesUsed), INDEX_BUFFER_SIZE_SETTING.getKey(), indexingBuffer,
+                    new ByteSizeValue(totalBytesWriting));
+            }
+
+            final boolean doThrottle = (totalBytesWriting + totalBytesUsed) > 1.5 * budget;
+
+            final PriorityQueue<ShardBudget> queue = new PriorityQueue<>(budgets);
+            if (totalBytesUsed > budget) {
+                // Over budget: heap has to be freed now, regardless of other shards already writing their buffers
+                while (totalBytesUsed > budget && queue.isEmpty() == false) {
+                    ShardBudget largest = queue.poll();
+                    if (largest.bytesUsed == 0) {
+                        break;
+                    }
+                    logger.debug("write indexing buffer to disk for shard [{}] to free up its [{}] indexing buffer, share [{}]",
+                        largest.shard.shardId(), new ByteSizeValue(largest.bytesUsed), new ByteSizeValue(largest.share));
+                    writeIndexingBuffer(largest.shard);
+                    totalBytesUsed -= largest.bytesUsed;
+                }
+            } else if (totalBytesUsed > budget / 2 && queue.isEmpty() == false && queue.peek().overShare()) {
+                // Write the buffer of the shard that exceeds its share the most, unless another write is still in progress
+                ShardBudget largest = queue.peek();
+                if (totalBytesWriting == 0) {
+                    logger.debug("write indexing buffer to disk for shard [{}] which uses [{}], more than its share [{}]",
+                        largest.shard.shardId(), new ByteSizeValue(largest.bytesUsed), new ByteSizeValue(largest.share));
+                    writeIndexingBuffer(largest.shard);
+                } else {
+                    logger.trace("defer writing indexing buffer of shard [{}], currently writing bytes [{}]",
+                        largest.shard.shardId(), new ByteSizeValue(totalBytesWriting));
+                    deferredBufferWrites.inc();
+                }
+            }
+
+            if (doThrottle) {
+                final Set<IndexShard> overShare = new HashSet<>();
+                for (ShardBudget shardBudget : budgets) {
+                    if (shardBudget.overShare()) {
+                        overShare.add(shardBudget.shard);
+                        throttle(shardBudget.shard);
+                    }
                 }
-                throttled.clear();
+                // stop throttling shards that are back within their share, but also shards that were removed or skipped by this check
+                for (Iterator<IndexShard> iterator = throttled.iterator(); iterator.hasNext(); ) {
+                    final IndexShard shard = iterator.next();
+                    if (overShare.contains(shard) == false) {
+                        logger.info("stop throttling indexing for shard [{}]", shard.shardId());
+                        deactivateThrottling(shard);
+                        iterator.remove();
+                    }
+                }
+                throttledShards = throttled.size();
+            } else {
+                stopThrottling();
+            }
+        }
+
+        private void writeIndexingBuffer(IndexShard shard) {
+            bufferWrites.inc();
+            writeIndexingBufferAsync(shard);
+        }
+
+        private void throttle(IndexShard shard) {
+            if (throttled.add(shard)) {
+                logger.info("now throttling indexing for shard [{}]: segment writing can't keep up", shard.shardId());
+                throttleActivations.inc();
+                throttledShards = throttled.size();
+                activateThrottling(shard);
+            }
+        }
+
+        private void stopThrottling() {
+            for (IndexShard shard : throttled) {
+                logger.info("stop throttling indexing for shard [{}]", shard.shardId());
+                deactivateThrottling(shard);
             }
+            throttled.clear();
+            throttledShards = 0;
         }
     }
 
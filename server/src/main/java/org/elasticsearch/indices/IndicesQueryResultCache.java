@@ -0,0 +1,260 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.lucene.search.Query;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.cache.RemovalListener;
+import org.elasticsearch.common.cache.RemovalNotification;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.mapper.MappingLookup;
+
+import java.io.Closeable;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A shard level cache of query phase results that complements the {@link IndicesRequestCache}. Instead of the bytes of the
+ * shard request, entries are keyed on the rewritten Lucene query and on the parts of the request that shape the result (the
+ * aggregation tree, sorts, pagination...), so requests that only differ by the order of their parameters or by a {@code now}
+ * that resolves to the same query share entries. It also caches the top hits of requests with a non-zero size, together with
+ * their sort values. Like the request cache it is coherent with NRT semantics since the reader is part of the key.
+ * <p>
+ * Entries are stored in a {@link Cache} that evicts the least recently used entries, like the request cache. Admission is
+ * cost aware: once the cache is full a result is only admitted if the query phase time it saves per byte is at least the
+ * average of the cached results, so cheap results don't push out results that are expensive to compute.
+ */
+public final class IndicesQueryResultCache implements RemovalListener<IndicesQueryResultCache.Key, IndicesQueryResultCache.Value>,
+    Closeable {
+
+    /**
+     * A setting to enable or disable the query result cache on an index level. Dynamic since we check the index settings
+     * on every request.
+     */
+    public static final Setting<Boolean> INDEX_QUERY_RESULT_CACHE_ENABLED_SETTING =
+        Setting.boolSetting("index.queries.result_cache.enable", false, Property.Dynamic, Property.IndexScope);
+    public static final Setting<ByteSizeValue> INDICES_QUERY_RESULT_CACHE_SIZE =
+        Setting.memorySizeSetting("indices.queries.result_cache.size", "1%", Property.NodeScope);
+
+    private final long maxWeight;
+    private final Cache<Key, Value> cache;
+    private final Set<Object> registeredReaders = ConcurrentCollections.newConcurrentSet();
+    private final Set<Object> closedReaders = ConcurrentCollections.newConcurrentSet();
+    // the sums over the cached entries, used to compute the average compute time saved per byte
+    private final LongAdder cachedComputeNanos = new LongAdder();
+    private final LongAdder cachedWeight = new LongAdder();
+    private final CounterMetric rejectedCount = new CounterMetric();
+
+    IndicesQueryResultCache(Settings settings) {
+        this.maxWeight = INDICES_QUERY_RESULT_CACHE_SIZE.get(settings).getBytes();
+        this.cache = CacheBuilder.<Key, Value>builder()
+            .setMaximumWeight(maxWeight)
+            .weigher((k, v) -> v.weight)
+            .removalListener(this)
+            .build();
+    }
+
+    /**
+     * Returns the cached result for the given key or {@code null} if there is none.
+     */
+    BytesReference get(Key key) {
+        Value value = cache.get(key);
+        return value == null ? null : value.bytes;
+    }
+
+    /**
+     * Caches a result unless it is larger than the cache or, when the cache is full, if it saves less compute time per byte
+     * than the average cached result.
+     * @param computeNanos the time it took to compute the result, which is the time saved by each hit
+     * @param cacheHelper the helper of the reader the result was computed on, entries are removed when the reader is closed
+     */
+    void put(Key key, BytesReference bytes, long computeNanos, ESCacheHelper cacheHelper) {
+        assert cacheHelper.getKey() == key.readerCacheKey;
+        final Value value = new Value(bytes, key.ramBytesUsed() + bytes.ramBytesUsed(), Math.max(1, computeNanos));
+        if (value.weight > maxWeight) {
+            return;
+        }
+        if (cache.weight() + value.weight > maxWeight) {
+            // compare computeNanos / weight with the average without dividing
+            final long totalWeight = cachedWeight.sum();
+            if (totalWeight > 0 && (double) value.computeNanos * totalWeight < (double) cachedComputeNanos.sum() * value.weight) {
+                rejectedCount.inc();
+                return;
+            }
+        }
+        if (registeredReaders.add(key.readerCacheKey)) {
+            cacheHelper.addClosedListener(readerKey -> {
+                registeredReaders.remove(readerKey);
+                closedReaders.add(readerKey);
+            });
+        }
+        cachedComputeNanos.add(value.computeNanos);
+        cachedWeight.add(value.weight);
+        cache.put(key, value);
+    }
+
+    @Override
+    public void onRemoval(RemovalNotification<Key, Value> notification) {
+        cachedComputeNanos.add(-notification.getValue().computeNanos);
+        cachedWeight.add(-notification.getValue().weight);
+    }
+
+    /**
+     * Removes all entries of the given shard.
+     */
+    void clear(Object shardIdentity) {
+        for (Iterator<Key> iterator = cache.keys().iterator(); iterator.hasNext(); ) {
+            if (iterator.next().shardIdentity == shardIdentity) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes the entries of readers that were closed since the last call.
+     */
+    void cleanCache() {
+        if (closedReaders.isEmpty() == false) {
+            final Set<Object> toClean = new HashSet<>();
+            for (Iterator<Object> iterator = closedReaders.iterator(); iterator.hasNext(); ) {
+                toClean.add(iterator.next());
+                iterator.remove();
+            }
+            for (Iterator<Key> iterator = cache.keys().iterator(); iterator.hasNext(); ) {
+                if (toClean.contains(iterator.next().readerCacheKey)) {
+                    iterator.remove();
+                }
+            }
+        }
+        cache.refresh();
+    }
+
+    @Override
+    public void close() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Returns the current number of entries in the cache
+     */
+    int count() {
+        return cache.count();
+    }
+
+    long weight() {
+        return cache.weight();
+    }
+
+    long hitCount() {
+        return cache.stats().getHits();
+    }
+
+    long missCount() {
+        return cache.stats().getMisses();
+    }
+
+    long evictionCount() {
+        return cache.stats().getEvictions();
+    }
+
+    /**
+     * The number of results that were not admitted because they save less compute time per byte than the cached results.
+     */
+    long rejectedCount() {
+        return rejectedCount.count();
+    }
+
+    static final class Value {
+        private final BytesReference bytes;
+        private final long weight;
+        private final long computeNanos;
+
+        Value(BytesReference bytes, long weight, long computeNanos) {
+            this.bytes = bytes;
+            this.weight = weight;
+            this.computeNanos = computeNanos;
+        }
+    }
+
+    static final class Key {
+        private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(Key.class);
+
+        final Object shardIdentity; // use as identity equality
+        final MappingLookup.CacheKey mappingCacheKey;
+        final Object readerCacheKey;
+        final Query query;
+        /**
+         * The parts of the request other than the query that change the query phase result. They must implement
+         * {@link Object#equals} and {@link Object#hashCode} on their content.
+         */
+        final List<Object> parameters;
+
+        Key(Object shardIdentity, MappingLookup.CacheKey mappingCacheKey, Object readerCacheKey, Query query, List<Object> parameters) {
+            this.shardIdentity = Objects.requireNonNull(shardIdentity);
+            this.mappingCacheKey = Objects.requireNonNull(mappingCacheKey);
+            this.readerCacheKey = Objects.requireNonNull(readerCacheKey);
+            this.query = Objects.requireNonNull(query);
+            this.parameters = parameters;
+        }
+
+        long ramBytesUsed() {
+            long parametersRamBytesUsed = 0;
+            for (Object parameter : parameters) {
+                if (parameter instanceof Query) {
+                    parametersRamBytesUsed += RamUsageEstimator.sizeOf((Query) parameter, RamUsageEstimator.QUERY_DEFAULT_RAM_BYTES_USED);
+                } else if (parameter != null) {
+                    // we don't know the size of builders, assume they are as large as an unknown query
+                    parametersRamBytesUsed += RamUsageEstimator.QUERY_DEFAULT_RAM_BYTES_USED;
+                }
+            }
+            return BASE_RAM_BYTES_USED + RamUsageEstimator.sizeOf(query, RamUsageEstimator.QUERY_DEFAULT_RAM_BYTES_USED)
+                + parametersRamBytesUsed;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return shardIdentity == key.shardIdentity
+                && mappingCacheKey.equals(key.mappingCacheKey)
+                && readerCacheKey.equals(key.readerCacheKey)
+                && query.equals(key.query)
+                && parameters.equals(key.parameters);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = System.identityHashCode(shardIdentity);
+            result = 31 * result + mappingCacheKey.hashCode();
+            result = 31 * result + readerCacheKey.hashCode();
+            result = 31 * result + query.hashCode();
+            result = 31 * result + parameters.hashCode();
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "Key(mappingKey=[" + mappingCacheKey + "],readerKey=[" + readerCacheKey + "],query=[" + query
+                + "],parameters=" + parameters + ")";
+        }
+    }
+}
@@ -46,6 +46,7 @@ import org.elasticsearch.common.io.stream.NamedWriteableAwareStreamInput;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
 import org.elasticsearch.common.settings.IndexScopedSettings;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
@@ -114,6 +115,8 @@ import org.elasticsearch.index.shard.IndexShardState;
 import org.elasticsearch.index.shard.IndexingOperationListener;
 import org.elasticsearch.index.shard.IndexingStats;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.shard.TranslogSyncCoordinator;
+import org.elasticsearch.index.shard.WriteLoadStats;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.indices.cluster.IndicesClusterStateService;
 import org.elasticsearch.indices.fielddata.cache.IndicesFieldDataCache;
@@ -126,6 +129,7 @@ import org.elasticsearch.plugins.PluginsService;
 import org.elasticsearch.repositories.RepositoriesService;
 import org.elasticsearch.script.ScriptService;
 import org.elasticsearch.search.aggregations.support.ValuesSourceRegistry;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.internal.AliasFilter;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.internal.ShardSearchRequest;
@@ -214,8 +218,11 @@ public class IndicesService extends AbstractLifecycleComponent
     private final NamedWriteableRegistry namedWriteableRegistry;
     private final Map<String, IndexStorePlugin.SnapshotCommitSupplier> snapshotCommitSuppliers;
     private final IndexingMemoryController indexingMemoryController;
+    private final TranslogSyncCoordinator translogSyncCoordinator;
     private final TimeValue cleanInterval;
     final IndicesRequestCache indicesRequestCache; // pkg-private for testing
+    final IndicesQueryResultCache indicesQueryResultCache; // pkg-private for testing
+    private final ShardFieldRangesCache shardFieldRangesCache;
     private final IndicesQueryCache indicesQueryCache;
     private final MetaStateService metaStateService;
     private final Collection<Function<IndexSettings, Optional<EngineFactory>>> engineFactoryProviders;
@@ -257,6 +264,7 @@ public class IndicesService extends AbstractLifecycleComponent
                           CheckedBiConsumer<ShardSearchRequest, StreamOutput, IOException> requestCacheKeyDifferentiator) {
         this.settings = settings;
         this.threadPool = threadPool;
+        this.translogSyncCoordinator = new TranslogSyncCoordinator(settings, threadPool.getThreadContext());
         this.pluginsService = pluginsService;
         this.nodeEnv = nodeEnv;
         this.xContentRegistry = xContentRegistry;
@@ -265,6 +273,8 @@ public class IndicesService extends AbstractLifecycleComponent
         this.analysisRegistry = analysisRegistry;
         this.indexNameExpressionResolver = indexNameExpressionResolver;
         this.indicesRequestCache = new IndicesRequestCache(settings);
+        this.indicesQueryResultCache = new IndicesQueryResultCache(settings);
+        this.shardFieldRangesCache = new ShardFieldRangesCache(settings);
         this.indicesQueryCache = new IndicesQueryCache(settings);
         this.mapperRegistry = mapperRegistry;
         this.namedWriteableRegistry = namedWriteableRegistry;
@@ -288,7 +298,8 @@ public class IndicesService extends AbstractLifecycleComponent
             }
         });
         this.cleanInterval = INDICES_CACHE_CLEAN_INTERVAL_SETTING.get(settings);
-        this.cacheCleaner = new CacheCleaner(indicesFieldDataCache, indicesRequestCache,  logger, threadPool, this.cleanInterval);
+        this.cacheCleaner = new CacheCleaner(indicesFieldDataCache, indicesRequestCache, indicesQueryResultCache, logger, threadPool,
+            this.cleanInterval);
         this.metaStateService = metaStateService;
         this.engineFactoryProviders = engineFactoryProviders;
 
@@ -317,6 +328,8 @@ public class IndicesService extends AbstractLifecycleComponent
                     indicesFieldDataCache,
                     cacheCleaner,
                     indicesRequestCache,
+                    indicesQueryResultCache,
+                    shardFieldRangesCache,
                     indicesQueryCache);
             } catch (IOException e) {
                 throw new UncheckedIOException(e);
@@ -425,10 +438,14 @@ public class IndicesService extends AbstractLifecycleComponent
                 case Bulk:
                     commonStats.bulk.add(oldShardsStats.bulkStats);
                     break;
+                case WriteLoad:
+                    commonStats.writeLoad.add(oldShardsStats.writeLoadStats);
+                    break;
             }
         }
 
-        return new NodeIndicesStats(commonStats, statsByShard(this, flags));
+        final IndexingBufferStats indexingBufferStats = flags.isSet(Flag.Indexing) ? indexingMemoryController.stats() : null;
+        return new NodeIndicesStats(commonStats, statsByShard(this, flags), indexingBufferStats);
     }
 
     Map<Index, List<IndexShardStats>> statsByShard(final IndicesService indicesService, final CommonStatsFlags flags) {
@@ -654,7 +671,8 @@ public class IndicesService extends AbstractLifecycleComponent
             indexCreationContext);
 
         final IndexModule indexModule = new IndexModule(idxSettings, analysisRegistry, getEngineFactory(idxSettings),
-            directoryFactories, () -> allowExpensiveQueries, indexNameExpressionResolver, recoveryStateFactories);
+            directoryFactories, () -> allowExpensiveQueries, indexNameExpressionResolver, recoveryStateFactories,
+            translogSyncCoordinator);
         for (IndexingOperationListener operationListener : indexingOperationListeners) {
             indexModule.addIndexOperationListener(operationListener);
         }
@@ -727,7 +745,8 @@ public class IndicesService extends AbstractLifecycleComponent
     public synchronized MapperService createIndexMapperService(IndexMetadata indexMetadata) throws IOException {
         final IndexSettings idxSettings = new IndexSettings(indexMetadata, this.settings, indexScopedSettings);
         final IndexModule indexModule = new IndexModule(idxSettings, analysisRegistry, getEngineFactory(idxSettings),
-            directoryFactories, () -> allowExpensiveQueries, indexNameExpressionResolver, recoveryStateFactories);
+            directoryFactories, () -> allowExpensiveQueries, indexNameExpressionResolver, recoveryStateFactories,
+            translogSyncCoordinator);
         pluginsService.onIndexModule(indexModule);
         return indexModule.newIndexMapperService(xContentRegistry, mapperRegistry, scriptService);
     }
@@ -845,6 +864,7 @@ public class IndicesService extends AbstractLifecycleComponent
         final FlushStats flushStats = new FlushStats();
         final RecoveryStats recoveryStats = new RecoveryStats();
         final BulkStats bulkStats = new BulkStats();
+        final WriteLoadStats writeLoadStats = new WriteLoadStats();
 
         @Override
         public synchronized void beforeIndexShardClosed(ShardId shardId, @Nullable IndexShard indexShard, Settings indexSettings) {
@@ -858,6 +878,7 @@ public class IndicesService extends AbstractLifecycleComponent
                 flushStats.addTotals(indexShard.flushStats());
                 recoveryStats.addTotals(indexShard.recoveryStats());
                 bulkStats.addTotals(indexShard.bulkStats());
+                writeLoadStats.addTotals(indexShard.writeLoadStats());
             }
         }
 
@@ -1293,14 +1314,17 @@ public class IndicesService extends AbstractLifecycleComponent
         private final TimeValue interval;
         private final AtomicBoolean closed = new AtomicBoolean(false);
         private final IndicesRequestCache requestCache;
+        private final IndicesQueryResultCache queryResultCache;
 
         CacheCleaner(IndicesFieldDataCache cache,
                      IndicesRequestCache requestCache,
+                     IndicesQueryResultCache queryResultCache,
                      Logger logger,
                      ThreadPool threadPool,
                      TimeValue interval) {
             this.cache = cache;
             this.requestCache = requestCache;
+            this.queryResultCache = queryResultCache;
             this.logger = logger;
             this.threadPool = threadPool;
             this.interval = interval;
@@ -1327,6 +1351,11 @@ public class IndicesService extends AbstractLifecycleComponent
             } catch (Exception e) {
                 logger.warn("Exception during periodic request cache cleanup:", e);
             }
+            try {
+                this.queryResultCache.cleanCache();
+            } catch (Exception e) {
+                logger.warn("Exception during periodic query result cache cleanup:", e);
+            }
             // Reschedule itself to run again if not closed
             if (closed.get() == false) {
                 threadPool.scheduleUnlessShuttingDown(interval, ThreadPool.Names.SAME, this);
@@ -1364,6 +1393,12 @@ public class IndicesService extends AbstractLifecycleComponent
             return false;
         }
 
+        // The hits that can't beat the bottom sort values of the shards that already returned are pruned from the
+        // result, and these values are not part of the cache key
+        if (request.getBottomSortValues() != null) {
+            return false;
+        }
+
         IndexSettings settings = context.indexShard().indexSettings();
         // if not explicitly set in the request, use the index setting, if not, use the request
         if (request.requestCache() == null) {
@@ -1408,7 +1443,7 @@ public class IndicesService extends AbstractLifecycleComponent
             directoryReader,
             cacheKey,
             out -> {
-                queryPhase.execute(context);
+                queryPhase.executeForCache(context);
                 context.queryResult().writeToNoId(out);
                 loadedFromCache[0] = false;
             }
@@ -1441,6 +1476,96 @@ public class IndicesService extends AbstractLifecycleComponent
         }
     }
 
+    /**
+     * Can the query phase result of the shard request be cached in the {@link IndicesQueryResultCache}? Unlike
+     * {@link #canCache(ShardSearchRequest, SearchContext)} this accepts requests that return hits and requests whose queries
+     * use {@code now}, since the cache is keyed on the parsed queries.
+     */
+    public boolean canUseQueryResultCache(ShardSearchRequest request, SearchContext context) {
+        // same restrictions as the request cache, see canCache
+        if (request.scroll() != null || SearchType.QUERY_THEN_FETCH != context.searchType()) {
+            return false;
+        }
+        if (request.source() != null && request.source().profile() || request.getBottomSortValues() != null) {
+            return false;
+        }
+        if (context.indexShard().indexSettings().getValue(IndicesQueryResultCache.INDEX_QUERY_RESULT_CACHE_ENABLED_SETTING) == false
+            || Boolean.FALSE.equals(request.requestCache())) {
+            return false;
+        }
+        // these are not part of the cache key
+        if (context.rescore().isEmpty() == false || context.collapse() != null || context.suggest() != null) {
+            return false;
+        }
+        return context.getSearchExecutionContext().isQueryResultCacheable();
+    }
+
+    /**
+     * Loads the query phase result from the {@link IndicesQueryResultCache} into the {@link SearchContext#queryResult() context's
+     * query result}, executing the query phase and caching its result if there is no entry for the request. Results of searches
+     * that timed out are not cached.
+     */
+    public void loadIntoContextFromQueryResultCache(ShardSearchRequest request, SearchContext context, QueryPhase queryPhase)
+        throws Exception {
+        assert canUseQueryResultCache(request, context);
+        final DirectoryReader directoryReader = context.searcher().getDirectoryReader();
+        final ESCacheHelper cacheHelper = ElasticsearchDirectoryReader.getESReaderCacheHelper(directoryReader);
+        final SearchSourceBuilder source = request.source();
+        final IndicesQueryResultCache.Key key = new IndicesQueryResultCache.Key(
+            context.indexShard(),
+            context.getSearchExecutionContext().mappingCacheKey(),
+            cacheHelper.getKey(),
+            context.query(),
+            Arrays.asList(
+                context.parsedPostFilter() == null ? null : context.parsedPostFilter().query(),
+                source == null ? null : source.aggregations(),
+                source == null ? null : source.sorts(),
+                source == null || source.searchAfter() == null ? null : Arrays.asList(source.searchAfter()),
+                source == null ? null : source.runtimeMappings(),
+                context.from(),
+                context.size(),
+                context.trackTotalHitsUpTo(),
+                context.minimumScore(),
+                context.terminateAfter(),
+                context.trackScores(),
+                queryResultCacheDifferentiator(request)
+            )
+        );
+        final BytesReference cached = indicesQueryResultCache.get(key);
+        if (cached != null) {
+            final QuerySearchResult result = context.queryResult();
+            StreamInput in = new NamedWriteableAwareStreamInput(cached.streamInput(), namedWriteableRegistry);
+            result.readFromWithId(context.id(), in);
+            result.setSearchShardTarget(context.shardTarget());
+            return;
+        }
+        final long startTime = System.nanoTime();
+        queryPhase.executeForCache(context);
+        final long computeNanos = System.nanoTime() - startTime;
+        if (context.queryResult().searchTimedOut() == false) {
+            // see cacheShardLevelResult for the expected size
+            try (BytesStreamOutput out = new BytesStreamOutput(512)) {
+                context.queryResult().writeToNoId(out);
+                indicesQueryResultCache.put(key, out.bytes(), computeNanos, cacheHelper);
+            }
+        }
+    }
+
+    /**
+     * The output of the {@link #requestCacheKeyDifferentiator} for the request, so that users whose security restrictions (DLS/FLS)
+     * change the results of the same query don't share entries of the {@link IndicesQueryResultCache}.
+     */
+    @Nullable
+    private BytesReference queryResultCacheDifferentiator(ShardSearchRequest request) throws IOException {
+        if (requestCacheKeyDifferentiator == null) {
+            return null;
+        }
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            requestCacheKeyDifferentiator.accept(request, out);
+            return out.bytes();
+        }
+    }
+
     public ByteSizeValue getTotalIndexingBufferBytes() {
         return indexingMemoryController.indexingBufferSize();
     }
@@ -1580,7 +1705,8 @@ public class IndicesService extends AbstractLifecycleComponent
             client,
             nowInMillis,
             clusterService::state,
-            this::getTimestampFieldType);
+            this::getTimestampFieldType,
+            shardFieldRangesCache);
     }
 
     /**
@@ -1594,6 +1720,7 @@ public class IndicesService extends AbstractLifecycleComponent
             final boolean clearedAtLeastOne = service.clearCaches(queryCache, fieldDataCache, fields);
             if ((requestCache || (clearedAtLeastOne == false && fields.length == 0)) && shard != null) {
                 indicesRequestCache.clear(new IndexShardCacheEntity(shard));
+                indicesQueryResultCache.clear(shard);
             }
         }
     }
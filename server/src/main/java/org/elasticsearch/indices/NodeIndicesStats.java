@@ -8,6 +8,7 @@
 
 package org.elasticsearch.indices;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.action.admin.indices.stats.CommonStats;
 import org.elasticsearch.action.admin.indices.stats.IndexShardStats;
 import org.elasticsearch.action.admin.indices.stats.ShardStats;
@@ -31,6 +32,7 @@ import org.elasticsearch.index.refresh.RefreshStats;
 import org.elasticsearch.index.search.stats.SearchStats;
 import org.elasticsearch.index.shard.DocsStats;
 import org.elasticsearch.index.shard.IndexingStats;
+import org.elasticsearch.index.shard.WriteLoadStats;
 import org.elasticsearch.index.store.StoreStats;
 import org.elasticsearch.index.translog.TranslogStats;
 import org.elasticsearch.index.warmer.WarmerStats;
@@ -50,6 +52,8 @@ public class NodeIndicesStats implements Writeable, ToXContentFragment {
 
     private final CommonStats stats;
     private final Map<Index, List<IndexShardStats>> statsByShard;
+    @Nullable
+    private final IndexingBufferStats indexingBuffer;
 
     public NodeIndicesStats(StreamInput in) throws IOException {
         stats = new CommonStats(in);
@@ -65,10 +69,21 @@ public class NodeIndicesStats implements Writeable, ToXContentFragment {
             }
             statsByShard.put(index, indexShardStats);
         }
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            indexingBuffer = in.readOptionalWriteable(IndexingBufferStats::new);
+        } else {
+            indexingBuffer = null;
+        }
     }
 
     public NodeIndicesStats(CommonStats oldStats, Map<Index, List<IndexShardStats>> statsByShard) {
+        this(oldStats, statsByShard, null);
+    }
+
+    public NodeIndicesStats(CommonStats oldStats, Map<Index, List<IndexShardStats>> statsByShard,
+                            @Nullable IndexingBufferStats indexingBuffer) {
         this.statsByShard = Objects.requireNonNull(statsByShard);
+        this.indexingBuffer = indexingBuffer;
 
         // make a total common stats from old ones and current ones
         this.stats = oldStats;
@@ -166,6 +181,16 @@ public class NodeIndicesStats implements Writeable, ToXContentFragment {
         return stats.getBulk();
     }
 
+    @Nullable
+    public WriteLoadStats getWriteLoad() {
+        return stats.getWriteLoad();
+    }
+
+    @Nullable
+    public IndexingBufferStats getIndexingBuffer() {
+        return indexingBuffer;
+    }
+
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         stats.writeTo(out);
@@ -177,6 +202,9 @@ public class NodeIndicesStats implements Writeable, ToXContentFragment {
                 indexShardStats.writeTo(out);
             }
         }
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeOptionalWriteable(indexingBuffer);
+        }
     }
 
     @Override
@@ -191,6 +219,9 @@ public class NodeIndicesStats implements Writeable, ToXContentFragment {
         // "node" level
         builder.startObject(Fields.INDICES);
         stats.toXContent(builder, params);
+        if (indexingBuffer != null) {
+            indexingBuffer.toXContent(builder, params);
+        }
 
         if ("indices".equals(level)) {
             Map<Index, CommonStats> indexStats = createStatsByIndex();
@@ -0,0 +1,109 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.shard.ShardFieldRanges;
+import org.elasticsearch.index.shard.ShardId;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Caches the {@link ShardFieldRanges} that shard copies return with their can-match responses, on the coordinating node.
+ * Entries are keyed by shard copy and are only returned while they are still valid for the current metadata of the index,
+ * stale entries age out or are replaced by the next response of the copy.
+ */
+public final class ShardFieldRangesCache implements Closeable {
+
+    public static final Setting<ByteSizeValue> INDICES_SHARD_FIELD_RANGES_CACHE_SIZE =
+        Setting.memorySizeSetting("indices.can_match.field_ranges_cache.size", "0.5%", Property.NodeScope);
+
+    private final Cache<Key, ShardFieldRanges> cache;
+
+    public ShardFieldRangesCache(Settings settings) {
+        cache = CacheBuilder.<Key, ShardFieldRanges>builder()
+            .setMaximumWeight(INDICES_SHARD_FIELD_RANGES_CACHE_SIZE.get(settings).getBytes())
+            .weigher((k, v) -> k.ramBytesUsed() + v.ramBytesUsed())
+            .build();
+    }
+
+    /**
+     * Returns a valid summary of any of the given copies of the shard, or {@code null} if there is none.
+     */
+    @Nullable
+    public ShardFieldRanges get(ShardId shardId, List<String> nodeIds, IndexMetadata indexMetadata) {
+        if (ShardFieldRanges.isWriteBlocked(indexMetadata) == false) {
+            return null;
+        }
+        for (String nodeId : nodeIds) {
+            final Key key = new Key(shardId, nodeId);
+            final ShardFieldRanges ranges = cache.get(key);
+            if (ranges != null) {
+                if (ranges.isValidFor(indexMetadata)) {
+                    return ranges;
+                }
+                cache.invalidate(key, ranges);
+            }
+        }
+        return null;
+    }
+
+    public void put(ShardId shardId, String nodeId, ShardFieldRanges ranges) {
+        cache.put(new Key(shardId, nodeId), ranges);
+    }
+
+    int count() {
+        return cache.count();
+    }
+
+    @Override
+    public void close() {
+        cache.invalidateAll();
+    }
+
+    private static final class Key {
+        private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(Key.class);
+
+        private final ShardId shardId;
+        private final String nodeId;
+
+        Key(ShardId shardId, String nodeId) {
+            this.shardId = shardId;
+            this.nodeId = nodeId;
+        }
+
+        long ramBytesUsed() {
+            // the shard id is shared with the routing table
+            return BASE_RAM_BYTES_USED + RamUsageEstimator.sizeOf(nodeId);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return shardId.equals(key.shardId) && nodeId.equals(key.nodeId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(shardId, nodeId);
+        }
+    }
+}
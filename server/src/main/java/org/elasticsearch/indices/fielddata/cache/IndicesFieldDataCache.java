@@ -14,7 +14,9 @@ import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexReader.CacheKey;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.OrdinalMap;
 import org.apache.lucene.util.Accountable;
+import org.elasticsearch.common.CheckedSupplier;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.common.cache.Cache;
 import org.elasticsearch.common.cache.CacheBuilder;
@@ -26,6 +28,7 @@ import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.fielddata.LeafFieldData;
 import org.elasticsearch.index.fielddata.IndexFieldData;
@@ -33,9 +36,11 @@ import org.elasticsearch.index.fielddata.IndexFieldDataCache;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.shard.ShardUtils;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.function.ToLongBiFunction;
 
 public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCache.Key, Accountable>, Releasable{
@@ -77,6 +82,10 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
         assert key != null && key.listeners != null;
         IndexFieldCache indexCache = key.indexCache;
         final Accountable value = notification.getValue();
+        if (indexCache.release(value) == false) {
+            // the global field data is still cached for another reader of the shard and is only accounted once
+            return;
+        }
         for (IndexFieldDataCache.Listener listener : key.listeners) {
             try {
                 listener.onRemoval(
@@ -107,6 +116,10 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
         final String fieldName;
         private final Cache<Key, Accountable> cache;
         private final Listener[] listeners;
+        // the key of the global field data that was last loaded for each shard
+        private final Map<ShardId, Key> lastGlobalKeys = ConcurrentCollections.newConcurrentMap();
+        // the memory of each cached global field data, which readers of a shard with the same segments share
+        private final Map<Accountable, SharedGlobal> sharedGlobals = ConcurrentCollections.newConcurrentMap();
 
         IndexFieldCache(Logger logger,final Cache<Key, Accountable> cache, Index index, String fieldName, Listener... listeners) {
             this.logger = logger;
@@ -157,28 +170,111 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
                 ElasticsearchDirectoryReader.addReaderCloseListener(indexReader, IndexFieldCache.this);
                 Collections.addAll(k.listeners, this.listeners);
                 final Accountable ifd = (Accountable) indexFieldData.loadGlobalDirect(indexReader);
+                // global field data that is shared with a previous reader was already accounted
+                if (sharedGlobals.putIfAbsent(ifd, new SharedGlobal(shardId)) == null) {
+                    for (Listener listener : k.listeners) {
+                        try {
+                            listener.onCache(shardId, fieldName, ifd);
+                        } catch (Exception e) {
+                            // load anyway since listeners should not throw exceptions
+                            logger.error("Failed to call listener on global ordinals loading", e);
+                        }
+                    }
+                }
+                if (shardId != null) {
+                    lastGlobalKeys.put(shardId, k);
+                }
+                return ifd;
+            });
+            return (IFD) accountable;
+        }
+
+        @Override
+        public IndexFieldData.Global<?> getLastLoadedGlobal(DirectoryReader indexReader) {
+            final ShardId shardId = ShardUtils.extractShardId(indexReader);
+            final Key key = shardId == null ? null : lastGlobalKeys.get(shardId);
+            if (key == null) {
+                return null;
+            }
+            final Accountable accountable = cache.get(key);
+            return accountable instanceof IndexFieldData.Global ? (IndexFieldData.Global<?>) accountable : null;
+        }
+
+        @Override
+        public boolean isGlobalCached(DirectoryReader indexReader) {
+            final IndexReader.CacheHelper cacheHelper = indexReader.getReaderCacheHelper();
+            return cacheHelper != null && cache.get(new Key(this, cacheHelper.getKey(), ShardUtils.extractShardId(indexReader))) != null;
+        }
+
+        @Override
+        public boolean shareGlobal(IndexFieldData.Global<?> previous, IndexFieldData.Global<?> globalFieldData) {
+            final SharedGlobal shared = sharedGlobals.computeIfPresent(previous, (v, s) -> s.incRef());
+            if (shared == null) {
+                return false;
+            }
+            // the reference that was just acquired is released when the new global field data is removed from the cache
+            sharedGlobals.put(globalFieldData, shared);
+            return true;
+        }
+
+        @Override
+        public OrdinalMap loadOrdinalMap(IndexFieldData.Global<?> globalFieldData, CheckedSupplier<OrdinalMap, IOException> builder)
+            throws Exception {
+            final SharedGlobal shared = sharedGlobals.get(globalFieldData);
+            // the ordinal map is still loaded through the cache if the global field data isn't cached to account it consistently
+            final Key key = new OrdinalMapKey(this, shared == null ? new SharedGlobal(null) : shared);
+            final Accountable accountable = cache.computeIfAbsent(key, k -> {
+                Collections.addAll(k.listeners, this.listeners);
+                final OrdinalMap ordinalMap = builder.get();
                 for (Listener listener : k.listeners) {
                     try {
-                        listener.onCache(shardId, fieldName, ifd);
+                        listener.onCache(k.shardId, fieldName, ordinalMap);
                     } catch (Exception e) {
                         // load anyway since listeners should not throw exceptions
-                        logger.error("Failed to call listener on global ordinals loading", e);
+                        logger.error("Failed to call listener on ordinal map loading", e);
                     }
                 }
-                return ifd;
+                return ordinalMap;
             });
-            return (IFD) accountable;
+            if (sharedGlobals.containsKey(globalFieldData) == false) {
+                // the global field data is no longer cached, so nothing else would remove its ordinal map
+                cache.invalidate(key);
+            }
+            return (OrdinalMap) accountable;
+        }
+
+        /**
+         * Releases a value that was removed from the cache and returns whether it should no longer be accounted, which is
+         * the case of every value but global field data that is still cached for another reader.
+         */
+        boolean release(Accountable value) {
+            if (value instanceof IndexFieldData.Global == false) {
+                return true;
+            }
+            final SharedGlobal shared = sharedGlobals.remove(value);
+            if (shared == null) {
+                return true;
+            }
+            if (shared.decRef()) {
+                return false;
+            }
+            // the ordinal map that the global field data built lazily goes away with the last of them
+            cache.invalidate(new OrdinalMapKey(this, shared));
+            return true;
         }
 
         @Override
         public void onClose(CacheKey key) {
             cache.invalidate(new Key(this, key, null));
+            lastGlobalKeys.values().removeIf(lastGlobalKey -> lastGlobalKey.readerKey == key);
             // don't call cache.cleanUp here as it would have bad performance implications
         }
 
         @Override
         public void clear() {
-            for (Key key : cache.keys()) {
+            lastGlobalKeys.clear();
+            // copy the keys since removing global field data also removes the ordinal map it built, which may be the next key
+            for (Key key : keys()) {
                 if (key.indexCache.index.equals(index)) {
                     cache.invalidate(key);
                 }
@@ -189,7 +285,8 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
 
         @Override
         public void clear(String fieldName) {
-            for (Key key : cache.keys()) {
+            lastGlobalKeys.clear();
+            for (Key key : keys()) {
                 if (key.indexCache.index.equals(index)) {
                     if (key.indexCache.fieldName.equals(fieldName)) {
                         cache.invalidate(key);
@@ -201,16 +298,51 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
             // soon as possible
             cache.refresh();
         }
+
+        private List<Key> keys() {
+            final List<Key> keys = new ArrayList<>();
+            cache.keys().forEach(keys::add);
+            return keys;
+        }
+    }
+
+    /**
+     * The memory of global field data that is cached for one or more readers of a shard. Each cached global field data holds a
+     * reference to it.
+     */
+    private static final class SharedGlobal {
+        private final ShardId shardId;
+        private int refCount = 1;
+
+        SharedGlobal(@Nullable ShardId shardId) {
+            this.shardId = shardId;
+        }
+
+        synchronized SharedGlobal incRef() {
+            assert refCount > 0;
+            refCount++;
+            return this;
+        }
+
+        /**
+         * Returns <code>false</code> once no cached global field data uses the memory anymore.
+         */
+        synchronized boolean decRef() {
+            assert refCount > 0;
+            return --refCount > 0;
+        }
     }
 
     public static class Key {
         public final IndexFieldCache indexCache;
+        // null for the key of an ordinal map, which is tied to global field data rather than to a reader
+        @Nullable
         public final IndexReader.CacheKey readerKey;
         public final ShardId shardId;
 
         public final List<IndexFieldDataCache.Listener> listeners = new ArrayList<>();
 
-        Key(IndexFieldCache indexCache, IndexReader.CacheKey readerKey, @Nullable ShardId shardId) {
+        Key(IndexFieldCache indexCache, @Nullable IndexReader.CacheKey readerKey, @Nullable ShardId shardId) {
             this.indexCache = indexCache;
             this.readerKey = readerKey;
             this.shardId = shardId;
@@ -234,5 +366,31 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
         }
     }
 
+    /**
+     * The key of the {@link OrdinalMap} that global field data built lazily. It is tied to the memory of the global field data
+     * rather than to a reader since readers of a shard that have the same segments share this memory.
+     */
+    static final class OrdinalMapKey extends Key {
+        private final SharedGlobal sharedGlobal;
+
+        private OrdinalMapKey(IndexFieldCache indexCache, SharedGlobal sharedGlobal) {
+            super(indexCache, null, sharedGlobal.shardId);
+            this.sharedGlobal = sharedGlobal;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            OrdinalMapKey key = (OrdinalMapKey) o;
+            return indexCache.equals(key.indexCache) && sharedGlobal == key.sharedGlobal;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * indexCache.hashCode() + System.identityHashCode(sharedGlobal);
+        }
+    }
+
 
 }
@@ -17,18 +17,23 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.shard.ShardId;
 
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentMap;
 
 /**
  * Collects statistics about queue size, response time, and service time of
  * tasks executed on each node, making the EWMA of the values available to the
- * coordinating node.
+ * coordinating node. It also tracks the response time of each shard copy, since
+ * copies on the same node can behave very differently (while merging for instance),
+ * together with the number of requests that are in flight to each copy.
  */
 public final class ResponseCollectorService implements ClusterStateListener {
 
@@ -38,6 +43,7 @@ public final class ResponseCollectorService implements ClusterStateListener {
     public static final double ALPHA = 0.3;
 
     private final ConcurrentMap<String, NodeStatistics> nodeIdToStats = ConcurrentCollections.newConcurrentMap();
+    private final ConcurrentMap<ShardCopy, ShardCopyStatistics> shardCopyStats = ConcurrentCollections.newConcurrentMap();
 
     public ResponseCollectorService(ClusterService clusterService) {
         clusterService.addListener(this);
@@ -50,10 +56,14 @@ public final class ResponseCollectorService implements ClusterStateListener {
                 removeNode(removedNode.getId());
             }
         }
+        for (Index deletedIndex : event.indicesDeleted()) {
+            shardCopyStats.keySet().removeIf(copy -> copy.shardId.getIndex().equals(deletedIndex));
+        }
     }
 
     void removeNode(String nodeId) {
         nodeIdToStats.remove(nodeId);
+        shardCopyStats.keySet().removeIf(copy -> copy.nodeId.equals(nodeId));
     }
 
     public void addNodeStatistics(String nodeId, int queueSize, long responseTimeNanos, long avgServiceTimeNanos) {
@@ -71,6 +81,33 @@ public final class ResponseCollectorService implements ClusterStateListener {
         });
     }
 
+    /**
+     * Records that a request was sent to the copy of the shard on the given node. Every call must be followed by a call to
+     * {@link #addShardCopyStatistics} or {@link #onShardCopyRequestFailed} once the request completes.
+     */
+    public void onShardCopyRequestSent(ShardId shardId, String nodeId) {
+        shardCopyStats.computeIfAbsent(new ShardCopy(shardId, nodeId), k -> new ShardCopyStatistics()).onRequestSent();
+    }
+
+    public void onShardCopyRequestFailed(ShardId shardId, String nodeId) {
+        final ShardCopyStatistics stats = shardCopyStats.get(new ShardCopy(shardId, nodeId));
+        if (stats != null) {
+            stats.onRequestFailed();
+        }
+    }
+
+    public void addShardCopyStatistics(ShardId shardId, String nodeId, long responseTimeNanos) {
+        shardCopyStats.computeIfAbsent(new ShardCopy(shardId, nodeId), k -> new ShardCopyStatistics()).onResponse(responseTimeNanos);
+    }
+
+    /**
+     * Optionally return the statistics of the copy of the given shard on the given node. Returns an empty {@code Optional}
+     * if no response was received from this copy yet.
+     */
+    public Optional<ComputedShardCopyStats> getShardCopyStatistics(ShardId shardId, String nodeId) {
+        return Optional.ofNullable(shardCopyStats.get(new ShardCopy(shardId, nodeId))).map(ShardCopyStatistics::compute);
+    }
+
     public Map<String, ComputedNodeStats> getAllNodeStatistics() {
         final int clientNum = nodeIdToStats.size();
         // Transform the mutable object internally used for accounting into the computed version
@@ -148,7 +185,7 @@ public final class ResponseCollectorService implements ClusterStateListener {
          * Rank this copy of the data, according to the adaptive replica selection formula from the C3 paper
          * https://www.usenix.org/system/files/conference/nsdi15/nsdi15-paper-suresh.pdf
          */
-        private double innerRank(long outstandingRequests) {
+        private double innerRank(long outstandingRequests, double responseTime, int inFlight) {
             // the concurrency compensation is defined as the number of
             // outstanding requests from the client to the node times the number
             // of clients in the system
@@ -160,7 +197,7 @@ public final class ResponseCollectorService implements ClusterStateListener {
 
             // EWMA of queue size
             double qBar = queueSize;
-            double qHatS = 1 + concurrencyCompensation + qBar;
+            double qHatS = 1 + concurrencyCompensation + qBar + inFlight;
 
             // EWMA of response time
             double rS = responseTime / FACTOR;
@@ -174,11 +211,20 @@ public final class ResponseCollectorService implements ClusterStateListener {
 
         public double rank(long outstandingRequests) {
             if (cachedRank == 0) {
-                cachedRank = innerRank(outstandingRequests);
+                cachedRank = innerRank(outstandingRequests, responseTime, 0);
             }
             return cachedRank;
         }
 
+        /**
+         * Rank the given copy of a shard on this node. This is the same formula as {@link #rank(long)} but it uses the
+         * response time of the shard copy instead of the one of the node, and counts the requests that are in flight to
+         * the copy as queued since their response time isn't reflected in the average yet.
+         */
+        public double rank(long outstandingRequests, ComputedShardCopyStats shardCopyStats) {
+            return innerRank(outstandingRequests, shardCopyStats.responseTime, shardCopyStats.inFlight);
+        }
+
         @Override
         public String toString() {
             StringBuilder sb = new StringBuilder("ComputedNodeStats[");
@@ -214,4 +260,90 @@ public final class ResponseCollectorService implements ClusterStateListener {
             this.serviceTime = serviceTimeEWMA;
         }
     }
+
+    /**
+     * Struct-like class encapsulating a point-in-time snapshot of the statistics of a shard copy: the EWMA of its response
+     * time, the EWMA of the absolute deviation of its response time and the number of requests in flight to the copy.
+     */
+    public static class ComputedShardCopyStats {
+        public final double responseTime;
+        public final double responseTimeDeviation;
+        public final int inFlight;
+
+        public ComputedShardCopyStats(double responseTime, double responseTimeDeviation, int inFlight) {
+            this.responseTime = responseTime;
+            this.responseTimeDeviation = responseTimeDeviation;
+            this.inFlight = inFlight;
+        }
+
+        /**
+         * A prediction of the 95th percentile of the response time of the copy in nanoseconds. Response times are not normally
+         * distributed but the mean plus two mean deviations is a cheap and reasonably conservative estimate, similar to how
+         * TCP derives its retransmission timeout from the smoothed round trip time.
+         */
+        public double predictedP95() {
+            return responseTime + 2 * responseTimeDeviation;
+        }
+
+        @Override
+        public String toString() {
+            return "ComputedShardCopyStats(response time: " + String.format(Locale.ROOT, "%.1f", responseTime)
+                + ", deviation: " + String.format(Locale.ROOT, "%.1f", responseTimeDeviation) + ", in flight: " + inFlight + ")";
+        }
+    }
+
+    private static final class ShardCopy {
+        final ShardId shardId;
+        final String nodeId;
+
+        ShardCopy(ShardId shardId, String nodeId) {
+            this.shardId = shardId;
+            this.nodeId = nodeId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ShardCopy that = (ShardCopy) o;
+            return shardId.equals(that.shardId) && nodeId.equals(that.nodeId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(shardId, nodeId);
+        }
+    }
+
+    /**
+     * The internal accounting of the statistics of a shard copy.
+     */
+    private static final class ShardCopyStatistics {
+        private double responseTime = -1;
+        private double responseTimeDeviation = 0;
+        private int inFlight = 0;
+
+        synchronized void onRequestSent() {
+            inFlight++;
+        }
+
+        synchronized void onRequestFailed() {
+            inFlight = Math.max(0, inFlight - 1);
+        }
+
+        synchronized void onResponse(long responseTimeNanos) {
+            inFlight = Math.max(0, inFlight - 1);
+            if (responseTime < 0) {
+                responseTime = responseTimeNanos;
+                responseTimeDeviation = responseTimeNanos / 2.0;
+            } else {
+                responseTimeDeviation = ALPHA * Math.abs(responseTimeNanos - responseTime) + (1 - ALPHA) * responseTimeDeviation;
+                responseTime = ALPHA * responseTimeNanos + (1 - ALPHA) * responseTime;
+            }
+        }
+
+        synchronized ComputedShardCopyStats compute() {
+            return responseTime < 0 ? null : new ComputedShardCopyStats(responseTime, responseTimeDeviation, inFlight);
+        }
+    }
 }
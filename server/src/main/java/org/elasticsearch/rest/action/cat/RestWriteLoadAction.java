@@ -0,0 +1,131 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.rest.action.cat;
+
+import org.elasticsearch.action.admin.cluster.state.ClusterStateRequest;
+import org.elasticsearch.action.admin.cluster.state.ClusterStateResponse;
+import org.elasticsearch.action.admin.indices.stats.IndicesStatsRequest;
+import org.elasticsearch.action.admin.indices.stats.IndicesStatsResponse;
+import org.elasticsearch.action.admin.indices.stats.ShardStats;
+import org.elasticsearch.client.node.NodeClient;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.Table;
+import org.elasticsearch.index.shard.WriteLoadStats;
+import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.rest.RestResponse;
+import org.elasticsearch.rest.action.RestActionListener;
+import org.elasticsearch.rest.action.RestResponseListener;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.elasticsearch.rest.RestRequest.Method.GET;
+
+/**
+ * Lists the shard copies by the time the write threads spent on them, hottest first, together with the time spent in each phase of
+ * indexing, see {@link WriteLoadStats}.
+ */
+public class RestWriteLoadAction extends AbstractCatAction {
+
+    @Override
+    public List<Route> routes() {
+        return List.of(
+            new Route(GET, "/_cat/write_load"),
+            new Route(GET, "/_cat/write_load/{index}"));
+    }
+
+    @Override
+    public String getName() {
+        return "cat_write_load_action";
+    }
+
+    @Override
+    public boolean allowSystemIndexAccessByDefault() {
+        return true;
+    }
+
+    @Override
+    protected void documentation(StringBuilder sb) {
+        sb.append("/_cat/write_load\n");
+        sb.append("/_cat/write_load/{index}\n");
+    }
+
+    @Override
+    protected RestChannelConsumer doCatRequest(final RestRequest request, final NodeClient client) {
+        final String[] indices = Strings.splitStringByCommaToArray(request.param("index"));
+        final ClusterStateRequest clusterStateRequest = new ClusterStateRequest();
+        clusterStateRequest.masterNodeTimeout(request.paramAsTime("master_timeout", clusterStateRequest.masterNodeTimeout()));
+        clusterStateRequest.clear().nodes(true);
+        return channel -> client.admin().cluster().state(clusterStateRequest, new RestActionListener<ClusterStateResponse>(channel) {
+            @Override
+            public void processResponse(final ClusterStateResponse clusterStateResponse) {
+                final IndicesStatsRequest indicesStatsRequest = new IndicesStatsRequest();
+                indicesStatsRequest.clear().writeLoad(true);
+                indicesStatsRequest.indices(indices);
+                client.admin().indices().stats(indicesStatsRequest, new RestResponseListener<IndicesStatsResponse>(channel) {
+                    @Override
+                    public RestResponse buildResponse(IndicesStatsResponse indicesStatsResponse) throws Exception {
+                        return RestTable.buildResponse(buildTable(request, clusterStateResponse, indicesStatsResponse), channel);
+                    }
+                });
+            }
+        });
+    }
+
+    @Override
+    protected Table getTableWithHeader(final RestRequest request) {
+        Table table = new Table();
+        table.startHeaders()
+            .addCell("index", "default:true;alias:i,idx;desc:index name")
+            .addCell("shard", "default:true;alias:s,sh;desc:shard name")
+            .addCell("prirep", "alias:p,pr,primaryOrReplica;default:true;desc:primary or replica")
+            .addCell("id", "default:false;desc:unique id of node where it lives")
+            .addCell("node", "default:true;alias:n;desc:name of node where it lives")
+            .addCell("operations", "alias:ops;default:true;text-align:right;desc:number of index and delete operations")
+            .addCell("total_time", "alias:tt,totalTime;default:true;text-align:right;desc:time spent by write threads on shard bulks")
+            .addCell("parse_time", "alias:pt,parseTime;default:true;text-align:right;desc:time spent parsing documents")
+            .addCell("version_map_time",
+                "alias:vmt,versionMapTime;default:true;text-align:right;desc:time spent resolving document versions")
+            .addCell("index_writer_time",
+                "alias:iwt,indexWriterTime;default:true;text-align:right;desc:time spent in the index writer, including analysis")
+            .addCell("translog_time", "alias:tlt,translogTime;default:true;text-align:right;desc:time spent writing the translog")
+            .endHeaders();
+        return table;
+    }
+
+    Table buildTable(RestRequest request, ClusterStateResponse state, IndicesStatsResponse stats) {
+        final Table table = getTableWithHeader(request);
+        final ShardStats[] shardStats = Arrays.stream(stats.getShards())
+            .filter(s -> s.getStats() != null && s.getStats().getWriteLoad() != null)
+            .sorted(Comparator.comparingLong((ShardStats s) -> s.getStats().getWriteLoad().getTotalTimeInMillis()).reversed())
+            .toArray(ShardStats[]::new);
+        for (ShardStats shardStat : shardStats) {
+            final ShardRouting shard = shardStat.getShardRouting();
+            final WriteLoadStats writeLoad = shardStat.getStats().getWriteLoad();
+            final DiscoveryNode node = state.getState().nodes().get(shard.currentNodeId());
+            table.startRow();
+            table.addCell(shard.getIndexName());
+            table.addCell(shard.id());
+            table.addCell(shard.primary() ? "p" : "r");
+            table.addCell(shard.currentNodeId());
+            table.addCell(node == null ? null : node.getName());
+            table.addCell(writeLoad.getOperations());
+            table.addCell(writeLoad.getTotalTime());
+            table.addCell(writeLoad.getParseTime());
+            table.addCell(writeLoad.getVersionMapTime());
+            table.addCell(writeLoad.getIndexWriterTime());
+            table.addCell(writeLoad.getTranslogTime());
+            table.endRow();
+        }
+        return table;
+    }
+}
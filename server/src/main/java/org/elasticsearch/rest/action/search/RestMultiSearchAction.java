@@ -108,6 +108,7 @@ public class RestMultiSearchAction extends BaseRestHandler {
                                                   NamedWriteableRegistry namedWriteableRegistry,
                                                   boolean allowExplicitIndex,
                                                   TriFunction<String, Object, SearchRequest, Boolean> extraParamParser) throws IOException {
+        RestSearchAction.validateSearchPriority(restRequest);
         if(restRequest.getRestApiVersion() == RestApiVersion.V_7 && restRequest.hasParam("type")) {
             restRequest.param("type");
         }
@@ -29,6 +29,7 @@ import org.elasticsearch.rest.action.RestCancellableNodeClient;
 import org.elasticsearch.rest.action.RestStatusToXContentListener;
 import org.elasticsearch.search.Scroll;
 import org.elasticsearch.search.SearchService;
+import org.elasticsearch.search.SearchTaskScheduler;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.fetch.StoredFieldsContext;
 import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
@@ -134,6 +135,17 @@ public class RestSearchAction extends BaseRestHandler {
     }
 
 
+    /**
+     * Rejects requests with an unknown {@link SearchTaskScheduler#PRIORITY_HEADER}. The header reaches the data nodes through the
+     * thread context, so it has to be validated before the shard level requests are sent.
+     */
+    public static void validateSearchPriority(RestRequest request) {
+        final String priority = request.header(SearchTaskScheduler.PRIORITY_HEADER);
+        if (priority != null) {
+            SearchTaskScheduler.Priority.fromString(priority);
+        }
+    }
+
     /**
      * Parses the rest request on top of the SearchRequest, preserving values that are not overridden by the rest request. This variation
      * allows the caller to specify if wait_for_checkpoints functionality is supported.
@@ -142,6 +154,7 @@ public class RestSearchAction extends BaseRestHandler {
                                           XContentParser requestContentParser,
                                           NamedWriteableRegistry namedWriteableRegistry,
                                           IntConsumer setSize, BiConsumer<RestRequest, SearchRequest> extraParamParser) throws IOException {
+        validateSearchPriority(request);
         if (request.getRestApiVersion() == RestApiVersion.V_7 && request.hasParam("type")) {
             request.param("type");
             deprecationLogger.compatibleCritical("search_with_types", TYPES_DEPRECATION_MESSAGE);
@@ -11,6 +11,8 @@ package org.elasticsearch.search;
 import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.shard.ShardFieldRanges;
 import org.elasticsearch.search.sort.MinAndMax;
 
 import java.io.IOException;
@@ -21,6 +23,8 @@ import java.io.IOException;
 public final class CanMatchShardResponse extends SearchPhaseResult {
     private final boolean canMatch;
     private final MinAndMax<?> estimatedMinAndMax;
+    @Nullable
+    private final ShardFieldRanges fieldRanges;
 
     public CanMatchShardResponse(StreamInput in) throws IOException {
         super(in);
@@ -30,11 +34,21 @@ public final class CanMatchShardResponse extends SearchPhaseResult {
         } else {
             estimatedMinAndMax = null;
         }
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            fieldRanges = in.readOptionalWriteable(ShardFieldRanges::new);
+        } else {
+            fieldRanges = null;
+        }
     }
 
     public CanMatchShardResponse(boolean canMatch, MinAndMax<?> estimatedMinAndMax) {
+        this(canMatch, estimatedMinAndMax, null);
+    }
+
+    public CanMatchShardResponse(boolean canMatch, MinAndMax<?> estimatedMinAndMax, @Nullable ShardFieldRanges fieldRanges) {
         this.canMatch = canMatch;
         this.estimatedMinAndMax = estimatedMinAndMax;
+        this.fieldRanges = fieldRanges;
     }
 
     @Override
@@ -43,6 +57,9 @@ public final class CanMatchShardResponse extends SearchPhaseResult {
         if (out.getVersion().onOrAfter(Version.V_7_6_0)) {
             out.writeOptionalWriteable(estimatedMinAndMax);
         }
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeOptionalWriteable(fieldRanges);
+        }
     }
 
     public boolean canMatch() {
@@ -52,4 +69,12 @@ public final class CanMatchShardResponse extends SearchPhaseResult {
     public MinAndMax<?> estimatedMinAndMax() {
         return estimatedMinAndMax;
     }
+
+    /**
+     * The summary of the values of the shard, if the coordinating node asked for it and the shard doesn't accept writes.
+     */
+    @Nullable
+    public ShardFieldRanges fieldRanges() {
+        return fieldRanges;
+    }
 }
@@ -61,6 +61,7 @@ import org.elasticsearch.index.shard.GlobalCheckpointListeners;
 import org.elasticsearch.index.shard.IndexEventListener;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.SearchOperationListener;
+import org.elasticsearch.index.shard.ShardFieldRanges;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.indices.ExecutorSelector;
 import org.elasticsearch.indices.IndicesService;
@@ -164,6 +165,13 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
     public static final Setting<Boolean> LOW_LEVEL_CANCELLATION_SETTING =
         Setting.boolSetting("search.low_level_cancellation", true, Property.Dynamic, Property.NodeScope);
 
+    /**
+     * Enables searching the segments of a shard in slices concurrently on the search_worker thread pool, for the parts of the query
+     * phase that support it. This cuts the latency of searches on large shards but takes threads away from other searches.
+     */
+    public static final Setting<Boolean> CONCURRENT_SEGMENT_SEARCH_SETTING =
+        Setting.boolSetting("search.concurrent_segment_search.enabled", false, Property.Dynamic, Property.NodeScope);
+
     public static final TimeValue NO_TIMEOUT = timeValueMillis(-1);
     public static final Setting<TimeValue> DEFAULT_SEARCH_TIMEOUT_SETTING =
         Setting.timeSetting("search.default_search_timeout", NO_TIMEOUT, Property.Dynamic, Property.NodeScope);
@@ -195,6 +203,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
     private final ClusterService clusterService;
 
     private final IndicesService indicesService;
+    private final ShardFieldRanges.Builder shardFieldRangesBuilder = new ShardFieldRanges.Builder();
 
     private final ScriptService scriptService;
 
@@ -220,6 +229,11 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
 
     private volatile boolean lowLevelCancellation;
 
+    private volatile boolean concurrentSegmentSearch;
+
+    private final SearchTaskScheduler searchTaskScheduler;
+    private volatile boolean searchTaskSchedulerEnabled;
+
     private volatile int maxOpenScrollContext;
 
     private volatile boolean enableRewriteAggsToFilterByFilter;
@@ -273,6 +287,19 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         lowLevelCancellation = LOW_LEVEL_CANCELLATION_SETTING.get(settings);
         clusterService.getClusterSettings().addSettingsUpdateConsumer(LOW_LEVEL_CANCELLATION_SETTING, this::setLowLevelCancellation);
 
+        concurrentSegmentSearch = CONCURRENT_SEGMENT_SEARCH_SETTING.get(settings);
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(CONCURRENT_SEGMENT_SEARCH_SETTING, this::setConcurrentSegmentSearch);
+
+        final ThreadPool.Info searchPoolInfo = threadPool.info(Names.SEARCH);
+        searchTaskScheduler = new SearchTaskScheduler(settings, clusterService.getClusterSettings(), threadPool.getThreadContext(),
+            threadPool.executor(Names.SEARCH), searchPoolInfo.getMax(),
+            searchPoolInfo.getQueueSize() == null ? -1 : (int) searchPoolInfo.getQueueSize().singles());
+        // the tasks waiting in the scheduler are part of the queue of the search pool, both in the node stats and for ARS
+        threadPool.registerExternalQueue(Names.SEARCH, searchTaskScheduler::queueSize);
+        searchTaskSchedulerEnabled = SearchTaskScheduler.ENABLED_SETTING.get(settings);
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(SearchTaskScheduler.ENABLED_SETTING,
+            enabled -> this.searchTaskSchedulerEnabled = enabled);
+
         enableRewriteAggsToFilterByFilter = ENABLE_REWRITE_AGGS_TO_FILTER_BY_FILTER.get(settings);
         clusterService.getClusterSettings()
             .addSettingsUpdateConsumer(ENABLE_REWRITE_AGGS_TO_FILTER_BY_FILTER, this::setEnableRewriteAggsToFilterByFilter);
@@ -312,6 +339,10 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         this.lowLevelCancellation = lowLevelCancellation;
     }
 
+    private void setConcurrentSegmentSearch(boolean concurrentSegmentSearch) {
+        this.concurrentSegmentSearch = concurrentSegmentSearch;
+    }
+
     private void setEnableRewriteAggsToFilterByFilter(boolean enableRewriteAggsToFilterByFilter) {
         this.enableRewriteAggsToFilterByFilter = enableRewriteAggsToFilterByFilter;
     }
@@ -401,9 +432,16 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         context.getSearchExecutionContext().freezeContext();
         if (canCache) {
             indicesService.loadIntoContext(request, context, queryPhase);
+        } else if (indicesService.canUseQueryResultCache(request, context)) {
+            indicesService.loadIntoContextFromQueryResultCache(request, context, queryPhase);
         } else {
             queryPhase.execute(context);
         }
+        final QuerySearchResult queryResult = context.queryResult();
+        if (searchTaskSchedulerEnabled && queryResult.nodeQueueSize() >= 0) {
+            // adaptive replica selection must see the searches that wait in the scheduler rather than in the search pool
+            queryResult.nodeQueueSize(queryResult.nodeQueueSize() + searchTaskScheduler.queueSize());
+        }
     }
 
     public void executeQueryPhase(ShardSearchRequest request, SearchShardTask task, ActionListener<SearchPhaseResult> listener) {
@@ -417,7 +455,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                 final CanMatchShardResponse canMatchResp;
                 try {
                     ShardSearchRequest clone = new ShardSearchRequest(orig);
-                    canMatchResp = canMatch(clone, false);
+                    canMatchResp = canMatch(clone, false, false);
                 } catch (Exception exc) {
                     l.onFailure(exc);
                     return;
@@ -656,6 +694,8 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
             executorName = executorSelector.executorForSearch(indexShard.shardId().getIndexName());
         } else if (indexShard.indexSettings().isSearchThrottled()) {
             executorName = Names.SEARCH_THROTTLED;
+        } else if (searchTaskSchedulerEnabled) {
+            return searchTaskScheduler;
         } else {
             executorName = Names.SEARCH;
         }
@@ -910,6 +950,9 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                 reader.indexShard().shardId(), request.getClusterAlias());
             searchContext = new DefaultSearchContext(reader, request, shardTarget,
                 threadPool::relativeTimeInMillis, timeout, fetchPhase, lowLevelCancellation);
+            if (concurrentSegmentSearch && reader.indexShard().indexSettings().isSearchThrottled() == false) {
+                searchContext.searcher().setConcurrentSearchExecutor(threadPool.executor(Names.SEARCH_WORKER));
+            }
             // we clone the query shard context here just for rewriting otherwise we
             // might end up with incorrect state since we are using now() or script services
             // during rewrite and normalized / evaluate templates etc.
@@ -1012,6 +1055,10 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         return context instanceof LegacyReaderContext && context.singleSession() == false;
     }
 
+    private boolean isPointInTimeContext(ReaderContext context) {
+        return context.singleSession() == false && isScrollContext(context) == false;
+    }
+
     private void processFailure(ReaderContext context, Exception exc) {
         if (context.singleSession() || isScrollContext(context)) {
             // we release the reader on failure if the request is a normal search or a scroll
@@ -1045,6 +1092,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
             InnerHitContextBuilder.extractInnerHits(source.postFilter(), innerHitBuilders);
             context.parsedPostFilter(searchExecutionContext.toQuery(source.postFilter()));
         }
+        searchExecutionContext.markQueriesParsed();
         if (innerHitBuilders.size() > 0) {
             for (Map.Entry<String, InnerHitContextBuilder> entry : innerHitBuilders.entrySet()) {
                 try {
@@ -1084,7 +1132,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         }
         context.terminateAfter(source.terminateAfter());
         if (source.aggregations() != null && includeAggregations) {
-            AggregationContext aggContext = new ProductionAggregationContext(
+            ProductionAggregationContext aggContext = new ProductionAggregationContext(
                 indicesService.getAnalysis(),
                 context.getSearchExecutionContext(),
                 bigArrays,
@@ -1103,12 +1151,22 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                 context::getRelativeTimeInMillis,
                 context::isCancelled,
                 context::buildFilteredQuery,
-                enableRewriteAggsToFilterByFilter
+                enableRewriteAggsToFilterByFilter,
+                isPointInTimeContext(context.readerContext()) ? context.readerContext() : null
             );
             context.addReleasable(aggContext);
             try {
                 AggregatorFactories factories = source.aggregations().build(aggContext, null);
-                context.aggregations(new SearchContextAggregations(factories));
+                CheckedSupplier<AggregatorFactories, IOException> sliceFactories = null;
+                if (source.aggregations().supportsConcurrentCollection()) {
+                    sliceFactories = () -> {
+                        // slices are collected on other threads so each gets its own breaker, bucket consumer and lookup
+                        AggregationContext sliceContext = aggContext.forSlice(multiBucketConsumerService.create());
+                        context.addReleasable(sliceContext);
+                        return source.aggregations().build(sliceContext, null);
+                    };
+                }
+                context.aggregations(new SearchContextAggregations(factories, sliceFactories));
             } catch (IOException e) {
                 throw new AggregationInitializationException("Failed to create aggregators", e);
             }
@@ -1323,12 +1381,13 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
     }
 
     public void canMatch(CanMatchNodeRequest request, ActionListener<CanMatchNodeResponse> listener) {
-        final List<ShardSearchRequest> shardSearchRequests = request.createShardSearchRequests();
-        final List<CanMatchNodeResponse.ResponseOrFailure> responses = new ArrayList<>(shardSearchRequests.size());
-        for (ShardSearchRequest shardSearchRequest : shardSearchRequests) {
+        final List<CanMatchNodeRequest.Shard> shardLevelRequests = request.getShardLevelRequests();
+        final List<CanMatchNodeResponse.ResponseOrFailure> responses = new ArrayList<>(shardLevelRequests.size());
+        for (CanMatchNodeRequest.Shard shardLevelRequest : shardLevelRequests) {
             CanMatchShardResponse canMatchShardResponse;
             try {
-                canMatchShardResponse = canMatch(shardSearchRequest);
+                ShardSearchRequest shardSearchRequest = request.createShardSearchRequest(shardLevelRequest);
+                canMatchShardResponse = canMatch(shardSearchRequest, true, shardLevelRequest.requestFieldRanges());
                 responses.add(new CanMatchNodeResponse.ResponseOrFailure(canMatchShardResponse));
             } catch (Exception e) {
                 responses.add(new CanMatchNodeResponse.ResponseOrFailure(e));
@@ -1343,10 +1402,15 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
      * won't match any documents on the current shard.
      */
     public CanMatchShardResponse canMatch(ShardSearchRequest request) throws IOException {
-        return canMatch(request, true);
+        return canMatch(request, true, false);
     }
 
-    private CanMatchShardResponse canMatch(ShardSearchRequest request, boolean checkRefreshPending) throws IOException {
+    /**
+     * @param requestFieldRanges whether to return the summary of the values of the shard, which is only built if the index
+     *                           doesn't accept writes and the shard has no pending refresh
+     */
+    private CanMatchShardResponse canMatch(ShardSearchRequest request, boolean checkRefreshPending,
+                                           boolean requestFieldRanges) throws IOException {
         assert request.searchType() == SearchType.QUERY_THEN_FETCH : "unexpected search type: " + request.searchType();
         Releasable releasable = null;
         try {
@@ -1399,7 +1463,15 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                 } else {
                     minMax = null;
                 }
-                return new CanMatchShardResponse(canMatch || hasRefreshPending, minMax);
+                final ShardFieldRanges fieldRanges;
+                if (requestFieldRanges && request.readerId() == null && hasRefreshPending == false
+                    && ShardFieldRanges.isWriteBlocked(indexService.getMetadata())) {
+                    fieldRanges = shardFieldRangesBuilder.build(indexService.getMetadata(), canMatchSearcher.getIndexReader(),
+                        indexService.mapperService()::fieldType);
+                } else {
+                    fieldRanges = null;
+                }
+                return new CanMatchShardResponse(canMatch || hasRefreshPending, minMax, fieldRanges);
             }
         } finally {
             Releasables.close(releasable);
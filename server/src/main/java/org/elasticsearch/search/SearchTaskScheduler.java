@@ -0,0 +1,177 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search;
+
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+
+/**
+ * A weighted-fair scheduler in front of the search thread pool. Shard level search tasks are queued by priority, either
+ * {@link Priority#INTERACTIVE} or {@link Priority#BACKGROUND}, and dispatched to the pool so that at most as many tasks
+ * run as the pool has threads. When both kinds of tasks are waiting, {@link #INTERACTIVE_WEIGHT_SETTING} interactive tasks
+ * are dispatched for every background task, so cheap dashboard queries don't wait behind heavy analytical ones while heavy
+ * queries still make progress.
+ * <p>
+ * Scheduling only decides which waiting task gets the next free thread, tasks are not time-sliced: once dispatched, a task
+ * runs to completion on its thread. A search can't be suspended between leaves without holding on to its searcher and
+ * collectors while another search runs, and running the other search inline on the same thread nests the two so the
+ * suspended one keeps its resources even longer. An interactive search may therefore still wait for a running background
+ * shard query to complete, {@link #INTERACTIVE_WEIGHT_SETTING} only applies to the tasks that wait.
+ * <p>
+ * The priority of a task comes from the {@link #PRIORITY_HEADER} request header, which is validated by the REST layer, and
+ * defaults to interactive. The tasks waiting in the scheduler are reported as part of the queue of the search thread pool.
+ */
+public final class SearchTaskScheduler implements Executor {
+
+    /**
+     * The request header that carries the priority of a search, either {@code interactive} or {@code background}.
+     */
+    public static final String PRIORITY_HEADER = "X-Search-Priority";
+
+    public static final Setting<Boolean> ENABLED_SETTING =
+        Setting.boolSetting("search.scheduler.enabled", false, Property.Dynamic, Property.NodeScope);
+    public static final Setting<Integer> INTERACTIVE_WEIGHT_SETTING =
+        Setting.intSetting("search.scheduler.interactive_weight", 4, 1, Property.Dynamic, Property.NodeScope);
+
+    public enum Priority {
+        INTERACTIVE,
+        BACKGROUND;
+
+        public static Priority fromString(String priority) {
+            try {
+                return valueOf(priority.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("unknown search priority [" + priority + "], must be one of [interactive, background]");
+            }
+        }
+    }
+
+    private final ThreadContext threadContext;
+    private final Executor delegate;
+    private final int maxConcurrency;
+    private final int maxQueueSize;
+
+    private final ArrayDeque<Runnable> interactiveQueue = new ArrayDeque<>();
+    private final ArrayDeque<Runnable> backgroundQueue = new ArrayDeque<>();
+    private int running = 0;
+    private int interactiveStreak = 0;
+
+    private volatile int interactiveWeight;
+
+    public SearchTaskScheduler(Settings settings, ClusterSettings clusterSettings, ThreadContext threadContext, Executor delegate,
+                               int maxConcurrency, int maxQueueSize) {
+        assert maxConcurrency > 0 : "max concurrency must be positive but was " + maxConcurrency;
+        this.threadContext = threadContext;
+        this.delegate = delegate;
+        this.maxConcurrency = maxConcurrency;
+        this.maxQueueSize = maxQueueSize;
+        this.interactiveWeight = INTERACTIVE_WEIGHT_SETTING.get(settings);
+        clusterSettings.addSettingsUpdateConsumer(INTERACTIVE_WEIGHT_SETTING, weight -> this.interactiveWeight = weight);
+    }
+
+    /**
+     * Schedules the task with the priority of the request in the current thread context.
+     */
+    @Override
+    public void execute(Runnable command) {
+        execute(command, priority(threadContext.getHeader(PRIORITY_HEADER)));
+    }
+
+    private static Priority priority(String header) {
+        if (header != null) {
+            for (Priority priority : Priority.values()) {
+                if (priority.name().equalsIgnoreCase(header)) {
+                    return priority;
+                }
+            }
+        }
+        // the REST layer rejects unknown priorities, failing the shard request for a header set by another client is not worth it
+        return Priority.INTERACTIVE;
+    }
+
+    void execute(Runnable command, Priority priority) {
+        final Runnable task = threadContext.preserveContext(command);
+        synchronized (this) {
+            if (running < maxConcurrency) {
+                running++;
+            } else {
+                final ArrayDeque<Runnable> queue = priority == Priority.INTERACTIVE ? interactiveQueue : backgroundQueue;
+                if (maxQueueSize >= 0 && interactiveQueue.size() + backgroundQueue.size() >= maxQueueSize) {
+                    throw new EsRejectedExecutionException("rejected execution of " + command + " on search scheduler, queue capacity ["
+                        + maxQueueSize + "] reached", false);
+                }
+                queue.add(task);
+                return;
+            }
+        }
+        dispatch(task);
+    }
+
+    private void dispatch(Runnable task) {
+        try {
+            delegate.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    onTaskDone();
+                }
+            });
+        } catch (EsRejectedExecutionException e) {
+            onTaskDone();
+            if (task instanceof AbstractRunnable) {
+                ((AbstractRunnable) task).onRejected(e);
+            } else {
+                throw e;
+            }
+        }
+    }
+
+    private void onTaskDone() {
+        final Runnable next;
+        synchronized (this) {
+            next = poll();
+            if (next == null) {
+                running--;
+            }
+        }
+        if (next != null) {
+            dispatch(next);
+        }
+    }
+
+    /**
+     * Returns the next task to run, picking {@code interactiveWeight} interactive tasks for every background task when
+     * both kinds of tasks are waiting.
+     */
+    private Runnable poll() {
+        assert Thread.holdsLock(this);
+        if (interactiveQueue.isEmpty() == false && (backgroundQueue.isEmpty() || interactiveStreak < interactiveWeight)) {
+            interactiveStreak++;
+            return interactiveQueue.poll();
+        }
+        interactiveStreak = 0;
+        return backgroundQueue.poll();
+    }
+
+    /**
+     * The number of tasks that wait in the scheduler to be dispatched to the search thread pool.
+     */
+    synchronized int queueSize() {
+        return interactiveQueue.size() + backgroundQueue.size();
+    }
+}
@@ -180,6 +180,33 @@ public abstract class AggregationBuilder
         return DEFAULT_PREALLOCATION;
     }
 
+    /**
+     * Whether the aggregators built by this builder and its sub-aggregations
+     * can each collect a slice of the segments of a shard concurrently, with
+     * the results of all slices reduced into the result of the shard. This is
+     * not the case for aggregations whose result depends on statistics of the
+     * whole shard, nor for aggregations that prune their buckets to the
+     * {@code shard_size} best ones by doc count since every slice would prune
+     * its own buckets and the reduced counts would be less accurate. So
+     * aggregations have to opt in, usually with
+     * {@link #subAggregationsSupportConcurrentCollection()}.
+     */
+    public boolean supportsConcurrentCollection() {
+        return false;
+    }
+
+    /**
+     * Whether all sub-aggregations support concurrent collection, see {@link #supportsConcurrentCollection()}.
+     */
+    protected final boolean subAggregationsSupportConcurrentCollection() {
+        for (AggregationBuilder builder : getSubAggregations()) {
+            if (builder.supportsConcurrentCollection() == false) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /** Common xcontent fields shared among aggregator builders */
     public static final class CommonFields extends ParseField.CommonFields {
         public static final ParseField VALUE_TYPE = new ParseField("value_type");
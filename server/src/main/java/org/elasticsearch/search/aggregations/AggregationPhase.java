@@ -9,6 +9,7 @@ package org.elasticsearch.search.aggregations;
 
 import org.apache.lucene.search.Collector;
 import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator.PipelineTree;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.profile.query.CollectorResult;
 import org.elasticsearch.search.profile.query.InternalProfileCollector;
@@ -43,6 +44,23 @@ public class AggregationPhase {
         context.queryCollectors().put(AggregationPhase.class, collector);
     }
 
+    /**
+     * Creates a collector with its own top level aggregators to collect an additional slice of the segments of a concurrent search.
+     * The results of all slices are reduced into the shard result by {@link #execute}.
+     */
+    public static Collector createSliceCollector(SearchContext context) {
+        assert context.aggregations().supportsConcurrentCollection();
+        assert context.getProfilers() == null : "profiled searches don't collect slices concurrently";
+        try {
+            Aggregator[] aggregators = context.aggregations().createSliceAggregators();
+            BucketCollector bucketCollector = MultiBucketCollector.wrap(true, List.of(aggregators));
+            bucketCollector.preCollection();
+            return bucketCollector;
+        } catch (IOException e) {
+            throw new AggregationInitializationException("Could not initialize aggregators", e);
+        }
+    }
+
     public void execute(SearchContext context) {
         if (context.aggregations() == null) {
             context.queryResult().aggregations(null);
@@ -54,14 +72,38 @@ public class AggregationPhase {
             return;
         }
 
-        Aggregator[] aggregators = context.aggregations().aggregators();
+        InternalAggregations aggregations = buildTopLevel(context.aggregations().factories(), context.aggregations().aggregators());
+        List<Aggregator[]> sliceAggregators = context.aggregations().sliceAggregators();
+        if (sliceAggregators.isEmpty() == false) {
+            // the segments were collected concurrently in slices, reduce them as if they were the results of distinct shards
+            List<AggregatorFactories> sliceFactories = context.aggregations().sliceFactories();
+            List<InternalAggregations> slices = new ArrayList<>(sliceAggregators.size() + 1);
+            slices.add(aggregations);
+            for (int i = 0; i < sliceAggregators.size(); i++) {
+                slices.add(buildTopLevel(sliceFactories.get(i), sliceAggregators.get(i)));
+            }
+            InternalAggregation.ReduceContext reduceContext = InternalAggregation.ReduceContext.forPartialReduction(
+                context.aggregations().factories().context().bigArrays(),
+                null,
+                () -> PipelineTree.EMPTY,
+                context::isCancelled
+            );
+            aggregations = InternalAggregations.reduce(slices, reduceContext);
+        }
+        context.queryResult().aggregations(aggregations);
+
+        // disable aggregations so that they don't run on next pages in case of scrolling
+        context.aggregations(null);
+        context.queryCollectors().remove(AggregationPhase.class);
+    }
 
+    private static InternalAggregations buildTopLevel(AggregatorFactories factories, Aggregator[] aggregators) {
         List<InternalAggregation> aggregations = new ArrayList<>(aggregators.length);
-        if (context.aggregations().factories().context() != null) {
+        if (factories.context() != null) {
             // Rollup can end up here with a null context but not null factories.....
-            context.aggregations().factories().context().multiBucketConsumer().reset();
+            factories.context().multiBucketConsumer().reset();
         }
-        for (Aggregator aggregator : context.aggregations().aggregators()) {
+        for (Aggregator aggregator : aggregators) {
             try {
                 aggregator.postCollection();
                 aggregations.add(aggregator.buildTopLevel());
@@ -69,10 +111,6 @@ public class AggregationPhase {
                 throw new AggregationExecutionException("Failed to build aggregation [" + aggregator.name() + "]", e);
             }
         }
-        context.queryResult().aggregations(InternalAggregations.from(aggregations));
-
-        // disable aggregations so that they don't run on next pages in case of scrolling
-        context.aggregations(null);
-        context.queryCollectors().remove(AggregationPhase.class);
+        return InternalAggregations.from(aggregations);
     }
 }
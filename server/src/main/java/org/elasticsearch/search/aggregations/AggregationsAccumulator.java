@@ -0,0 +1,95 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges the top-level aggregations of shard responses one response at a time into a running partial
+ * reduction, using one {@link AggregatorReducer} per aggregation name. Unlike
+ * {@link InternalAggregations#reduce(List, ReduceContext)} it never needs the responses of all shards at
+ * once, so the memory it uses depends on the number of distinct buckets rather than on the number of shards.
+ * It's stateful and not thread safe.
+ */
+public final class AggregationsAccumulator {
+    private final ReduceContext partialReduceContext;
+    private final Map<String, Entry> reducers = new LinkedHashMap<>();
+    private int count = 0;
+
+    public AggregationsAccumulator(ReduceContext partialReduceContext) {
+        assert partialReduceContext.isFinalReduce() == false;
+        this.partialReduceContext = partialReduceContext;
+    }
+
+    /**
+     * Merges the aggregations of a shard response into the running reduction.
+     */
+    public void accept(InternalAggregations aggregations) {
+        for (Aggregation aggregation : aggregations) {
+            InternalAggregation agg = (InternalAggregation) aggregation;
+            Entry entry = reducers.get(agg.getName());
+            if (entry == null) {
+                reducers.put(agg.getName(), new Entry(agg));
+            } else {
+                entry.accept(agg);
+            }
+        }
+        count++;
+    }
+
+    /**
+     * The number of responses that were merged so far.
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Returns the partial reduction of all responses merged so far, or {@code null} if none were.
+     */
+    public InternalAggregations get() {
+        if (count == 0) {
+            return null;
+        }
+        List<InternalAggregation> reduced = new ArrayList<>(reducers.size());
+        for (Entry entry : reducers.values()) {
+            reduced.add(entry.reducer.get());
+        }
+        return InternalAggregations.from(reduced);
+    }
+
+    private class Entry {
+        private InternalAggregation lead;
+        private AggregatorReducer reducer;
+
+        Entry(InternalAggregation first) {
+            this.lead = first;
+            this.reducer = first.getReducer(partialReduceContext);
+            reducer.accept(first);
+        }
+
+        void accept(InternalAggregation agg) {
+            if (lead.isMapped() == false && agg.isMapped()) {
+                // unmapped aggregations can't lead a reduction so we restart with the mapped one
+                InternalAggregation unmapped = reducer.get();
+                lead = agg;
+                reducer = agg.getReducer(partialReduceContext);
+                reducer.accept(agg);
+                reducer.accept(unmapped);
+            } else {
+                reducer.accept(agg);
+            }
+        }
+    }
+}
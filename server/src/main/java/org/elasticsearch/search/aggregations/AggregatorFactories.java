@@ -316,6 +316,18 @@ public class AggregatorFactories {
             }
         }
 
+        /**
+         * Whether all aggregations support concurrent collection, see {@link AggregationBuilder#supportsConcurrentCollection()}.
+         */
+        public boolean supportsConcurrentCollection() {
+            for (AggregationBuilder builder : aggregationBuilders) {
+                if (builder.supportsConcurrentCollection() == false) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
         public boolean mustVisitAllDocs() {
             for (AggregationBuilder builder : aggregationBuilders) {
                 if (builder instanceof GlobalAggregationBuilder) {
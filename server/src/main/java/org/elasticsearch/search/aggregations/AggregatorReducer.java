@@ -0,0 +1,29 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+/**
+ * Merges the aggregations with the same name from many shard responses one at a time, as they arrive, into a running
+ * partial reduction instead of reducing a list of all of them at once. It's stateful and not thread safe.
+ *
+ * @see InternalAggregation#getReducer(InternalAggregation.ReduceContext)
+ */
+public interface AggregatorReducer {
+
+    /**
+     * Merges the provided aggregation into the running reduction.
+     */
+    void accept(InternalAggregation aggregation);
+
+    /**
+     * Returns the partial reduction of all aggregations accepted so far. The reducer can keep accepting aggregations
+     * after this method is called, the returned aggregation is not modified when it does.
+     */
+    InternalAggregation get();
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The default {@link AggregatorReducer}: it buffers the aggregations and folds them with
+ * {@link InternalAggregation#reduce(List, ReduceContext)} every {@link #MAX_BUFFERED} of them,
+ * so it never holds more than that many aggregations plus the running reduction.
+ */
+final class BufferingAggregatorReducer implements AggregatorReducer {
+    static final int MAX_BUFFERED = 16;
+
+    private final ReduceContext partialReduceContext;
+    /**
+     * The aggregations to reduce. The first one leads the reduction, it is the
+     * aggregation that created this reducer or the result of the last fold.
+     */
+    private final List<InternalAggregation> buffer = new ArrayList<>();
+
+    BufferingAggregatorReducer(ReduceContext partialReduceContext) {
+        assert partialReduceContext.isFinalReduce() == false;
+        this.partialReduceContext = partialReduceContext;
+    }
+
+    @Override
+    public void accept(InternalAggregation aggregation) {
+        buffer.add(aggregation);
+        if (buffer.size() >= MAX_BUFFERED) {
+            InternalAggregation reduced = get();
+            buffer.clear();
+            buffer.add(reduced);
+        }
+    }
+
+    @Override
+    public InternalAggregation get() {
+        InternalAggregation first = buffer.get(0);
+        if (first.mustReduceOnSingleInternalAgg() || buffer.size() > 1) {
+            return first.reduce(new ArrayList<>(buffer), partialReduceContext);
+        }
+        return first;
+    }
+}
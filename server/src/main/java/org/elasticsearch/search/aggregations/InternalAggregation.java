@@ -254,6 +254,16 @@ public abstract class InternalAggregation implements Aggregation, NamedWriteable
      */
     public abstract InternalAggregation reduce(List<InternalAggregation> aggregations, ReduceContext reduceContext);
 
+    /**
+     * Returns an {@link AggregatorReducer} that merges the aggregations with the same name as this one
+     * into a running partial reduction, starting with this aggregation. The default implementation buffers
+     * a bounded number of aggregations between calls to {@link #reduce(List, ReduceContext)}, aggregations
+     * that can merge shard results one at a time should override it.
+     */
+    public AggregatorReducer getReducer(ReduceContext partialReduceContext) {
+        return new BufferingAggregatorReducer(partialReduceContext);
+    }
+
     /**
      * Signal the framework if the {@linkplain InternalAggregation#reduce(List, ReduceContext)} phase needs to be called
      * when there is only one {@linkplain InternalAggregation}.
@@ -0,0 +1,77 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * An {@link AggregatorReducer} for multi-bucket aggregations whose partial reductions are the union of the buckets of
+ * all shards, sorted by key. It keeps a single bucket per key in a hash table that is sized on the first aggregation,
+ * and merges the bucket of every new aggregation into it as it arrives.
+ */
+public final class KeyedBucketsAggregatorReducer<
+    A extends InternalMultiBucketAggregation<A, B>,
+    B extends InternalMultiBucketAggregation.InternalBucket> implements AggregatorReducer {
+
+    private final A prototype;
+    private final ReduceContext partialReduceContext;
+    private final Function<B, Object> keyFunction;
+    private final Comparator<B> keyComparator;
+    private Map<Object, B> buckets;
+
+    /**
+     * @param prototype the aggregation that leads the reduction, the partial reductions are built with its
+     *                  {@link InternalMultiBucketAggregation#create(List)}
+     * @param keyFunction extracts the key of a bucket
+     * @param keyComparator the order of the buckets in the partial reductions
+     */
+    public KeyedBucketsAggregatorReducer(
+        A prototype,
+        ReduceContext partialReduceContext,
+        Function<B, Object> keyFunction,
+        Comparator<B> keyComparator
+    ) {
+        assert partialReduceContext.isFinalReduce() == false;
+        this.prototype = prototype;
+        this.partialReduceContext = partialReduceContext;
+        this.keyFunction = keyFunction;
+        this.keyComparator = keyComparator;
+    }
+
+    @Override
+    public void accept(InternalAggregation aggregation) {
+        @SuppressWarnings("unchecked")
+        A agg = (A) aggregation;
+        if (buckets == null) {
+            // most shards return the same keys so the first one is a good guess of the final size
+            buckets = new HashMap<>((int) (agg.getBuckets().size() / 0.75f) + 1);
+        }
+        for (B bucket : agg.getBuckets()) {
+            buckets.merge(keyFunction.apply(bucket), bucket, this::merge);
+        }
+    }
+
+    private B merge(B existing, B bucket) {
+        return prototype.reduceBucket(List.of(existing, bucket), partialReduceContext);
+    }
+
+    @Override
+    public InternalAggregation get() {
+        List<B> reduced = buckets == null ? new ArrayList<>() : new ArrayList<>(buckets.values());
+        reduced.sort(keyComparator);
+        return prototype.create(reduced);
+    }
+}
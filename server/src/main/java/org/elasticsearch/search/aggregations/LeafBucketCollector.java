@@ -38,6 +38,11 @@ public abstract class LeafBucketCollector implements LeafCollector {
             // no-op
         }
 
+        @Override
+        public void collect(int[] docs, int count, long bucket) {
+            // no-op
+        }
+
         @Override
         public boolean isNoop() {
             return true;
@@ -73,6 +78,22 @@ public abstract class LeafBucketCollector implements LeafCollector {
      */
     public abstract void collect(int doc, long owningBucketOrd) throws IOException;
 
+    /**
+     * Collect the first {@code count} docs of {@code docs}, which are in
+     * increasing order, in the bucket owned by {@code owningBucketOrd}.
+     * <p>
+     * Bucket aggregators that know that a whole block of docs falls into
+     * the same bucket call this instead of {@link #collect(int, long)} so
+     * that metric aggregations can read the values of the block at once
+     * and accumulate them in a tight loop. The default implementation
+     * collects the docs one by one.
+     */
+    public void collect(int[] docs, int count, long owningBucketOrd) throws IOException {
+        for (int i = 0; i < count; i++) {
+            collect(docs[i], owningBucketOrd);
+        }
+    }
+
     /**
      * Does this collector collect anything? If this returns true we can safely
      * just never call {@link #collect}.
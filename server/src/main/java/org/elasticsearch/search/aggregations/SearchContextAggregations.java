@@ -7,19 +7,44 @@
  */
 package org.elasticsearch.search.aggregations;
 
+import org.elasticsearch.common.CheckedSupplier;
+import org.elasticsearch.core.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * The aggregation context that is part of the search context.
  */
 public class SearchContextAggregations {
 
     private final AggregatorFactories factories;
+    private final CheckedSupplier<AggregatorFactories, IOException> sliceFactoriesBuilder;
     private Aggregator[] aggregators;
+    private final List<AggregatorFactories> sliceFactories = new ArrayList<>();
+    private final List<Aggregator[]> sliceAggregators = new ArrayList<>();
 
     /**
      * Creates a new aggregation context with the parsed aggregator factories
      */
     public SearchContextAggregations(AggregatorFactories factories) {
+        this(factories, null);
+    }
+
+    /**
+     * Creates a new aggregation context with the parsed aggregator factories
+     *
+     * @param sliceFactoriesBuilder builds the aggregator factories, with their own {@link AggregatorFactories#context()}, of each
+     *                              additional slice of a concurrent search or {@code null} if the aggregations can't collect
+     *                              slices concurrently, see {@link AggregationBuilder#supportsConcurrentCollection()}
+     */
+    public SearchContextAggregations(
+        AggregatorFactories factories,
+        @Nullable CheckedSupplier<AggregatorFactories, IOException> sliceFactoriesBuilder
+    ) {
         this.factories = factories;
+        this.sliceFactoriesBuilder = sliceFactoriesBuilder;
     }
 
     public AggregatorFactories factories() {
@@ -38,4 +63,35 @@ public class SearchContextAggregations {
     public void aggregators(Aggregator[] aggregators) {
         this.aggregators = aggregators;
     }
+
+    public boolean supportsConcurrentCollection() {
+        return sliceFactoriesBuilder != null;
+    }
+
+    /**
+     * Creates the top level aggregators collecting an additional slice of a concurrent search. They are built from their own
+     * factories so that they don't share the breaker, bucket consumer and lookup of the aggregators of the other slices.
+     */
+    public Aggregator[] createSliceAggregators() throws IOException {
+        assert supportsConcurrentCollection();
+        AggregatorFactories factories = sliceFactoriesBuilder.get();
+        Aggregator[] aggregators = factories.createTopLevelAggregators();
+        sliceFactories.add(factories);
+        sliceAggregators.add(aggregators);
+        return aggregators;
+    }
+
+    /**
+     * The factories of the additional slices of a concurrent search, in the order of {@link #sliceAggregators()}.
+     */
+    public List<AggregatorFactories> sliceFactories() {
+        return sliceFactories;
+    }
+
+    /**
+     * The top level aggregators of the additional slices of a concurrent search, the first slice is collected by {@link #aggregators()}.
+     */
+    public List<Aggregator[]> sliceAggregators() {
+        return sliceAggregators;
+    }
 }
@@ -92,6 +92,22 @@ public abstract class BucketsAggregator extends AggregatorBase {
         subCollector.collect(doc, bucketOrd);
     }
 
+    /**
+     * Utility method to collect the first {@code count} docs of {@code docs} in the given bucket (identified by the bucket ordinal).
+     */
+    public final void collectBucket(LeafBucketCollector subCollector, int[] docs, int count, long bucketOrd) throws IOException {
+        grow(bucketOrd + 1);
+        long docCount = 0;
+        for (int i = 0; i < count; i++) {
+            docCount += docCountProvider.getDocCount(docs[i]);
+        }
+        if (docCounts.increment(bucketOrd, docCount) == docCount) {
+            // see collectExistingBucket
+            multiBucketConsumer.accept(0);
+        }
+        subCollector.collect(docs, count, bucketOrd);
+    }
+
     /**
      * Merge doc counts. If the {@linkplain Aggregator} is delayed then you must also call
      * {@link BestBucketsDeferringCollector#rewriteBuckets(LongUnaryOperator)} to merge the delayed buckets.
@@ -0,0 +1,225 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.composite;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.Query;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.mapper.MappedFieldType;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The work of a page of a {@link CompositeAggregator} that the next pages of the same composite aggregation can
+ * skip when they search the same point in time. For each segment it records the range of doc ids that contains all
+ * documents that produced a composite key after the {@code after} key of the page. {@code after} keys only move
+ * forward when paging so the documents outside of these ranges never produce a competitive key again and the next
+ * pages only visit the ranges. When documents are indexed roughly in the order of the composite keys, like time
+ * series, every page shrinks the ranges so paging through a whole index doesn't visit all of its documents on
+ * every page.
+ * <p>
+ * Cursors are immutable and shared by all requests on the point in time, see
+ * {@link org.elasticsearch.search.aggregations.support.AggregationContext#pointInTimeState}.
+ */
+final class CompositeAggregationCursor {
+    /**
+     * The key of the cursors in the state of the point in time.
+     */
+    static final String POINT_IN_TIME_STATE_KEY = "composite_aggregation_cursors";
+    /**
+     * The maximum number of different composite aggregations that keep a cursor on a point in time.
+     */
+    static final int MAX_CURSORS_PER_POINT_IN_TIME = 16;
+
+    /**
+     * Identifies the composite aggregations that can share a cursor: the same sources on the same fields, which
+     * are compared by identity so that runtime fields defined by different requests never match, and the same
+     * query.
+     */
+    static final class Key {
+        private final List<CompositeValuesSourceBuilder<?>> sources;
+        private final MappedFieldType[] fieldTypes;
+        private final Query query;
+
+        Key(List<CompositeValuesSourceBuilder<?>> sources, MappedFieldType[] fieldTypes, Query query) {
+            this.sources = sources;
+            this.fieldTypes = fieldTypes;
+            this.query = query;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == null || obj.getClass() != getClass()) {
+                return false;
+            }
+            Key other = (Key) obj;
+            if (fieldTypes.length != other.fieldTypes.length) {
+                return false;
+            }
+            for (int i = 0; i < fieldTypes.length; i++) {
+                if (fieldTypes[i] != other.fieldTypes[i]) {
+                    return false;
+                }
+            }
+            return sources.equals(other.sources) && query.equals(other.query);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = Objects.hash(sources, query);
+            for (MappedFieldType fieldType : fieldTypes) {
+                result = 31 * result + System.identityHashCode(fieldType);
+            }
+            return result;
+        }
+    }
+
+    /*
+     * The core cache keys of the segments of the reader. Every request wraps the reader of the point in time
+     * in its own ExitableDirectoryReader so we can't compare readers by identity.
+     */
+    private final IndexReader.CacheKey[] leafKeys;
+    private final int[] reverseMuls;
+    private final MissingOrder[] missingOrders;
+    @Nullable
+    private final Comparable<?>[] afterKey;
+    private final int[] minDocs;
+    private final int[] maxDocs;
+
+    /**
+     * Build a cursor.
+     *
+     * @param reader        the reader of the point in time
+     * @param reverseMuls   the order of each source
+     * @param missingOrders the order of the missing bucket of each source
+     * @param afterKey      the {@code after} key of the page, as parsed by the sources, or {@code null} for the first page
+     * @param minDocs       the first doc id to visit in each segment
+     * @param maxDocs       the doc id after the last one to visit in each segment
+     */
+    CompositeAggregationCursor(
+        IndexReader reader,
+        int[] reverseMuls,
+        MissingOrder[] missingOrders,
+        @Nullable Comparable<?>[] afterKey,
+        int[] minDocs,
+        int[] maxDocs
+    ) {
+        this(leafKeys(reader), reverseMuls, missingOrders, afterKey, minDocs, maxDocs);
+    }
+
+    private CompositeAggregationCursor(
+        IndexReader.CacheKey[] leafKeys,
+        int[] reverseMuls,
+        MissingOrder[] missingOrders,
+        @Nullable Comparable<?>[] afterKey,
+        int[] minDocs,
+        int[] maxDocs
+    ) {
+        assert minDocs.length == leafKeys.length && maxDocs.length == minDocs.length;
+        this.leafKeys = leafKeys;
+        this.reverseMuls = reverseMuls;
+        this.missingOrders = missingOrders;
+        this.afterKey = afterKey;
+        this.minDocs = minDocs;
+        this.maxDocs = maxDocs;
+    }
+
+    /**
+     * The first doc id to visit in the segment at {@code leafOrd}.
+     */
+    int minDoc(int leafOrd) {
+        return minDocs[leafOrd];
+    }
+
+    /**
+     * The doc id after the last one to visit in the segment at {@code leafOrd}.
+     */
+    int maxDoc(int leafOrd) {
+        return maxDocs[leafOrd];
+    }
+
+    /**
+     * Can a page on {@code reader} with the provided {@code after} key skip the documents this cursor skips? That
+     * is the case if it searches the same segments and its {@code after} key isn't before the one of this cursor.
+     */
+    boolean canResume(IndexReader reader, @Nullable Comparable<?>[] afterKey) {
+        return sameSegments(leafKeys, leafKeys(reader)) && compareAfterKeys(afterKey, this.afterKey) >= 0;
+    }
+
+    /**
+     * Merge with a cursor of another page, for instance the one of a concurrent request or of another slice
+     * of the segments. The merged cursor is valid for the {@code after} keys that are valid for both cursors
+     * so it visits the intersection of their ranges.
+     */
+    CompositeAggregationCursor merge(CompositeAggregationCursor other) {
+        if (sameSegments(leafKeys, other.leafKeys) == false) {
+            return other;
+        }
+        Comparable<?>[] mergedAfterKey = compareAfterKeys(afterKey, other.afterKey) >= 0 ? afterKey : other.afterKey;
+        int[] mergedMinDocs = new int[minDocs.length];
+        int[] mergedMaxDocs = new int[maxDocs.length];
+        for (int i = 0; i < minDocs.length; i++) {
+            mergedMinDocs[i] = Math.max(minDocs[i], other.minDocs[i]);
+            mergedMaxDocs[i] = Math.max(mergedMinDocs[i], Math.min(maxDocs[i], other.maxDocs[i]));
+        }
+        return new CompositeAggregationCursor(leafKeys, reverseMuls, missingOrders, mergedAfterKey, mergedMinDocs, mergedMaxDocs);
+    }
+
+    private static IndexReader.CacheKey[] leafKeys(IndexReader reader) {
+        IndexReader.CacheKey[] keys = new IndexReader.CacheKey[reader.leaves().size()];
+        for (LeafReaderContext leaf : reader.leaves()) {
+            IndexReader.CacheHelper cacheHelper = leaf.reader().getCoreCacheHelper();
+            keys[leaf.ord] = cacheHelper == null ? null : cacheHelper.getKey();
+        }
+        return keys;
+    }
+
+    /**
+     * Do both readers have the same segments? Readers without core cache keys never match.
+     */
+    private static boolean sameSegments(IndexReader.CacheKey[] lhs, IndexReader.CacheKey[] rhs) {
+        if (lhs.length != rhs.length) {
+            return false;
+        }
+        for (int i = 0; i < lhs.length; i++) {
+            if (lhs[i] == null || lhs[i] != rhs[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares two {@code after} keys in the order of the composite buckets, a missing {@code after} key sorting first.
+     */
+    private int compareAfterKeys(@Nullable Comparable<?>[] lhs, @Nullable Comparable<?>[] rhs) {
+        if (lhs == null || rhs == null) {
+            return lhs == null ? (rhs == null ? 0 : -1) : 1;
+        }
+        for (int i = 0; i < lhs.length; i++) {
+            if (lhs[i] == null) {
+                if (rhs[i] == null) {
+                    continue;
+                }
+                return -1 * missingOrders[i].compareAnyValueToMissing(reverseMuls[i]);
+            } else if (rhs[i] == null) {
+                return missingOrders[i].compareAnyValueToMissing(reverseMuls[i]);
+            }
+            assert lhs[i].getClass() == rhs[i].getClass();
+            @SuppressWarnings({ "unchecked", "rawtypes" })
+            int cmp = ((Comparable) lhs[i]).compareTo(rhs[i]) * reverseMuls[i];
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+}
@@ -15,12 +15,14 @@ import org.elasticsearch.search.aggregations.CardinalityUpperBound;
 import org.elasticsearch.search.aggregations.support.AggregationContext;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 
 class CompositeAggregationFactory extends AggregatorFactory {
     private final int size;
     private final CompositeValuesSourceConfig[] sources;
     private final CompositeKey afterKey;
+    private final List<CompositeValuesSourceBuilder<?>> sourceBuilders;
 
     CompositeAggregationFactory(
         String name,
@@ -30,17 +32,19 @@ class CompositeAggregationFactory extends AggregatorFactory {
         Map<String, Object> metadata,
         int size,
         CompositeValuesSourceConfig[] sources,
-        CompositeKey afterKey
+        CompositeKey afterKey,
+        List<CompositeValuesSourceBuilder<?>> sourceBuilders
     ) throws IOException {
         super(name, context, parent, subFactoriesBuilder, metadata);
         this.size = size;
         this.sources = sources;
         this.afterKey = afterKey;
+        this.sourceBuilders = sourceBuilders;
     }
 
     @Override
     protected Aggregator createInternal(Aggregator parent, CardinalityUpperBound cardinality, Map<String, Object> metadata)
         throws IOException {
-        return new CompositeAggregator(name, factories, context, parent, metadata, size, sources, afterKey);
+        return new CompositeAggregator(name, factories, context, parent, metadata, size, sources, afterKey, sourceBuilders);
     }
 }
@@ -9,6 +9,7 @@
 package org.elasticsearch.search.aggregations.bucket.composite;
 
 import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.index.SortedNumericDocValues;
@@ -33,8 +34,10 @@ import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.RoaringDocIdSet;
 import org.elasticsearch.ElasticsearchParseException;
 import org.elasticsearch.common.Rounding;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.core.Releasables;
 import org.elasticsearch.index.IndexSortConfig;
+import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.lucene.queries.SearchAfterSortedDocQuery;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.AggregationExecutionException;
@@ -84,6 +87,19 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
 
     private boolean earlyTerminated;
 
+    /*
+     * Cursors of the previous pages on the same point in time or null if
+     * the request doesn't search a point in time, see CompositeAggregationCursor.
+     */
+    private final List<CompositeValuesSourceBuilder<?>> sourceBuilders;
+    private final Map<CompositeAggregationCursor.Key, CompositeAggregationCursor> cursors;
+    private CompositeAggregationCursor.Key cursorKey;
+    private Comparable<?>[] parsedAfterKey;
+    private int[] cursorMinDocs;
+    private int[] cursorMaxDocs;
+    private Weight cursorWeight;
+    private boolean afterAfterKey;
+
     CompositeAggregator(
         String name,
         AggregatorFactories factories,
@@ -92,7 +108,8 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
         Map<String, Object> metadata,
         int size,
         CompositeValuesSourceConfig[] sourceConfigs,
-        CompositeKey rawAfterKey
+        CompositeKey rawAfterKey,
+        List<CompositeValuesSourceBuilder<?>> sourceBuilders
     ) throws IOException {
         super(name, factories, context, parent, CardinalityUpperBound.MANY, metadata);
         this.size = size;
@@ -142,6 +159,16 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
             }
         }
         this.rawAfterKey = rawAfterKey;
+        this.sourceBuilders = sourceBuilders;
+        if (parent == null && Arrays.stream(sourceConfigs).noneMatch(CompositeValuesSourceConfig::hasScript)) {
+            this.cursors = context.pointInTimeState(
+                CompositeAggregationCursor.POINT_IN_TIME_STATE_KEY,
+                ConcurrentCollections::newConcurrentMap
+            );
+        } else {
+            // scripts may not return the same values on the next page
+            this.cursors = null;
+        }
     }
 
     @Override
@@ -157,11 +184,52 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
     protected void doPreCollection() throws IOException {
         deferredCollectors = MultiBucketCollector.wrap(false, Arrays.asList(subAggregators));
         collectableSubAggregators = BucketCollector.NO_OP_COLLECTOR;
+        if (cursors != null) {
+            startCursor();
+        }
     }
 
     @Override
     protected void doPostCollection() throws IOException {
         finishLeaf();
+        if (cursorKey != null) {
+            CompositeAggregationCursor cursor = new CompositeAggregationCursor(
+                searcher().getIndexReader(),
+                reverseMuls,
+                missingOrders,
+                parsedAfterKey,
+                cursorMinDocs,
+                cursorMaxDocs
+            );
+            if (cursors.size() < CompositeAggregationCursor.MAX_CURSORS_PER_POINT_IN_TIME || cursors.containsKey(cursorKey)) {
+                cursors.merge(cursorKey, cursor, CompositeAggregationCursor::merge);
+            }
+        }
+    }
+
+    /**
+     * Start from the cursor of the previous page on the same point in time
+     * if there is one we can resume from.
+     */
+    private void startCursor() {
+        IndexReader reader = searcher().getIndexReader();
+        MappedFieldType[] fieldTypes = Arrays.stream(sourceConfigs)
+            .map(CompositeValuesSourceConfig::fieldType)
+            .toArray(MappedFieldType[]::new);
+        cursorKey = new CompositeAggregationCursor.Key(sourceBuilders, fieldTypes, topLevelQuery());
+        if (rawAfterKey != null) {
+            parsedAfterKey = Arrays.stream(sources).map(SingleDimensionValuesSource::getAfter).toArray(Comparable<?>[]::new);
+        }
+        CompositeAggregationCursor previous = cursors.get(cursorKey);
+        if (previous != null && previous.canResume(reader, parsedAfterKey) == false) {
+            previous = null;
+        }
+        cursorMinDocs = new int[reader.leaves().size()];
+        cursorMaxDocs = new int[reader.leaves().size()];
+        for (LeafReaderContext leaf : reader.leaves()) {
+            cursorMinDocs[leaf.ord] = previous == null ? 0 : previous.minDoc(leaf.ord);
+            cursorMaxDocs[leaf.ord] = previous == null ? leaf.reader().maxDoc() : previous.maxDoc(leaf.ord);
+        }
     }
 
     @Override
@@ -434,6 +502,47 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
         }
     }
 
+    private void processLeafFromCursor(LeafReaderContext ctx) throws IOException {
+        int from = cursorMinDocs[ctx.ord];
+        int to = cursorMaxDocs[ctx.ord];
+        int minDoc = -1;
+        int maxDoc = -1;
+        if (from < to) {
+            if (cursorWeight == null) {
+                cursorWeight = searcher().createWeight(searcher().rewrite(topLevelQuery()), ScoreMode.COMPLETE_NO_SCORES, 1f);
+            }
+            Scorer scorer = cursorWeight.scorer(ctx);
+            LeafBucketCollector inner = null;
+            if (scorer != null) {
+                try {
+                    inner = queue.getLeafCollector(ctx, getCursorCollector(getFirstPassCollector(docIdSetBuilder, 0)));
+                } catch (CollectionTerminatedException e) {
+                    // there is nothing to collect in this segment
+                }
+            }
+            if (inner != null) {
+                inner.setScorer(scorer);
+                final Bits liveDocs = ctx.reader().getLiveDocs();
+                final DocIdSetIterator docIt = scorer.iterator();
+                for (int doc = docIt.advance(from); doc < to; doc = docIt.nextDoc()) {
+                    if (liveDocs == null || liveDocs.get(doc)) {
+                        afterAfterKey = false;
+                        inner.collect(doc);
+                        if (afterAfterKey) {
+                            if (minDoc == -1) {
+                                minDoc = doc;
+                            }
+                            maxDoc = doc;
+                        }
+                    }
+                }
+            }
+        }
+        // We only get here once we visited the whole range so the next pages can skip what we didn't record
+        cursorMinDocs[ctx.ord] = minDoc == -1 ? 0 : minDoc;
+        cursorMaxDocs[ctx.ord] = maxDoc + 1;
+    }
+
     @Override
     protected LeafBucketCollector getLeafCollector(LeafReaderContext ctx, LeafBucketCollector sub) throws IOException {
         finishLeaf();
@@ -477,6 +586,11 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
                      */
                 }
                 return LeafBucketCollector.NO_OP_COLLECTOR;
+            } else if (cursorKey != null && sortPrefixLen == 0) {
+                // We search a point in time so we only visit the documents that previous pages couldn't skip
+                // and record the ones that the next pages can't skip.
+                processLeafFromCursor(ctx);
+                return LeafBucketCollector.NO_OP_COLLECTOR;
             } else {
                 final LeafBucketCollector inner;
                 try {
@@ -520,6 +634,22 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
         };
     }
 
+    /**
+     * Wraps the first pass to record whether the current document produced a
+     * key after the {@code after} key, whether it made it in the queue or not.
+     */
+    private LeafBucketCollector getCursorCollector(LeafBucketCollector firstPass) {
+        return new LeafBucketCollector() {
+            @Override
+            public void collect(int doc, long bucket) throws IOException {
+                firstPass.collect(doc, bucket);
+                if (afterAfterKey == false) {
+                    afterAfterKey = queue.isCurrentAfterAfterKey();
+                }
+            }
+        };
+    }
+
     /**
      * Replay the documents that might contain a top bucket and pass top buckets to
      * the {@link #deferredCollectors}.
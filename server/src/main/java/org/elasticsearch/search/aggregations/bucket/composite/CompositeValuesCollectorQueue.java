@@ -207,6 +207,14 @@ final class CompositeValuesCollectorQueue extends PriorityQueue<Integer> impleme
         return 0;
     }
 
+    /**
+     * Returns true if the current candidate is after the after key or if
+     * there is no after key.
+     */
+    boolean isCurrentAfterAfterKey() {
+        return afterKeyIsSet == false || compareCurrentWithAfter() > 0;
+    }
+
     /**
      * Builds the {@link CompositeKey} for <code>slot</code>.
      */
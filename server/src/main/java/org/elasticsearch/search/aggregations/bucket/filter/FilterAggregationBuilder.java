@@ -80,6 +80,11 @@ public class FilterAggregationBuilder extends AbstractAggregationBuilder<FilterA
         return BucketCardinality.ONE;
     }
 
+    @Override
+    public boolean supportsConcurrentCollection() {
+        return subAggregationsSupportConcurrentCollection();
+    }
+
     @Override
     protected AggregationBuilder doRewrite(QueryRewriteContext queryRewriteContext) throws IOException {
         QueryBuilder result = Rewriteable.rewrite(filter, queryRewriteContext);
@@ -36,6 +36,12 @@ import java.util.function.BiConsumer;
  * or any child aggregators.
  */
 public class FilterByFilterAggregator extends FiltersAggregator {
+    /**
+     * The number of matches that are buffered before being sent to the
+     * sub-aggregators in a single {@link LeafBucketCollector#collect(int[], int, long)}.
+     */
+    static final int COLLECT_BLOCK_SIZE = 128;
+
     /**
      * Builds {@link FilterByFilterAggregator} when the filters are valid and
      * it would be faster than a "native" aggregation implementation. The
@@ -253,18 +259,35 @@ public class FilterByFilterAggregator extends FiltersAggregator {
      * into ascending order without the resetting. That'd probably
      * work better if the disk was very, very slow and we didn't have
      * any kind of disk caching. But with disk caching its about twice
-     * as fast to collect each filter one by one like this. And it uses
-     * less memory because there isn't a need to buffer a block of matches.
-     * And its a hell of a lot less code.
+     * as fast to collect each filter one by one like this. And its a
+     * hell of a lot less code.
+     * <p>
+     * The matches of each filter are still buffered, but only in small
+     * blocks of {@link #COLLECT_BLOCK_SIZE} docs that all fall into the
+     * filter's bucket. Each block is sent to the sub-aggregators in a
+     * single call so they can read the values of the whole block at once.
      */
     private void collectSubs(LeafReaderContext ctx, Bits live, LeafBucketCollector sub) throws IOException {
         class MatchCollector implements LeafCollector {
             LeafBucketCollector subCollector = sub;
             int filterOrd;
+            // matches are sent to the sub-aggregators in blocks so they can read their values in bulk
+            final int[] docs = new int[COLLECT_BLOCK_SIZE];
+            int count;
 
             @Override
             public void collect(int docId) throws IOException {
-                collectBucket(subCollector, docId, filterOrd);
+                docs[count++] = docId;
+                if (count == docs.length) {
+                    flush();
+                }
+            }
+
+            void flush() throws IOException {
+                if (count > 0) {
+                    collectBucket(subCollector, docs, count, filterOrd);
+                    count = 0;
+                }
             }
 
             @Override
@@ -272,10 +295,12 @@ public class FilterByFilterAggregator extends FiltersAggregator {
         }
         MatchCollector collector = new MatchCollector();
         filters().get(0).collect(ctx, collector, live);
+        collector.flush();
         for (int filterOrd = 1; filterOrd < filters().size(); filterOrd++) {
             collector.subCollector = collectableSubAggregators.getLeafCollector(ctx);
             collector.filterOrd = filterOrd;
             filters().get(filterOrd).collect(ctx, collector, live);
+            collector.flush();
         }
     }
 
@@ -190,6 +190,11 @@ public class FiltersAggregationBuilder extends AbstractAggregationBuilder<Filter
         return BucketCardinality.MANY;
     }
 
+    @Override
+    public boolean supportsConcurrentCollection() {
+        return subAggregationsSupportConcurrentCollection();
+    }
+
     @Override
     protected AggregationBuilder doRewrite(QueryRewriteContext queryRewriteContext) throws IOException {
         List<KeyedFilter> rewrittenFilters = new ArrayList<>(filters.size());
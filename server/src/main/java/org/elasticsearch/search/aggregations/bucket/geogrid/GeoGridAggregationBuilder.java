@@ -177,6 +177,12 @@ public abstract class GeoGridAggregationBuilder extends ValuesSourceAggregationB
         return BucketCardinality.MANY;
     }
 
+    @Override
+    public boolean supportsConcurrentCollection() {
+        // each slice would only keep its own top shard_size cells, missing the counts of the cells pruned in some slices
+        return false;
+    }
+
     @Override
     protected ValuesSourceAggregatorFactory innerBuild(
         AggregationContext context,
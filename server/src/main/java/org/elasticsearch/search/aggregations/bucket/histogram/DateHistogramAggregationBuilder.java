@@ -363,6 +363,11 @@ public class DateHistogramAggregationBuilder extends ValuesSourceAggregationBuil
         return BucketCardinality.MANY;
     }
 
+    @Override
+    public boolean supportsConcurrentCollection() {
+        return subAggregationsSupportConcurrentCollection();
+    }
+
     @Override
     protected XContentBuilder doXContentBody(XContentBuilder builder, Params params) throws IOException {
 
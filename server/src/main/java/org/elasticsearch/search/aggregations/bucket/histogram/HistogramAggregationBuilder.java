@@ -322,6 +322,11 @@ public class HistogramAggregationBuilder extends ValuesSourceAggregationBuilder<
         return BucketCardinality.MANY;
     }
 
+    @Override
+    public boolean supportsConcurrentCollection() {
+        return subAggregationsSupportConcurrentCollection();
+    }
+
     @Override
     protected XContentBuilder doXContentBody(XContentBuilder builder, Params params) throws IOException {
 
@@ -90,6 +90,11 @@ public class MissingAggregationBuilder extends ValuesSourceAggregationBuilder<Mi
         return BucketCardinality.ONE;
     }
 
+    @Override
+    public boolean supportsConcurrentCollection() {
+        return subAggregationsSupportConcurrentCollection();
+    }
+
     protected ValuesSourceAggregatorFactory innerBuild(
         AggregationContext context,
         ValuesSourceConfig config,
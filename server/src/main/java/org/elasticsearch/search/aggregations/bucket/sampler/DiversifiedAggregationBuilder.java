@@ -151,6 +151,12 @@ public class DiversifiedAggregationBuilder extends ValuesSourceAggregationBuilde
         return BucketCardinality.ONE;
     }
 
+    @Override
+    public boolean supportsConcurrentCollection() {
+        // samples would be taken per slice, each of up to shard_size documents
+        return false;
+    }
+
     @Override
     protected ValuesSourceAggregatorFactory innerBuild(
         AggregationContext context,
@@ -77,6 +77,12 @@ public class SamplerAggregationBuilder extends AbstractAggregationBuilder<Sample
         return BucketCardinality.ONE;
     }
 
+    @Override
+    public boolean supportsConcurrentCollection() {
+        // samples would be taken per slice, each of up to shard_size documents
+        return false;
+    }
+
     @Override
     protected SamplerAggregatorFactory doBuild(AggregationContext context, AggregatorFactory parent, Builder subFactoriesBuilder)
         throws IOException {
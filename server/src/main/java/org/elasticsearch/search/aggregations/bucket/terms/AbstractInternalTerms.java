@@ -11,6 +11,7 @@ package org.elasticsearch.search.aggregations.bucket.terms;
 import org.apache.lucene.util.PriorityQueue;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.search.aggregations.AggregationExecutionException;
+import org.elasticsearch.search.aggregations.AggregatorReducer;
 import org.elasticsearch.search.aggregations.BucketOrder;
 import org.elasticsearch.search.aggregations.DelayedBucket;
 import org.elasticsearch.search.aggregations.InternalAggregation;
@@ -340,6 +341,99 @@ public abstract class AbstractInternalTerms<A extends AbstractInternalTerms<A, B
         return create(name, result, reduceContext.isFinalReduce() ? getOrder() : thisReduceOrder, docCountError, otherDocCount[0]);
     }
 
+    /**
+     * Builds an {@link AggregatorReducer} that merges the buckets of each shard into a hash table keyed
+     * by term as they arrive, for implementations whose shard results can only be reduced with results
+     * of the same class.
+     */
+    protected final AggregatorReducer termsReducer(ReduceContext partialReduceContext, Function<B, Object> keyFunction) {
+        return new TermsReducer(partialReduceContext, keyFunction);
+    }
+
+    /**
+     * The partial reductions of this reducer are sorted by key and apply the same doc count error bookkeeping
+     * as {@link #reduce}.
+     */
+    private class TermsReducer implements AggregatorReducer {
+        private final ReduceContext partialReduceContext;
+        private final Function<B, Object> keyFunction;
+        private Map<Object, B> buckets;
+        private A referenceTerms;
+        private long sumDocCountError = 0;
+        private long otherDocCount = 0;
+        private int count = 0;
+
+        TermsReducer(ReduceContext partialReduceContext, Function<B, Object> keyFunction) {
+            assert partialReduceContext.isFinalReduce() == false;
+            this.partialReduceContext = partialReduceContext;
+            this.keyFunction = keyFunction;
+        }
+
+        @Override
+        public void accept(InternalAggregation aggregation) {
+            @SuppressWarnings("unchecked")
+            A terms = (A) aggregation;
+            if (referenceTerms == null && terms.isMapped()) {
+                referenceTerms = terms;
+            }
+            if (referenceTerms != null && referenceTerms.getClass().equals(terms.getClass()) == false && terms.isMapped()) {
+                throw new AggregationExecutionException(
+                    "Merging/Reducing the aggregations failed when computing the aggregation ["
+                        + referenceTerms.getName()
+                        + "] because the field you gave in the aggregation query existed as two different "
+                        + "types in two different indices"
+                );
+            }
+            count++;
+            otherDocCount += terms.getSumOfOtherDocCounts();
+            final long thisAggDocCountError = getDocCountError(terms);
+            if (sumDocCountError != -1) {
+                if (thisAggDocCountError == -1) {
+                    sumDocCountError = -1;
+                } else {
+                    sumDocCountError += thisAggDocCountError;
+                }
+            }
+            setDocCountError(thisAggDocCountError);
+            if (buckets == null) {
+                // most shards return the same terms so the first one is a good guess of the final size
+                buckets = new HashMap<>((int) (terms.getBuckets().size() / 0.75f) + 1);
+            }
+            for (B bucket : terms.getBuckets()) {
+                // see reduce for why we subtract the error of this agg
+                bucket.updateDocCountError(-thisAggDocCountError);
+                buckets.merge(keyFunction.apply(bucket), bucket, (existing, b) -> reduceBucket(List.of(existing, b), partialReduceContext));
+            }
+        }
+
+        @Override
+        public InternalAggregation get() {
+            final BucketOrder reduceOrder = InternalOrder.key(true);
+            final List<B> result = new ArrayList<>(buckets == null ? 0 : buckets.size());
+            if (buckets != null) {
+                for (B bucket : buckets.values()) {
+                    // copy the bucket so that fixing the doc count error below doesn't modify the running reduction
+                    result.add(reduceBucket(List.of(bucket), partialReduceContext));
+                }
+            }
+            result.sort(reduceOrder.comparator());
+            for (B r : result) {
+                if (sumDocCountError == -1) {
+                    r.setDocCountError(-1);
+                } else {
+                    r.updateDocCountError(sumDocCountError);
+                }
+            }
+            long docCountError;
+            if (sumDocCountError == -1) {
+                docCountError = -1;
+            } else {
+                docCountError = count == 1 ? 0 : sumDocCountError;
+            }
+            return create(name, result, reduceOrder, docCountError, otherDocCount);
+        }
+    }
+
     protected static XContentBuilder doXContentCommon(
         XContentBuilder builder,
         Params params,
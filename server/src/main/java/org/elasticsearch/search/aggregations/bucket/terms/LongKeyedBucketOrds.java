@@ -11,7 +11,9 @@ package org.elasticsearch.search.aggregations.bucket.terms;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.LongHash;
 import org.elasticsearch.common.util.LongLongHash;
+import org.elasticsearch.common.util.SwissLongLongHash;
 import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.Releasables;
 import org.elasticsearch.search.aggregations.CardinalityUpperBound;
 
 import java.util.Locale;
@@ -229,36 +231,99 @@ public abstract class LongKeyedBucketOrds implements Releasable {
 
     /**
      * Implementation that works properly when collecting from many buckets.
+     * <p>
+     * It starts out with a {@link LongLongHash} and switches to a
+     * {@link SwissLongLongHash} once it has collected
+     * {@link #SWISS_TABLE_THRESHOLD} buckets. Linear probing is hard to beat
+     * while the table fits in the CPU caches but past that point every probe
+     * is likely to be a cache miss and the swiss table, which probes a whole
+     * group of slots with a single read, needs far fewer of them. Switching
+     * keeps the bucket ords because both tables assign ids in insertion
+     * order.
      */
     public static class FromMany extends LongKeyedBucketOrds {
-        private final LongLongHash ords;
+        /**
+         * The number of buckets at which we switch to a {@link SwissLongLongHash}.
+         */
+        public static final long SWISS_TABLE_THRESHOLD = 1 << 16;
+
+        private final BigArrays bigArrays;
+        private final long swissTableThreshold;
+        private LongLongHash ords;
+        private SwissLongLongHash swissOrds;
 
         public FromMany(BigArrays bigArrays) {
-            ords = new LongLongHash(2, bigArrays);
+            this(bigArrays, SWISS_TABLE_THRESHOLD);
+        }
+
+        /**
+         * Build with a custom number of buckets at which we switch to a
+         * {@link SwissLongLongHash}. {@code 0} uses one from the start.
+         */
+        public FromMany(BigArrays bigArrays, long swissTableThreshold) {
+            this.bigArrays = bigArrays;
+            this.swissTableThreshold = swissTableThreshold;
+            if (swissTableThreshold == 0) {
+                swissOrds = new SwissLongLongHash(2, bigArrays);
+            } else {
+                ords = new LongLongHash(2, bigArrays);
+            }
         }
 
         @Override
         public long add(long owningBucketOrd, long value) {
             // This is in the critical path for collecting most aggs. Be careful of performance.
-            return ords.add(owningBucketOrd, value);
+            if (swissOrds != null) {
+                return swissOrds.add(owningBucketOrd, value);
+            }
+            long ord = ords.add(owningBucketOrd, value);
+            if (ord >= swissTableThreshold - 1) {
+                switchToSwissTable();
+            }
+            return ord;
+        }
+
+        private void switchToSwissTable() {
+            SwissLongLongHash newOrds = new SwissLongLongHash(ords.size() * 2, bigArrays);
+            try {
+                for (long i = 0; i < ords.size(); i++) {
+                    long ord = newOrds.add(ords.getKey1(i), ords.getKey2(i));
+                    assert ord == i;
+                }
+            } catch (RuntimeException e) {
+                newOrds.close();
+                throw e;
+            }
+            ords.close();
+            ords = null;
+            swissOrds = newOrds;
+        }
+
+        private long key1(long ordinal) {
+            return swissOrds == null ? ords.getKey1(ordinal) : swissOrds.getKey1(ordinal);
+        }
+
+        private long key2(long ordinal) {
+            return swissOrds == null ? ords.getKey2(ordinal) : swissOrds.getKey2(ordinal);
         }
 
         @Override
         public long find(long owningBucketOrd, long value) {
-            return ords.find(owningBucketOrd, value);
+            return swissOrds == null ? ords.find(owningBucketOrd, value) : swissOrds.find(owningBucketOrd, value);
         }
 
         @Override
         public long get(long ordinal) {
-            return ords.getKey2(ordinal);
+            return key2(ordinal);
         }
 
         @Override
         public long bucketsInOrd(long owningBucketOrd) {
             // TODO it'd be faster to count the number of buckets in a list of these ords rather than one at a time
             long count = 0;
-            for (long i = 0; i < ords.size(); i++) {
-                if (ords.getKey1(i) == owningBucketOrd) {
+            long size = size();
+            for (long i = 0; i < size; i++) {
+                if (key1(i) == owningBucketOrd) {
                     count++;
                 }
             }
@@ -267,22 +332,23 @@ public abstract class LongKeyedBucketOrds implements Releasable {
 
         @Override
         public long size() {
-            return ords.size();
+            return swissOrds == null ? ords.size() : swissOrds.size();
         }
 
         @Override
         public long maxOwningBucketOrd() {
             // TODO this is fairly expensive to compute. Can we avoid needing it?
             long max = -1;
-            for (long i = 0; i < ords.size(); i++) {
-                max = Math.max(max, ords.getKey1(i));
+            long size = size();
+            for (long i = 0; i < size; i++) {
+                max = Math.max(max, key1(i));
             }
             return max;
         }
 
         @Override
         public String decribe() {
-            return "many bucket ords";
+            return swissOrds == null ? "many bucket ords" : "many bucket ords in a swiss table";
         }
 
         @Override
@@ -296,11 +362,11 @@ public abstract class LongKeyedBucketOrds implements Releasable {
                 public boolean next() {
                     while (true) {
                         ord++;
-                        if (ord >= ords.size()) {
+                        if (ord >= size()) {
                             return false;
                         }
-                        if (ords.getKey1(ord) == owningBucketOrd) {
-                            value = ords.getKey2(ord);
+                        if (key1(ord) == owningBucketOrd) {
+                            value = key2(ord);
                             return true;
                         }
                     }
@@ -320,7 +386,7 @@ public abstract class LongKeyedBucketOrds implements Releasable {
 
         @Override
         public void close() {
-            ords.close();
+            Releasables.close(ords, swissOrds);
         }
     }
 
@@ -7,7 +7,10 @@
  */
 package org.elasticsearch.search.aggregations.bucket.terms;
 
+import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefBuilder;
@@ -37,6 +40,7 @@ import java.util.Arrays;
 import java.util.Map;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.function.IntConsumer;
 import java.util.function.LongConsumer;
 import java.util.function.Supplier;
 
@@ -104,6 +108,10 @@ public class MapStringTermsAggregator extends AbstractStringTermsAggregator {
         );
     }
 
+    BytesKeyedBucketOrds bucketOrds() {
+        return bucketOrds;
+    }
+
     @Override
     public InternalAggregation[] buildAggregations(long[] owningBucketOrds) throws IOException {
         return resultStrategy.buildAggregations(owningBucketOrds);
@@ -231,6 +239,163 @@ public class MapStringTermsAggregator extends AbstractStringTermsAggregator {
         public void close() {}
     }
 
+    /**
+     * Counts the segment ordinals of each segment and only hashes the terms
+     * that the segment collected when moving to the next segment. This avoids
+     * both building global ordinals, which can take a long time on high
+     * cardinality fields that are refreshed often, and hashing the terms of
+     * every document. It only supports collecting from a single bucket and
+     * doesn't support sub-aggregations since the bucket of a term isn't known
+     * until its segment is done.
+     */
+    static class SegmentOrdinals extends MapStringTermsAggregator {
+        private final ValuesSource.Bytes.WithOrdinals valuesSource;
+        private final IncludeExclude.StringFilter includeExclude;
+        private final IntConsumer multiBucketConsumer;
+        private LongArray segmentDocCounts;
+        private SortedSetDocValues segmentOrds;
+        // the ordinals that the current segment collected, in the order it collected them
+        private LongArray collectedSegmentOrds;
+        private long collectedSegmentOrdsSize = 0;
+        private int segmentsWithSingleValuedOrds = 0;
+        private int segmentsWithMultiValuedOrds = 0;
+
+        SegmentOrdinals(
+            String name,
+            AggregatorFactories factories,
+            ValuesSourceConfig valuesSourceConfig,
+            BucketOrder order,
+            DocValueFormat format,
+            BucketCountThresholds bucketCountThresholds,
+            IncludeExclude.StringFilter includeExclude,
+            AggregationContext context,
+            Aggregator parent,
+            SubAggCollectionMode collectionMode,
+            boolean showTermDocCountError,
+            Map<String, Object> metadata
+        ) throws IOException {
+            super(
+                name,
+                factories,
+                new ValuesSourceCollectorSource(valuesSourceConfig) {
+                    @Override
+                    public String describe() {
+                        return "segment ordinals " + super.describe();
+                    }
+                },
+                a -> a.new StandardTermsResults(valuesSourceConfig.getValuesSource()),
+                order,
+                format,
+                bucketCountThresholds,
+                includeExclude,
+                context,
+                parent,
+                collectionMode,
+                showTermDocCountError,
+                CardinalityUpperBound.ONE,
+                metadata
+            );
+            assert factories == null || factories.countAggregators() == 0;
+            this.valuesSource = (ValuesSource.Bytes.WithOrdinals) valuesSourceConfig.getValuesSource();
+            this.includeExclude = includeExclude;
+            this.multiBucketConsumer = context.multiBucketConsumer();
+            this.segmentDocCounts = context.bigArrays().newLongArray(1, true);
+            this.collectedSegmentOrds = context.bigArrays().newLongArray(1, false);
+        }
+
+        @Override
+        public LeafBucketCollector getLeafCollector(LeafReaderContext ctx, LeafBucketCollector sub) throws IOException {
+            mapSegmentCountsToBuckets();
+            assert sub.isNoop();
+            final SortedSetDocValues ords = valuesSource.ordinalsValues(ctx);
+            if (ords.getValueCount() == 0) {
+                return LeafBucketCollector.NO_OP_COLLECTOR;
+            }
+            segmentOrds = ords;
+            segmentDocCounts = bigArrays().grow(segmentDocCounts, ords.getValueCount());
+            final SortedDocValues singleValues = DocValues.unwrapSingleton(ords);
+            if (singleValues != null) {
+                segmentsWithSingleValuedOrds++;
+                return new LeafBucketCollectorBase(sub, ords) {
+                    @Override
+                    public void collect(int doc, long owningBucketOrd) throws IOException {
+                        assert owningBucketOrd == 0;
+                        if (false == singleValues.advanceExact(doc)) {
+                            return;
+                        }
+                        countSegmentOrd(singleValues.ordValue(), docCountProvider.getDocCount(doc));
+                    }
+                };
+            }
+            segmentsWithMultiValuedOrds++;
+            return new LeafBucketCollectorBase(sub, ords) {
+                @Override
+                public void collect(int doc, long owningBucketOrd) throws IOException {
+                    assert owningBucketOrd == 0;
+                    if (false == ords.advanceExact(doc)) {
+                        return;
+                    }
+                    int docCount = docCountProvider.getDocCount(doc);
+                    for (long ord = ords.nextOrd(); ord != SortedSetDocValues.NO_MORE_ORDS; ord = ords.nextOrd()) {
+                        countSegmentOrd(ord, docCount);
+                    }
+                }
+            };
+        }
+
+        private void countSegmentOrd(long ord, int docCount) {
+            if (docCount > 0 && segmentDocCounts.increment(ord, docCount) == docCount) {
+                // first time the segment collects this ordinal
+                collectedSegmentOrds = bigArrays().grow(collectedSegmentOrds, collectedSegmentOrdsSize + 1);
+                collectedSegmentOrds.set(collectedSegmentOrdsSize++, ord);
+            }
+        }
+
+        @Override
+        protected void doPostCollection() throws IOException {
+            mapSegmentCountsToBuckets();
+        }
+
+        /**
+         * Add the counts of the terms that the current segment collected to
+         * their buckets and reset them for the next segment.
+         */
+        private void mapSegmentCountsToBuckets() throws IOException {
+            for (long i = 0; i < collectedSegmentOrdsSize; i++) {
+                final long ord = collectedSegmentOrds.get(i);
+                // set(...) resets the count for the next segment
+                long docCount = segmentDocCounts.set(ord, 0);
+                BytesRef term = segmentOrds.lookupOrd(ord);
+                if (includeExclude != null && false == includeExclude.accept(term)) {
+                    continue;
+                }
+                long bucketOrd = bucketOrds().add(0, term);
+                if (bucketOrd < 0) { // already seen
+                    bucketOrd = -1 - bucketOrd;
+                } else {
+                    // like collectBucket, give the consumer a chance to check the memory of the new bucket
+                    multiBucketConsumer.accept(0);
+                }
+                incrementBucketDocCount(bucketOrd, docCount);
+            }
+            collectedSegmentOrdsSize = 0;
+            segmentOrds = null;
+        }
+
+        @Override
+        public void collectDebugInfo(BiConsumer<String, Object> add) {
+            super.collectDebugInfo(add);
+            add.accept("segments_with_single_valued_ords", segmentsWithSingleValuedOrds);
+            add.accept("segments_with_multi_valued_ords", segmentsWithMultiValuedOrds);
+        }
+
+        @Override
+        public void doClose() {
+            super.doClose();
+            Releasables.close(segmentDocCounts, collectedSegmentOrds);
+        }
+    }
+
     /**
      * Strategy for building results.
      */
@@ -299,6 +299,12 @@ public class SignificantTermsAggregationBuilder extends ValuesSourceAggregationB
         return BucketCardinality.MANY;
     }
 
+    @Override
+    public boolean supportsConcurrentCollection() {
+        // the background frequencies are those of the whole shard and would be counted once per slice
+        return false;
+    }
+
     @Override
     protected ValuesSourceAggregatorFactory innerBuild(
         AggregationContext context,
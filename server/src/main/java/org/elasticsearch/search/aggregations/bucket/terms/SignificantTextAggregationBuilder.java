@@ -311,6 +311,12 @@ public class SignificantTextAggregationBuilder extends AbstractAggregationBuilde
         return BucketCardinality.MANY;
     }
 
+    @Override
+    public boolean supportsConcurrentCollection() {
+        // the background frequencies are those of the whole shard and would be counted once per slice
+        return false;
+    }
+
     @Override
     protected AggregatorFactory doBuild(AggregationContext context, AggregatorFactory parent, Builder subFactoriesBuilder)
         throws IOException {
@@ -11,6 +11,7 @@ import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.AggregatorReducer;
 import org.elasticsearch.search.aggregations.BucketOrder;
 import org.elasticsearch.search.aggregations.InternalAggregations;
 import org.elasticsearch.xcontent.XContentBuilder;
@@ -159,6 +160,11 @@ public class StringTerms extends InternalMappedTerms<StringTerms, StringTerms.Bu
         );
     }
 
+    @Override
+    public AggregatorReducer getReducer(ReduceContext partialReduceContext) {
+        return termsReducer(partialReduceContext, b -> b.termBytes);
+    }
+
     @Override
     public Bucket createBucket(InternalAggregations aggregations, Bucket prototype) {
         return new Bucket(
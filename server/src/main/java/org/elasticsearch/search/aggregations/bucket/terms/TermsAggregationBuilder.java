@@ -354,6 +354,13 @@ public class TermsAggregationBuilder extends ValuesSourceAggregationBuilder<Term
         return BucketCardinality.MANY;
     }
 
+    @Override
+    public boolean supportsConcurrentCollection() {
+        // each slice would only keep its own top shard_size terms so the counts of the shard could be missing the terms that
+        // were pruned in some slices, only the key order keeps the same terms in every slice
+        return InternalOrder.isKeyOrder(order) && bucketCountThresholds.getShardMinDocCount() <= 1 && subAggregationsSupportConcurrentCollection();
+    }
+
     @Override
     protected ValuesSourceAggregatorFactory innerBuild(
         AggregationContext context,
@@ -10,6 +10,7 @@ package org.elasticsearch.search.aggregations.bucket.terms;
 
 import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.search.IndexSearcher;
 import org.elasticsearch.search.DocValueFormat;
@@ -43,6 +44,7 @@ import java.util.function.LongPredicate;
 
 public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory {
     static Boolean REMAP_GLOBAL_ORDS, COLLECT_SEGMENT_ORDS;
+    static Long MIN_SEGMENT_ORDS;
 
     static void registerAggregators(ValuesSourceRegistry.Builder builder) {
         builder.register(
@@ -76,6 +78,15 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory {
      */
     static final long MAX_ORDS_TO_TRY_FILTERS = 1000;
 
+    /**
+     * The minimum number of unique values, summed over all segments, that a
+     * field needs to have for us to count its segment ordinals rather than
+     * build global ordinals when there isn't an execution hint. Building
+     * global ordinals is linear with this number and takes seconds once it
+     * reaches the tens of millions.
+     */
+    static final long MIN_SEGMENT_ORDS_TO_SKIP_GLOBAL_ORDS = 1_000_000;
+
     /**
      * This supplier is used for all the field types that should be aggregated as bytes/strings,
      * including those that need global ordinals
@@ -107,8 +118,13 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory {
                 if (valuesSource instanceof ValuesSource.Bytes.WithOrdinals == false) {
                     execution = ExecutionMode.MAP;
                 }
+                if (execution == ExecutionMode.SEGMENT_ORDINALS && supportsSegmentOrdinals(factories, cardinality) == false) {
+                    execution = ExecutionMode.MAP;
+                }
                 if (execution == null) {
-                    execution = ExecutionMode.GLOBAL_ORDINALS;
+                    execution = preferSegmentOrdinals(valuesSourceConfig, factories, context, cardinality)
+                        ? ExecutionMode.SEGMENT_ORDINALS
+                        : ExecutionMode.GLOBAL_ORDINALS;
                 }
                 final long maxOrd = execution == ExecutionMode.GLOBAL_ORDINALS ? getMaxOrd(valuesSource, context.searcher()) : -1;
                 if (subAggCollectMode == null) {
@@ -310,6 +326,51 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory {
         );
     }
 
+    /**
+     * Can {@link ExecutionMode#SEGMENT_ORDINALS} collect this aggregation?
+     */
+    static boolean supportsSegmentOrdinals(AggregatorFactories factories, CardinalityUpperBound cardinality) {
+        return factories == AggregatorFactories.EMPTY && cardinality == CardinalityUpperBound.ONE;
+    }
+
+    /**
+     * Should we count segment ordinals rather than build global ordinals when
+     * there isn't an execution hint? We only do it when building global
+     * ordinals is clearly the expensive part of the request: they aren't
+     * cached for this reader yet and the field doesn't load them eagerly,
+     * and the field has so many unique values that nearly every document has
+     * its own, which is when the ordinals of the segments barely overlap.
+     */
+    static boolean preferSegmentOrdinals(
+        ValuesSourceConfig valuesSourceConfig,
+        AggregatorFactories factories,
+        AggregationContext context,
+        CardinalityUpperBound cardinality
+    ) throws IOException {
+        if (supportsSegmentOrdinals(factories, cardinality) == false
+            || valuesSourceConfig.fieldType() == null
+            || valuesSourceConfig.fieldType().eagerGlobalOrdinals()) {
+            return false;
+        }
+        IndexReader reader = context.searcher().getIndexReader();
+        ValuesSource.Bytes.WithOrdinals valuesSource = (ValuesSource.Bytes.WithOrdinals) valuesSourceConfig.getValuesSource();
+        if (valuesSource.hasLoadedGlobalOrdinals(reader)) {
+            return false;
+        }
+        long minSegmentOrds = Math.max(
+            MIN_SEGMENT_ORDS == null ? MIN_SEGMENT_ORDS_TO_SKIP_GLOBAL_ORDS : MIN_SEGMENT_ORDS,
+            reader.maxDoc() / 2
+        );
+        long segmentOrds = 0;
+        for (LeafReaderContext ctx : reader.leaves()) {
+            segmentOrds += valuesSource.ordinalsValues(ctx).getValueCount();
+            if (segmentOrds >= minSegmentOrds) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Pick a {@link SubAggCollectionMode} based on heuristics about what
      * we're collecting.
@@ -389,6 +450,44 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory {
                 );
             }
         },
+        SEGMENT_ORDINALS(new ParseField("segment_ordinals")) {
+
+            @Override
+            Aggregator create(
+                String name,
+                AggregatorFactories factories,
+                ValuesSourceConfig valuesSourceConfig,
+                BucketOrder order,
+                TermsAggregator.BucketCountThresholds bucketCountThresholds,
+                IncludeExclude includeExclude,
+                AggregationContext context,
+                Aggregator parent,
+                SubAggCollectionMode subAggCollectMode,
+                boolean showTermDocCountError,
+                CardinalityUpperBound cardinality,
+                Map<String, Object> metadata
+            ) throws IOException {
+                assert valuesSourceConfig.getValuesSource() instanceof ValuesSource.Bytes.WithOrdinals;
+                assert supportsSegmentOrdinals(factories, cardinality);
+                IncludeExclude.StringFilter filter = includeExclude == null
+                    ? null
+                    : includeExclude.convertToStringFilter(valuesSourceConfig.format());
+                return new MapStringTermsAggregator.SegmentOrdinals(
+                    name,
+                    factories,
+                    valuesSourceConfig,
+                    order,
+                    valuesSourceConfig.format(),
+                    bucketCountThresholds,
+                    filter,
+                    context,
+                    parent,
+                    subAggCollectMode,
+                    showTermDocCountError,
+                    metadata
+                );
+            }
+        },
         GLOBAL_ORDINALS(new ParseField("global_ordinals")) {
 
             @Override
@@ -534,8 +633,12 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory {
                     return GLOBAL_ORDINALS;
                 case "map":
                     return MAP;
+                case "segment_ordinals":
+                    return SEGMENT_ORDINALS;
                 default:
-                    throw new IllegalArgumentException("Unknown `execution_hint`: [" + value + "], expected any of [map, global_ordinals]");
+                    throw new IllegalArgumentException(
+                        "Unknown `execution_hint`: [" + value + "], expected any of [map, global_ordinals, segment_ordinals]"
+                    );
             }
         }
 
@@ -11,6 +11,7 @@ import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.PointValues;
 import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.Bits;
 import org.elasticsearch.common.util.DoubleArray;
 import org.elasticsearch.core.Releasables;
@@ -87,6 +88,7 @@ class MaxAggregator extends NumericMetricsAggregator.SingleValue {
         final SortedNumericDoubleValues allValues = valuesSource.doubleValues(ctx);
         final NumericDoubleValues values = MultiValueMode.MAX.select(allValues);
         return new LeafBucketCollectorBase(sub, allValues) {
+            private double[] block = new double[0];
 
             @Override
             public void collect(int doc, long bucket) throws IOException {
@@ -103,6 +105,22 @@ class MaxAggregator extends NumericMetricsAggregator.SingleValue {
                 }
             }
 
+            @Override
+            public void collect(int[] docs, int count, long bucket) throws IOException {
+                if (bucket >= maxes.size()) {
+                    long from = maxes.size();
+                    maxes = bigArrays().grow(maxes, bucket + 1);
+                    maxes.fill(from, maxes.size(), Double.NEGATIVE_INFINITY);
+                }
+                block = ArrayUtil.grow(block, count);
+                final int numValues = values.readValues(docs, count, block);
+                double max = maxes.get(bucket);
+                for (int i = 0; i < numValues; i++) {
+                    max = Math.max(max, block[i]);
+                }
+                maxes.set(bucket, max);
+            }
+
         };
     }
 
@@ -34,6 +34,7 @@ import org.elasticsearch.script.ScriptContext;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.MultiBucketConsumerService.MultiBucketConsumer;
 import org.elasticsearch.search.aggregations.bucket.filter.FilterByFilterAggregator;
+import org.elasticsearch.search.internal.ReaderContext;
 import org.elasticsearch.search.internal.SubSearchContext;
 import org.elasticsearch.search.lookup.SearchLookup;
 import org.elasticsearch.search.profile.aggregation.AggregationProfiler;
@@ -282,6 +283,16 @@ public abstract class AggregationContext implements Releasable {
      */
     public abstract boolean enableRewriteToFilterByFilter();
 
+    /**
+     * Get state that is shared by all requests that search the same point in
+     * time on this shard, building it with {@code builder} if this is the
+     * first request to ask for it. Aggregations use this to carry work over
+     * to the next request when paging through a point in time.
+     * @return the state or {@code null} if the request doesn't search a point in time
+     */
+    @Nullable
+    public abstract <T> T pointInTimeState(String key, Supplier<T> builder);
+
     /**
      * Implementation of {@linkplain AggregationContext} for production usage
      * that wraps our ubiquitous {@link SearchExecutionContext} and anything else
@@ -304,6 +315,11 @@ public abstract class AggregationContext implements Releasable {
         private final Function<Query, Query> filterQuery;
         private final boolean enableRewriteToFilterByFilter;
         private final AnalysisRegistry analysisRegistry;
+        private final ReaderContext pointInTimeContext;
+        private final BigArrays unwrappedBigArrays;
+        private final long bytesToPreallocate;
+        @Nullable
+        private final SearchLookup lookup;
 
         private final List<Aggregator> releaseMe = new ArrayList<>();
 
@@ -321,9 +337,51 @@ public abstract class AggregationContext implements Releasable {
             LongSupplier relativeTimeInMillis,
             Supplier<Boolean> isCancelled,
             Function<Query, Query> filterQuery,
-            boolean enableRewriteToFilterByFilter
+            boolean enableRewriteToFilterByFilter,
+            @Nullable ReaderContext pointInTimeContext
+        ) {
+            this(
+                analysisRegistry,
+                context,
+                bigArrays,
+                bytesToPreallocate,
+                topLevelQuery,
+                profiler,
+                multiBucketConsumer,
+                subSearchContextBuilder,
+                bitsetFilterCache,
+                randomSeed,
+                relativeTimeInMillis,
+                isCancelled,
+                filterQuery,
+                enableRewriteToFilterByFilter,
+                pointInTimeContext,
+                null
+            );
+        }
+
+        private ProductionAggregationContext(
+            AnalysisRegistry analysisRegistry,
+            SearchExecutionContext context,
+            BigArrays bigArrays,
+            long bytesToPreallocate,
+            Supplier<Query> topLevelQuery,
+            @Nullable AggregationProfiler profiler,
+            MultiBucketConsumer multiBucketConsumer,
+            Supplier<SubSearchContext> subSearchContextBuilder,
+            BitsetFilterCache bitsetFilterCache,
+            int randomSeed,
+            LongSupplier relativeTimeInMillis,
+            Supplier<Boolean> isCancelled,
+            Function<Query, Query> filterQuery,
+            boolean enableRewriteToFilterByFilter,
+            @Nullable ReaderContext pointInTimeContext,
+            @Nullable SearchLookup lookup
         ) {
             this.analysisRegistry = analysisRegistry;
+            this.unwrappedBigArrays = bigArrays;
+            this.bytesToPreallocate = bytesToPreallocate;
+            this.lookup = lookup;
             this.context = context;
             if (bytesToPreallocate == 0) {
                 /*
@@ -354,6 +412,33 @@ public abstract class AggregationContext implements Releasable {
             this.isCancelled = isCancelled;
             this.filterQuery = filterQuery;
             this.enableRewriteToFilterByFilter = enableRewriteToFilterByFilter;
+            this.pointInTimeContext = pointInTimeContext;
+        }
+
+        /**
+         * Creates a context to build the aggregators collecting a slice of the segments of a concurrent search.
+         * Slices are collected on different threads so they don't share the stateful parts of this context: the
+         * slice gets its own preallocated breaker, bucket consumer and {@link SearchLookup}.
+         */
+        public ProductionAggregationContext forSlice(MultiBucketConsumer multiBucketConsumer) {
+            return new ProductionAggregationContext(
+                analysisRegistry,
+                context,
+                unwrappedBigArrays,
+                bytesToPreallocate,
+                topLevelQuery,
+                profiler,
+                multiBucketConsumer,
+                subSearchContextBuilder,
+                bitsetFilterCache,
+                randomSeed,
+                relativeTimeInMillis,
+                isCancelled,
+                filterQuery,
+                enableRewriteToFilterByFilter,
+                pointInTimeContext,
+                context.lookup().copyWithOwnSource()
+            );
         }
 
         @Override
@@ -397,7 +482,8 @@ public abstract class AggregationContext implements Releasable {
 
         @Override
         protected IndexFieldData<?> buildFieldData(MappedFieldType ft) {
-            return context.getForField(ft);
+            // the field data of runtime fields of a slice must load the source with the lookup of the slice
+            return lookup == null ? context.getForField(ft) : lookup.getForField(ft);
         }
 
         @Override
@@ -422,7 +508,7 @@ public abstract class AggregationContext implements Releasable {
 
         @Override
         public SearchLookup lookup() {
-            return context.lookup();
+            return lookup == null ? context.lookup() : lookup;
         }
 
         @Override
@@ -531,6 +617,11 @@ public abstract class AggregationContext implements Releasable {
             return enableRewriteToFilterByFilter;
         }
 
+        @Override
+        public <T> T pointInTimeState(String key, Supplier<T> builder) {
+            return pointInTimeContext == null ? null : pointInTimeContext.computeIfAbsentInContext(key, builder);
+        }
+
         @Override
         public void close() {
             /*
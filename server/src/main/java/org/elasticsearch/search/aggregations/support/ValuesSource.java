@@ -11,7 +11,6 @@ import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReaderContext;
-import org.apache.lucene.index.OrdinalMap;
 import org.apache.lucene.index.SortedNumericDocValues;
 import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.search.IndexSearcher;
@@ -33,6 +32,7 @@ import org.elasticsearch.index.fielddata.SortedBinaryDocValues;
 import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
 import org.elasticsearch.index.fielddata.SortingBinaryDocValues;
 import org.elasticsearch.index.fielddata.SortingNumericDoubleValues;
+import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinalMap;
 import org.elasticsearch.index.mapper.RangeType;
 import org.elasticsearch.script.AggregationScript;
 import org.elasticsearch.search.DocValueFormat;
@@ -219,7 +219,7 @@ public abstract class ValuesSource {
 
             /**
              * Whether this values source is able to provide a mapping between global and segment ordinals,
-             * by returning the underlying {@link OrdinalMap}. If this method returns false, then calling
+             * by returning the underlying {@link GlobalOrdinalMap}. If this method returns false, then calling
              * {@link #globalOrdinalsMapping} will result in an {@link UnsupportedOperationException}.
              */
             public boolean supportsGlobalOrdinalsMapping() {
@@ -231,6 +231,15 @@ public abstract class ValuesSource {
                 return true;
             }
 
+            /**
+             * Whether the global ordinals of the provided reader are already
+             * built so that {@link #globalOrdinalsValues} doesn't have to pay
+             * for building them. Values sources that can't tell say they are.
+             */
+            public boolean hasLoadedGlobalOrdinals(IndexReader indexReader) {
+                return true;
+            }
+
             /**
              * Returns a mapping from segment ordinals to global ordinals. This
              * allows you to post process segment ordinals into global ordinals
@@ -290,10 +299,16 @@ public abstract class ValuesSource {
                     return indexFieldData.supportsGlobalOrdinalsMapping();
                 }
 
+                @Override
+                public boolean hasLoadedGlobalOrdinals(IndexReader indexReader) {
+                    return indexReader instanceof DirectoryReader == false
+                        || indexFieldData.isGlobalLoaded((DirectoryReader) indexReader);
+                }
+
                 @Override
                 public LongUnaryOperator globalOrdinalsMapping(LeafReaderContext context) throws IOException {
                     final IndexOrdinalsFieldData global = indexFieldData.loadGlobal((DirectoryReader) context.parent.reader());
-                    final OrdinalMap map = global.getOrdinalMap();
+                    final GlobalOrdinalMap map = global.getGlobalOrdinalMap();
                     if (map == null) {
                         // segments and global ordinals are the same
                         return LongUnaryOperator.identity();
@@ -163,6 +163,12 @@ public abstract class ValuesSourceAggregationBuilder<AB extends ValuesSourceAggr
         /** Generated metrics from this aggregation that can be accessed via
          * {@link org.elasticsearch.search.aggregations.InternalAggregation#getProperty(String)}*/
         public abstract Set<String> metricNames();
+
+        @Override
+        public boolean supportsConcurrentCollection() {
+            // the results of the slices are reduced like the results of shards
+            return true;
+        }
     }
 
     public abstract static class SingleMetricAggregationBuilder<VS extends ValuesSource, AB extends ValuesSourceAggregationBuilder<AB>>
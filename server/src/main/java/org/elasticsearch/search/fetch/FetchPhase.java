@@ -61,6 +61,11 @@ import static java.util.Collections.emptyMap;
 public class FetchPhase {
     private static final Logger LOGGER = LogManager.getLogger(FetchPhase.class);
 
+    /**
+     * The maximum average gap between the doc ids of the hits of a segment for which we read stored fields block by block
+     */
+    private static final int MAX_AVERAGE_DOC_GAP = 32;
+
     private final FetchSubPhase[] fetchSubPhases;
 
     public FetchPhase(List<FetchSubPhase> fetchSubPhases) {
@@ -121,7 +126,6 @@ public class FetchPhase {
         LeafReaderContext currentReaderContext = null;
         LeafNestedDocuments leafNestedDocuments = null;
         CheckedBiConsumer<Integer, FieldsVisitor, IOException> fieldReader = null;
-        boolean hasSequentialDocs = hasSequentialDocs(docs);
         for (int index = 0; index < context.docIdsToLoadSize(); index++) {
             if (context.isCancelled()) {
                 throw new TaskCancelledException("cancelled");
@@ -134,12 +138,17 @@ public class FetchPhase {
                     try {
                         currentReaderContext = context.searcher().getIndexReader().leaves().get(readerIndex);
                         currentReaderIndex = readerIndex;
+                        int leafEnd = index;
+                        while (leafEnd < docs.length && docs[leafEnd].docId < currentReaderContext.docBase
+                                + currentReaderContext.reader().maxDoc()) {
+                            leafEnd++;
+                        }
                         if (currentReaderContext.reader() instanceof SequentialStoredFieldsLeafReader
-                                && hasSequentialDocs && docs.length >= 10) {
-                            // All the docs to fetch are adjacent but Lucene stored fields are optimized
+                                && hasDenseDocs(docs, index, leafEnd)) {
+                            // The docs to fetch are close to each other but Lucene stored fields are optimized
                             // for random access and don't optimize for sequential access - except for merging.
                             // So we do a little hack here and pretend we're going to do merges in order to
-                            // get better sequential access.
+                            // decompress each block of stored fields once for all the docs it contains.
                             SequentialStoredFieldsLeafReader lf = (SequentialStoredFieldsLeafReader) currentReaderContext.reader();
                             fieldReader = lf.getSequentialStoredFieldsReader()::visitDocument;
                         } else {
@@ -465,11 +474,13 @@ public class FetchPhase {
     }
 
     /**
-     * Returns <code>true</code> if the provided <code>docs</code> are
-     * stored sequentially (Dn = Dn-1 + 1).
+     * Returns <code>true</code> if the provided <code>docs</code> between <code>from</code>, inclusive,
+     * and <code>to</code>, exclusive, are close enough to each other that most blocks of stored fields
+     * hold several of them.
      */
-    static boolean hasSequentialDocs(DocIdToIndex[] docs) {
-        return docs.length > 0 && docs[docs.length-1].docId - docs[0].docId == docs.length - 1;
+    static boolean hasDenseDocs(DocIdToIndex[] docs, int from, int to) {
+        int count = to - from;
+        return count >= 10 && docs[to - 1].docId - docs[from].docId < (long) count * MAX_AVERAGE_DOC_GAP;
     }
 
     interface Profiler {
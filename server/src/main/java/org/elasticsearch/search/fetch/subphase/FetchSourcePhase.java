@@ -66,14 +66,14 @@ public final class FetchSourcePhase implements FetchSubPhase {
                 }
 
                 // Otherwise, filter the source and add it to the hit.
-                Object value = source.filter(fetchSourceContext);
-                if (nestedHit) {
-                    value = getNestedSource((Map<String, Object>) value, hitContext);
-                }
-
                 try {
-                    final int initialCapacity = nestedHit ? 1024 : Math.min(1024, source.internalSourceRef().length());
-                    hitContext.hit().sourceRef(objectToBytes(value, source.sourceContentType(), initialCapacity));
+                    if (nestedHit == false) {
+                        final int initialCapacity = Math.min(1024, source.internalSourceRef().length());
+                        hitContext.hit().sourceRef(source.filterBytes(fetchSourceContext, initialCapacity));
+                        return;
+                    }
+                    Object value = getNestedSource((Map<String, Object>) source.filter(fetchSourceContext), hitContext);
+                    hitContext.hit().sourceRef(objectToBytes(value, source.sourceContentType(), 1024));
                 } catch (IOException e) {
                     throw new ElasticsearchException("Error filtering source", e);
                 }
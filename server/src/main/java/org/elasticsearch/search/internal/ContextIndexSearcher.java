@@ -16,6 +16,7 @@ import org.apache.lucene.search.BulkScorer;
 import org.apache.lucene.search.CollectionStatistics;
 import org.apache.lucene.search.CollectionTerminatedException;
 import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.CollectorManager;
 import org.apache.lucene.search.ConjunctionUtils;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.Explanation;
@@ -34,6 +35,9 @@ import org.apache.lucene.util.BitSetIterator;
 import org.apache.lucene.util.Bits;
 import org.elasticsearch.lucene.util.CombinedBitSet;
 import org.apache.lucene.util.SparseFixedBitSet;
+import org.apache.lucene.util.ThreadInterruptedException;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.search.dfs.AggregatedDfs;
 import org.elasticsearch.search.profile.Timer;
@@ -43,11 +47,16 @@ import org.elasticsearch.search.profile.query.QueryProfiler;
 import org.elasticsearch.search.profile.query.QueryTimingType;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Context-aware extension of {@link IndexSearcher}.
@@ -59,9 +68,18 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
      */
     private static int CHECK_CANCELLED_SCORER_INTERVAL = 1 << 11;
 
+    /**
+     * Segments are grouped into slices for concurrent search until a slice has that many documents or
+     * {@link #MAX_SEGMENTS_PER_SLICE} segments, large segments get a slice of their own.
+     */
+    private static final int MAX_DOCS_PER_SLICE = 250_000;
+    private static final int MAX_SEGMENTS_PER_SLICE = 5;
+
     private AggregatedDfs aggregatedDfs;
     private QueryProfiler profiler;
     private MutableQueryTimeout cancellable;
+    private Executor concurrentSearchExecutor;
+    private LeafSlice[] concurrentSlices;
 
     public ContextIndexSearcher(IndexReader reader, Similarity similarity,
                                 QueryCache queryCache, QueryCachingPolicy queryCachingPolicy,
@@ -84,6 +102,27 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         this.profiler = profiler;
     }
 
+    /**
+     * Sets the executor that {@link #searchConcurrently} searches slices of the segments on, concurrent search is disabled if null.
+     */
+    public void setConcurrentSearchExecutor(@Nullable Executor executor) {
+        this.concurrentSearchExecutor = executor;
+    }
+
+    /**
+     * Returns the number of slices that {@link #searchConcurrently} searches concurrently, which is 1 if concurrent search is disabled.
+     */
+    public int getConcurrentSliceCount() {
+        return concurrentSearchExecutor == null ? 1 : getConcurrentSlices().length;
+    }
+
+    private LeafSlice[] getConcurrentSlices() {
+        if (concurrentSlices == null) {
+            concurrentSlices = slices(getIndexReader().leaves(), MAX_DOCS_PER_SLICE, MAX_SEGMENTS_PER_SLICE);
+        }
+        return concurrentSlices;
+    }
+
     /**
      * Add a {@link Runnable} that will be run on a regular basis while accessing documents in the
      * DirectoryReader but also while collecting them and check for query cancellation or timeout.
@@ -154,6 +193,71 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         }
     }
 
+    /**
+     * Searches each slice of the segments with its own collector, concurrently on the executor set with
+     * {@link #setConcurrentSearchExecutor}. The calling thread searches the first slice, and any slice that the executor
+     * rejected or didn't start yet once it is done. Query cancellation and timeouts are checked on every thread. If a slice
+     * fails, the first failure is rethrown once all slices completed, the collectors hold what was collected until then.
+     */
+    public <C extends Collector, T> T searchConcurrently(Query query, CollectorManager<C, T> collectorManager) throws IOException {
+        final LeafSlice[] slices = concurrentSearchExecutor == null
+            ? new LeafSlice[] { new LeafSlice(getIndexReader().leaves()) }
+            : getConcurrentSlices();
+        final List<C> collectors = new ArrayList<>(slices.length);
+        for (int i = 0; i < slices.length; i++) {
+            collectors.add(collectorManager.newCollector());
+        }
+        final ScoreMode scoreMode = collectors.get(0).scoreMode();
+        for (C collector : collectors) {
+            if (collector.scoreMode() != scoreMode) {
+                throw new IllegalStateException("collectors of all slices must have the same score mode");
+            }
+        }
+        final Weight weight = createWeight(rewrite(query), scoreMode, 1);
+        final List<FutureTask<C>> tasks = new ArrayList<>(slices.length);
+        for (int i = 0; i < slices.length; i++) {
+            final List<LeafReaderContext> leaves = Arrays.asList(slices[i].leaves);
+            final C collector = collectors.get(i);
+            tasks.add(new FutureTask<>(() -> {
+                search(leaves, weight, collector);
+                return collector;
+            }));
+        }
+        for (int i = 1; i < tasks.size(); i++) {
+            try {
+                concurrentSearchExecutor.execute(tasks.get(i));
+            } catch (RejectedExecutionException e) {
+                // searched on the calling thread below
+            }
+        }
+        for (FutureTask<C> task : tasks) {
+            // a no-op for tasks that are already running or done
+            task.run();
+        }
+        Exception failure = null;
+        for (FutureTask<C> task : tasks) {
+            try {
+                task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ThreadInterruptedException(e);
+            } catch (ExecutionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                failure = ExceptionsHelper.useOrSuppress(failure, (Exception) cause);
+            }
+        }
+        if (failure != null) {
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            }
+            throw (RuntimeException) failure;
+        }
+        return collectorManager.reduce(collectors);
+    }
+
     public void search(List<LeafReaderContext> leaves, Weight weight, Collector collector) throws IOException {
         for (LeafReaderContext ctx : leaves) { // search each subreader
             searchLeaf(ctx, weight, collector);
@@ -26,6 +26,7 @@ import java.util.Objects;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
  * Holds a reference to a point in time {@link Engine.Searcher} that will be used to construct {@link SearchContext}.
@@ -173,20 +174,34 @@ public class ReaderContext implements Releasable {
      * value in the context
      */
     @SuppressWarnings("unchecked") // (T)object
-    public <T> T getFromContext(String key) {
+    public synchronized <T> T getFromContext(String key) {
         return context != null ? (T) context.get(key) : null;
     }
 
     /**
      * Puts the object into the context
      */
-    public void putInContext(String key, Object value) {
+    public synchronized void putInContext(String key, Object value) {
         if (context == null) {
             context = new HashMap<>();
         }
         context.put(key, value);
     }
 
+    /**
+     * Returns the object for the given key, putting the one built by
+     * <code>supplier</code> into the context if there is none yet. Requests
+     * that search a point in time use this to share state with the next
+     * requests on the same reader, so it must be safe for concurrent use.
+     */
+    @SuppressWarnings("unchecked") // (T)object
+    public synchronized <T> T computeIfAbsentInContext(String key, Supplier<T> supplier) {
+        if (context == null) {
+            context = new HashMap<>();
+        }
+        return (T) context.computeIfAbsent(key, k -> supplier.get());
+    }
+
     public long getStartTimeInNano() {
         return startTimeInNano;
     }
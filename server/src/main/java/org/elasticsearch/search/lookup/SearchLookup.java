@@ -90,6 +90,14 @@ public class SearchLookup {
         return new SearchLookup(this, newFieldChain);
     }
 
+    /**
+     * Creates a top level {@link SearchLookup} that looks fields up the same way as this one but with its own
+     * {@link SourceLookup} so that it can load documents on another thread than the one using this lookup.
+     */
+    public SearchLookup copyWithOwnSource() {
+        return new SearchLookup(fieldTypeLookup, fieldDataLookup);
+    }
+
     public LeafSearchLookup getLeafSearchLookup(LeafReaderContext context) {
         return new LeafSearchLookup(context,
                 new LeafDocLookup(fieldTypeLookup, this::getForField, context),
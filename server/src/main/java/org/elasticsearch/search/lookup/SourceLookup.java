@@ -13,13 +13,19 @@ import org.elasticsearch.ElasticsearchParseException;
 import org.elasticsearch.common.CheckedBiConsumer;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.core.Tuple;
 import org.elasticsearch.common.lucene.index.SequentialStoredFieldsLeafReader;
 import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.xcontent.DeprecationHandler;
+import org.elasticsearch.xcontent.NamedXContentRegistry;
+import org.elasticsearch.xcontent.XContentBuilder;
+import org.elasticsearch.xcontent.XContentParser;
 import org.elasticsearch.xcontent.XContentType;
 import org.elasticsearch.common.xcontent.support.XContentMapValues;
 import org.elasticsearch.index.fieldvisitor.FieldsVisitor;
 import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+import org.elasticsearch.search.fetch.subphase.FetchSourcePhase;
 
 import java.io.IOException;
 import java.util.Collection;
@@ -177,6 +183,27 @@ public class SourceLookup implements Map<String, Object> {
         return context.getFilter().apply(source());
     }
 
+    /**
+     * Filters the source and returns the result serialized in the content type of the source. The matching
+     * parts are copied straight from the raw source unless it was already parsed into a map, so large
+     * documents don't need to be materialized only to pick a few fields out of them.
+     */
+    public BytesReference filterBytes(FetchSourceContext context, int initialCapacity) throws IOException {
+        if (source != null || sourceAsBytes == null) {
+            Object filtered = filter(context);
+            return FetchSourcePhase.objectToBytes(filtered, sourceContentType, initialCapacity);
+        }
+        try (XContentParser parser = sourceContentType == null
+            ? XContentHelper.createParser(NamedXContentRegistry.EMPTY, DeprecationHandler.THROW_UNSUPPORTED_OPERATION, sourceAsBytes)
+            : XContentHelper.createParser(NamedXContentRegistry.EMPTY, DeprecationHandler.THROW_UNSUPPORTED_OPERATION, sourceAsBytes,
+                sourceContentType)) {
+            BytesStreamOutput streamOutput = new BytesStreamOutput(initialCapacity);
+            XContentBuilder builder = new XContentBuilder(parser.contentType().xContent(), streamOutput);
+            context.getStreamingFilter().accept(parser, builder);
+            return BytesReference.bytes(builder);
+        }
+    }
+
     @Override
     public Object get(Object key) {
         return source().get(key);
@@ -0,0 +1,263 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.query;
+
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A compact transport encoding of the top docs of a shard, for searches that return many hits per shard. Doc ids
+ * are delta-encoded, scores are written only as often as they differ, and sort values are written column by column:
+ * longs are delta-encoded and keywords are dictionary-encoded. Top docs that can't be encoded, like the ones of
+ * collapsed searches, are written with {@link Lucene#writeTopDocs}.
+ */
+final class CompactTopDocs {
+
+    private static final byte LUCENE = 0;
+    private static final byte COMPACT = 1;
+
+    private static final byte NO_SCORES = 0;
+    private static final byte SINGLE_SCORE = 1;
+    private static final byte ALL_SCORES = 2;
+
+    private static final byte GENERIC_VALUES = 0;
+    private static final byte LONG_DELTAS = 1;
+    private static final byte BYTES_REF_DICTIONARY = 2;
+
+    private CompactTopDocs() {}
+
+    static void write(StreamOutput out, TopDocsAndMaxScore topDocs) throws IOException {
+        final Class<?> topDocsClass = topDocs.topDocs.getClass();
+        final int numColumns = numColumns(topDocs.topDocs);
+        if ((topDocsClass != TopDocs.class && topDocsClass != TopFieldDocs.class) || numColumns == -1) {
+            out.writeByte(LUCENE);
+            Lucene.writeTopDocs(out, topDocs);
+            return;
+        }
+        out.writeByte(COMPACT);
+        Lucene.writeTotalHits(out, topDocs.topDocs.totalHits);
+        out.writeFloat(topDocs.maxScore);
+        final ScoreDoc[] scoreDocs = topDocs.topDocs.scoreDocs;
+        if (topDocs.topDocs instanceof TopFieldDocs) {
+            out.writeBoolean(true);
+            out.writeArray(Lucene::writeSortField, ((TopFieldDocs) topDocs.topDocs).fields);
+        } else {
+            out.writeBoolean(false);
+        }
+        out.writeVInt(scoreDocs.length);
+        if (scoreDocs.length == 0) {
+            return;
+        }
+        int previousDoc = 0;
+        for (ScoreDoc scoreDoc : scoreDocs) {
+            out.writeZLong((long) scoreDoc.doc - previousDoc);
+            previousDoc = scoreDoc.doc;
+        }
+        writeScores(out, scoreDocs);
+        if (topDocs.topDocs instanceof TopFieldDocs) {
+            out.writeVInt(numColumns);
+            for (int column = 0; column < numColumns; column++) {
+                writeColumn(out, scoreDocs, column);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of sort values of the hits, or -1 if they don't all have the same number of sort values.
+     */
+    private static int numColumns(TopDocs topDocs) {
+        if (topDocs instanceof TopFieldDocs == false || topDocs.scoreDocs.length == 0) {
+            return 0;
+        }
+        final int numColumns = ((FieldDoc) topDocs.scoreDocs[0]).fields.length;
+        for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+            if (((FieldDoc) scoreDoc).fields.length != numColumns) {
+                return -1;
+            }
+        }
+        return numColumns;
+    }
+
+    private static void writeScores(StreamOutput out, ScoreDoc[] scoreDocs) throws IOException {
+        final int firstScoreBits = Float.floatToIntBits(scoreDocs[0].score);
+        boolean singleScore = true;
+        for (ScoreDoc scoreDoc : scoreDocs) {
+            if (Float.floatToIntBits(scoreDoc.score) != firstScoreBits) {
+                singleScore = false;
+                break;
+            }
+        }
+        if (singleScore && Float.isNaN(scoreDocs[0].score)) {
+            // sorted by field without tracking scores
+            out.writeByte(NO_SCORES);
+        } else if (singleScore) {
+            out.writeByte(SINGLE_SCORE);
+            out.writeFloat(scoreDocs[0].score);
+        } else {
+            out.writeByte(ALL_SCORES);
+            for (ScoreDoc scoreDoc : scoreDocs) {
+                out.writeFloat(scoreDoc.score);
+            }
+        }
+    }
+
+    private static void writeColumn(StreamOutput out, ScoreDoc[] scoreDocs, int column) throws IOException {
+        boolean allLongs = true;
+        boolean allBytesRefs = true;
+        for (ScoreDoc scoreDoc : scoreDocs) {
+            final Object value = ((FieldDoc) scoreDoc).fields[column];
+            allLongs &= value != null && value.getClass() == Long.class;
+            allBytesRefs &= value == null || value.getClass() == BytesRef.class;
+        }
+        if (allLongs) {
+            out.writeByte(LONG_DELTAS);
+            long previous = 0;
+            for (ScoreDoc scoreDoc : scoreDocs) {
+                final long value = (Long) ((FieldDoc) scoreDoc).fields[column];
+                // overflows cancel out when decoding
+                out.writeZLong(value - previous);
+                previous = value;
+            }
+        } else if (allBytesRefs) {
+            out.writeByte(BYTES_REF_DICTIONARY);
+            final Map<BytesRef, Integer> ordinals = new HashMap<>();
+            final int[] hitOrdinals = new int[scoreDocs.length];
+            for (int i = 0; i < scoreDocs.length; i++) {
+                final BytesRef value = (BytesRef) ((FieldDoc) scoreDocs[i]).fields[column];
+                // 0 is for missing values
+                hitOrdinals[i] = value == null ? 0 : ordinals.computeIfAbsent(value, v -> ordinals.size() + 1);
+            }
+            final BytesRef[] dictionary = new BytesRef[ordinals.size()];
+            for (Map.Entry<BytesRef, Integer> entry : ordinals.entrySet()) {
+                dictionary[entry.getValue() - 1] = entry.getKey();
+            }
+            out.writeVInt(dictionary.length);
+            for (BytesRef value : dictionary) {
+                out.writeBytesRef(value);
+            }
+            for (int ordinal : hitOrdinals) {
+                out.writeVInt(ordinal);
+            }
+        } else {
+            out.writeByte(GENERIC_VALUES);
+            for (ScoreDoc scoreDoc : scoreDocs) {
+                Lucene.writeSortValue(out, ((FieldDoc) scoreDoc).fields[column]);
+            }
+        }
+    }
+
+    static TopDocsAndMaxScore read(StreamInput in) throws IOException {
+        final byte encoding = in.readByte();
+        if (encoding == LUCENE) {
+            return Lucene.readTopDocs(in);
+        } else if (encoding != COMPACT) {
+            throw new IllegalStateException("Unknown top docs encoding " + encoding);
+        }
+        final TotalHits totalHits = Lucene.readTotalHits(in);
+        final float maxScore = in.readFloat();
+        final boolean fieldDocs = in.readBoolean();
+        final SortField[] fields = fieldDocs ? in.readArray(Lucene::readSortField, SortField[]::new) : null;
+        final int size = in.readVInt();
+        final int[] docs = new int[size];
+        int previousDoc = 0;
+        for (int i = 0; i < size; i++) {
+            docs[i] = Math.toIntExact(previousDoc + in.readZLong());
+            previousDoc = docs[i];
+        }
+        final float[] scores = size == 0 ? new float[0] : readScores(in, size);
+        final ScoreDoc[] scoreDocs;
+        if (fieldDocs) {
+            final Object[][] values = new Object[size][];
+            if (size > 0) {
+                final int numColumns = in.readVInt();
+                for (int i = 0; i < size; i++) {
+                    values[i] = new Object[numColumns];
+                }
+                for (int column = 0; column < numColumns; column++) {
+                    readColumn(in, values, column);
+                }
+            }
+            scoreDocs = new FieldDoc[size];
+            for (int i = 0; i < size; i++) {
+                scoreDocs[i] = new FieldDoc(docs[i], scores[i], values[i]);
+            }
+            return new TopDocsAndMaxScore(new TopFieldDocs(totalHits, scoreDocs, fields), maxScore);
+        }
+        scoreDocs = size == 0 ? Lucene.EMPTY_SCORE_DOCS : new ScoreDoc[size];
+        for (int i = 0; i < size; i++) {
+            scoreDocs[i] = new ScoreDoc(docs[i], scores[i]);
+        }
+        return new TopDocsAndMaxScore(new TopDocs(totalHits, scoreDocs), maxScore);
+    }
+
+    private static float[] readScores(StreamInput in, int size) throws IOException {
+        final float[] scores = new float[size];
+        final byte encoding = in.readByte();
+        switch (encoding) {
+            case NO_SCORES:
+                Arrays.fill(scores, Float.NaN);
+                break;
+            case SINGLE_SCORE:
+                Arrays.fill(scores, in.readFloat());
+                break;
+            case ALL_SCORES:
+                for (int i = 0; i < size; i++) {
+                    scores[i] = in.readFloat();
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unknown score encoding " + encoding);
+        }
+        return scores;
+    }
+
+    private static void readColumn(StreamInput in, Object[][] values, int column) throws IOException {
+        final byte encoding = in.readByte();
+        switch (encoding) {
+            case LONG_DELTAS:
+                long previous = 0;
+                for (Object[] hitValues : values) {
+                    previous += in.readZLong();
+                    hitValues[column] = previous;
+                }
+                break;
+            case BYTES_REF_DICTIONARY:
+                final BytesRef[] dictionary = new BytesRef[in.readVInt()];
+                for (int i = 0; i < dictionary.length; i++) {
+                    dictionary[i] = in.readBytesRef();
+                }
+                for (Object[] hitValues : values) {
+                    final int ordinal = in.readVInt();
+                    hitValues[column] = ordinal == 0 ? null : dictionary[ordinal - 1];
+                }
+                break;
+            case GENERIC_VALUES:
+                for (Object[] hitValues : values) {
+                    hitValues[column] = Lucene.readSortValue(in);
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unknown sort values encoding " + encoding);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.query;
+
+import org.apache.lucene.search.FieldComparator;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldDocs;
+import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.SearchSortValuesAndFormats;
+
+import java.util.Arrays;
+
+import static org.elasticsearch.core.Types.forciblyCast;
+
+/**
+ * Drops the hits of a shard that sort strictly after the bottom sort values that the coordinating node
+ * published with the request. The bottom comes from a shard that already returned as many hits as the
+ * coordinating node needs, so hits that sort after it can't make it to the top hits and don't need to be
+ * sent back. Ties are kept since the coordinating node breaks them by shard index.
+ */
+final class NonCompetitiveHitsPruner {
+
+    private NonCompetitiveHitsPruner() {}
+
+    /**
+     * Removes the hits of the given result that sort after <code>bottomSortValues</code>, if any.
+     * @return the number of hits that were removed
+     */
+    static int prune(QuerySearchResult queryResult, @Nullable SearchSortValuesAndFormats bottomSortValues) {
+        if (bottomSortValues == null || queryResult.hasConsumedTopDocs()) {
+            return 0;
+        }
+        final TopDocsAndMaxScore topDocs = queryResult.topDocs();
+        final ScoreDoc[] scoreDocs = topDocs.topDocs.scoreDocs;
+        if (scoreDocs.length == 0) {
+            return 0;
+        }
+        final Object[] bottom = bottomSortValues.getRawSortValues();
+        final int numCompetitive;
+        if (topDocs.topDocs.getClass() == TopFieldDocs.class) {
+            final TopFieldDocs topFieldDocs = (TopFieldDocs) topDocs.topDocs;
+            if (isCompatible(topFieldDocs, queryResult.sortValueFormats(), bottomSortValues) == false) {
+                return 0;
+            }
+            numCompetitive = numCompetitiveFieldDocs(topFieldDocs, bottom);
+        } else if (topDocs.topDocs.getClass() == TopDocs.class) {
+            if (bottom.length != 1 || bottom[0] instanceof Float == false) {
+                return 0;
+            }
+            numCompetitive = numCompetitiveScoreDocs(scoreDocs, (Float) bottom[0]);
+        } else {
+            // collapsed top docs carry a value per hit that the bottom doesn't know about
+            return 0;
+        }
+        if (numCompetitive == scoreDocs.length) {
+            return 0;
+        }
+        final ScoreDoc[] competitiveDocs = Arrays.copyOf(scoreDocs, numCompetitive);
+        final TopDocs newTopDocs = topDocs.topDocs instanceof TopFieldDocs
+            ? new TopFieldDocs(topDocs.topDocs.totalHits, competitiveDocs, ((TopFieldDocs) topDocs.topDocs).fields)
+            : new TopDocs(topDocs.topDocs.totalHits, competitiveDocs);
+        queryResult.topDocs(new TopDocsAndMaxScore(newTopDocs, topDocs.maxScore), queryResult.sortValueFormats());
+        return scoreDocs.length - numCompetitive;
+    }
+
+    /**
+     * Returns <code>true</code> if the bottom was computed with the same sort as the top docs of this shard, which
+     * isn't the case if this shard has different mappings than the shard that the bottom comes from.
+     */
+    private static boolean isCompatible(TopFieldDocs topDocs, DocValueFormat[] formats, SearchSortValuesAndFormats bottomSortValues) {
+        final Object[] bottom = bottomSortValues.getRawSortValues();
+        if (formats == null
+            || bottom.length != topDocs.fields.length
+            || Arrays.equals(formats, bottomSortValues.getSortValueFormats()) == false) {
+            return false;
+        }
+        for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+            final Object[] values = ((FieldDoc) scoreDoc).fields;
+            if (values.length != bottom.length) {
+                return false;
+            }
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] != null && bottom[i] != null && values[i].getClass() != bottom[i].getClass()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static int numCompetitiveFieldDocs(TopFieldDocs topDocs, Object[] bottom) {
+        final SortField[] sortFields = topDocs.fields;
+        final FieldComparator<?>[] comparators = new FieldComparator<?>[sortFields.length];
+        final int[] reverseMuls = new int[sortFields.length];
+        for (int i = 0; i < sortFields.length; i++) {
+            comparators[i] = sortFields[i].getComparator(1, i);
+            reverseMuls[i] = sortFields[i].getReverse() ? -1 : 1;
+        }
+        // hits are sorted, so the competitive ones are a prefix
+        int numCompetitive = topDocs.scoreDocs.length;
+        while (numCompetitive > 0
+            && compareValues(comparators, reverseMuls, ((FieldDoc) topDocs.scoreDocs[numCompetitive - 1]).fields, bottom) > 0) {
+            numCompetitive--;
+        }
+        return numCompetitive;
+    }
+
+    private static int compareValues(FieldComparator<?>[] comparators, int[] reverseMuls, Object[] v1, Object[] v2) {
+        for (int i = 0; i < v1.length; i++) {
+            int cmp = reverseMuls[i] * comparators[i].compareValues(forciblyCast(v1[i]), forciblyCast(v2[i]));
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
+    private static int numCompetitiveScoreDocs(ScoreDoc[] scoreDocs, float bottomScore) {
+        int numCompetitive = scoreDocs.length;
+        while (numCompetitive > 0 && scoreDocs[numCompetitive - 1].score < bottomScore) {
+            numCompetitive--;
+        }
+        return numCompetitive;
+    }
+}
@@ -0,0 +1,329 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.query;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.FilterCollector;
+import org.apache.lucene.search.FilterLeafCollector;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSelector;
+import org.apache.lucene.search.SortedNumericSortField;
+import org.apache.lucene.util.NumericUtils;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.SearchSortValuesAndFormats;
+import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.search.sort.SortAndFormats;
+import org.elasticsearch.tasks.TaskId;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Early termination of searches whose primary sort is on a numeric field that is indexed with points, like
+ * {@code @timestamp}. Segments whose values cannot beat the bottom of the top hits are skipped entirely. The
+ * segments are still visited in index order, so that hits that tie on their sort values are ordered by doc id
+ * like without skipping. The bottom is the most competitive of:
+ * <ul>
+ *     <li>the bottom of the top hits of this shard, once it collected enough of them,</li>
+ *     <li>the bottom that the coordinating node sent with the request, see {@code BottomSortValuesCollector},</li>
+ *     <li>the bottom of the other shards of the same request that are searched concurrently on this node.</li>
+ * </ul>
+ * Values are compared through their competitive key, a long that is greater for values that sort first.
+ * Segments are skipped only if their best key is strictly lower than the bottom, since ties may still be
+ * competitive, and only once the total hits no longer need to be counted. Since the hits of the shard then depend
+ * on the bottom of other shards, the results of this early termination must not be cached.
+ */
+final class NumericSortEarlyTermination implements Releasable {
+
+    private final String field;
+    private final boolean isDouble;
+    private final boolean reverse;
+    @Nullable
+    private final SortedNumericSelector.Type selector;
+    private final long missingKey;
+    private final long[] leafBestKeys;
+    private final long afterKey;
+    private final long skipLeavesAfterHits;
+    @Nullable
+    private final SharedBottomSortValues.Bottom sharedBottom;
+    private long bottom;
+
+    /**
+     * The competitive keys of the best hits collected so far, the least competitive first,
+     * or {@code null} if the shard has too few documents to fill the top hits.
+     */
+    @Nullable
+    private final long[] heap;
+    private int heapSize;
+    private long collected;
+
+    private NumericSortEarlyTermination(IndexReader reader, SortField sortField, SortField.Type type, int topN,
+                                        @Nullable Object after, @Nullable Object requestBottom, long skipLeavesAfterHits,
+                                        @Nullable SharedBottomSortValues.Bottom sharedBottom) throws IOException {
+        this.field = sortField.getField();
+        this.isDouble = type == SortField.Type.DOUBLE;
+        this.reverse = sortField.getReverse();
+        this.selector = sortField instanceof SortedNumericSortField ? ((SortedNumericSortField) sortField).getSelector() : null;
+        Object missingValue = sortField.getMissingValue();
+        if (missingValue == null) {
+            // numeric comparators use 0 for documents without a value unless the sort sets a missing value
+            missingValue = isDouble ? (Object) 0d : (Object) 0L;
+        }
+        this.missingKey = toKey(missingValue);
+        this.afterKey = after == null ? Long.MAX_VALUE : toKey(after);
+        this.skipLeavesAfterHits = skipLeavesAfterHits;
+        this.sharedBottom = sharedBottom;
+        this.bottom = requestBottom == null ? Long.MIN_VALUE : toKey(requestBottom);
+        this.heap = topN <= reader.numDocs() ? new long[topN] : null;
+        final List<LeafReaderContext> leaves = reader.leaves();
+        this.leafBestKeys = new long[leaves.size()];
+        for (LeafReaderContext leaf : leaves) {
+            leafBestKeys[leaf.ord] = bestKey(leaf.reader());
+        }
+    }
+
+    /**
+     * Returns the early termination of the query phase of the provided context, or {@code null} if its sort,
+     * collectors or field don't allow it.
+     * @param skipLeavesAfterHits the number of hits the shard must collect before segments can be skipped without
+     *                            changing its total hits
+     */
+    @Nullable
+    static NumericSortEarlyTermination create(SearchContext searchContext, @Nullable SharedBottomSortValues sharedBottoms,
+                                              long skipLeavesAfterHits) throws IOException {
+        final SortAndFormats sortAndFormats = searchContext.sort();
+        if (sortAndFormats == null
+            || searchContext.size() == 0
+            || searchContext.scrollContext() != null
+            || searchContext.collapse() != null
+            || searchContext.getProfilers() != null) {
+            return null;
+        }
+        final SortField sortField = sortAndFormats.sort.getSort()[0];
+        final SortField.Type type = sortField instanceof SortedNumericSortField
+            ? ((SortedNumericSortField) sortField).getNumericType()
+            : sortField.getType();
+        // the values in points must be the same as in doc values, see IndexNumericFieldData#sortField
+        if ((type != SortField.Type.LONG && type != SortField.Type.DOUBLE) || sortField.getOptimizeSortWithPoints() == false) {
+            return null;
+        }
+        final FieldDoc after = searchContext.searchAfter();
+        final Object afterValue = after == null ? null : after.fields[0];
+        if (afterValue != null && isOfType(afterValue, type) == false) {
+            return null;
+        }
+        final IndexReader reader = searchContext.searcher().getIndexReader();
+        final DocValueFormat format = sortAndFormats.formats[0];
+        final int topN = searchContext.from() + searchContext.size();
+        final Object requestBottom = requestBottom(searchContext, format);
+        SharedBottomSortValues.Bottom sharedBottom = null;
+        if (sharedBottoms != null && searchContext.getTask() != null) {
+            final TaskId parentTaskId = searchContext.getTask().getParentTaskId();
+            if (parentTaskId.isSet()) {
+                sharedBottom = sharedBottoms.acquire(parentTaskId, sortField, format, topN);
+            }
+        }
+        try {
+            return new NumericSortEarlyTermination(reader, sortField, type, topN, afterValue,
+                isOfType(requestBottom, type) ? requestBottom : null, skipLeavesAfterHits, sharedBottom);
+        } catch (IOException | RuntimeException e) {
+            if (sharedBottom != null) {
+                sharedBottom.release();
+            }
+            throw e;
+        }
+    }
+
+    @Nullable
+    private static Object requestBottom(SearchContext searchContext, DocValueFormat format) {
+        if (searchContext.request() == null) {
+            return null;
+        }
+        final SearchSortValuesAndFormats bottomSortValues = searchContext.request().getBottomSortValues();
+        if (bottomSortValues == null
+            || bottomSortValues.getRawSortValues().length == 0
+            || bottomSortValues.getSortValueFormats()[0].equals(format) == false) {
+            return null;
+        }
+        return bottomSortValues.getRawSortValues()[0];
+    }
+
+    private static boolean isOfType(@Nullable Object value, SortField.Type type) {
+        return type == SortField.Type.LONG ? value instanceof Long : value instanceof Double;
+    }
+
+    /**
+     * Wraps the collector of the query phase so that it skips the segments that cannot be competitive.
+     */
+    Collector wrap(Collector in) {
+        return new FilterCollector(in) {
+            @Override
+            public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+                if (collected >= skipLeavesAfterHits && leafBestKeys[context.ord] < currentBottom()) {
+                    throw new CollectionTerminatedException();
+                }
+                final LeafCollector leafCollector = super.getLeafCollector(context);
+                final NumericDocValues values = heap == null ? null : values(context.reader());
+                return new FilterLeafCollector(leafCollector) {
+                    @Override
+                    public void collect(int doc) throws IOException {
+                        super.collect(doc);
+                        collected++;
+                        if (values != null) {
+                            offer(values.advanceExact(doc) ? toKey(values.longValue()) : missingKey);
+                        }
+                    }
+
+                    @Override
+                    public DocIdSetIterator competitiveIterator() throws IOException {
+                        return in.competitiveIterator();
+                    }
+                };
+            }
+        };
+    }
+
+    private long currentBottom() {
+        if (sharedBottom != null) {
+            bottom = Math.max(bottom, sharedBottom.get());
+        }
+        return bottom;
+    }
+
+    /**
+     * Adds the competitive key of a collected hit to the top hits and raises the bottom once they are full.
+     */
+    private void offer(long key) {
+        if (key >= afterKey) {
+            // hits that don't sort after the search_after values are not part of the top hits
+            return;
+        }
+        if (heapSize < heap.length) {
+            heap[heapSize] = key;
+            siftUp(heapSize++);
+            if (heapSize < heap.length) {
+                return;
+            }
+        } else if (key > heap[0]) {
+            heap[0] = key;
+            siftDown(0);
+        } else {
+            return;
+        }
+        if (heap[0] > bottom) {
+            bottom = heap[0];
+            if (sharedBottom != null) {
+                sharedBottom.update(bottom);
+            }
+        }
+    }
+
+    private void siftUp(int i) {
+        final long key = heap[i];
+        while (i > 0) {
+            final int parent = (i - 1) >>> 1;
+            if (heap[parent] <= key) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = key;
+    }
+
+    private void siftDown(int i) {
+        final long key = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (key <= heap[child]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = key;
+    }
+
+    /**
+     * Returns the values of the sort field as the comparator of the sort reads them.
+     */
+    private NumericDocValues values(LeafReader reader) throws IOException {
+        if (selector != null) {
+            return SortedNumericSelector.wrap(DocValues.getSortedNumeric(reader, field), selector,
+                isDouble ? SortField.Type.DOUBLE : SortField.Type.LONG);
+        }
+        return DocValues.getNumeric(reader, field);
+    }
+
+    /**
+     * Returns the most competitive key of the segment, using the range of its points.
+     */
+    private long bestKey(LeafReader reader) throws IOException {
+        final FieldInfo fieldInfo = reader.getFieldInfos().fieldInfo(field);
+        if (fieldInfo == null) {
+            // none of the documents has a value
+            return missingKey;
+        }
+        final PointValues points = reader.getPointValues(field);
+        if (points == null) {
+            // the range of the segment is unknown, it must be visited
+            return Long.MAX_VALUE;
+        }
+        // points encode longs and doubles as sortable longs
+        final long minKey = sortableToKey(NumericUtils.sortableBytesToLong(points.getMinPackedValue(), 0));
+        final long maxKey = sortableToKey(NumericUtils.sortableBytesToLong(points.getMaxPackedValue(), 0));
+        long best = Math.max(minKey, maxKey);
+        if (points.getDocCount() < reader.maxDoc()) {
+            best = Math.max(best, missingKey);
+        }
+        return best;
+    }
+
+    private long toKey(Object value) {
+        return sortableToKey(isDouble ? NumericUtils.doubleToSortableLong((Double) value) : (Long) value);
+    }
+
+    /**
+     * Converts a doc value, which holds the raw bits of doubles, to its competitive key.
+     */
+    private long toKey(long docValue) {
+        return sortableToKey(isDouble ? NumericUtils.sortableDoubleBits(docValue) : docValue);
+    }
+
+    private long sortableToKey(long sortable) {
+        // ascending sorts put low values first, flipping the bits reverses the order without overflowing
+        return reverse ? sortable : ~sortable;
+    }
+
+    @Override
+    public void close() {
+        if (sharedBottom != null) {
+            sharedBottom.release();
+        }
+    }
+}
@@ -15,6 +15,7 @@ import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.CollectorManager;
 import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
@@ -25,6 +26,8 @@ import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
 import org.elasticsearch.common.util.concurrent.EWMATrackingEsThreadPoolExecutor;
 import org.elasticsearch.common.util.concurrent.EsThreadPoolExecutor;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.Releasables;
 import org.elasticsearch.lucene.queries.SearchAfterSortedDocQuery;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.SearchContextSourcePrinter;
@@ -40,7 +43,10 @@ import org.elasticsearch.search.suggest.SuggestPhase;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 
 import static org.elasticsearch.search.query.QueryCollectorContext.createEarlyTerminationCollectorContext;
@@ -59,6 +65,7 @@ public class QueryPhase {
     private final AggregationPhase aggregationPhase;
     private final SuggestPhase suggestPhase;
     private final RescorePhase rescorePhase;
+    private final SharedBottomSortValues sharedBottomSortValues = new SharedBottomSortValues();
 
     public QueryPhase() {
         this.aggregationPhase = new AggregationPhase();
@@ -67,6 +74,19 @@ public class QueryPhase {
     }
 
     public void execute(SearchContext searchContext) throws QueryPhaseExecutionException {
+        execute(searchContext, sharedBottomSortValues);
+    }
+
+    /**
+     * Executes the query phase of a request whose result is cached, see {@link org.elasticsearch.indices.IndicesService}. Unlike
+     * {@link #execute(SearchContext)} the hits don't depend on the bottom sort values of the other shards of the request.
+     */
+    public void executeForCache(SearchContext searchContext) throws QueryPhaseExecutionException {
+        execute(searchContext, null);
+    }
+
+    private void execute(SearchContext searchContext,
+                         @Nullable SharedBottomSortValues sharedBottomSortValues) throws QueryPhaseExecutionException {
         if (searchContext.hasOnlySuggest()) {
             suggestPhase.execute(searchContext);
             searchContext.queryResult().topDocs(new TopDocsAndMaxScore(
@@ -83,11 +103,15 @@ public class QueryPhase {
         // request, preProcess is called on the DFS phase, this is why we pre-process them
         // here to make sure it happens during the QUERY phase
         aggregationPhase.preProcess(searchContext);
-        boolean rescore = executeInternal(searchContext);
+        boolean rescore = executeInternal(searchContext, sharedBottomSortValues);
 
         if (rescore) { // only if we do a regular search
             rescorePhase.execute(searchContext);
         }
+        if (searchContext.scrollContext() == null && searchContext.request() != null) {
+            // don't send back the hits that can't make it to the top hits given the bottom of the shards that already returned
+            NonCompetitiveHitsPruner.prune(searchContext.queryResult(), searchContext.request().getBottomSortValues());
+        }
         suggestPhase.execute(searchContext);
         aggregationPhase.execute(searchContext);
 
@@ -102,6 +126,14 @@ public class QueryPhase {
      * @return whether the rescoring phase should be executed
      */
     static boolean executeInternal(SearchContext searchContext) throws QueryPhaseExecutionException {
+        return executeInternal(searchContext, null);
+    }
+
+    /**
+     * @param sharedBottomSortValues the bottom sort values shared with the other shards of the request, if any
+     */
+    static boolean executeInternal(SearchContext searchContext,
+                                   @Nullable SharedBottomSortValues sharedBottomSortValues) throws QueryPhaseExecutionException {
         final ContextIndexSearcher searcher = searchContext.searcher();
         final IndexReader reader = searcher.getIndexReader();
         QuerySearchResult queryResult = searchContext.queryResult();
@@ -135,33 +167,10 @@ public class QueryPhase {
                 }
             }
 
-            final LinkedList<QueryCollectorContext> collectors = new LinkedList<>();
             // whether the chain contains a collector that filters documents
-            boolean hasFilterCollector = false;
-            if (searchContext.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER) {
-                // add terminate_after before the filter collectors
-                // it will only be applied on documents accepted by these filter collectors
-                collectors.add(createEarlyTerminationCollectorContext(searchContext.terminateAfter()));
-                // this collector can filter documents during the collection
-                hasFilterCollector = true;
-            }
-            if (searchContext.parsedPostFilter() != null) {
-                // add post filters before aggregations
-                // it will only be applied to top hits
-                collectors.add(createFilteredCollectorContext(searcher, searchContext.parsedPostFilter().query()));
-                // this collector can filter documents during the collection
-                hasFilterCollector = true;
-            }
-            if (searchContext.queryCollectors().isEmpty() == false) {
-                // plug in additional collectors, like aggregations
-                collectors.add(createMultiCollectorContext(searchContext.queryCollectors().values()));
-            }
-            if (searchContext.minimumScore() != null) {
-                // apply the minimum score after multi collector so we filter aggs as well
-                collectors.add(createMinScoreCollectorContext(searchContext.minimumScore()));
-                // this collector can filter documents during the collection
-                hasFilterCollector = true;
-            }
+            final boolean hasFilterCollector = searchContext.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER
+                || searchContext.parsedPostFilter() != null
+                || searchContext.minimumScore() != null;
 
             boolean timeoutSet = scrollContext == null && searchContext.timeout() != null &&
                 searchContext.timeout().equals(SearchService.NO_TIMEOUT) == false;
@@ -182,7 +191,15 @@ public class QueryPhase {
             }
 
             try {
-                boolean shouldRescore = searchWithCollector(searchContext, searcher, query, collectors, hasFilterCollector, timeoutSet);
+                final boolean shouldRescore;
+                if (canSearchConcurrently(searchContext)) {
+                    shouldRescore = searchConcurrently(searchContext, searcher, query, hasFilterCollector, timeoutSet);
+                } else {
+                    final LinkedList<QueryCollectorContext> collectors =
+                        createCollectorContexts(searchContext, searchContext.queryCollectors().values());
+                    shouldRescore = searchWithCollector(searchContext, searcher, query, collectors, hasFilterCollector, timeoutSet,
+                        sharedBottomSortValues);
+                }
                 ExecutorService executor = searchContext.indexShard().getThreadPool().executor(ThreadPool.Names.SEARCH);
                 assert executor instanceof EWMATrackingEsThreadPoolExecutor ||
                     (executor instanceof EsThreadPoolExecutor == false /* in case thread pool is mocked out in tests */) :
@@ -205,8 +222,116 @@ public class QueryPhase {
         }
     }
 
+    /**
+     * Creates the chain of collector contexts that wrap the top docs collector.
+     * @param queryCollectors additional collectors, like aggregations
+     */
+    private static LinkedList<QueryCollectorContext> createCollectorContexts(SearchContext searchContext,
+                                                                             Collection<Collector> queryCollectors) {
+        final LinkedList<QueryCollectorContext> collectors = new LinkedList<>();
+        if (searchContext.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER) {
+            // add terminate_after before the filter collectors
+            // it will only be applied on documents accepted by these filter collectors
+            collectors.add(createEarlyTerminationCollectorContext(searchContext.terminateAfter()));
+        }
+        if (searchContext.parsedPostFilter() != null) {
+            // add post filters before aggregations
+            // it will only be applied to top hits
+            collectors.add(createFilteredCollectorContext(searchContext.searcher(), searchContext.parsedPostFilter().query()));
+        }
+        if (queryCollectors.isEmpty() == false) {
+            // plug in additional collectors, like aggregations
+            collectors.add(createMultiCollectorContext(queryCollectors));
+        }
+        if (searchContext.minimumScore() != null) {
+            // apply the minimum score after multi collector so we filter aggs as well
+            collectors.add(createMinScoreCollectorContext(searchContext.minimumScore()));
+        }
+        return collectors;
+    }
+
+    /**
+     * Returns whether the segments of the shard can be searched in slices concurrently, each with its own collectors.
+     * This requires a collector chain whose results can be merged: scroll, collapse and terminate_after need to see all
+     * matches in a single collector, and profiled searches run on a single thread so that timings are accurate.
+     */
+    static boolean canSearchConcurrently(SearchContext searchContext) {
+        if (searchContext.searcher().getConcurrentSliceCount() <= 1) {
+            return false;
+        }
+        if (searchContext.scrollContext() != null
+            || searchContext.collapse() != null
+            || searchContext.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER
+            || searchContext.getProfilers() != null) {
+            return false;
+        }
+        for (Class<?> queryCollector : searchContext.queryCollectors().keySet()) {
+            // aggregations are the only additional collectors that can be created for each slice
+            if (queryCollector != AggregationPhase.class) {
+                return false;
+            }
+        }
+        return searchContext.aggregations() == null || searchContext.aggregations().supportsConcurrentCollection();
+    }
+
+    private static boolean searchConcurrently(SearchContext searchContext, ContextIndexSearcher searcher, Query query,
+                                              boolean hasFilterCollector, boolean timeoutSet) throws IOException {
+        final SliceCollectorManager collectorManager = new SliceCollectorManager(searchContext, hasFilterCollector);
+        final QuerySearchResult queryResult = searchContext.queryResult();
+        try {
+            searcher.searchConcurrently(query, collectorManager);
+        } catch (TimeExceededException e) {
+            assert timeoutSet : "TimeExceededException thrown even though timeout wasn't set";
+            if (searchContext.request().allowPartialSearchResults() == false) {
+                // Can't rethrow TimeExceededException because not serializable
+                throw new QueryPhaseExecutionException(searchContext.shardTarget(), "Time exceeded");
+            }
+            queryResult.searchTimedOut(true);
+        }
+        final List<TopDocsCollectorContext> topDocsContexts = collectorManager.topDocsContexts;
+        queryResult.topDocs(TopDocsCollectorContext.mergeSlices(topDocsContexts), topDocsContexts.get(0).sortValueFormats());
+        return topDocsContexts.get(0).shouldRescore();
+    }
+
+    /**
+     * Creates the collector chain of each slice of a concurrent search. The first slice uses the collectors of the search
+     * context, the others get their own aggregators which {@link AggregationPhase} reduces with the ones of the first slice.
+     */
+    private static class SliceCollectorManager implements CollectorManager<Collector, Void> {
+        private final SearchContext searchContext;
+        private final boolean hasFilterCollector;
+        private final List<TopDocsCollectorContext> topDocsContexts = new ArrayList<>();
+
+        SliceCollectorManager(SearchContext searchContext, boolean hasFilterCollector) {
+            this.searchContext = searchContext;
+            this.hasFilterCollector = hasFilterCollector;
+        }
+
+        @Override
+        public Collector newCollector() throws IOException {
+            final Collection<Collector> queryCollectors;
+            if (topDocsContexts.isEmpty() || searchContext.aggregations() == null) {
+                queryCollectors = searchContext.queryCollectors().values();
+            } else {
+                queryCollectors = List.of(AggregationPhase.createSliceCollector(searchContext));
+            }
+            final LinkedList<QueryCollectorContext> collectors = createCollectorContexts(searchContext, queryCollectors);
+            final TopDocsCollectorContext topDocsFactory = createTopDocsCollectorContext(searchContext, hasFilterCollector);
+            collectors.addFirst(topDocsFactory);
+            topDocsContexts.add(topDocsFactory);
+            return QueryCollectorContext.createQueryCollector(collectors);
+        }
+
+        @Override
+        public Void reduce(Collection<Collector> collectors) {
+            // the top docs are merged from the contexts of all slices and aggregations are reduced by the aggregation phase
+            return null;
+        }
+    }
+
     private static boolean searchWithCollector(SearchContext searchContext, ContextIndexSearcher searcher, Query query,
-            LinkedList<QueryCollectorContext> collectors, boolean hasFilterCollector, boolean timeoutSet) throws IOException {
+            LinkedList<QueryCollectorContext> collectors, boolean hasFilterCollector, boolean timeoutSet,
+            @Nullable SharedBottomSortValues sharedBottomSortValues) throws IOException {
         // create the top docs collector last when the other collectors are known
         final TopDocsCollectorContext topDocsFactory = createTopDocsCollectorContext(searchContext, hasFilterCollector);
         // add the top docs collector, the first collector context in the chain
@@ -220,9 +345,17 @@ public class QueryPhase {
         } else {
             queryCollector = QueryCollectorContext.createQueryCollector(collectors);
         }
+        // segments can only be skipped if the top docs collector is the only one that needs to see the matches
+        final NumericSortEarlyTermination sortEarlyTermination = collectors.size() == 1 && hasFilterCollector == false
+            ? NumericSortEarlyTermination.create(searchContext, sharedBottomSortValues, topDocsFactory.skipNonCompetitiveAfterHits())
+            : null;
         QuerySearchResult queryResult = searchContext.queryResult();
         try {
-            searcher.search(query, queryCollector);
+            if (sortEarlyTermination != null) {
+                searcher.search(query, sortEarlyTermination.wrap(queryCollector));
+            } else {
+                searcher.search(query, queryCollector);
+            }
         } catch (EarlyTerminatingCollector.EarlyTerminationException e) {
             queryResult.terminatedEarly(true);
         } catch (TimeExceededException e) {
@@ -232,6 +365,8 @@ public class QueryPhase {
                 throw new QueryPhaseExecutionException(searchContext.shardTarget(), "Time exceeded");
             }
             queryResult.searchTimedOut(true);
+        } finally {
+            Releasables.close(sortEarlyTermination);
         }
         if (searchContext.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER && queryResult.terminatedEarly() == null) {
             queryResult.terminatedEarly(false);
@@ -0,0 +1,116 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.query;
+
+import org.apache.lucene.search.SortField;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.tasks.TaskId;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shares the bottom of the primary sort among the shards of a search request that run their query phase
+ * concurrently on this node, so that each of them can skip the segments that cannot be competitive given
+ * the top hits that the others already collected. Shards of the same request share a bottom if they sort
+ * on the same field with the same format.
+ */
+final class SharedBottomSortValues {
+
+    private final ConcurrentMap<Key, Bottom> bottoms = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the shared bottom of the given request and primary sort. It must be released once the shard is done.
+     */
+    Bottom acquire(TaskId parentTaskId, SortField sortField, DocValueFormat format, int topN) {
+        final Key key = new Key(parentTaskId, sortField, format, topN);
+        while (true) {
+            final Bottom bottom = bottoms.computeIfAbsent(key, Bottom::new);
+            if (bottom.tryIncRef()) {
+                return bottom;
+            }
+            // the bottom is being released, wait until it is removed
+            bottoms.remove(key, bottom);
+        }
+    }
+
+    int size() {
+        return bottoms.size();
+    }
+
+    /**
+     * The competitive key of the bottom hit of the shards of a search, see {@link NumericSortEarlyTermination}.
+     */
+    final class Bottom {
+        private final Key key;
+        private final AtomicLong competitiveKey = new AtomicLong(Long.MIN_VALUE);
+        private int refCount = 0;
+
+        private Bottom(Key key) {
+            this.key = key;
+        }
+
+        long get() {
+            return competitiveKey.get();
+        }
+
+        /**
+         * Raises the bottom to the given key if it is more competitive than the current one.
+         */
+        void update(long key) {
+            competitiveKey.accumulateAndGet(key, Math::max);
+        }
+
+        private synchronized boolean tryIncRef() {
+            if (refCount < 0) {
+                return false;
+            }
+            refCount++;
+            return true;
+        }
+
+        synchronized void release() {
+            assert refCount > 0;
+            if (--refCount == 0) {
+                refCount = -1;
+                bottoms.remove(key, this);
+            }
+        }
+    }
+
+    private static final class Key {
+        private final TaskId parentTaskId;
+        private final SortField sortField;
+        private final DocValueFormat format;
+        private final int topN;
+
+        Key(TaskId parentTaskId, SortField sortField, DocValueFormat format, int topN) {
+            this.parentTaskId = parentTaskId;
+            this.sortField = sortField;
+            this.format = format;
+            this.topN = topN;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return topN == key.topN && parentTaskId.equals(key.parentTaskId) && sortField.equals(key.sortField)
+                && format.equals(key.format);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(parentTaskId, sortField, format, topN);
+        }
+    }
+}
@@ -56,6 +56,7 @@ import org.elasticsearch.search.rescore.RescoreContext;
 import org.elasticsearch.search.sort.SortAndFormats;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Objects;
 import java.util.function.Supplier;
 
@@ -87,10 +88,76 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
         return false;
     }
 
+    /**
+     * Returns the top docs and max score collected by this context.
+     */
+    abstract TopDocsAndMaxScore topDocsAndMaxScore() throws IOException;
+
+    /**
+     * Returns the formats of the sort values of the top docs, or null if they are sorted by score.
+     */
+    abstract DocValueFormat[] sortValueFormats();
+
+    /**
+     * Returns true if the total hits of this context were computed for the whole shard rather than counted by its collector.
+     */
+    boolean hasShardTotalHits() {
+        return false;
+    }
+
+    /**
+     * Returns the number of hits that the collector of this context must collect before it can skip
+     * non-competitive documents without changing the total hits that it reports.
+     */
+    long skipNonCompetitiveAfterHits() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    void postProcess(QuerySearchResult result) throws IOException {
+        result.topDocs(topDocsAndMaxScore(), sortValueFormats());
+    }
+
+    /**
+     * Merges the top docs that the provided contexts collected from distinct slices of the segments of a shard.
+     */
+    static TopDocsAndMaxScore mergeSlices(List<TopDocsCollectorContext> contexts) throws IOException {
+        final TopDocs[] topDocs = new TopDocs[contexts.size()];
+        float maxScore = Float.NaN;
+        long totalHits = 0;
+        TotalHits.Relation relation = TotalHits.Relation.EQUAL_TO;
+        for (int i = 0; i < topDocs.length; i++) {
+            final TopDocsAndMaxScore slice = contexts.get(i).topDocsAndMaxScore();
+            topDocs[i] = slice.topDocs;
+            if (Float.isNaN(slice.maxScore) == false) {
+                maxScore = Float.isNaN(maxScore) ? slice.maxScore : Math.max(maxScore, slice.maxScore);
+            }
+            totalHits += slice.topDocs.totalHits.value;
+            if (slice.topDocs.totalHits.relation == TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO) {
+                relation = TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO;
+            }
+        }
+        final TopDocsCollectorContext first = contexts.get(0);
+        final TopDocs merged;
+        if (topDocs[0] instanceof TopFieldDocs) {
+            final TopFieldDocs[] fieldDocs = new TopFieldDocs[topDocs.length];
+            for (int i = 0; i < topDocs.length; i++) {
+                fieldDocs[i] = (TopFieldDocs) topDocs[i];
+            }
+            merged = TopDocs.merge(new Sort(fieldDocs[0].fields), first.numHits(), fieldDocs);
+        } else {
+            merged = TopDocs.merge(first.numHits(), topDocs);
+        }
+        // every slice reports the total hits of the whole shard when they could be computed without collecting
+        merged.totalHits = first.hasShardTotalHits() ? topDocs[0].totalHits : new TotalHits(totalHits, relation);
+        return new TopDocsAndMaxScore(merged, maxScore);
+    }
+
     static class EmptyTopDocsCollectorContext extends TopDocsCollectorContext {
         private final Sort sort;
         private final Collector collector;
         private final Supplier<TotalHits> hitCountSupplier;
+        private final boolean shardTotalHits;
 
         /**
          * Ctr
@@ -110,10 +177,12 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
                 this.collector = new EarlyTerminatingCollector(new TotalHitCountCollector(), 0, false);
                 // for bwc hit count is set to 0, it will be converted to -1 by the coordinating node
                 this.hitCountSupplier = () -> new TotalHits(0, TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO);
+                this.shardTotalHits = false;
             } else {
                 TotalHitCountCollector hitCountCollector = new TotalHitCountCollector();
                 // implicit total hit counts are valid only when there is no filter collector in the chain
                 int hitCount = hasFilterCollector ? -1 : shortcutTotalHitCount(reader, query);
+                this.shardTotalHits = hitCount != -1;
                 if (hitCount == -1) {
                     if (trackTotalHitsUpTo == SearchContext.TRACK_TOTAL_HITS_ACCURATE) {
                         this.collector = hitCountCollector;
@@ -139,7 +208,7 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
         }
 
         @Override
-        void postProcess(QuerySearchResult result) {
+        TopDocsAndMaxScore topDocsAndMaxScore() {
             final TotalHits totalHitCount = hitCountSupplier.get();
             final TopDocs topDocs;
             if (sort != null) {
@@ -147,7 +216,17 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
             } else {
                 topDocs = new TopDocs(totalHitCount, Lucene.EMPTY_SCORE_DOCS);
             }
-            result.topDocs(new TopDocsAndMaxScore(topDocs, Float.NaN), null);
+            return new TopDocsAndMaxScore(topDocs, Float.NaN);
+        }
+
+        @Override
+        DocValueFormat[] sortValueFormats() {
+            return null;
+        }
+
+        @Override
+        boolean hasShardTotalHits() {
+            return shardTotalHits;
         }
     }
 
@@ -191,9 +270,14 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
         }
 
         @Override
-        void postProcess(QuerySearchResult result) throws IOException {
+        TopDocsAndMaxScore topDocsAndMaxScore() throws IOException {
             CollapseTopFieldDocs topDocs = topDocsCollector.getTopDocs();
-            result.topDocs(new TopDocsAndMaxScore(topDocs, maxScoreSupplier.get()), sortFmt);
+            return new TopDocsAndMaxScore(topDocs, maxScoreSupplier.get());
+        }
+
+        @Override
+        DocValueFormat[] sortValueFormats() {
+            return sortFmt;
         }
     }
 
@@ -213,6 +297,8 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
         private final Supplier<TotalHits> totalHitsSupplier;
         private final Supplier<TopDocs> topDocsSupplier;
         private final Supplier<Float> maxScoreSupplier;
+        private final boolean shardTotalHits;
+        private final long skipNonCompetitiveAfterHits;
 
         /**
          * Ctr
@@ -245,23 +331,31 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
                 topDocsCollector = createCollector(sortAndFormats, numHits, searchAfter, Integer.MAX_VALUE);
                 topDocsSupplier = new CachedSupplier<>(topDocsCollector::topDocs);
                 totalHitsSupplier = () -> topDocsSupplier.get().totalHits;
+                shardTotalHits = false;
+                skipNonCompetitiveAfterHits = Long.MAX_VALUE;
             } else if (trackTotalHitsUpTo == SearchContext.TRACK_TOTAL_HITS_DISABLED) {
                 // don't compute hit counts via the collector
                 topDocsCollector = createCollector(sortAndFormats, numHits, searchAfter, 1);
                 topDocsSupplier = new CachedSupplier<>(topDocsCollector::topDocs);
                 totalHitsSupplier = () -> new TotalHits(0, TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO);
+                shardTotalHits = false;
+                skipNonCompetitiveAfterHits = 0;
             } else {
                 // implicit total hit counts are valid only when there is no filter collector in the chain
                 final int hitCount = hasFilterCollector ? -1 : shortcutTotalHitCount(reader, query);
+                shardTotalHits = hitCount != -1;
                 if (hitCount == -1) {
                     topDocsCollector = createCollector(sortAndFormats, numHits, searchAfter, trackTotalHitsUpTo);
                     topDocsSupplier = new CachedSupplier<>(topDocsCollector::topDocs);
                     totalHitsSupplier = () -> topDocsSupplier.get().totalHits;
+                    // the collector counts hits accurately up to the threshold
+                    skipNonCompetitiveAfterHits = trackTotalHitsUpTo == Integer.MAX_VALUE ? Long.MAX_VALUE : trackTotalHitsUpTo + 1L;
                 } else {
                     // don't compute hit counts via the collector
                     topDocsCollector = createCollector(sortAndFormats, numHits, searchAfter, 1);
                     topDocsSupplier = new CachedSupplier<>(topDocsCollector::topDocs);
                     totalHitsSupplier = () -> new TotalHits(hitCount, TotalHits.Relation.EQUAL_TO);
+                    skipNonCompetitiveAfterHits = 0;
                 }
             }
             MaxScoreCollector maxScoreCollector = null;
@@ -291,7 +385,8 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
             return collector;
         }
 
-        TopDocsAndMaxScore newTopDocs() {
+        @Override
+        TopDocsAndMaxScore topDocsAndMaxScore() {
             TopDocs in = topDocsSupplier.get();
             float maxScore = maxScoreSupplier.get();
             final TopDocs newTopDocs;
@@ -305,9 +400,18 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
         }
 
         @Override
-        void postProcess(QuerySearchResult result) throws IOException {
-            final TopDocsAndMaxScore topDocs = newTopDocs();
-            result.topDocs(topDocs, sortAndFormats == null ? null : sortAndFormats.formats);
+        DocValueFormat[] sortValueFormats() {
+            return sortAndFormats == null ? null : sortAndFormats.formats;
+        }
+
+        @Override
+        boolean hasShardTotalHits() {
+            return shardTotalHits;
+        }
+
+        @Override
+        long skipNonCompetitiveAfterHits() {
+            return skipNonCompetitiveAfterHits;
         }
     }
 
@@ -332,7 +436,7 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
 
         @Override
         void postProcess(QuerySearchResult result) throws IOException {
-            final TopDocsAndMaxScore topDocs = newTopDocs();
+            final TopDocsAndMaxScore topDocs = topDocsAndMaxScore();
             if (scrollContext.totalHits == null) {
                 // first round
                 scrollContext.totalHits = topDocs.topDocs.totalHits;
@@ -350,7 +454,7 @@ abstract class TopDocsCollectorContext extends QueryCollectorContext {
                     scrollContext.lastEmittedDoc = topDocs.topDocs.scoreDocs[topDocs.topDocs.scoreDocs.length - 1];
                 }
             }
-            result.topDocs(topDocs, sortAndFormats == null ? null : sortAndFormats.formats);
+            result.topDocs(topDocs, sortValueFormats());
         }
     }
 
@@ -8,9 +8,16 @@
 
 package org.elasticsearch.action.bulk;
 
+import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.support.WriteRequest.RefreshPolicy;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.xcontent.XContentType;
+
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.apache.lucene.util.TestUtil.randomSimpleString;
 
@@ -31,4 +38,56 @@ public class BulkShardRequestTests extends ESTestCase {
         assertEquals("BulkShardRequest [" + shardId + "] containing [" + count + "] requests blocking until refresh", r.toString());
         assertEquals("requests[" + count + "], index[" + index + "][0], refresh[WAIT_UNTIL]", r.getDescription());
     }
+
+    public void testReleasesSourcesReadFromWire() throws Exception {
+        final ShardId shardId = new ShardId("index", "_na_", 0);
+        final BulkItemRequest[] items = new BulkItemRequest[between(1, 10)];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = new BulkItemRequest(i, new IndexRequest("index").id(Integer.toString(i))
+                .source("{\"field\":\"" + randomAlphaOfLength(10) + "\"}", XContentType.JSON));
+        }
+        final BytesStreamOutput out = new BytesStreamOutput();
+        new BulkShardRequest(shardId, RefreshPolicy.NONE, items).writeTo(out);
+
+        final AtomicBoolean released = new AtomicBoolean();
+        final ReleasableBytesReference bytes = new ReleasableBytesReference(out.bytes(), () -> released.set(true));
+        final BulkShardRequest read;
+        try (StreamInput in = bytes.streamInput()) {
+            read = new BulkShardRequest(in);
+        }
+        bytes.close();
+        assertFalse("item sources must retain the buffer they were read from", released.get());
+        for (int i = 0; i < items.length; i++) {
+            assertEquals(((IndexRequest) items[i].request()).source(), ((IndexRequest) read.items()[i].request()).source());
+        }
+
+        read.incRef();
+        assertFalse(read.decRef());
+        assertFalse(released.get());
+        assertTrue(read.decRef());
+        assertTrue(released.get());
+    }
+
+    public void testReleasesSourcesWhenReadingFails() throws Exception {
+        final ShardId shardId = new ShardId("index", "_na_", 0);
+        final BulkItemRequest[] items = new BulkItemRequest[between(1, 10)];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = new BulkItemRequest(i, new IndexRequest("index").id(Integer.toString(i))
+                .source("{\"field\":\"" + randomAlphaOfLength(10) + "\"}", XContentType.JSON));
+        }
+        final BytesStreamOutput out = new BytesStreamOutput();
+        new BulkShardRequest(shardId, RefreshPolicy.NONE, items).writeTo(out);
+
+        // cut the request anywhere so that reading fails after some of the sources may have been read
+        final AtomicBoolean released = new AtomicBoolean();
+        final ReleasableBytesReference bytes = new ReleasableBytesReference(
+            out.bytes().slice(0, between(1, out.bytes().length() - 1)),
+            () -> released.set(true)
+        );
+        try (StreamInput in = bytes.streamInput()) {
+            expectThrows(Exception.class, () -> new BulkShardRequest(in));
+        }
+        bytes.close();
+        assertTrue("sources read before the failure must not retain the buffer", released.get());
+    }
 }
@@ -20,6 +20,7 @@ import org.elasticsearch.action.delete.DeleteResponse;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.action.support.ActionTestUtils;
+import org.elasticsearch.action.support.PlainActionFuture;
 import org.elasticsearch.action.support.WriteRequest.RefreshPolicy;
 import org.elasticsearch.action.support.replication.TransportWriteAction.WritePrimaryResult;
 import org.elasticsearch.action.update.UpdateHelper;
@@ -27,6 +28,7 @@ import org.elasticsearch.action.update.UpdateRequest;
 import org.elasticsearch.action.update.UpdateResponse;
 import org.elasticsearch.client.Requests;
 import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.compress.CompressedXContent;
 import org.elasticsearch.common.lucene.uid.Versions;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
@@ -36,6 +38,7 @@ import org.elasticsearch.index.bulk.stats.BulkStats;
 import org.elasticsearch.index.bulk.stats.ShardBulkStats;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.engine.VersionConflictEngineException;
+import org.elasticsearch.index.mapper.MapperParsingException;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.mapper.Mapping;
 import org.elasticsearch.index.mapper.MetadataFieldMapper;
@@ -48,12 +51,19 @@ import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.threadpool.TestThreadPool;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.threadpool.ThreadPool.Names;
+import org.elasticsearch.xcontent.ToXContent;
+import org.elasticsearch.xcontent.XContentType;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.BrokenBarrierException;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.CoreMatchers.equalTo;
@@ -63,6 +73,7 @@ import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.Matchers.arrayWithSize;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
@@ -239,7 +250,7 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
 
         IndexShard shard = mock(IndexShard.class);
         when(shard.shardId()).thenReturn(shardId);
-        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean()))
+        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean(), any()))
             .thenReturn(mappingUpdate);
         when(shard.mapperService()).thenReturn(mock(MapperService.class));
 
@@ -261,9 +272,10 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
         assertThat("mappings were \"updated\" once", updateCalled.get(), equalTo(1));
 
         // Verify that the shard "executed" the operation once
-        verify(shard, times(1)).applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean());
+        verify(shard, times(1)).applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean(),
+            any());
 
-        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean()))
+        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean(), any()))
             .thenReturn(success);
 
         TransportShardBulkAction.executeBulkItemRequest(context, null, threadPool::absoluteTimeInMillis,
@@ -273,7 +285,8 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
 
         // Verify that the shard "executed" the operation only once (1 for previous invocations plus
         // 1 for this execution)
-        verify(shard, times(2)).applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean());
+        verify(shard, times(2)).applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean(),
+            any());
 
 
         BulkItemResponse primaryResponse = bulkShardRequest.items()[0].getPrimaryResponse();
@@ -480,7 +493,7 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
         Exception err = new ElasticsearchException("I'm dead <(x.x)>");
         Engine.IndexResult indexResult = new Engine.IndexResult(err, 0, 0, 0);
         IndexShard shard = mock(IndexShard.class);
-        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean()))
+        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean(), any()))
             .thenReturn(indexResult);
         when(shard.indexSettings()).thenReturn(indexSettings);
 
@@ -529,7 +542,7 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
             "I'm conflicted <(;_;)>");
         Engine.IndexResult indexResult = new Engine.IndexResult(err, 0, 0, 0);
         IndexShard shard = mock(IndexShard.class);
-        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean()))
+        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean(), any()))
             .thenReturn(indexResult);
         when(shard.indexSettings()).thenReturn(indexSettings);
 
@@ -575,7 +588,7 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
         Translog.Location resultLocation = new Translog.Location(42, 42, 42);
         Engine.IndexResult indexResult = new FakeIndexResult(1, 1, 13, created, resultLocation);
         IndexShard shard = mock(IndexShard.class);
-        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean()))
+        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean(), any()))
             .thenReturn(indexResult);
         when(shard.indexSettings()).thenReturn(indexSettings);
         when(shard.shardId()).thenReturn(shardId);
@@ -767,16 +780,17 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
         Engine.IndexResult success = new FakeIndexResult(1, 1, 13, true, resultLocation);
 
         IndexShard shard = mock(IndexShard.class);
-        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean())).thenAnswer(ir -> {
-            if (randomBoolean()) {
-                return conflictedResult;
-            }
-            if (randomBoolean()) {
-                return mappingUpdate;
-            } else {
-                return success;
-            }
-        });
+        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean(), any()))
+            .thenAnswer(ir -> {
+                if (randomBoolean()) {
+                    return conflictedResult;
+                }
+                if (randomBoolean()) {
+                    return mappingUpdate;
+                } else {
+                    return success;
+                }
+            });
         when(shard.indexSettings()).thenReturn(indexSettings);
         when(shard.shardId()).thenReturn(shardId);
         when(shard.mapperService()).thenReturn(mock(MapperService.class));
@@ -850,7 +864,7 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
 
             IndexShard shard = mock(IndexShard.class);
             when(shard.shardId()).thenReturn(shardId);
-            when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean()))
+            when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean(), any()))
                 .thenReturn(success1, mappingUpdate, success2);
             when(shard.getFailedIndexResult(any(EsRejectedExecutionException.class), anyLong())).thenCallRealMethod();
             when(shard.mapperService()).thenReturn(mock(MapperService.class));
@@ -884,7 +898,8 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
 
             assertThat("mappings were \"updated\" once", updateCalled.get(), equalTo(1));
 
-            verify(shard, times(2)).applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean());
+            verify(shard, times(2)).applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean(),
+                any());
 
             BulkItemResponse primaryResponse1 = bulkShardRequest.items()[0].getPrimaryResponse();
             assertThat(primaryResponse1.getItemId(), equalTo(0));
@@ -953,6 +968,334 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
         latch.await();
     }
 
+    public void testGroupsMappingUpdatesOfPendingItems() throws Exception {
+        IndexShard shard = newStartedShard(true);
+        BulkItemRequest[] items = new BulkItemRequest[randomIntBetween(2, 10)];
+        for (int i = 0; i < items.length; i++) {
+            DocWriteRequest<IndexRequest> writeRequest = new IndexRequest("index").id("id_" + i)
+                .source(Requests.INDEX_CONTENT_TYPE, "foo" + i, "bar");
+            items[i] = new BulkItemRequest(i, writeRequest);
+        }
+        BulkShardRequest bulkShardRequest = new BulkShardRequest(shardId, RefreshPolicy.NONE, items);
+
+        AtomicInteger updateCalled = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(1);
+        TransportShardBulkAction.performOnPrimary(
+            bulkShardRequest, shard, null, threadPool::absoluteTimeInMillis,
+            (update, shardId, listener) -> {
+                updateCalled.incrementAndGet();
+                ActionListener.completeWith(listener, () -> {
+                    shard.mapperService().merge(MapperService.SINGLE_MAPPING_NAME,
+                        new CompressedXContent(update, XContentType.JSON, ToXContent.EMPTY_PARAMS),
+                        MapperService.MergeReason.MAPPING_UPDATE);
+                    return null;
+                });
+            },
+            listener -> listener.onResponse(null),
+            new LatchedActionListener<>(ActionTestUtils.assertNoFailureListener(result -> {}), latch),
+            threadPool, Names.WRITE);
+        latch.await();
+
+        assertThat("mappings of all items were updated at once", updateCalled.get(), equalTo(1));
+        for (int i = 0; i < items.length; i++) {
+            assertFalse(bulkShardRequest.items()[i].getPrimaryResponse().isFailed());
+            assertNotNull(shard.mapperService().fieldType("foo" + i));
+        }
+        closeShards(shard);
+    }
+
+    public void testFallsBackToOwnMappingUpdateWhenGroupedUpdateIsRejected() throws Exception {
+        IndexShard shard = newStartedShard(true);
+        BulkItemRequest[] items = new BulkItemRequest[randomIntBetween(2, 10)];
+        for (int i = 0; i < items.length; i++) {
+            DocWriteRequest<IndexRequest> writeRequest = new IndexRequest("index").id("id_" + i)
+                .source(Requests.INDEX_CONTENT_TYPE, "foo" + i, "bar");
+            items[i] = new BulkItemRequest(i, writeRequest);
+        }
+        BulkShardRequest bulkShardRequest = new BulkShardRequest(shardId, RefreshPolicy.NONE, items);
+
+        AtomicInteger updateCalled = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(1);
+        TransportShardBulkAction.performOnPrimary(
+            bulkShardRequest, shard, null, threadPool::absoluteTimeInMillis,
+            (update, shardId, listener) -> {
+                if (updateCalled.incrementAndGet() == 1) {
+                    // the master rejects the grouped update of the first item
+                    listener.onFailure(new IllegalArgumentException("rejected"));
+                    return;
+                }
+                ActionListener.completeWith(listener, () -> {
+                    shard.mapperService().merge(MapperService.SINGLE_MAPPING_NAME,
+                        new CompressedXContent(update, XContentType.JSON, ToXContent.EMPTY_PARAMS),
+                        MapperService.MergeReason.MAPPING_UPDATE);
+                    return null;
+                });
+            },
+            listener -> listener.onResponse(null),
+            new LatchedActionListener<>(ActionTestUtils.assertNoFailureListener(result -> {}), latch),
+            threadPool, Names.WRITE);
+        latch.await();
+
+        // the rejected grouped update, the update of the first item alone and then the update of each remaining item alone since
+        // they were already parsed for the grouped update
+        assertThat(updateCalled.get(), equalTo(items.length + 1));
+        for (int i = 0; i < items.length; i++) {
+            assertFalse(bulkShardRequest.items()[i].getPrimaryResponse().isFailed());
+            assertNotNull(shard.mapperService().fieldType("foo" + i));
+        }
+        closeShards(shard);
+    }
+
+    public void testStopsGroupingMappingUpdatesAtFirstConflict() throws Exception {
+        IndexShard shard = newStartedShard(true);
+        BulkItemRequest[] items = new BulkItemRequest[] {
+            new BulkItemRequest(0, new IndexRequest("index").id("id_0").source(Requests.INDEX_CONTENT_TYPE, "foo0", "bar")),
+            new BulkItemRequest(1, new IndexRequest("index").id("id_1").source(Requests.INDEX_CONTENT_TYPE, "number", 1)),
+            new BulkItemRequest(2, new IndexRequest("index").id("id_2").source(Requests.INDEX_CONTENT_TYPE, "number", "text")),
+            new BulkItemRequest(3, new IndexRequest("index").id("id_3").source(Requests.INDEX_CONTENT_TYPE, "foo3", "bar")) };
+        BulkShardRequest bulkShardRequest = new BulkShardRequest(shardId, RefreshPolicy.NONE, items);
+
+        List<String> updates = new ArrayList<>();
+        final CountDownLatch latch = new CountDownLatch(1);
+        TransportShardBulkAction.performOnPrimary(
+            bulkShardRequest, shard, null, threadPool::absoluteTimeInMillis,
+            (update, shardId, listener) -> ActionListener.completeWith(listener, () -> {
+                CompressedXContent source = new CompressedXContent(update, XContentType.JSON, ToXContent.EMPTY_PARAMS);
+                updates.add(source.string());
+                shard.mapperService().merge(MapperService.SINGLE_MAPPING_NAME, source, MapperService.MergeReason.MAPPING_UPDATE);
+                return null;
+            }),
+            listener -> listener.onResponse(null),
+            new LatchedActionListener<>(ActionTestUtils.assertNoFailureListener(result -> {}), latch),
+            threadPool, Names.WRITE);
+        latch.await();
+
+        // the first item takes the second one along but stops at the third one, which maps the same field differently, so the
+        // last item requests its own update like it would have if the items had been executed one by one
+        assertThat(updates, hasSize(2));
+        assertThat(updates.get(0), containsString("foo0"));
+        assertThat(updates.get(0), containsString("number"));
+        assertThat(updates.get(0), not(containsString("foo3")));
+        assertThat(updates.get(1), containsString("foo3"));
+        assertThat(shard.mapperService().fieldType("number").typeName(), equalTo("long"));
+        assertFalse(bulkShardRequest.items()[0].getPrimaryResponse().isFailed());
+        assertFalse(bulkShardRequest.items()[1].getPrimaryResponse().isFailed());
+        assertThat(bulkShardRequest.items()[2].getPrimaryResponse().getFailure().getCause(), instanceOf(MapperParsingException.class));
+        assertFalse(bulkShardRequest.items()[3].getPrimaryResponse().isFailed());
+        closeShards(shard);
+    }
+
+    public void testDoesNotGroupMappingUpdatesOfItemsThatMayFail() throws Exception {
+        IndexShard shard = newStartedShard(true);
+        BulkItemRequest[] items = new BulkItemRequest[] {
+            new BulkItemRequest(0, new IndexRequest("index").id("id_0").source(Requests.INDEX_CONTENT_TYPE, "foo0", "bar")),
+            new BulkItemRequest(1, new IndexRequest("index").id("id_1").source(Requests.INDEX_CONTENT_TYPE, "foo1", "bar")
+                .setIfSeqNo(42).setIfPrimaryTerm(1)),
+            new BulkItemRequest(2, new IndexRequest("index").id("id_2").source(Requests.INDEX_CONTENT_TYPE, "foo2", "bar")
+                .create(true)),
+            new BulkItemRequest(3, new IndexRequest("index").id("id_3").source(Requests.INDEX_CONTENT_TYPE, "foo3", "bar")) };
+        BulkShardRequest bulkShardRequest = new BulkShardRequest(shardId, RefreshPolicy.NONE, items);
+
+        Set<String> updates = new HashSet<>();
+        final CountDownLatch latch = new CountDownLatch(1);
+        TransportShardBulkAction.performOnPrimary(
+            bulkShardRequest, shard, null, threadPool::absoluteTimeInMillis,
+            (update, shardId, listener) -> ActionListener.completeWith(listener, () -> {
+                CompressedXContent source = new CompressedXContent(update, XContentType.JSON, ToXContent.EMPTY_PARAMS);
+                updates.add(source.string());
+                shard.mapperService().merge(MapperService.SINGLE_MAPPING_NAME, source, MapperService.MergeReason.MAPPING_UPDATE);
+                return null;
+            }),
+            listener -> listener.onResponse(null),
+            new LatchedActionListener<>(ActionTestUtils.assertNoFailureListener(result -> {}), latch),
+            threadPool, Names.WRITE);
+        latch.await();
+
+        // the first item only takes the last one along, the conditional and the create requests request their own updates
+        assertThat(updates.size(), equalTo(3));
+        for (String update : updates) {
+            if (update.contains("foo0")) {
+                assertThat(update, containsString("foo3"));
+                assertThat(update, not(containsString("foo1")));
+                assertThat(update, not(containsString("foo2")));
+            }
+        }
+        assertThat(bulkShardRequest.items()[1].getPrimaryResponse().getFailure().getCause(),
+            instanceOf(VersionConflictEngineException.class));
+        assertFalse(bulkShardRequest.items()[0].getPrimaryResponse().isFailed());
+        assertFalse(bulkShardRequest.items()[2].getPrimaryResponse().isFailed());
+        assertFalse(bulkShardRequest.items()[3].getPrimaryResponse().isFailed());
+        closeShards(shard);
+    }
+
+    public void testParsesDocumentsInParallel() throws Exception {
+        IndexShard shard = newStartedShard(true);
+        BulkItemRequest[] items = new BulkItemRequest[randomIntBetween(BulkItemParser.DOCS_PER_TASK + 1, 500)];
+        for (int i = 0; i < items.length; i++) {
+            DocWriteRequest<?> writeRequest = rarely() ? new DeleteRequest("index").id("id_" + randomInt(i))
+                : new IndexRequest("index").id("id_" + i).source(Requests.INDEX_CONTENT_TYPE, "foo", "bar" + i);
+            items[i] = new BulkItemRequest(i, writeRequest);
+        }
+        BulkShardRequest bulkShardRequest = new BulkShardRequest(shardId, RefreshPolicy.NONE, items);
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        TransportShardBulkAction.performOnPrimary(
+            bulkShardRequest, shard, null, threadPool::absoluteTimeInMillis,
+            (update, shardId, listener) -> ActionListener.completeWith(listener, () -> {
+                shard.mapperService().merge(MapperService.SINGLE_MAPPING_NAME,
+                    new CompressedXContent(update, XContentType.JSON, ToXContent.EMPTY_PARAMS),
+                    MapperService.MergeReason.MAPPING_UPDATE);
+                return null;
+            }),
+            listener -> listener.onResponse(null),
+            new LatchedActionListener<>(ActionTestUtils.assertNoFailureListener(result -> {}), latch),
+            threadPool, Names.WRITE, randomIntBetween(2, 4), false);
+        latch.await();
+
+        final Set<String> expectedIds = new HashSet<>();
+        for (BulkItemRequest item : items) {
+            assertFalse(item.getPrimaryResponse().isFailed());
+            if (item.request() instanceof IndexRequest) {
+                expectedIds.add(item.request().id());
+            } else {
+                expectedIds.remove(item.request().id());
+            }
+        }
+        assertThat(getShardDocUIDs(shard), equalTo(expectedIds));
+        closeShards(shard);
+    }
+
+    public void testUsesDocumentsParsedAhead() throws Exception {
+        IndexShard shard = newStartedShard(true);
+        // with an up-to-date mapping no document needs a mapping update, so all of them can be used as parsed ahead
+        shard.mapperService().merge(MapperService.SINGLE_MAPPING_NAME,
+            new CompressedXContent("{\"properties\":{\"foo\":{\"type\":\"keyword\"}}}"),
+            MapperService.MergeReason.MAPPING_UPDATE);
+        BulkItemRequest[] items = new BulkItemRequest[randomIntBetween(BulkItemParser.DOCS_PER_TASK + 1, 300)];
+        for (int i = 0; i < items.length; i++) {
+            IndexRequest writeRequest = new IndexRequest("index").id("id_" + i).source(Requests.INDEX_CONTENT_TYPE, "foo", "bar" + i);
+            items[i] = new BulkItemRequest(i, writeRequest);
+        }
+        BulkShardRequest bulkShardRequest = new BulkShardRequest(shardId, RefreshPolicy.NONE, items);
+
+        BulkPrimaryExecutionContext context = new BulkPrimaryExecutionContext(bulkShardRequest, shard);
+        BulkItemParser itemParser = new BulkItemParser(bulkShardRequest, shard, threadPool.executor(Names.WRITE), randomIntBetween(2, 4));
+        context.setItemParser(itemParser);
+        while (context.hasMoreOperationsToExecute()) {
+            if (itemParser.needsParsing(context.getCurrentItemIndex())) {
+                PlainActionFuture<Void> parsed = new PlainActionFuture<>();
+                if (itemParser.parseWindow(context.getCurrentItemIndex(), () -> parsed.onResponse(null)) == false) {
+                    parsed.actionGet();
+                }
+            }
+            TransportShardBulkAction.executeBulkItemRequest(context, null, threadPool::absoluteTimeInMillis,
+                (update, shardId, listener) -> fail("should not have had to update the mappings"), listener -> {},
+                ASSERTING_DONE_LISTENER);
+        }
+
+        for (BulkItemRequest item : items) {
+            assertFalse(item.getPrimaryResponse().isFailed());
+        }
+        assertThat(itemParser.usedDocuments(), equalTo(items.length));
+        assertDocCount(shard, items.length);
+        closeShards(shard);
+    }
+
+    public void testParsesDocumentsOnCallingThreadWhileHelpersAreQueued() throws Exception {
+        IndexShard shard = newStartedShard(true);
+        shard.mapperService().merge(MapperService.SINGLE_MAPPING_NAME,
+            new CompressedXContent("{\"properties\":{\"foo\":{\"type\":\"keyword\"}}}"),
+            MapperService.MergeReason.MAPPING_UPDATE);
+        BulkItemRequest[] items = new BulkItemRequest[randomIntBetween(BulkItemParser.DOCS_PER_TASK + 1, 300)];
+        for (int i = 0; i < items.length; i++) {
+            IndexRequest writeRequest = new IndexRequest("index").id("id_" + i).source(Requests.INDEX_CONTENT_TYPE, "foo", "bar" + i);
+            items[i] = new BulkItemRequest(i, writeRequest);
+        }
+        BulkShardRequest bulkShardRequest = new BulkShardRequest(shardId, RefreshPolicy.NONE, items);
+
+        // helpers are queued behind other work and only run once the bulk is done
+        List<Runnable> queued = new ArrayList<>();
+        BulkPrimaryExecutionContext context = new BulkPrimaryExecutionContext(bulkShardRequest, shard);
+        BulkItemParser itemParser = new BulkItemParser(bulkShardRequest, shard, queued::add, randomIntBetween(2, 4));
+        context.setItemParser(itemParser);
+        AtomicBoolean calledBack = new AtomicBoolean();
+        while (context.hasMoreOperationsToExecute()) {
+            if (itemParser.needsParsing(context.getCurrentItemIndex())) {
+                assertTrue(itemParser.parseWindow(context.getCurrentItemIndex(), () -> calledBack.set(true)));
+            }
+            TransportShardBulkAction.executeBulkItemRequest(context, null, threadPool::absoluteTimeInMillis,
+                (update, shardId, listener) -> fail("should not have had to update the mappings"), listener -> {},
+                ASSERTING_DONE_LISTENER);
+        }
+        assertFalse(queued.isEmpty());
+        queued.forEach(Runnable::run);
+        assertFalse(calledBack.get());
+
+        for (BulkItemRequest item : items) {
+            assertFalse(item.getPrimaryResponse().isFailed());
+        }
+        assertThat(itemParser.usedDocuments(), equalTo(items.length));
+        assertDocCount(shard, items.length);
+        closeShards(shard);
+    }
+
+    public void testIndexesAppendOnlyItemsInBatches() throws Exception {
+        IndexShard shard = newStartedShard(true);
+        BulkItemRequest[] items = new BulkItemRequest[randomIntBetween(2, 300)];
+        int autoIdRequests = 0;
+        for (int i = 0; i < items.length; i++) {
+            final DocWriteRequest<?> writeRequest;
+            if (rarely()) {
+                writeRequest = new IndexRequest("index").id("id_" + i).source(Requests.INDEX_CONTENT_TYPE, "foo", "bar" + i);
+            } else if (rarely()) {
+                // fails to parse and must only fail its own item
+                writeRequest = new IndexRequest("index").source("{\"foo\": ", XContentType.JSON);
+                ((IndexRequest) writeRequest).process(Version.CURRENT, null, "index");
+            } else {
+                writeRequest = new IndexRequest("index").source(Requests.INDEX_CONTENT_TYPE, "foo", "bar" + i);
+                ((IndexRequest) writeRequest).process(Version.CURRENT, null, "index");
+                autoIdRequests++;
+            }
+            items[i] = new BulkItemRequest(i, writeRequest);
+        }
+        BulkShardRequest bulkShardRequest = new BulkShardRequest(shardId, RefreshPolicy.NONE, items);
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        TransportShardBulkAction.performOnPrimary(
+            bulkShardRequest, shard, null, threadPool::absoluteTimeInMillis,
+            (update, shardId, listener) -> ActionListener.completeWith(listener, () -> {
+                shard.mapperService().merge(MapperService.SINGLE_MAPPING_NAME,
+                    new CompressedXContent(update, XContentType.JSON, ToXContent.EMPTY_PARAMS),
+                    MapperService.MergeReason.MAPPING_UPDATE);
+                return null;
+            }),
+            listener -> listener.onResponse(null),
+            new LatchedActionListener<>(ActionTestUtils.assertNoFailureListener(result -> {}), latch),
+            threadPool, Names.WRITE, 1, true);
+        latch.await();
+
+        final Set<String> expectedIds = new HashSet<>();
+        final Set<Long> seqNos = new HashSet<>();
+        int successfulAutoIdRequests = 0;
+        for (BulkItemRequest item : items) {
+            final BulkItemResponse response = item.getPrimaryResponse();
+            assertNotNull(response);
+            if (response.isFailed()) {
+                assertThat(response.getFailure().getCause(), instanceOf(MapperParsingException.class));
+                assertThat(item.request().id(), notNullValue());
+            } else {
+                expectedIds.add(response.getId());
+                assertTrue(seqNos.add(response.getResponse().getSeqNo()));
+                if (response.getId().startsWith("id_") == false) {
+                    successfulAutoIdRequests++;
+                }
+            }
+        }
+        assertThat(successfulAutoIdRequests, equalTo(autoIdRequests));
+        assertThat(getShardDocUIDs(shard), equalTo(expectedIds));
+        closeShards(shard);
+    }
+
     private void randomlySetIgnoredPrimaryResponse(BulkItemRequest primaryRequest) {
         if (randomBoolean()) {
             // add a response to the request and thereby check that it is ignored for the primary.
@@ -10,7 +10,9 @@ package org.elasticsearch.action.search;
 
 import org.apache.lucene.search.FieldComparator;
 import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TopFieldDocs;
 import org.apache.lucene.search.TotalHits;
 import org.apache.lucene.util.BytesRef;
@@ -206,6 +208,26 @@ public class BottomSortValuesCollectorTests extends ESTestCase {
         }
     }
 
+    public void testWithScores() {
+        BottomSortValuesCollector collector = new BottomSortValuesCollector(3, BottomSortValuesCollector.SCORE_SORT_FIELDS);
+        collector.consumeScoreTopDocs(createScoreTopDocs(100, 5f, 4f, 3f));
+        collector.consumeScoreTopDocs(createScoreTopDocs(100, 9f, 8f, 7f));
+        collector.consumeScoreTopDocs(createScoreTopDocs(50, 20f, 10f));
+        collector.consumeScoreTopDocs(createScoreTopDocs(50, 2f, 1f, 0.5f));
+        assertThat(collector.getTotalHits(), equalTo(300L));
+        assertNotNull(collector.getBottomSortValues());
+        assertThat(collector.getBottomSortValues().getSortValueFormats()[0], instanceOf(DocValueFormat.RAW.getClass()));
+        assertThat(collector.getBottomSortValues().getRawSortValues()[0], equalTo(7f));
+        assertThat(collector.getBottomSortValues().getFormattedSortValues()[0], equalTo(7f));
+
+        // the bottom of score top docs is ignored when sorting by field
+        SortField[] sortFields = new SortField[] { new SortField("foo", SortField.Type.LONG) };
+        collector = new BottomSortValuesCollector(3, sortFields);
+        collector.consumeScoreTopDocs(createScoreTopDocs(100, 9f, 8f, 7f));
+        assertThat(collector.getTotalHits(), equalTo(100L));
+        assertNull(collector.getBottomSortValues());
+    }
+
     private Object[] newDoubleArray(Double... values) {
         return values;
     }
@@ -250,4 +272,12 @@ public class BottomSortValuesCollectorTests extends ESTestCase {
         return new TopFieldDocs(new TotalHits(totalHits, GREATER_THAN_OR_EQUAL_TO),
             fieldDocs, new SortField[] { sortField });
     }
+
+    private TopDocs createScoreTopDocs(int totalHits, float... scores) {
+        ScoreDoc[] scoreDocs = new ScoreDoc[scores.length];
+        for (int i = 0; i < scores.length; i++) {
+            scoreDocs[i] = new ScoreDoc(i, scores[i]);
+        }
+        return new TopDocs(new TotalHits(totalHits, GREATER_THAN_OR_EQUAL_TO), scoreDocs);
+    }
 }
@@ -0,0 +1,60 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.search.internal.AliasFilter;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.VersionUtils;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class CanMatchNodeRequestTests extends ESTestCase {
+
+    public void testShardSerialization() throws IOException {
+        boolean requestFieldRanges = randomBoolean();
+        CanMatchNodeRequest.Shard shard = newShard(requestFieldRanges);
+        CanMatchNodeRequest.Shard copy = copyWriteable(shard, new NamedWriteableRegistry(Collections.emptyList()),
+            CanMatchNodeRequest.Shard::new, Version.CURRENT);
+        assertThat(copy.shardId(), equalTo(shard.shardId()));
+        assertThat(copy.getShardRequestIndex(), equalTo(shard.getShardRequestIndex()));
+        assertThat(copy.requestFieldRanges(), equalTo(requestFieldRanges));
+    }
+
+    public void testShardSerializationBwc() throws IOException {
+        CanMatchNodeRequest.Shard shard = newShard(true);
+        Version version = VersionUtils.randomVersionBetween(random(), Version.CURRENT.minimumCompatibilityVersion(),
+            VersionUtils.getPreviousVersion(Version.V_8_0_0));
+        CanMatchNodeRequest.Shard copy = copyWriteable(shard, new NamedWriteableRegistry(Collections.emptyList()),
+            CanMatchNodeRequest.Shard::new, version);
+        assertThat(copy.shardId(), equalTo(shard.shardId()));
+        // older nodes don't know how to build field ranges
+        assertFalse(copy.requestFieldRanges());
+    }
+
+    private static CanMatchNodeRequest.Shard newShard(boolean requestFieldRanges) {
+        return new CanMatchNodeRequest.Shard(
+            new String[] { "index" },
+            new ShardId("index", "_na_", randomIntBetween(0, 10)),
+            randomIntBetween(0, 100),
+            new AliasFilter(null, Strings.EMPTY_ARRAY),
+            1.0f,
+            null,
+            null,
+            randomNonNegativeLong(),
+            requestFieldRanges
+        );
+    }
+}
@@ -24,6 +24,7 @@ import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.mapper.DateFieldMapper;
 import org.elasticsearch.index.query.AbstractQueryBuilder;
@@ -32,11 +33,14 @@ import org.elasticsearch.index.query.CoordinatorRewriteContextProvider;
 import org.elasticsearch.index.query.RangeQueryBuilder;
 import org.elasticsearch.index.query.TermQueryBuilder;
 import org.elasticsearch.index.shard.IndexLongFieldRange;
+import org.elasticsearch.index.shard.ShardFieldRangesTests;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.shard.ShardLongFieldRange;
+import org.elasticsearch.indices.ShardFieldRangesCache;
 import org.elasticsearch.search.CanMatchShardResponse;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.internal.AliasFilter;
+import org.elasticsearch.search.internal.ShardSearchContextId;
 import org.elasticsearch.search.internal.ShardSearchRequest;
 import org.elasticsearch.search.sort.MinAndMax;
 import org.elasticsearch.search.sort.SortBuilders;
@@ -555,6 +559,94 @@ public class CanMatchPreFilterSearchPhaseTests extends ESTestCase {
         );
     }
 
+    public void testCanMatchFilteringOnCoordinatorWithCachedFieldRanges() throws Exception {
+        Index index = new Index("index", UUIDs.base64UUID());
+        StaticCoordinatorRewriteContextProviderBuilder contextProviderBuilder = new StaticCoordinatorRewriteContextProviderBuilder();
+        IndexMetadata indexMetadata = contextProviderBuilder.addWriteBlockedIndex(index, 2);
+        CoordinatorRewriteContextProvider contextProvider = contextProviderBuilder.build();
+        // only the first shard returned the summary of its values with a previous can-match response
+        contextProvider.putShardFieldRanges(new ShardId(index, 0), "node_1",
+            ShardFieldRangesTests.newLongFieldRanges(indexMetadata, "value", 0, 10));
+
+        DiscoveryNode node = new DiscoveryNode("node_1", buildNewFakeTransportAddress(), Version.CURRENT);
+        OriginalIndices originalIndices = new OriginalIndices(new String[] { index.getName() }, SearchRequest.DEFAULT_INDICES_OPTIONS);
+        boolean pointInTime = randomBoolean();
+        final List<SearchShardIterator> shardIters = new ArrayList<>();
+        if (pointInTime) {
+            for (int i = 0; i < 2; i++) {
+                shardIters.add(new SearchShardIterator(null, new ShardId(index, i), List.of(node.getId()), originalIndices,
+                    new ShardSearchContextId(UUIDs.randomBase64UUID(), i), TimeValue.timeValueMinutes(1)));
+            }
+        } else {
+            shardIters.addAll(getShardsIter(index, originalIndices, 2, false, node, null));
+        }
+
+        final SearchRequest searchRequest = new SearchRequest(index.getName());
+        searchRequest.allowPartialSearchResults(true);
+        searchRequest.source(SearchSourceBuilder.searchSource().query(new RangeQueryBuilder("value").gte(20)));
+
+        final List<CanMatchNodeRequest.Shard> requests = Collections.synchronizedList(new ArrayList<>());
+        SearchTransportService searchTransportService = new SearchTransportService(null, null, null) {
+            @Override
+            public void sendCanMatch(Transport.Connection connection, CanMatchNodeRequest request, SearchTask task,
+                                     ActionListener<CanMatchNodeResponse> listener) {
+                final List<ResponseOrFailure> responses = new ArrayList<>();
+                for (CanMatchNodeRequest.Shard shard : request.getShardLevelRequests()) {
+                    requests.add(shard);
+                    responses.add(new ResponseOrFailure(new CanMatchShardResponse(true, null)));
+                }
+                new Thread(() -> listener.onResponse(new CanMatchNodeResponse(responses))).start();
+            }
+        };
+
+        AtomicReference<GroupShardsIterator<SearchShardIterator>> result = new AtomicReference<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        CanMatchPreFilterSearchPhase canMatchPhase = new CanMatchPreFilterSearchPhase(logger,
+            searchTransportService,
+            (clusterAlias, nodeId) -> new SearchAsyncActionTests.MockConnection(node),
+            Collections.singletonMap(index.getUUID(), new AliasFilter(null, Strings.EMPTY_ARRAY)),
+            Collections.emptyMap(),
+            threadPool.executor(ThreadPool.Names.SEARCH_COORDINATION),
+            searchRequest,
+            null,
+            GroupShardsIterator.sortAndCreate(shardIters),
+            new TransportSearchAction.SearchTimeProvider(0, System.nanoTime(), System::nanoTime),
+            null,
+            (iter) -> new SearchPhase("test") {
+                @Override
+                public void run() {
+                    result.set(iter);
+                    latch.countDown();
+                }
+            },
+            SearchResponse.Clusters.EMPTY,
+            contextProvider);
+
+        canMatchPhase.start();
+        latch.await();
+
+        Set<ShardId> requestedShards = requests.stream().map(CanMatchNodeRequest.Shard::shardId).collect(Collectors.toSet());
+        Set<ShardId> skippedShards = new HashSet<>();
+        for (SearchShardIterator shardIt : result.get()) {
+            if (shardIt.skip()) {
+                skippedShards.add(shardIt.shardId());
+            }
+        }
+        if (pointInTime) {
+            // the summary describes the live shard rather than the reader of the point in time
+            assertThat(requestedShards, equalTo(Set.of(new ShardId(index, 0), new ShardId(index, 1))));
+            assertThat(skippedShards, equalTo(Collections.emptySet()));
+            for (CanMatchNodeRequest.Shard shard : requests) {
+                assertFalse(shard.requestFieldRanges());
+            }
+        } else {
+            // the first shard is skipped without asking the shard, the second is asked for its summary
+            assertThat(requestedShards, equalTo(Set.of(new ShardId(index, 1))));
+            assertThat(skippedShards, equalTo(Set.of(new ShardId(index, 0))));
+            assertTrue(requests.get(0).requestFieldRanges());
+        }
+    }
+
     private void assertAllShardsAreQueried(List<SearchShardIterator> updatedSearchShardIterators, List<ShardSearchRequest> requests) {
         int skippedShards = (int) updatedSearchShardIterators.stream()
             .filter(SearchShardIterator::skip)
@@ -738,13 +830,28 @@ public class CanMatchPreFilterSearchPhaseTests extends ESTestCase {
             fields.put(index, new DateFieldMapper.DateFieldType(fieldName));
         }
 
+        private IndexMetadata addWriteBlockedIndex(Index index, int numberOfShards) {
+            IndexMetadata indexMetadata = IndexMetadata.builder(index.getName())
+                .settings(settings(Version.CURRENT)
+                    .put(IndexMetadata.SETTING_INDEX_UUID, index.getUUID())
+                    .put(IndexMetadata.SETTING_BLOCKS_WRITE, true))
+                .numberOfShards(numberOfShards)
+                .numberOfReplicas(0)
+                .build();
+            clusterState = ClusterState.builder(clusterState)
+                .metadata(Metadata.builder(clusterState.metadata()).put(indexMetadata, false))
+                .build();
+            return indexMetadata;
+        }
+
         public CoordinatorRewriteContextProvider build() {
             return new CoordinatorRewriteContextProvider(NamedXContentRegistry.EMPTY,
                 mock(NamedWriteableRegistry.class),
                 mock(Client.class),
                 System::currentTimeMillis,
                 () -> clusterState,
-                fields::get);
+                fields::get,
+                new ShardFieldRangesCache(Settings.EMPTY));
         }
     }
 }
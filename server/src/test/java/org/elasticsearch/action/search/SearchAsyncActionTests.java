@@ -7,6 +7,7 @@
  */
 package org.elasticsearch.action.search;
 
+import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.OriginalIndices;
@@ -16,17 +17,25 @@ import org.elasticsearch.cluster.routing.GroupShardsIterator;
 import org.elasticsearch.cluster.routing.RecoverySource;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.UnassignedInfo;
+import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.node.ResponseCollectorService;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.internal.AliasFilter;
 import org.elasticsearch.search.internal.InternalSearchResponse;
 import org.elasticsearch.search.internal.ShardSearchContextId;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.Scheduler;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.Transport;
 import org.elasticsearch.transport.TransportException;
 import org.elasticsearch.transport.TransportRequest;
@@ -48,6 +57,8 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 import static org.elasticsearch.common.util.concurrent.ConcurrentCollections.newConcurrentMap;
 import static org.elasticsearch.common.util.concurrent.ConcurrentCollections.newConcurrentSet;
@@ -623,6 +634,243 @@ public class SearchAsyncActionTests extends ESTestCase {
         assertThat(searchResponse.get().getSuccessfulShards(), equalTo(shardsIter.size()));
     }
 
+    public void testHedgedRequests() throws Exception {
+        SearchRequest request = new SearchRequest();
+        request.allowPartialSearchResults(true);
+        DiscoveryNode primaryNode = new DiscoveryNode("node_1", buildNewFakeTransportAddress(), Version.CURRENT);
+        DiscoveryNode replicaNode = new DiscoveryNode("node_2", buildNewFakeTransportAddress(), Version.CURRENT);
+        int numShards = randomIntBetween(1, 3);
+        GroupShardsIterator<SearchShardIterator> shardsIter = getShardsIter("idx",
+            new OriginalIndices(new String[]{"idx"}, SearchRequest.DEFAULT_INDICES_OPTIONS),
+            numShards, true, primaryNode, replicaNode);
+
+        Map<ShardId, Map<String, SearchActionListener<TestSearchPhaseResult>>> attempts = newConcurrentMap();
+        CountDownLatch allAttemptsSent = new CountDownLatch(numShards * 2);
+        Set<ShardSearchContextId> freedContexts = newConcurrentSet();
+        AtomicReference<SearchPhaseResults<TestSearchPhaseResult>> phaseResults = new AtomicReference<>();
+        CountDownLatch phaseDone = new CountDownLatch(1);
+        AtomicReference<SearchResponse> searchResponse = new AtomicReference<>();
+        AtomicInteger scheduledHedges = new AtomicInteger();
+        ThreadPool threadPool = new HedgeImmediatelyThreadPool(getTestName(), scheduledHedges);
+        try {
+            AbstractSearchAsyncAction<TestSearchPhaseResult> asyncAction = newHedgingSearchAsyncAction(request, shardsIter,
+                threadPool, freedContexts, searchResponse, (shard, listener) -> {
+                    assertNull("copy " + shard + " was queried twice",
+                        attempts.computeIfAbsent(shard.getShardId(), k -> newConcurrentMap()).put(shard.getNodeId(), listener));
+                    allAttemptsSent.countDown();
+                }, results -> {
+                    phaseResults.set(results);
+                    phaseDone.countDown();
+                });
+            asyncAction.start();
+            // every shard request is hedged to the other copy right away since the test thread pool doesn't delay hedges
+            assertTrue(allAttemptsSent.await(10, TimeUnit.SECONDS));
+            assertThat(scheduledHedges.get(), equalTo(numShards));
+
+            Map<ShardId, String> winners = new HashMap<>();
+            Map<ShardId, String> losers = new HashMap<>();
+            Set<ShardId> failedLosers = new HashSet<>();
+            AtomicInteger contextIdGenerator = new AtomicInteger();
+            for (Map.Entry<ShardId, Map<String, SearchActionListener<TestSearchPhaseResult>>> entry : attempts.entrySet()) {
+                String winner = randomFrom(primaryNode.getId(), replicaNode.getId());
+                String loser = winner.equals(primaryNode.getId()) ? replicaNode.getId() : primaryNode.getId();
+                winners.put(entry.getKey(), winner);
+                losers.put(entry.getKey(), loser);
+                if (randomBoolean()) {
+                    // the failure of an attempt waits for the other one rather than failing over
+                    failedLosers.add(entry.getKey());
+                    entry.getValue().get(loser).onFailure(new ElasticsearchException("boom"));
+                }
+                DiscoveryNode node = winner.equals(primaryNode.getId()) ? primaryNode : replicaNode;
+                entry.getValue().get(winner).onResponse(new TestSearchPhaseResult(
+                    new ShardSearchContextId(UUIDs.randomBase64UUID(), contextIdGenerator.incrementAndGet()), node));
+            }
+            // the winners account for the attempts that are still running so the phase doesn't wait for them
+            assertTrue(phaseDone.await(10, TimeUnit.SECONDS));
+            for (TestSearchPhaseResult result : phaseResults.get().getAtomicArray().asList()) {
+                assertThat(result.node.getId(), equalTo(winners.get(result.getSearchShardTarget().getShardId())));
+            }
+
+            // the results of the attempts that lost are released
+            Set<ShardSearchContextId> loserContexts = new HashSet<>();
+            for (Map.Entry<ShardId, String> loser : losers.entrySet()) {
+                if (failedLosers.contains(loser.getKey()) == false) {
+                    DiscoveryNode node = loser.getValue().equals(primaryNode.getId()) ? primaryNode : replicaNode;
+                    TestSearchPhaseResult result = new TestSearchPhaseResult(
+                        new ShardSearchContextId(UUIDs.randomBase64UUID(), contextIdGenerator.incrementAndGet()), node);
+                    loserContexts.add(result.getContextId());
+                    attempts.get(loser.getKey()).get(loser.getValue()).onResponse(result);
+                }
+            }
+            assertThat(freedContexts, equalTo(loserContexts));
+
+            asyncAction.sendSearchResponse(null, null);
+            assertNotNull(searchResponse.get());
+            assertThat(searchResponse.get().getSuccessfulShards(), equalTo(numShards));
+            assertThat(searchResponse.get().getFailedShards(), equalTo(0));
+        } finally {
+            terminate(threadPool);
+        }
+    }
+
+    public void testHedgedRequestsFailOverOnceAllAttemptsFailed() throws Exception {
+        SearchRequest request = new SearchRequest();
+        request.allowPartialSearchResults(true);
+        DiscoveryNode primaryNode = new DiscoveryNode("node_1", buildNewFakeTransportAddress(), Version.CURRENT);
+        DiscoveryNode replicaNode = new DiscoveryNode("node_2", buildNewFakeTransportAddress(), Version.CURRENT);
+        GroupShardsIterator<SearchShardIterator> shardsIter = getShardsIter("idx",
+            new OriginalIndices(new String[]{"idx"}, SearchRequest.DEFAULT_INDICES_OPTIONS),
+            2, true, primaryNode, replicaNode);
+        ShardId failingShard = new ShardId(new Index("idx", "_na_"), 0);
+
+        AtomicInteger contextIdGenerator = new AtomicInteger();
+        CountDownLatch phaseDone = new CountDownLatch(1);
+        AtomicReference<SearchResponse> searchResponse = new AtomicReference<>();
+        ThreadPool threadPool = new HedgeImmediatelyThreadPool(getTestName(), new AtomicInteger());
+        try {
+            AbstractSearchAsyncAction<TestSearchPhaseResult> asyncAction = newHedgingSearchAsyncAction(request, shardsIter,
+                threadPool, newConcurrentSet(), searchResponse, (shard, listener) -> {
+                    if (shard.getShardId().equals(failingShard)) {
+                        new Thread(() -> listener.onFailure(new ElasticsearchException("boom"))).start();
+                    } else {
+                        DiscoveryNode node = shard.getNodeId().equals(primaryNode.getId()) ? primaryNode : replicaNode;
+                        TestSearchPhaseResult result = new TestSearchPhaseResult(
+                            new ShardSearchContextId(UUIDs.randomBase64UUID(), contextIdGenerator.incrementAndGet()), node);
+                        new Thread(() -> listener.onResponse(result)).start();
+                    }
+                }, results -> phaseDone.countDown());
+            asyncAction.start();
+            // both copies of the failing shard fail, whether they were hedged or not, and each operation is counted once
+            assertTrue(phaseDone.await(10, TimeUnit.SECONDS));
+            asyncAction.sendSearchResponse(null, null);
+            assertThat(searchResponse.get().getSuccessfulShards(), equalTo(1));
+            assertThat(searchResponse.get().getFailedShards(), equalTo(1));
+        } finally {
+            terminate(threadPool);
+        }
+    }
+
+    public void testPointInTimeRequestsAreNotHedged() throws Exception {
+        SearchRequest request = new SearchRequest();
+        request.allowPartialSearchResults(true);
+        DiscoveryNode primaryNode = new DiscoveryNode("node_1", buildNewFakeTransportAddress(), Version.CURRENT);
+        DiscoveryNode replicaNode = new DiscoveryNode("node_2", buildNewFakeTransportAddress(), Version.CURRENT);
+        OriginalIndices originalIndices = new OriginalIndices(new String[]{"idx"}, SearchRequest.DEFAULT_INDICES_OPTIONS);
+        int numShards = randomIntBetween(1, 3);
+        List<SearchShardIterator> shardIters = new ArrayList<>();
+        for (int i = 0; i < numShards; i++) {
+            // the context of the point in time only lives on the first node
+            shardIters.add(new SearchShardIterator(null, new ShardId(new Index("idx", "_na_"), i),
+                List.of(primaryNode.getId(), replicaNode.getId()), originalIndices,
+                new ShardSearchContextId(UUIDs.randomBase64UUID(), i), TimeValue.timeValueMinutes(1)));
+        }
+        GroupShardsIterator<SearchShardIterator> shardsIter = new GroupShardsIterator<>(shardIters);
+
+        Set<ShardId> queriedShards = newConcurrentSet();
+        CountDownLatch phaseDone = new CountDownLatch(1);
+        AtomicReference<SearchResponse> searchResponse = new AtomicReference<>();
+        AtomicInteger scheduledHedges = new AtomicInteger();
+        ThreadPool threadPool = new HedgeImmediatelyThreadPool(getTestName(), scheduledHedges);
+        try {
+            AbstractSearchAsyncAction<TestSearchPhaseResult> asyncAction = newHedgingSearchAsyncAction(request, shardsIter,
+                threadPool, newConcurrentSet(), searchResponse, (shard, listener) -> {
+                    assertThat(shard.getNodeId(), equalTo(primaryNode.getId()));
+                    assertTrue("shard " + shard + " was queried twice", queriedShards.add(shard.getShardId()));
+                    TestSearchPhaseResult result = new TestSearchPhaseResult(
+                        new ShardSearchContextId(UUIDs.randomBase64UUID(), shard.getShardId().id()), primaryNode);
+                    new Thread(() -> listener.onResponse(result)).start();
+                }, results -> phaseDone.countDown());
+            asyncAction.start();
+            assertTrue(phaseDone.await(10, TimeUnit.SECONDS));
+            assertThat(scheduledHedges.get(), equalTo(0));
+            assertThat(queriedShards.size(), equalTo(numShards));
+        } finally {
+            terminate(threadPool);
+        }
+    }
+
+    /**
+     * A thread pool that runs scheduled tasks right away, so that every shard request is hedged as soon as it is sent.
+     */
+    private static class HedgeImmediatelyThreadPool extends TestThreadPool {
+        private final AtomicInteger scheduledHedges;
+
+        HedgeImmediatelyThreadPool(String name, AtomicInteger scheduledHedges) {
+            super(name);
+            this.scheduledHedges = scheduledHedges;
+        }
+
+        @Override
+        public Scheduler.ScheduledCancellable schedule(Runnable command, TimeValue delay, String executor) {
+            scheduledHedges.incrementAndGet();
+            return super.schedule(command, TimeValue.ZERO, executor);
+        }
+    }
+
+    private AbstractSearchAsyncAction<TestSearchPhaseResult> newHedgingSearchAsyncAction(
+        SearchRequest request,
+        GroupShardsIterator<SearchShardIterator> shardsIter,
+        ThreadPool threadPool,
+        Set<ShardSearchContextId> freedContexts,
+        AtomicReference<SearchResponse> searchResponse,
+        BiConsumer<SearchShardTarget, SearchActionListener<TestSearchPhaseResult>> onShardRequest,
+        Consumer<SearchPhaseResults<TestSearchPhaseResult>> onPhaseDone
+    ) {
+        // every copy is known to be fast so that requests are hedged after the minimum delay
+        ClusterService clusterService = new ClusterService(Settings.EMPTY,
+            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS), threadPool);
+        ResponseCollectorService collector = new ResponseCollectorService(clusterService);
+        Map<String, Transport.Connection> lookup = new HashMap<>();
+        for (SearchShardIterator shardIt : shardsIter) {
+            for (String nodeId : shardIt.getTargetNodeIds()) {
+                collector.addShardCopyStatistics(shardIt.shardId(), nodeId, TimeValue.timeValueMillis(1).nanos());
+                lookup.put(nodeId, new MockConnection(new DiscoveryNode(nodeId, buildNewFakeTransportAddress(), Version.CURRENT)));
+            }
+        }
+        SearchTransportService transportService = new SearchTransportService(null, null, null) {
+            @Override
+            public void sendFreeContext(Transport.Connection connection, ShardSearchContextId contextId, OriginalIndices originalIndices) {
+                assertTrue("context " + contextId + " was freed twice", freedContexts.add(contextId));
+            }
+        };
+        AbstractSearchAsyncAction<TestSearchPhaseResult> asyncAction = new AbstractSearchAsyncAction<TestSearchPhaseResult>(
+            "test",
+            logger,
+            transportService,
+            (cluster, node) -> lookup.get(node),
+            Collections.singletonMap("_na_", new AliasFilter(null, Strings.EMPTY_ARRAY)),
+            Collections.emptyMap(),
+            threadPool.generic(),
+            request,
+            ActionListener.wrap(searchResponse::set, e -> { throw new AssertionError("unexpected", e); }),
+            shardsIter,
+            new TransportSearchAction.SearchTimeProvider(0, 0, () -> 0),
+            ClusterState.EMPTY_STATE,
+            null,
+            new ArraySearchPhaseResults<>(shardsIter.size()),
+            request.getMaxConcurrentShardRequests(),
+            SearchResponse.Clusters.EMPTY) {
+
+            @Override
+            protected void executePhaseOnShard(SearchShardIterator shardIt, SearchShardTarget shard,
+                                               SearchActionListener<TestSearchPhaseResult> listener) {
+                onShardRequest.accept(shard, listener);
+            }
+
+            @Override
+            protected SearchPhase getNextPhase(SearchPhaseResults<TestSearchPhaseResult> results, SearchPhaseContext context) {
+                return new SearchPhase("test") {
+                    @Override
+                    public void run() {
+                        onPhaseDone.accept(results);
+                    }
+                };
+            }
+        };
+        asyncAction.setHedgingPolicy(new SearchHedgingPolicy(threadPool, collector, TimeValue.timeValueMillis(1)));
+        return asyncAction;
+    }
+
     static GroupShardsIterator<SearchShardIterator> getShardsIter(String index, OriginalIndices originalIndices, int numShards,
                                                      boolean doReplicas, DiscoveryNode primaryNode, DiscoveryNode replicaNode) {
         return new GroupShardsIterator<>(
@@ -41,9 +41,11 @@ import org.elasticsearch.search.SearchModule;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.BucketOrder;
 import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
 import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.bucket.terms.StringTerms;
 import org.elasticsearch.search.aggregations.metrics.InternalMax;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator.PipelineTree;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
@@ -72,6 +74,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -627,6 +630,79 @@ public class SearchPhaseControllerTests extends ESTestCase {
         assertNull(reduce.sortedTopDocs.collapseValues);
     }
 
+    public void testConsumerStreamingReduce() throws Exception {
+        int expectedNumResults = randomIntBetween(1, 100);
+        int bufferSize = randomIntBetween(2, 200);
+        int numTerms = randomIntBetween(1, 50);
+        SearchRequest request = randomSearchRequest();
+        request.source(new SearchSourceBuilder().aggregation(AggregationBuilders.terms("terms"))
+            .aggregation(AggregationBuilders.max("max")).size(0));
+        request.setBatchedReduceSize(bufferSize);
+        AssertingCircuitBreaker circuitBreaker = new AssertingCircuitBreaker(CircuitBreaker.REQUEST);
+        AtomicInteger numPartialReduces = new AtomicInteger();
+        SearchProgressListener progressListener = new SearchProgressListener() {
+            @Override
+            public void onPartialReduce(List<SearchShard> shards, TotalHits totalHits, InternalAggregations aggs, int reducePhase) {
+                assertNotNull(aggs);
+                numPartialReduces.incrementAndGet();
+            }
+        };
+        QueryPhaseResultConsumer consumer = searchPhaseController.newSearchPhaseResults(fixedExecutor,
+            circuitBreaker, () -> false, progressListener, request, expectedNumResults, exc  -> {}, true);
+        long[] expectedDocCounts = new long[numTerms];
+        AtomicInteger max = new AtomicInteger();
+        CountDownLatch latch =  new CountDownLatch(expectedNumResults);
+        for (int i = 0; i < expectedNumResults; i++) {
+            int number = randomIntBetween(1, 1000);
+            max.updateAndGet(prev -> Math.max(prev, number));
+            List<StringTerms.Bucket> buckets = new ArrayList<>();
+            for (int t = 0; t < numTerms; t++) {
+                if (randomBoolean()) {
+                    long docCount = randomLongBetween(1, 100);
+                    expectedDocCounts[t] += docCount;
+                    // the keys are zero padded so that their natural order is the order of the shard buckets
+                    buckets.add(new StringTerms.Bucket(new BytesRef(String.format(Locale.ROOT, "%03d", t)), docCount,
+                        InternalAggregations.EMPTY, false, 0, DocValueFormat.RAW));
+                }
+            }
+            StringTerms terms = new StringTerms("terms", BucketOrder.key(true), BucketOrder.key(true), numTerms, 1,
+                Collections.emptyMap(), DocValueFormat.RAW, numTerms, false, 0, buckets, 0L);
+            InternalMax internalMax = new InternalMax("max", (double) number, DocValueFormat.RAW, Collections.emptyMap());
+            QuerySearchResult result = new QuerySearchResult(new ShardSearchContextId("", i),
+                new SearchShardTarget("node", new ShardId("a", "b", i), null), null);
+            result.topDocs(new TopDocsAndMaxScore(new TopDocs(new TotalHits(1, TotalHits.Relation.EQUAL_TO), new ScoreDoc[0]), number),
+                new DocValueFormat[0]);
+            result.aggregations(InternalAggregations.from(List.of(terms, internalMax)));
+            result.setShardIndex(i);
+            result.size(0);
+            consumer.consumeResult(result, latch::countDown);
+        }
+        latch.await();
+
+        SearchPhaseController.ReducedQueryPhase reduce = consumer.reduce();
+        assertAggReduction(request);
+        InternalMax internalMax = reduce.aggregations.get("max");
+        assertEquals(max.get(), internalMax.getValue(), 0.0D);
+        StringTerms terms = reduce.aggregations.get("terms");
+        Map<String, Long> docCounts = new HashMap<>();
+        for (StringTerms.Bucket bucket : terms.getBuckets()) {
+            docCounts.put(bucket.getKeyAsString(), bucket.getDocCount());
+        }
+        for (int t = 0; t < numTerms; t++) {
+            String key = String.format(Locale.ROOT, "%03d", t);
+            if (expectedDocCounts[t] == 0) {
+                assertFalse(docCounts.containsKey(key));
+            } else {
+                assertEquals(expectedDocCounts[t], (long) docCounts.get(key));
+            }
+        }
+        assertEquals(expectedNumResults, reduce.totalHits.value);
+        // the running reduction is only materialized once every batched_reduce_size results
+        assertThat(numPartialReduces.get(), lessThanOrEqualTo(expectedNumResults / bufferSize));
+        consumer.close();
+        assertThat(circuitBreaker.allocated, equalTo(0L));
+    }
+
     public void testConsumerOnlyHits() throws Exception {
         int expectedNumResults = randomIntBetween(1, 100);
         int bufferSize = randomIntBetween(2, 200);
@@ -65,6 +65,21 @@ public class XContentMapValuesTests extends AbstractFilteringTestCase {
             XContentMapValues.filter(toMap(actual, xContentType, humanReadable), sourceIncludes, sourceExcludes),
             matchesMap(toMap(expected, xContentType, humanReadable))
         );
+        assertMap(
+            streamingFilter(actual, xContentType, humanReadable, sourceIncludes, sourceExcludes),
+            matchesMap(toMap(expected, xContentType, humanReadable))
+        );
+    }
+
+    private Map<String, Object> streamingFilter(Builder test, XContentType xContentType, boolean humanReadable,
+                                                String[] includes, String[] excludes) throws IOException {
+        ToXContentObject toXContent = (builder, params) -> test.apply(builder);
+        BytesReference source = toXContent(toXContent, xContentType, humanReadable);
+        XContentBuilder filtered = XContentBuilder.builder(xContentType.xContent());
+        try (XContentParser parser = createParser(xContentType.xContent(), source)) {
+            XContentMapValues.streamingFilter(includes, excludes).accept(parser, filtered);
+        }
+        return convertToMap(BytesReference.bytes(filtered), true, xContentType).v2();
     }
 
     @SuppressWarnings({ "unchecked" })
@@ -60,6 +60,7 @@ import org.elasticsearch.index.shard.IndexingOperationListener;
 import org.elasticsearch.index.shard.SearchOperationListener;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.shard.ShardPath;
+import org.elasticsearch.index.shard.TranslogSyncCoordinator;
 import org.elasticsearch.index.similarity.NonNegativeScoresSimilarity;
 import org.elasticsearch.index.similarity.SimilarityService;
 import org.elasticsearch.index.store.FsDirectoryFactory;
@@ -138,6 +139,7 @@ public class IndexModuleTests extends ESTestCase {
     private ScriptService scriptService;
     private ClusterService clusterService;
     private IndexNameExpressionResolver indexNameExpressionResolver;
+    private TranslogSyncCoordinator translogSyncCoordinator;
 
     @Override
     public void setUp() throws Exception {
@@ -159,6 +161,7 @@ public class IndexModuleTests extends ESTestCase {
         nodeEnvironment = new NodeEnvironment(settings, environment);
         mapperRegistry = new IndicesModule(Collections.emptyList()).getMapperRegistry();
         indexNameExpressionResolver = TestIndexNameExpressionResolver.newInstance(threadPool.getThreadContext());
+        translogSyncCoordinator = new TranslogSyncCoordinator(settings, threadPool.getThreadContext());
     }
 
     @Override
@@ -184,7 +187,8 @@ public class IndexModuleTests extends ESTestCase {
                 Collections.emptyMap(),
                 () -> true,
                 indexNameExpressionResolver,
-                Collections.emptyMap());
+                Collections.emptyMap(),
+                translogSyncCoordinator);
         module.setReaderWrapper(s -> new Wrapper());
 
         IndexService indexService = newIndexService(module);
@@ -205,7 +209,7 @@ public class IndexModuleTests extends ESTestCase {
         final Map<String, IndexStorePlugin.DirectoryFactory> indexStoreFactories = singletonMap(
             "foo_store", new FooFunction());
         final IndexModule module = new IndexModule(indexSettings, emptyAnalysisRegistry, new InternalEngineFactory(), indexStoreFactories,
-            () -> true, indexNameExpressionResolver, Collections.emptyMap());
+            () -> true, indexNameExpressionResolver, Collections.emptyMap(), translogSyncCoordinator);
 
         final IndexService indexService = newIndexService(module);
         assertThat(indexService.getDirectoryFactory(), instanceOf(FooFunction.class));
@@ -519,7 +523,8 @@ public class IndexModuleTests extends ESTestCase {
             Collections.emptyMap(),
             () -> true,
             indexNameExpressionResolver,
-            recoveryStateFactories);
+            recoveryStateFactories,
+            translogSyncCoordinator);
 
         final IndexService indexService = newIndexService(module);
 
@@ -540,7 +545,7 @@ public class IndexModuleTests extends ESTestCase {
     private static IndexModule createIndexModule(IndexSettings indexSettings, AnalysisRegistry emptyAnalysisRegistry,
                                                  IndexNameExpressionResolver indexNameExpressionResolver) {
         return new IndexModule(indexSettings, emptyAnalysisRegistry, new InternalEngineFactory(), Collections.emptyMap(), () -> true,
-            indexNameExpressionResolver, Collections.emptyMap());
+            indexNameExpressionResolver, Collections.emptyMap(), translogSyncCoordinator);
     }
 
     class CustomQueryCache implements QueryCache {
@@ -3586,6 +3586,48 @@ public class InternalEngineTests extends EngineTestCase {
             Engine.Operation.Origin.REPLICA, System.nanoTime(), autoGeneratedIdTimestamp, retry, UNASSIGNED_SEQ_NO, 0);
     }
 
+    public void testIndexAppendOnlyBatch() throws IOException {
+        final int numDocs = randomIntBetween(2, 100);
+        final List<Engine.Index> operations = new ArrayList<>(numDocs);
+        for (int i = 0; i < numDocs; i++) {
+            final ParsedDocument doc = testParsedDocument(Integer.toString(i), null, testDocumentWithTextField(), B_1, null);
+            operations.add(appendOnlyPrimary(doc, false, i));
+        }
+        final long appendsBefore = engine.getNumDocAppends();
+        final List<Engine.IndexResult> results = engine.index(operations);
+        assertThat(results, hasSize(numDocs));
+        final long firstSeqNo = results.get(0).getSeqNo();
+        for (int i = 0; i < numDocs; i++) {
+            final Engine.IndexResult result = results.get(i);
+            assertThat(result.getResultType(), equalTo(Engine.Result.Type.SUCCESS));
+            assertThat(result.getSeqNo(), equalTo(firstSeqNo + i));
+            assertTrue(result.isCreated());
+            final Translog.Operation translogOperation = getTranslog(engine).readOperation(result.getTranslogLocation());
+            assertThat(translogOperation.seqNo(), equalTo(result.getSeqNo()));
+            assertThat(((Translog.Index) translogOperation).id(), equalTo(Integer.toString(i)));
+        }
+        assertThat(engine.getNumDocAppends() - appendsBefore, equalTo((long) numDocs));
+        assertThat(engine.getProcessedLocalCheckpoint(), equalTo(firstSeqNo + numDocs - 1));
+        assertVisibleCount(engine, numDocs);
+
+        // a retry in the batch makes the engine index the operations one by one, which must still detect the duplicate
+        final ParsedDocument duplicate = testParsedDocument("0", null, testDocumentWithTextField(), B_1, null);
+        final ParsedDocument newDoc = testParsedDocument(Integer.toString(numDocs), null, testDocumentWithTextField(), B_1, null);
+        final List<Engine.IndexResult> retryResults =
+            engine.index(List.of(appendOnlyPrimary(duplicate, true, 0, false), appendOnlyPrimary(newDoc, false, numDocs)));
+        assertThat(retryResults, hasSize(2));
+        assertFalse(retryResults.get(0).isCreated());
+        assertTrue(retryResults.get(1).isCreated());
+        assertVisibleCount(engine, numDocs + 1);
+
+        // operations of the batch are checked like operations indexed one by one
+        final ParsedDocument withSeqNo = testParsedDocument(Integer.toString(numDocs + 1), null, testDocumentWithTextField(), B_1, null);
+        final Engine.Index invalid = new Engine.Index(newUid(withSeqNo), withSeqNo, randomNonNegativeLong(), 1, Versions.MATCH_ANY,
+            VersionType.INTERNAL, Engine.Operation.Origin.PRIMARY, System.nanoTime(), numDocs + 1, false, UNASSIGNED_SEQ_NO, 0);
+        final ParsedDocument valid = testParsedDocument(Integer.toString(numDocs + 2), null, testDocumentWithTextField(), B_1, null);
+        expectThrows(AssertionError.class, () -> engine.index(List.of(appendOnlyPrimary(valid, false, numDocs + 2), invalid)));
+    }
+
     public void testRetryConcurrently() throws InterruptedException, IOException {
         Thread[] thread = new Thread[randomIntBetween(3, 5)];
         int numDocs = randomIntBetween(1000, 10000);
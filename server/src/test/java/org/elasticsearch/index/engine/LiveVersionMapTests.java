@@ -13,7 +13,11 @@ import org.apache.lucene.util.BytesRefBuilder;
 import org.apache.lucene.util.Constants;
 import org.apache.lucene.util.RamUsageTester;
 import org.apache.lucene.util.TestUtil;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.MockBigArrays;
+import org.elasticsearch.common.util.MockPageCacheRecycler;
 import org.elasticsearch.core.Releasable;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
 import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.test.ESTestCase;
 
@@ -27,10 +31,12 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.nullValue;
 
 public class LiveVersionMapTests extends ESTestCase {
@@ -125,6 +131,125 @@ public class LiveVersionMapTests extends ESTestCase {
         }
     }
 
+    public void testPagedBasics() throws IOException {
+        LiveVersionMap map = new LiveVersionMap(new MockBigArrays(new MockPageCacheRecycler(Settings.EMPTY),
+            new NoneCircuitBreakerService()));
+        try (Releasable r = map.acquireLock(uid("test"))) {
+            Translog.Location tlogLoc = randomTranslogLocation();
+            map.putIndexUnderLock(uid("test"), new IndexVersionValue(tlogLoc, 1, 1, 1));
+            assertEquals(new IndexVersionValue(tlogLoc, 1, 1, 1), map.getUnderLock(uid("test")));
+            assertThat(map.ramBytesUsedForRefresh(), greaterThan(0L));
+            assertEquals(1, map.getAllCurrent().size());
+            map.beforeRefresh();
+            assertEquals(new IndexVersionValue(tlogLoc, 1, 1, 1), map.getUnderLock(uid("test")));
+            assertThat(map.getRefreshingBytes(), greaterThan(0L));
+            map.afterRefresh(randomBoolean());
+            assertNull(map.getUnderLock(uid("test")));
+            assertEquals(0, map.getRefreshingBytes());
+
+            map.putIndexUnderLock(uid("test"), new IndexVersionValue(tlogLoc, 2, 2, 1));
+            map.putDeleteUnderLock(uid("test"), new DeleteVersionValue(3, 3, 1, 1));
+            assertEquals(new DeleteVersionValue(3, 3, 1, 1), map.getUnderLock(uid("test")));
+            assertEquals(0, map.getAllCurrent().size());
+            map.putIndexUnderLock(uid("test"), new IndexVersionValue(tlogLoc, 4, 4, 1));
+            assertEquals(new IndexVersionValue(tlogLoc, 4, 4, 1), map.getUnderLock(uid("test")));
+        } finally {
+            // releases the paged maps, MockBigArrays fails the test on leaks
+            map.clear();
+        }
+    }
+
+    public void testPagedRamBytesUsedForRefreshAfterRefresh() throws IOException {
+        LiveVersionMap map = new LiveVersionMap(new MockBigArrays(new MockPageCacheRecycler(Settings.EMPTY),
+            new NoneCircuitBreakerService()));
+        try {
+            int numDocs = randomIntBetween(1000, 5000);
+            for (int i = 0; i < numDocs; i++) {
+                BytesRef uid = uid(Integer.toString(i));
+                try (Releasable r = map.acquireLock(uid)) {
+                    map.putIndexUnderLock(uid, randomIndexVersionValue());
+                }
+            }
+            long bytesBeforeRefresh = map.ramBytesUsedForRefresh();
+            assertThat(bytesBeforeRefresh, greaterThan(0L));
+            map.beforeRefresh();
+            // the new map is pre-sized for as many entries as the previous one but doesn't hold any yet
+            assertThat(map.ramBytesUsedForRefresh(), equalTo(0L));
+            assertThat(map.getRefreshingBytes(), equalTo(bytesBeforeRefresh));
+            map.afterRefresh(randomBoolean());
+            assertThat(map.ramBytesUsedForRefresh(), equalTo(0L));
+
+            BytesRef uid = uid("test");
+            try (Releasable r = map.acquireLock(uid)) {
+                map.putIndexUnderLock(uid, randomIndexVersionValue());
+            }
+            assertThat(map.ramBytesUsedForRefresh(), lessThan(bytesBeforeRefresh / numDocs * 2));
+        } finally {
+            // releases the paged maps, MockBigArrays fails the test on leaks
+            map.clear();
+        }
+    }
+
+    public void testPagedConcurrentlyIndexAndRefresh() throws Exception {
+        LiveVersionMap map = new LiveVersionMap(new MockBigArrays(new MockPageCacheRecycler(Settings.EMPTY),
+            new NoneCircuitBreakerService()));
+        int numThreads = randomIntBetween(2, 5);
+        int valuesPerThread = randomIntBetween(1000, 5000);
+        Thread[] threads = new Thread[numThreads];
+        CountDownLatch startGun = new CountDownLatch(numThreads);
+        CountDownLatch done = new CountDownLatch(numThreads);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int j = 0; j < threads.length; j++) {
+            // every thread has its own keys so it knows the latest version of each of them
+            final List<BytesRef> keys = new ArrayList<>();
+            final int numKeys = randomIntBetween(10, 50);
+            for (int i = 0; i < numKeys; i++) {
+                keys.add(uid(j + "_" + i));
+            }
+            threads[j] = new Thread(() -> {
+                try {
+                    startGun.countDown();
+                    startGun.await();
+                    Map<BytesRef, Long> versions = new HashMap<>();
+                    for (int i = 0; i < valuesPerThread; i++) {
+                        BytesRef key = randomFrom(keys);
+                        try (Releasable r = map.acquireLock(key)) {
+                            long version = versions.merge(key, 1L, Long::sum);
+                            IndexVersionValue value = new IndexVersionValue(randomTranslogLocation(), version, version, 1);
+                            map.putIndexUnderLock(key, value);
+                            // a concurrent refresh may have released the map, but we never see a stale version
+                            VersionValue actual = map.getUnderLock(key);
+                            if (actual != null) {
+                                assertEquals(value, actual);
+                            }
+                        }
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                } finally {
+                    done.countDown();
+                }
+            });
+            threads[j].start();
+        }
+        try {
+            do {
+                map.beforeRefresh();
+                if (randomBoolean()) {
+                    Thread.yield();
+                }
+                map.afterRefresh(randomBoolean());
+            } while (done.getCount() != 0);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertNull(failure.get());
+        } finally {
+            // releases the paged maps, MockBigArrays fails the test on leaks
+            map.clear();
+        }
+    }
+
     public void testConcurrently() throws IOException, InterruptedException {
         HashSet<BytesRef> keySet = new HashSet<>();
         int numKeys = randomIntBetween(50, 200);
@@ -402,7 +527,8 @@ public class LiveVersionMapTests extends ESTestCase {
     }
 
     public void testRandomlyIndexDeleteAndRefresh() throws Exception {
-        final LiveVersionMap versionMap = new LiveVersionMap();
+        final LiveVersionMap versionMap = randomBoolean() ? new LiveVersionMap()
+            : new LiveVersionMap(new MockBigArrays(new MockPageCacheRecycler(Settings.EMPTY), new NoneCircuitBreakerService()));
         final BytesRef uid = uid("1");
         final long versions = between(10, 1000);
         VersionValue latestVersion = null;
@@ -433,6 +559,7 @@ public class LiveVersionMapTests extends ESTestCase {
                 }
             }
         }
+        versionMap.clear();
     }
 
     IndexVersionValue randomIndexVersionValue() {
@@ -18,6 +18,7 @@ import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.OrdinalMap;
 import org.apache.lucene.index.SortedDocValues;
 import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.index.Term;
@@ -38,12 +39,14 @@ import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.FixedBitSet;
 import org.apache.lucene.util.TestUtil;
 import org.apache.lucene.util.UnicodeUtil;
+import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
 import org.elasticsearch.common.lucene.search.Queries;
 import org.elasticsearch.index.fielddata.IndexFieldData.XFieldComparatorSource.Nested;
 import org.elasticsearch.index.fielddata.fieldcomparator.BytesRefFieldComparatorSource;
 import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinalsIndexFieldData;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.search.MultiValueMode;
 
 import java.io.IOException;
@@ -604,12 +607,88 @@ public abstract class AbstractStringFieldDataTestCase extends AbstractFieldDataI
         }
     }
 
+    public void testGlobalOrdinalsAreBuiltIncrementally() throws Exception {
+        fillExtendedMvSet();
+        refreshReader();
+        CircuitBreaker breaker = getInstanceFromNode(CircuitBreakerService.class).getBreaker(CircuitBreaker.FIELDDATA);
+        long initialUsed = breaker.getUsed();
+        IndexOrdinalsFieldData ifd = getForField("string", "value", hasDocValues());
+        IndexOrdinalsFieldData globalOrdinals = ifd.loadGlobal(topLevelReader);
+        assertThat(topLevelReader.leaves().size(), equalTo(3));
+
+        // only deletes changed so the global ordinals are the same, and are only accounted once
+        writer.deleteDocuments(new Term("_id", "1"));
+        DirectoryReader firstReader = topLevelReader;
+        topLevelReader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), new ShardId("foo", "_na_", 1));
+        long usedBeforeDeletes = breaker.getUsed();
+        IndexOrdinalsFieldData afterDeletes = ifd.loadGlobal(topLevelReader);
+        assertThat(afterDeletes.getGlobalOrdinalMap(), sameInstance(globalOrdinals.getGlobalOrdinalMap()));
+        assertThat(breaker.getUsed(), equalTo(usedBeforeDeletes));
+
+        // the terms of a new segment get inserted
+        Document d = new Document();
+        addField(d, "_id", "9");
+        addField(d, "value", "05a");
+        addField(d, "value", "11");
+        writer.addDocument(d);
+        DirectoryReader secondReader = topLevelReader;
+        topLevelReader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), new ShardId("foo", "_na_", 1));
+        assertThat(topLevelReader.leaves().size(), equalTo(4));
+        IndexOrdinalsFieldData afterNewSegment = ifd.loadGlobal(topLevelReader);
+        assertThat(afterNewSegment.getGlobalOrdinalMap().getValueCount(), equalTo(14L));
+
+        SortedSetDocValues values = afterNewSegment.load(topLevelReader.leaves().get(1)).getOrdinalsValues();
+        assertTrue(values.advanceExact(0));
+        assertThat(values.nextOrd(), equalTo(5L));
+        assertThat(values.nextOrd(), equalTo(6L));
+        assertThat(values.nextOrd(), equalTo(8L));
+        assertThat(values.nextOrd(), equalTo(SortedSetDocValues.NO_MORE_ORDS));
+        assertThat(values.lookupOrd(8).utf8ToString(), equalTo("06"));
+
+        values = afterNewSegment.load(topLevelReader.leaves().get(3)).getOrdinalsValues();
+        assertTrue(values.advanceExact(0));
+        assertThat(values.nextOrd(), equalTo(7L));
+        assertThat(values.nextOrd(), equalTo(13L));
+        assertThat(values.nextOrd(), equalTo(SortedSetDocValues.NO_MORE_ORDS));
+        assertThat(values.lookupOrd(7).utf8ToString(), equalTo("05a"));
+        assertThat(values.lookupOrd(13).utf8ToString(), equalTo("11"));
+
+        // consumers that need an OrdinalMap over all segments still get one, which is cached and accounted on its own
+        long usedBeforeOrdinalMap = breaker.getUsed();
+        int cachedBeforeOrdinalMap = indicesFieldDataCache.getCache().count();
+        long ramBytesUsed = afterNewSegment.ramBytesUsed();
+        OrdinalMap ordinalMap = afterNewSegment.getOrdinalMap();
+        assertThat(ordinalMap.getValueCount(), equalTo(14L));
+        assertThat(afterNewSegment.getOrdinalMap(), sameInstance(ordinalMap));
+        assertThat(afterNewSegment.ramBytesUsed(), equalTo(ramBytesUsed));
+        assertThat(indicesFieldDataCache.getCache().count(), equalTo(cachedBeforeOrdinalMap + 1));
+        assertThat(breaker.getUsed(), equalTo(usedBeforeOrdinalMap + ordinalMap.ramBytesUsed()));
+
+        // the global ordinals that both readers share are released along with the last of them
+        firstReader.close();
+        assertThat(breaker.getUsed(), equalTo(usedBeforeOrdinalMap + ordinalMap.ramBytesUsed()));
+        // only the ordinal map is shared, the segments are read from the reader they were loaded for
+        values = afterDeletes.load(secondReader.leaves().get(0)).getOrdinalsValues();
+        assertTrue(values.advanceExact(2));
+        assertThat(values.nextOrd(), equalTo(4L));
+        assertThat(values.nextOrd(), equalTo(SortedSetDocValues.NO_MORE_ORDS));
+        assertThat(values.lookupOrd(4).utf8ToString(), equalTo("03"));
+        secondReader.close();
+        assertThat(breaker.getUsed(), equalTo(usedBeforeOrdinalMap + ordinalMap.ramBytesUsed() - globalOrdinals.ramBytesUsed()));
+
+        indexService.clearCaches(false, true);
+        assertThat(indicesFieldDataCache.getCache().count(), equalTo(0));
+        assertThat(breaker.getUsed(), equalTo(initialUsed));
+    }
+
     public void testGlobalOrdinalsGetRemovedOnceIndexReaderCloses() throws Exception {
         fillExtendedMvSet();
         refreshReader();
         IndexOrdinalsFieldData ifd = getForField("string", "value", hasDocValues());
+        assertFalse(ifd.isGlobalLoaded(topLevelReader));
         IndexOrdinalsFieldData globalOrdinals = ifd.loadGlobal(topLevelReader);
         assertNotNull(globalOrdinals.getOrdinalMap());
+        assertTrue(ifd.isGlobalLoaded(topLevelReader));
         assertThat(ifd.loadGlobal(topLevelReader).getOrdinalMap(), sameInstance(globalOrdinals.getOrdinalMap()));
         // 3 b/c 1 segment level caches and 1 top level cache
         // in case of doc values, we don't cache atomic FD, so only the top-level cache is there
@@ -629,6 +708,7 @@ public abstract class AbstractStringFieldDataTestCase extends AbstractFieldDataI
         assertThat(indicesFieldDataCache.getCache().weight(), equalTo(hasDocValues() ? 0L : 3L));
 
         refreshReader();
+        assertFalse(ifd.isGlobalLoaded(topLevelReader));
         assertThat(ifd.loadGlobal(topLevelReader), not(sameInstance(globalOrdinals)));
 
         indexService.clearCaches(false, true);
@@ -15,6 +15,7 @@ import org.apache.lucene.util.NumericUtils;
 import org.elasticsearch.test.ESTestCase;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 public class FieldDataTests extends ESTestCase {
 
@@ -84,6 +85,49 @@ public class FieldDataTests extends ESTestCase {
         assertSame(multiValues, FieldData.toSortableLongBits(asMultiDoubles));
     }
 
+    public void testReadValues() throws IOException {
+        // only even docs have a value, which is the doc id
+        class EvenDocsValues extends AbstractNumericDocValues {
+            private final boolean sortableBits;
+            private int docID = -1;
+
+            EvenDocsValues(boolean sortableBits) {
+                this.sortableBits = sortableBits;
+            }
+
+            @Override
+            public boolean advanceExact(int target) {
+                docID = target;
+                return target % 2 == 0;
+            }
+
+            @Override
+            public int docID() {
+                return docID;
+            }
+
+            @Override
+            public long longValue() {
+                return sortableBits ? NumericUtils.doubleToSortableLong(docID) : docID;
+            }
+        }
+        int[] docs = new int[] { 1, 2, 3, 4, 6, 7, 10 };
+        double[] expected = new double[] { 2, 4, 6, 10 };
+        NumericDoubleValues casted = FieldData.unwrapSingleton(FieldData.castToDouble(DocValues.singleton(new EvenDocsValues(false))));
+        NumericDoubleValues sortableBits = FieldData.unwrapSingleton(
+            FieldData.sortableLongBitsToDoubles(DocValues.singleton(new EvenDocsValues(true))));
+        NumericDoubleValues generic = FieldData.replaceMissing(
+            FieldData.unwrapSingleton(FieldData.castToDouble(DocValues.singleton(new EvenDocsValues(false)))), -1);
+        for (NumericDoubleValues values : new NumericDoubleValues[] { casted, sortableBits }) {
+            double[] read = new double[docs.length];
+            assertEquals(expected.length, values.readValues(docs, docs.length, read));
+            assertArrayEquals(expected, Arrays.copyOf(read, expected.length), 0);
+        }
+        double[] read = new double[docs.length];
+        assertEquals(docs.length - 1, generic.readValues(docs, docs.length - 1, read));
+        assertArrayEquals(new double[] { -1, 2, -1, 4, 6, -1 }, Arrays.copyOf(read, docs.length - 1), 0);
+    }
+
     public void testDoublesToSortableLongBits() throws IOException {
         final double value = randomDouble();
         final long valueBits = NumericUtils.doubleToSortableLong(value);
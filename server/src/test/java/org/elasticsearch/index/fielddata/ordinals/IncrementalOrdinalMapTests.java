@@ -0,0 +1,126 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.fielddata.ordinals;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.OrdinalMap;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.packed.PackedInts;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class IncrementalOrdinalMapTests extends ESTestCase {
+
+    public void testAddSegments() throws IOException {
+        try (Directory directory = newDirectory();
+             IndexWriter writer = new IndexWriter(directory, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+            int numSegments = randomIntBetween(2, 5);
+            for (int i = 0; i < numSegments; i++) {
+                addSegment(writer, randomIntBetween(500, 1000));
+            }
+            DirectoryReader reader = DirectoryReader.open(writer);
+            GlobalOrdinalMap previous = GlobalOrdinalMap.wrap(OrdinalMap.build(null, subs(reader), PackedInts.DEFAULT));
+            int numRefreshes = randomIntBetween(1, 3);
+            for (int refresh = 0; refresh < numRefreshes; refresh++) {
+                int numNewSegments = randomIntBetween(1, 3);
+                for (int i = 0; i < numNewSegments; i++) {
+                    addSegment(writer, randomIntBetween(1, 5));
+                }
+                DirectoryReader newReader = DirectoryReader.openIfChanged(reader);
+                IncrementalOrdinalMap incremental = IncrementalOrdinalMap.build(previous, previousSegments(reader, newReader),
+                    subs(newReader));
+                assertSameGlobalOrdinals(newReader, incremental);
+                reader.close();
+                reader = newReader;
+                previous = incremental;
+            }
+            reader.close();
+        }
+    }
+
+    public void testTooManyNewTerms() throws IOException {
+        try (Directory directory = newDirectory();
+             IndexWriter writer = new IndexWriter(directory, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+            addSegment(writer, 10);
+            addSegment(writer, 10);
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                GlobalOrdinalMap previous = GlobalOrdinalMap.wrap(OrdinalMap.build(null, subs(reader), PackedInts.DEFAULT));
+                addSegment(writer, 1000);
+                try (DirectoryReader newReader = DirectoryReader.openIfChanged(reader)) {
+                    assertThat(IncrementalOrdinalMap.build(previous, previousSegments(reader, newReader), subs(newReader)),
+                        nullValue());
+                }
+            }
+        }
+    }
+
+    private static void addSegment(IndexWriter writer, int numDocs) throws IOException {
+        for (int i = 0; i < numDocs; i++) {
+            Document document = new Document();
+            int numValues = randomIntBetween(0, 3);
+            for (int j = 0; j < numValues; j++) {
+                document.add(new SortedSetDocValuesField("field", new BytesRef(randomAlphaOfLengthBetween(1, 3))));
+            }
+            writer.addDocument(document);
+        }
+        writer.flush();
+    }
+
+    private static SortedSetDocValues[] subs(IndexReader reader) throws IOException {
+        SortedSetDocValues[] subs = new SortedSetDocValues[reader.leaves().size()];
+        for (int i = 0; i < subs.length; i++) {
+            subs[i] = DocValues.getSortedSet(reader.leaves().get(i).reader(), "field");
+        }
+        return subs;
+    }
+
+    private static int[] previousSegments(IndexReader previousReader, IndexReader reader) {
+        Map<IndexReader.CacheKey, Integer> previousSegmentsByKey = new HashMap<>();
+        for (int i = 0; i < previousReader.leaves().size(); i++) {
+            previousSegmentsByKey.put(previousReader.leaves().get(i).reader().getCoreCacheHelper().getKey(), i);
+        }
+        int[] previousSegments = new int[reader.leaves().size()];
+        for (int i = 0; i < previousSegments.length; i++) {
+            IndexReader.CacheKey key = reader.leaves().get(i).reader().getCoreCacheHelper().getKey();
+            previousSegments[i] = previousSegmentsByKey.getOrDefault(key, -1);
+        }
+        return previousSegments;
+    }
+
+    private static void assertSameGlobalOrdinals(IndexReader reader, GlobalOrdinalMap incremental) throws IOException {
+        SortedSetDocValues[] subs = subs(reader);
+        OrdinalMap expected = OrdinalMap.build(null, subs, PackedInts.DEFAULT);
+        assertThat(incremental.getValueCount(), equalTo(expected.getValueCount()));
+        for (int segment = 0; segment < subs.length; segment++) {
+            for (long segmentOrd = 0; segmentOrd < subs[segment].getValueCount(); segmentOrd++) {
+                assertThat(incremental.getGlobalOrds(segment).get(segmentOrd), equalTo(expected.getGlobalOrds(segment).get(segmentOrd)));
+            }
+        }
+        for (long globalOrd = 0; globalOrd < expected.getValueCount(); globalOrd++) {
+            BytesRef expectedTerm = BytesRef.deepCopyOf(
+                subs[expected.getFirstSegmentNumber(globalOrd)].lookupOrd(expected.getFirstSegmentOrd(globalOrd)));
+            BytesRef term = subs[incremental.getFirstSegmentNumber(globalOrd)].lookupOrd(incremental.getFirstSegmentOrd(globalOrd));
+            assertThat(term, equalTo(expectedTerm));
+        }
+    }
+}
@@ -18,7 +18,7 @@ public class RefreshStatsTests extends ESTestCase {
 
     public void testSerialize() throws IOException {
         RefreshStats stats = new RefreshStats(randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(),
-            randomNonNegativeLong(), between(0, Integer.MAX_VALUE));
+            randomNonNegativeLong(), between(0, Integer.MAX_VALUE), randomNonNegativeLong(), randomLongBetween(-1, Long.MAX_VALUE));
         BytesStreamOutput out = new BytesStreamOutput();
         stats.writeTo(out);
         StreamInput input = out.bytes().streamInput();
@@ -29,5 +29,18 @@ public class RefreshStatsTests extends ESTestCase {
         assertEquals(stats.getListeners(), read.getListeners());
         assertEquals(stats.getTotalTimeInMillis(), read.getTotalTimeInMillis());
         assertEquals(stats.getExternalTotalTimeInMillis(), read.getExternalTotalTimeInMillis());
+        assertEquals(stats.getAdaptiveSkipped(), read.getAdaptiveSkipped());
+        assertEquals(stats.getAdaptiveIntervalInMillis(), read.getAdaptiveIntervalInMillis());
+    }
+
+    public void testAddKeepsLongestAdaptiveInterval() {
+        RefreshStats stats = new RefreshStats();
+        assertEquals(-1, stats.getAdaptiveIntervalInMillis());
+        stats.add(new RefreshStats(1, 1, 0, 0, 0, 2, 3000));
+        stats.add(new RefreshStats(1, 1, 0, 0, 0, 5, -1));
+        stats.add(new RefreshStats(1, 1, 0, 0, 0, 1, 1000));
+        assertEquals(3, stats.getTotal());
+        assertEquals(8, stats.getAdaptiveSkipped());
+        assertEquals(3000, stats.getAdaptiveIntervalInMillis());
     }
 }
@@ -0,0 +1,159 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.shard;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.time.DateFormatter;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.KeywordFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.index.query.QueryRewriteContext;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.xcontent.NamedXContentRegistry;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class ShardFieldRangesTests extends ESTestCase {
+
+    private static final Map<String, MappedFieldType> FIELD_TYPES = Map.of(
+        "long", new NumberFieldMapper.NumberFieldType("long", NumberFieldMapper.NumberType.LONG),
+        "date", new DateFieldMapper.DateFieldType("date"),
+        "keyword", new KeywordFieldMapper.KeywordFieldType("keyword")
+    );
+
+    public void testBuildAndRelation() throws IOException {
+        Directory dir = newDirectory();
+        IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig());
+        writer.addDocument(newDoc(10, 1_000, "b"));
+        writer.commit();
+        writer.addDocument(newDoc(20, 2_000, "d"));
+        DirectoryReader reader = DirectoryReader.open(writer);
+        IndexMetadata indexMetadata = newIndexMetadata(true, 3);
+
+        ShardFieldRanges.Builder builder = new ShardFieldRanges.Builder();
+        ShardFieldRanges ranges = builder.build(indexMetadata, reader, FIELD_TYPES::get);
+        assertThat(ranges.getFieldRange("long").min(), equalTo(10L));
+        assertThat(ranges.getFieldRange("long").max(), equalTo(20L));
+        assertThat(ranges.getFieldRange("date").max(), equalTo(2_000L));
+        assertThat(ranges.getFieldRange("keyword").min(), equalTo(new BytesRef("b")));
+        assertNull(ranges.getFieldRange("unknown"));
+
+        // segment summaries are cached
+        assertThat(builder.build(indexMetadata, reader, FIELD_TYPES::get), equalTo(ranges));
+        // fields that are now shadowed by a runtime field are dropped
+        assertNull(builder.build(indexMetadata, reader, field -> field.equals("long") ? null : FIELD_TYPES.get(field))
+            .getFieldRange("long"));
+
+        ShardFieldRanges copy = copyWriteable(ranges, new NamedWriteableRegistry(Collections.emptyList()),
+            ShardFieldRanges::new);
+        assertThat(copy, equalTo(ranges));
+
+        QueryRewriteContext context = new QueryRewriteContext(NamedXContentRegistry.EMPTY, null, null, () -> 0L);
+        ShardFieldRanges.FieldRange longRange = copy.getFieldRange("long");
+        assertThat(relation(longRange, "long", 21, null, context), equalTo(MappedFieldType.Relation.DISJOINT));
+        assertThat(relation(longRange, "long", null, "9.5", context), equalTo(MappedFieldType.Relation.DISJOINT));
+        assertThat(relation(longRange, "long", 20, 30, context), equalTo(MappedFieldType.Relation.INTERSECTS));
+        ShardFieldRanges.FieldRange dateRange = copy.getFieldRange("date");
+        assertThat(relation(dateRange, "date", "1970-01-01T00:00:03Z", null, context), equalTo(MappedFieldType.Relation.DISJOINT));
+        assertThat(relation(dateRange, "date", 0, 5_000, context), equalTo(MappedFieldType.Relation.WITHIN));
+        ShardFieldRanges.FieldRange keywordRange = copy.getFieldRange("keyword");
+        assertThat(relation(keywordRange, "keyword", new BytesRef("e"), null, context), equalTo(MappedFieldType.Relation.DISJOINT));
+        assertThat(relation(keywordRange, "keyword", "a", "c", context), equalTo(MappedFieldType.Relation.INTERSECTS));
+
+        IOUtils.close(reader, writer, dir);
+    }
+
+    public void testValidity() {
+        ShardFieldRanges ranges = new ShardFieldRanges(3, 1, Map.of());
+        assertTrue(ranges.isValidFor(newIndexMetadata(true, 3)));
+        // the block was removed, or removed and added again
+        assertFalse(ranges.isValidFor(newIndexMetadata(false, 4)));
+        assertFalse(ranges.isValidFor(newIndexMetadata(true, 5)));
+    }
+
+    public void testSerialization() throws IOException {
+        ShardFieldRanges ranges = randomShardFieldRanges();
+        ShardFieldRanges copy = copyWriteable(ranges, new NamedWriteableRegistry(Collections.emptyList()), ShardFieldRanges::new);
+        assertThat(copy, equalTo(ranges));
+    }
+
+    /**
+     * Returns a summary with random ranges of long, double, date and keyword fields.
+     */
+    public static ShardFieldRanges randomShardFieldRanges() {
+        Map<String, ShardFieldRanges.FieldRange> ranges = new HashMap<>();
+        if (randomBoolean()) {
+            long min = randomLong();
+            ranges.put("long", new ShardFieldRanges.FieldRange("long", null, null, min, randomLongBetween(min, Long.MAX_VALUE)));
+        }
+        if (randomBoolean()) {
+            double min = randomDouble();
+            ranges.put("double", new ShardFieldRanges.FieldRange("double", null, null, min, min + randomDouble()));
+        }
+        if (randomBoolean()) {
+            long min = randomNonNegativeLong();
+            DateFormatter formatter = DateFieldMapper.DEFAULT_DATE_TIME_FORMATTER;
+            ranges.put("date", new ShardFieldRanges.FieldRange("date", formatter.pattern(), formatter.locale().toLanguageTag(),
+                min, randomLongBetween(min, Long.MAX_VALUE)));
+        }
+        if (randomBoolean()) {
+            String min = randomAlphaOfLength(5);
+            ranges.put("keyword", new ShardFieldRanges.FieldRange("keyword", null, null, new BytesRef(min), new BytesRef(min + "z")));
+        }
+        return new ShardFieldRanges(randomNonNegativeLong(), randomNonNegativeLong(), ranges);
+    }
+
+    /**
+     * Returns a summary of a shard of the given index that has a single long field.
+     */
+    public static ShardFieldRanges newLongFieldRanges(IndexMetadata indexMetadata, String field, long min, long max) {
+        return new ShardFieldRanges(indexMetadata.getSettingsVersion(), indexMetadata.getMappingVersion(),
+            Map.of(field, new ShardFieldRanges.FieldRange("long", null, null, min, max)));
+    }
+
+    private static MappedFieldType.Relation relation(ShardFieldRanges.FieldRange range, String field, Object from, Object to,
+                                                     QueryRewriteContext context) throws IOException {
+        return range.relation(field, from, to, true, true, null, null, context);
+    }
+
+    private static IndexMetadata newIndexMetadata(boolean writeBlock, long settingsVersion) {
+        return IndexMetadata.builder("test")
+            .settings(settings(Version.CURRENT).put(IndexMetadata.INDEX_BLOCKS_WRITE_SETTING.getKey(), writeBlock))
+            .numberOfShards(1)
+            .numberOfReplicas(0)
+            .settingsVersion(settingsVersion)
+            .mappingVersion(1)
+            .build();
+    }
+
+    private static Document newDoc(long value, long date, String keyword) {
+        Document doc = new Document();
+        doc.add(new LongPoint("long", value));
+        doc.add(new LongPoint("date", date));
+        doc.add(new StringField("keyword", keyword, Field.Store.NO));
+        return doc;
+    }
+}
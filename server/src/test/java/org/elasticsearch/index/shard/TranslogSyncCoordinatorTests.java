@@ -0,0 +1,152 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.index.shard;
+
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.Tuple;
+import org.elasticsearch.env.NodeEnvironment;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.translog.Translog;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TranslogSyncCoordinatorTests extends IndexShardTestCase {
+
+    public void testDisabledByDefault() {
+        assertFalse(new TranslogSyncCoordinator(Settings.EMPTY, threadPool.getThreadContext()).isEnabled());
+    }
+
+    public void testSyncsAllPendingLocations() throws Exception {
+        final TranslogSyncCoordinator coordinator = new TranslogSyncCoordinator(
+            Settings.builder().put(TranslogSyncCoordinator.GROUP_SYNC_ENABLED_SETTING.getKey(), true).build(),
+            threadPool.getThreadContext());
+        assertTrue(coordinator.isEnabled());
+
+        final List<IndexShard> shards = new ArrayList<>();
+        final List<Tuple<IndexShard, Translog.Location>> locations = new ArrayList<>();
+        final int numShards = between(1, 3);
+        for (int i = 0; i < numShards; i++) {
+            final IndexShard shard = newStartedShard(true);
+            shards.add(shard);
+            final int numDocs = between(1, 10);
+            for (int doc = 0; doc < numDocs; doc++) {
+                final Engine.IndexResult result = indexDoc(shard, "_doc", Integer.toString(doc));
+                locations.add(new Tuple<>(shard, result.getTranslogLocation()));
+            }
+        }
+        try {
+            final CountDownLatch latch = new CountDownLatch(locations.size());
+            final AtomicReference<Exception> failure = new AtomicReference<>();
+            for (Tuple<IndexShard, Translog.Location> location : locations) {
+                coordinator.sync(location.v1(), location.v2(), e -> {
+                    if (e != null) {
+                        failure.set(e);
+                    }
+                    latch.countDown();
+                });
+            }
+            latch.await();
+            assertNull(failure.get());
+            for (IndexShard shard : shards) {
+                assertFalse(shard.isSyncNeeded());
+            }
+        } finally {
+            closeShards(shards);
+        }
+    }
+
+    public void testFailingShardDoesNotFailOtherShards() throws Exception {
+        final TranslogSyncCoordinator coordinator = new TranslogSyncCoordinator(
+            Settings.builder().put(TranslogSyncCoordinator.GROUP_SYNC_ENABLED_SETTING.getKey(), true).build(),
+            threadPool.getThreadContext());
+        final NodeEnvironment.NodePath nodePath = new NodeEnvironment.NodePath(createTempDir());
+
+        // holds the sync of the data path until the syncs of the other shards are queued, so they are all synced in one round
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch unblock = new CountDownLatch(1);
+        final IndexShard blockingShard = mockShard(nodePath, 0);
+        doAnswer(invocation -> {
+            blocked.countDown();
+            unblock.await();
+            return null;
+        }).when(blockingShard).ensureTranslogSynced(any());
+
+        final IOException syncFailure = new IOException("simulated");
+        final IndexShard failingShard = mockShard(nodePath, 1);
+        doThrow(syncFailure).when(failingShard).ensureTranslogSynced(any());
+
+        final List<Translog.Location> synced = new CopyOnWriteArrayList<>();
+        final IndexShard healthyShard = mockShard(nodePath, 2);
+        doAnswer(invocation -> {
+            invocation.<Stream<Translog.Location>>getArgument(0).forEach(synced::add);
+            return null;
+        }).when(healthyShard).ensureTranslogSynced(any());
+
+        final AtomicReference<Exception> blockingShardResult = new AtomicReference<>();
+        final Thread blockingThread = new Thread(() -> coordinator.sync(blockingShard, new Translog.Location(1, 0, 1), e -> {
+            if (e != null) {
+                blockingShardResult.set(e);
+            }
+        }));
+        blockingThread.start();
+        blocked.await();
+
+        final int numLocations = between(1, 5);
+        final CountDownLatch done = new CountDownLatch(numLocations * 2);
+        final List<Exception> failingShardResults = new CopyOnWriteArrayList<>();
+        final List<Exception> healthyShardResults = new CopyOnWriteArrayList<>();
+        final List<Translog.Location> healthyShardLocations = new ArrayList<>();
+        for (int i = 0; i < numLocations; i++) {
+            coordinator.sync(failingShard, new Translog.Location(1, i, 1), e -> {
+                failingShardResults.add(e);
+                done.countDown();
+            });
+            final Translog.Location location = new Translog.Location(1, i, 1);
+            healthyShardLocations.add(location);
+            coordinator.sync(healthyShard, location, e -> {
+                if (e != null) {
+                    healthyShardResults.add(e);
+                }
+                done.countDown();
+            });
+        }
+        unblock.countDown();
+        done.await();
+        blockingThread.join();
+
+        assertNull(blockingShardResult.get());
+        assertEquals(numLocations, failingShardResults.size());
+        for (Exception e : failingShardResults) {
+            assertThat(e, sameInstance(syncFailure));
+        }
+        assertTrue(healthyShardResults.isEmpty());
+        assertThat(synced, containsInAnyOrder(healthyShardLocations.toArray()));
+    }
+
+    private static IndexShard mockShard(NodeEnvironment.NodePath nodePath, int id) {
+        final ShardId shardId = new ShardId("index", "_na_", id);
+        final IndexShard shard = mock(IndexShard.class);
+        when(shard.shardId()).thenReturn(shardId);
+        when(shard.shardPath()).thenReturn(new ShardPath(false, nodePath.resolve(shardId), nodePath.resolve(shardId), shardId));
+        return shard;
+    }
+}
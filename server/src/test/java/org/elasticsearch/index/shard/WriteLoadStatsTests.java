@@ -0,0 +1,68 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.shard;
+
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.test.AbstractWireSerializingTestCase;
+import org.elasticsearch.test.ESTestCase;
+
+public class WriteLoadStatsTests extends AbstractWireSerializingTestCase<WriteLoadStats> {
+
+    @Override
+    protected Writeable.Reader<WriteLoadStats> instanceReader() {
+        return WriteLoadStats::new;
+    }
+
+    @Override
+    protected WriteLoadStats createTestInstance() {
+        return new WriteLoadStats(randomNonNegativeLong(),
+            randomNonNegativeLong(),
+            randomNonNegativeLong(),
+            randomNonNegativeLong(),
+            randomNonNegativeLong(),
+            randomNonNegativeLong());
+    }
+
+    @Override
+    protected WriteLoadStats mutateInstance(WriteLoadStats instance) {
+        final long[] values = new long[] {
+            instance.getOperations(),
+            instance.getTotalTimeInMillis(),
+            instance.getParseTimeInMillis(),
+            instance.getVersionMapTimeInMillis(),
+            instance.getIndexWriterTimeInMillis(),
+            instance.getTranslogTimeInMillis() };
+        final int i = between(0, values.length - 1);
+        values[i] = randomValueOtherThan(values[i], ESTestCase::randomNonNegativeLong);
+        return new WriteLoadStats(values[0], values[1], values[2], values[3], values[4], values[5]);
+    }
+
+    public void testAddTotals() {
+        WriteLoadStats writeLoadStats1 = new WriteLoadStats(1, 6, 1, 1, 2, 1);
+        WriteLoadStats writeLoadStats2 = new WriteLoadStats(1, 6, 1, 1, 2, 1);
+
+        writeLoadStats1.add(writeLoadStats2);
+        assertStats(writeLoadStats1, 2);
+
+        writeLoadStats1.add(writeLoadStats2);
+        assertStats(writeLoadStats1, 3);
+
+        writeLoadStats1.add(null);
+        assertStats(writeLoadStats1, 3);
+    }
+
+    private static void assertStats(WriteLoadStats stats, long equalTo) {
+        assertEquals(equalTo, stats.getOperations());
+        assertEquals(6 * equalTo, stats.getTotalTimeInMillis());
+        assertEquals(equalTo, stats.getParseTimeInMillis());
+        assertEquals(equalTo, stats.getVersionMapTimeInMillis());
+        assertEquals(2 * equalTo, stats.getIndexWriterTimeInMillis());
+        assertEquals(equalTo, stats.getTranslogTimeInMillis());
+    }
+}
@@ -906,6 +906,55 @@ public class TranslogTests extends ESTestCase {
         assertFileIsPresent(translog, 2);
     }
 
+    public void testRecyclesTrimmedGenerationFiles() throws IOException {
+        translog.close();
+        final Settings settings = Settings.builder()
+            .put(IndexMetadata.SETTING_VERSION_CREATED, Version.CURRENT)
+            .put(IndexSettings.INDEX_TRANSLOG_RECYCLE_GENERATION_FILES_SETTING.getKey(), true)
+            .build();
+        final TranslogConfig config = getTranslogConfig(translogDir, settings);
+        translog = createTranslog(config);
+        final Path recycledFile = translogDir.resolve(Translog.RECYCLED_FILE_NAME);
+
+        long seqNo = 0;
+        final int firstGenerationOps = randomIntBetween(10, 100);
+        for (int i = 0; i < firstGenerationOps; i++, seqNo++) {
+            translog.add(new Translog.Index(Long.toString(seqNo), seqNo, primaryTerm.get(), new byte[randomIntBetween(100, 1000)]));
+        }
+        translog.rollGeneration();
+        translog.getDeletionPolicy().setLocalCheckpointOfSafeCommit(seqNo - 1);
+        translog.trimUnreferencedReaders();
+        assertFileDeleted(translog, 1);
+        assertTrue(Files.exists(recycledFile));
+        final long recycledFileSize = Files.size(recycledFile);
+
+        // the remaining operations are smaller than the recycled file so it still contains stale operations of the first generation
+        final List<Translog.Operation> ops = new ArrayList<>();
+        final int secondGenerationOps = randomIntBetween(1, 5);
+        for (int i = 0; i < secondGenerationOps; i++, seqNo++) {
+            addToTranslogAndList(translog, ops, new Translog.Index(Long.toString(seqNo), seqNo, primaryTerm.get(), new byte[]{1}));
+        }
+        translog.rollGeneration();
+        assertFalse(Files.exists(recycledFile));
+        final long generation = translog.currentFileGeneration();
+        assertThat(Files.size(translogDir.resolve(Translog.getFilename(generation))), equalTo(recycledFileSize));
+        final int thirdGenerationOps = randomIntBetween(1, 5);
+        for (int i = 0; i < thirdGenerationOps; i++, seqNo++) {
+            addToTranslogAndList(translog, ops, new Translog.Index(Long.toString(seqNo), seqNo, primaryTerm.get(), new byte[]{1}));
+        }
+        translog.sync();
+        try (Translog.Snapshot snapshot = translog.newSnapshot()) {
+            assertThat(snapshot, SnapshotMatchers.equalsTo(ops));
+        }
+
+        final String translogUUID = translog.getTranslogUUID();
+        translog.close();
+        translog = openTranslog(config, translogUUID);
+        try (Translog.Snapshot snapshot = translog.newSnapshot()) {
+            assertThat(snapshot, SnapshotMatchers.equalsTo(ops));
+        }
+    }
+
     /**
      * Tests that concurrent readers and writes maintain view and snapshot semantics
      */
@@ -0,0 +1,75 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.IndexingPressure;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.Scheduler.Cancellable;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AdaptiveRefreshSchedulerTests extends ESTestCase {
+
+    public void testIntervalFollowsLoad() {
+        assertEquals(TimeValue.timeValueSeconds(1), AdaptiveRefreshScheduler.computeRefreshInterval(1000, 11000, 0, 0, false));
+        assertEquals(TimeValue.timeValueSeconds(11), AdaptiveRefreshScheduler.computeRefreshInterval(1000, 11000, 1, 0, false));
+        assertEquals(TimeValue.timeValueSeconds(6), AdaptiveRefreshScheduler.computeRefreshInterval(1000, 11000, 0.5, 0, false));
+        // the merge backlog counts as much as the indexing pressure
+        assertEquals(TimeValue.timeValueSeconds(9), AdaptiveRefreshScheduler.computeRefreshInterval(1000, 11000, 0.2, 0.8, false));
+        // shards that are searched are stretched half as much
+        assertEquals(TimeValue.timeValueSeconds(6), AdaptiveRefreshScheduler.computeRefreshInterval(1000, 11000, 1, 0, true));
+    }
+
+    public void testIntervalStaysWithinBounds() {
+        final long min = randomLongBetween(1, 10000);
+        final long max = randomLongBetween(min + 1, 100000);
+        final TimeValue interval =
+            AdaptiveRefreshScheduler.computeRefreshInterval(min, max, randomDouble(), randomDouble(), randomBoolean());
+        assertThat(interval.millis(), allOf(greaterThanOrEqualTo(min), lessThanOrEqualTo(max)));
+    }
+
+    public void testOnlyScheduledWhileEnabled() {
+        final ThreadPool threadPool = mock(ThreadPool.class);
+        final Cancellable cancellable = mock(Cancellable.class);
+        when(threadPool.scheduleWithFixedDelay(any(), any(), anyString())).thenReturn(cancellable);
+        final ClusterSettings clusterSettings = new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS);
+        final AdaptiveRefreshScheduler scheduler = new AdaptiveRefreshScheduler(Settings.EMPTY, clusterSettings, threadPool,
+            new IndexingPressure(Settings.EMPTY), Collections.emptyList());
+        assertFalse(scheduler.isScheduled());
+        verify(threadPool, never()).scheduleWithFixedDelay(any(), any(), anyString());
+
+        clusterSettings.applySettings(Settings.builder().put(AdaptiveRefreshScheduler.ENABLED_SETTING.getKey(), true).build());
+        assertTrue(scheduler.isScheduled());
+        verify(threadPool, times(1)).scheduleWithFixedDelay(any(), any(), anyString());
+
+        clusterSettings.applySettings(Settings.EMPTY);
+        assertFalse(scheduler.isScheduled());
+        verify(cancellable, times(1)).cancel();
+
+        scheduler.close();
+        clusterSettings.applySettings(Settings.builder().put(AdaptiveRefreshScheduler.ENABLED_SETTING.getKey(), true).build());
+        assertFalse("a closed scheduler must not be scheduled again", scheduler.isScheduled());
+        verify(threadPool, times(1)).scheduleWithFixedDelay(any(), any(), anyString());
+    }
+}
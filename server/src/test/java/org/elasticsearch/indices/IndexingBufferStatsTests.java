@@ -0,0 +1,68 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.test.AbstractWireSerializingTestCase;
+import org.elasticsearch.test.ESTestCase;
+
+public class IndexingBufferStatsTests extends AbstractWireSerializingTestCase<IndexingBufferStats> {
+
+    @Override
+    protected Writeable.Reader<IndexingBufferStats> instanceReader() {
+        return IndexingBufferStats::new;
+    }
+
+    @Override
+    protected IndexingBufferStats createTestInstance() {
+        return new IndexingBufferStats(randomNonNegativeLong(),
+            randomNonNegativeLong(),
+            randomNonNegativeLong(),
+            randomNonNegativeLong(),
+            between(0, Integer.MAX_VALUE));
+    }
+
+    @Override
+    protected IndexingBufferStats mutateInstance(IndexingBufferStats instance) {
+        switch (between(0, 4)) {
+            case 0:
+                return new IndexingBufferStats(randomValueOtherThan(instance.getBufferSizeInBytes(), ESTestCase::randomNonNegativeLong),
+                    instance.getWrites(),
+                    instance.getDeferredWrites(),
+                    instance.getThrottleActivations(),
+                    instance.getThrottledShards());
+            case 1:
+                return new IndexingBufferStats(instance.getBufferSizeInBytes(),
+                    randomValueOtherThan(instance.getWrites(), ESTestCase::randomNonNegativeLong),
+                    instance.getDeferredWrites(),
+                    instance.getThrottleActivations(),
+                    instance.getThrottledShards());
+            case 2:
+                return new IndexingBufferStats(instance.getBufferSizeInBytes(),
+                    instance.getWrites(),
+                    randomValueOtherThan(instance.getDeferredWrites(), ESTestCase::randomNonNegativeLong),
+                    instance.getThrottleActivations(),
+                    instance.getThrottledShards());
+            case 3:
+                return new IndexingBufferStats(instance.getBufferSizeInBytes(),
+                    instance.getWrites(),
+                    instance.getDeferredWrites(),
+                    randomValueOtherThan(instance.getThrottleActivations(), ESTestCase::randomNonNegativeLong),
+                    instance.getThrottledShards());
+            case 4:
+                return new IndexingBufferStats(instance.getBufferSizeInBytes(),
+                    instance.getWrites(),
+                    instance.getDeferredWrites(),
+                    instance.getThrottleActivations(),
+                    randomValueOtherThan(instance.getThrottledShards(), () -> between(0, Integer.MAX_VALUE)));
+            default:
+                throw new AssertionError("failure, got illegal switch case");
+        }
+    }
+}
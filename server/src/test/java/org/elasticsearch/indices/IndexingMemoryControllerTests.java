@@ -21,6 +21,7 @@ import org.elasticsearch.index.engine.InternalEngine;
 import org.elasticsearch.index.refresh.RefreshStats;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.IndexShardTestCase;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.indices.recovery.RecoveryState;
 import org.elasticsearch.threadpool.Scheduler.Cancellable;
 import org.elasticsearch.threadpool.ThreadPool;
@@ -331,6 +332,115 @@ public class IndexingMemoryControllerTests extends IndexShardTestCase {
         closeShards(shard0, shard1);
     }
 
+    public void testIncrementalWritesShardsOverTheirShareOneAtATime() throws Exception {
+        MockController controller = new MockController(Settings.builder()
+            .put("indices.memory.index_buffer_size", "10mb")
+            .put(IndexingMemoryController.INCREMENTAL_SETTING.getKey(), true).build());
+        IndexShard shard0 = newShard(new ShardId("index", "_na_", 0), true);
+        IndexShard shard1 = newShard(new ShardId("index", "_na_", 1), true);
+        IndexShard shard2 = newShard(new ShardId("index", "_na_", 2), true);
+
+        // shard1 and shard2 hold on to their buffers without indexing anymore, while shard0 keeps indexing:
+        controller.simulateIndexing(shard1);
+        controller.simulateIndexing(shard1);
+        controller.simulateIndexing(shard2);
+        simulateIncrementalIndexing(controller, shard0);
+        simulateIncrementalIndexing(controller, shard0);
+        controller.assertWriting(shard1, 0);
+        controller.assertWriting(shard2, 0);
+
+        // We are now using 6 MB, more than half the budget, which is all owned by shard0, so the shard furthest over its share writes:
+        simulateIncrementalIndexing(controller, shard0);
+        controller.assertWriting(shard1, 2);
+        controller.assertWriting(shard2, 0);
+        controller.assertBuffer(shard0, 3);
+        controller.assertBuffer(shard2, 1);
+
+        // shard2 is over its share as well, but has to wait for shard1 to finish writing:
+        simulateIncrementalIndexing(controller, shard0);
+        simulateIncrementalIndexing(controller, shard0);
+        controller.assertWriting(shard2, 0);
+        controller.assertBuffer(shard2, 1);
+
+        controller.doneWriting(shard1);
+        controller.forceCheck();
+        controller.assertWriting(shard2, 1);
+        controller.assertBuffer(shard0, 5);
+
+        IndexingBufferStats stats = controller.stats();
+        assertEquals(10 * 1024 * 1024, stats.getBufferSizeInBytes());
+        assertEquals(2, stats.getWrites());
+        assertEquals(1, stats.getDeferredWrites());
+        assertEquals(0, stats.getThrottleActivations());
+        assertEquals(0, stats.getThrottledShards());
+        closeShards(shard0, shard1, shard2);
+    }
+
+    public void testIncrementalThrottlesShardsOverTheirShare() throws Exception {
+        MockController controller = new MockController(Settings.builder()
+            .put("indices.memory.index_buffer_size", "4mb")
+            .put(IndexingMemoryController.INCREMENTAL_SETTING.getKey(), true).build());
+        IndexShard shard0 = newShard(new ShardId("index", "_na_", 0), true);
+        IndexShard shard1 = newShard(new ShardId("index", "_na_", 1), true);
+
+        controller.simulateIndexing(shard1);
+        controller.simulateIndexing(shard1);
+        simulateIncrementalIndexing(controller, shard0);
+        controller.assertWriting(shard1, 2);
+
+        // shard0 owns the whole budget, so it only writes once the node is over budget:
+        for (int i = 0; i < 3; i++) {
+            simulateIncrementalIndexing(controller, shard0);
+        }
+        controller.assertBuffer(shard0, 4);
+        simulateIncrementalIndexing(controller, shard0);
+        controller.assertWriting(shard0, 5);
+
+        // Writing can't keep up, but only shard0 outgrew its share:
+        controller.assertThrottled(shard0);
+        controller.assertNotThrottled(shard1);
+        assertEquals(1, controller.stats().getThrottledShards());
+
+        controller.doneWriting(shard0);
+        controller.doneWriting(shard1);
+        controller.forceCheck();
+        controller.assertNotThrottled(shard0);
+        assertEquals(1, controller.stats().getThrottleActivations());
+        assertEquals(0, controller.stats().getThrottledShards());
+        closeShards(shard0, shard1);
+    }
+
+    public void testIncrementalStopsThrottlingRemovedShards() throws Exception {
+        MockController controller = new MockController(Settings.builder()
+            .put("indices.memory.index_buffer_size", "4mb")
+            .put(IndexingMemoryController.INCREMENTAL_SETTING.getKey(), true).build());
+        IndexShard shard0 = newShard(new ShardId("index", "_na_", 0), true);
+        IndexShard shard1 = newShard(new ShardId("index", "_na_", 1), true);
+        IndexShard shard2 = newShard(new ShardId("index", "_na_", 2), true);
+
+        controller.simulateIndexing(shard1);
+        controller.simulateIndexing(shard1);
+        for (int i = 0; i < 5; i++) {
+            simulateIncrementalIndexing(controller, shard0);
+        }
+        controller.assertThrottled(shard0);
+
+        // shard0 goes away while writing still can't keep up with the buffer of shard2
+        controller.deleteShard(shard0);
+        controller.indexBufferRAMBytesUsed.put(shard2, 5L * 1024 * 1024);
+        controller.writingBytes.put(shard2, 0L);
+        controller.forceCheck();
+        controller.assertNotThrottled(shard0);
+        controller.assertThrottled(shard2);
+        assertEquals(1, controller.stats().getThrottledShards());
+        closeShards(shard0, shard1, shard2);
+    }
+
+    private static void simulateIncrementalIndexing(MockController controller, IndexShard shard) {
+        controller.recordShardBytes(shard.shardId(), 1024 * 1024);
+        controller.simulateIndexing(shard);
+    }
+
     public void testTranslogRecoveryWorksWithIMC() throws IOException {
         IndexShard shard = newStartedShard(true);
         for (int i = 0; i < 100; i++) {
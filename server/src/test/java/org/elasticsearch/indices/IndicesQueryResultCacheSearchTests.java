@@ -0,0 +1,216 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.elasticsearch.action.OriginalIndices;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchShardTask;
+import org.elasticsearch.action.support.PlainActionFuture;
+import org.elasticsearch.action.support.WriteRequest;
+import org.elasticsearch.common.CheckedBiConsumer;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.plugins.Plugin;
+import org.elasticsearch.plugins.SearchPlugin;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchPhaseResult;
+import org.elasticsearch.search.SearchService;
+import org.elasticsearch.search.SearchSortValuesAndFormats;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.internal.AliasFilter;
+import org.elasticsearch.search.internal.ShardSearchRequest;
+import org.elasticsearch.search.query.QuerySearchResult;
+import org.elasticsearch.search.sort.SortOrder;
+import org.elasticsearch.test.ESSingleNodeTestCase;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertSearchResponse;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Tests the {@link IndicesQueryResultCache} through the search service.
+ */
+public class IndicesQueryResultCacheSearchTests extends ESSingleNodeTestCase {
+
+    /**
+     * Differentiates cache entries like the DLS/FLS differentiator of security does, based on the role of the user.
+     */
+    public static class RoleDifferentiatorPlugin extends Plugin implements SearchPlugin {
+        static volatile String role = "";
+
+        @Override
+        public CheckedBiConsumer<ShardSearchRequest, StreamOutput, IOException> getRequestCacheKeyDifferentiator() {
+            return (request, out) -> out.writeString(role);
+        }
+    }
+
+    @Override
+    protected Collection<Class<? extends Plugin>> getPlugins() {
+        return List.of(RoleDifferentiatorPlugin.class);
+    }
+
+    private int initialCount;
+    private long initialHitCount;
+    private long initialMissCount;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        RoleDifferentiatorPlugin.role = "";
+        createIndex(
+            "index",
+            Settings.builder()
+                .put("index.number_of_shards", 1)
+                .put(IndicesQueryResultCache.INDEX_QUERY_RESULT_CACHE_ENABLED_SETTING.getKey(), true)
+                .put(IndicesRequestCache.INDEX_CACHE_REQUEST_ENABLED_SETTING.getKey(), false)
+                .build(),
+            "_doc",
+            "date",
+            "type=date",
+            "value",
+            "type=long"
+        );
+        for (int i = 0; i < 20; i++) {
+            client().prepareIndex("index").setId(Integer.toString(i)).setSource("date", "2020-01-01", "value", i).get();
+        }
+        client().admin().indices().prepareRefresh("index").get();
+        // the node is shared by all tests, drop the entries of the indices of the previous tests
+        cache().cleanCache();
+        initialCount = cache().count();
+        initialHitCount = cache().hitCount();
+        initialMissCount = cache().missCount();
+    }
+
+    private IndicesQueryResultCache cache() {
+        return getInstanceFromNode(IndicesService.class).indicesQueryResultCache;
+    }
+
+    private void assertCache(long hitCount, long missCount, int count) {
+        assertThat(cache().hitCount() - initialHitCount, equalTo(hitCount));
+        assertThat(cache().missCount() - initialMissCount, equalTo(missCount));
+        assertThat(cache().count() - initialCount, equalTo(count));
+    }
+
+    public void testCachesHits() {
+        SearchResponse first = client().prepareSearch("index").addSort("value", SortOrder.DESC).setSize(5).get();
+        assertSearchResponse(first);
+        assertCache(0, 1, 1);
+
+        SearchResponse second = client().prepareSearch("index").addSort("value", SortOrder.DESC).setSize(5).get();
+        assertSearchResponse(second);
+        assertCache(1, 1, 1);
+        assertThat(second.getHits().getTotalHits(), equalTo(first.getHits().getTotalHits()));
+        assertThat(second.getHits().getHits().length, equalTo(5));
+        for (int i = 0; i < 5; i++) {
+            SearchHit expected = first.getHits().getAt(i);
+            SearchHit hit = second.getHits().getAt(i);
+            assertThat(hit.getId(), equalTo(expected.getId()));
+            assertThat(hit.getId(), equalTo(Integer.toString(19 - i)));
+            assertThat(Arrays.asList(hit.getSortValues()), equalTo(Arrays.asList(expected.getSortValues())));
+        }
+
+        // a different size is a different entry
+        SearchResponse third = client().prepareSearch("index").addSort("value", SortOrder.DESC).setSize(3).get();
+        assertSearchResponse(third);
+        assertThat(third.getHits().getHits().length, equalTo(3));
+        assertCache(1, 2, 2);
+
+        // a new reader doesn't see the results of the previous one
+        client().prepareIndex("index").setId("20").setSource("date", "2020-01-01", "value", 20)
+            .setRefreshPolicy(WriteRequest.RefreshPolicy.IMMEDIATE).get();
+        SearchResponse afterRefresh = client().prepareSearch("index").addSort("value", SortOrder.DESC).setSize(5).get();
+        assertSearchResponse(afterRefresh);
+        assertThat(afterRefresh.getHits().getAt(0).getId(), equalTo("20"));
+        assertThat(cache().hitCount() - initialHitCount, equalTo(1L));
+        assertThat(cache().missCount() - initialMissCount, equalTo(3L));
+    }
+
+    public void testDifferentiator() {
+        RoleDifferentiatorPlugin.role = "a";
+        assertSearchResponse(client().prepareSearch("index").setQuery(QueryBuilders.rangeQuery("value").gte(5)).setSize(5).get());
+        assertCache(0, 1, 1);
+
+        // the same query run by a user with another role must not see the cached result
+        RoleDifferentiatorPlugin.role = "b";
+        assertSearchResponse(client().prepareSearch("index").setQuery(QueryBuilders.rangeQuery("value").gte(5)).setSize(5).get());
+        assertCache(0, 2, 2);
+
+        RoleDifferentiatorPlugin.role = "a";
+        assertSearchResponse(client().prepareSearch("index").setQuery(QueryBuilders.rangeQuery("value").gte(5)).setSize(5).get());
+        assertCache(1, 2, 2);
+    }
+
+    public void testNow() {
+        // now is resolved in the parsed query so rounded values hit the cache
+        for (int i = 0; i < 2; i++) {
+            SearchResponse response = client().prepareSearch("index")
+                .setQuery(QueryBuilders.rangeQuery("date").gte("now-100y/d").lte("now/d"))
+                .setSize(5)
+                .get();
+            assertSearchResponse(response);
+            assertThat(response.getHits().getTotalHits().value, equalTo(20L));
+        }
+        assertCache(1, 1, 1);
+
+        // but now in aggregations isn't part of the key so these requests are not cached
+        for (int i = 0; i < 2; i++) {
+            SearchResponse response = client().prepareSearch("index")
+                .setSize(5)
+                .addAggregation(AggregationBuilders.dateRange("range").field("date").addRange("now-100y", "now"))
+                .get();
+            assertSearchResponse(response);
+        }
+        assertCache(1, 1, 1);
+    }
+
+    public void testBottomSortValuesBypassCaches() {
+        SearchService searchService = getInstanceFromNode(SearchService.class);
+        IndexShard indexShard = getInstanceFromNode(IndicesService.class).indexServiceSafe(resolveIndex("index")).getShard(0);
+        // the request cache caches hits when it is enabled on the request, otherwise the query result cache does
+        Boolean requestCache = randomBoolean() ? true : null;
+        SearchSortValuesAndFormats bottom = new SearchSortValuesAndFormats(
+            new Object[] { 17L },
+            new DocValueFormat[] { DocValueFormat.RAW }
+        );
+
+        QuerySearchResult pruned = executeQueryPhase(searchService, indexShard, requestCache, bottom);
+        assertThat(pruned.topDocs().topDocs.scoreDocs.length, equalTo(3));
+        // the same request with another bottom must not get the pruned hits
+        QuerySearchResult full = executeQueryPhase(searchService, indexShard, requestCache, null);
+        assertThat(full.topDocs().topDocs.scoreDocs.length, equalTo(5));
+        QuerySearchResult prunedAgain = executeQueryPhase(searchService, indexShard, requestCache, bottom);
+        assertThat(prunedAgain.topDocs().topDocs.scoreDocs.length, equalTo(3));
+        assertThat(cache().hitCount() - initialHitCount, equalTo(0L));
+    }
+
+    private static QuerySearchResult executeQueryPhase(SearchService searchService, IndexShard indexShard, Boolean requestCache,
+                                                       SearchSortValuesAndFormats bottomSortValues) {
+        SearchRequest searchRequest = new SearchRequest().allowPartialSearchResults(true).requestCache(requestCache);
+        searchRequest.source(new SearchSourceBuilder().sort("value", SortOrder.DESC).size(5));
+        ShardSearchRequest request = new ShardSearchRequest(OriginalIndices.NONE, searchRequest, indexShard.shardId(), 0, 2,
+            new AliasFilter(null, Strings.EMPTY_ARRAY), 1.0f, -1, null);
+        request.setBottomSortValues(bottomSortValues);
+        PlainActionFuture<SearchPhaseResult> future = new PlainActionFuture<>();
+        searchService.executeQueryPhase(request, new SearchShardTask(123L, "", "", "", null, Collections.emptyMap()), future);
+        QuerySearchResult result = future.actionGet().queryResult();
+        searchService.freeReaderContext(result.getContextId());
+        return result;
+    }
+}
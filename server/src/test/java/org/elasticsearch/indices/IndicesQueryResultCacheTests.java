@@ -0,0 +1,127 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.index.mapper.MappingLookup;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.List;
+
+public class IndicesQueryResultCacheTests extends ESTestCase {
+
+    public void testBasicOperations() throws Exception {
+        IndicesQueryResultCache cache = new IndicesQueryResultCache(Settings.EMPTY);
+        Directory dir = newDirectory();
+        IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig());
+        writer.addDocument(newDoc("foo"));
+        DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), new ShardId("foo", "bar", 1));
+        ESCacheHelper cacheHelper = ElasticsearchDirectoryReader.getESReaderCacheHelper(reader);
+        Object shard = new Object();
+
+        IndicesQueryResultCache.Key key = newKey(shard, cacheHelper, "foo", 10);
+        assertNull(cache.get(key));
+        cache.put(key, new BytesArray("result"), 1000, cacheHelper);
+        assertEquals(1, cache.count());
+
+        // an equal key built from different instances hits
+        BytesReference value = cache.get(newKey(shard, cacheHelper, "foo", 10));
+        assertEquals(new BytesArray("result"), value);
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+
+        // different parameters or a different shard don't
+        assertNull(cache.get(newKey(shard, cacheHelper, "foo", 20)));
+        assertNull(cache.get(newKey(new Object(), cacheHelper, "foo", 10)));
+        assertEquals(3, cache.missCount());
+
+        if (randomBoolean()) {
+            cache.clear(shard);
+        } else {
+            reader.close();
+            cache.cleanCache();
+        }
+        assertEquals(0, cache.count());
+        assertEquals(0, cache.weight());
+        IOUtils.close(reader, writer, dir, cache);
+    }
+
+    public void testCostAwareEviction() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig());
+        writer.addDocument(newDoc("foo"));
+        DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), new ShardId("foo", "bar", 1));
+        ESCacheHelper cacheHelper = ElasticsearchDirectoryReader.getESReaderCacheHelper(reader);
+        Object shard = new Object();
+        BytesReference value = new BytesArray(new byte[4096]);
+        IndicesQueryResultCache.Key expensive = newKey(shard, cacheHelper, "expensive", 10);
+        IndicesQueryResultCache.Key second = newKey(shard, cacheHelper, "second", 10);
+        IndicesQueryResultCache.Key other = newKey(shard, cacheHelper, "other", 10);
+
+        long entryWeight = expensive.ramBytesUsed() + value.ramBytesUsed();
+        Settings settings = Settings.builder()
+            .put(IndicesQueryResultCache.INDICES_QUERY_RESULT_CACHE_SIZE.getKey(), (2 * entryWeight + entryWeight / 2) + "b")
+            .build();
+        IndicesQueryResultCache cache = new IndicesQueryResultCache(settings);
+
+        // once the cache is full a cheap result is not admitted in place of more expensive ones
+        cache.put(expensive, value, 1_000_000, cacheHelper);
+        cache.put(second, value, 1_000_000, cacheHelper);
+        assertEquals(2, cache.count());
+        cache.put(other, value, 10, cacheHelper);
+        assertEquals(2, cache.count());
+        assertEquals(1, cache.rejectedCount());
+        assertEquals(0, cache.evictionCount());
+        assertNull(cache.get(other));
+
+        // but an expensive one is, and it evicts the least recently used entry
+        assertNotNull(cache.get(expensive));
+        cache.put(other, value, 10_000_000, cacheHelper);
+        assertEquals(2, cache.count());
+        assertEquals(1, cache.evictionCount());
+        assertNotNull(cache.get(expensive));
+        assertNull(cache.get(second));
+        assertNotNull(cache.get(other));
+
+        // results that are larger than the cache are not cached
+        cache.put(second, new BytesArray(new byte[(int) (3 * entryWeight)]), 1_000_000, cacheHelper);
+        assertEquals(2, cache.count());
+        assertTrue(cache.weight() <= 2 * entryWeight + entryWeight / 2);
+        IOUtils.close(reader, writer, dir, cache);
+    }
+
+    private static IndicesQueryResultCache.Key newKey(Object shard, ESCacheHelper cacheHelper, String value, int size) {
+        return new IndicesQueryResultCache.Key(
+            shard,
+            MappingLookup.EMPTY.cacheKey(),
+            cacheHelper.getKey(),
+            new TermQuery(new Term("id", value)),
+            List.of(0, size)
+        );
+    }
+
+    private static Document newDoc(String value) {
+        Document doc = new Document();
+        doc.add(new StringField("id", value, Field.Store.YES));
+        return doc;
+    }
+}
@@ -17,6 +17,7 @@ import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.transport.TransportAddress;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.threadpool.TestThreadPool;
 import org.elasticsearch.threadpool.ThreadPool;
@@ -28,6 +29,7 @@ import java.util.concurrent.CountDownLatch;
 
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
 
 public class ResponseCollectorServiceTests extends ESTestCase {
 
@@ -60,6 +62,41 @@ public class ResponseCollectorServiceTests extends ESTestCase {
         assertThat(nodeStats.get("node1").serviceTime, equalTo(10.0));
     }
 
+    public void testShardCopyStats() throws Exception {
+        ShardId shardId = new ShardId("index", "_na_", 0);
+        assertFalse(collector.getShardCopyStatistics(shardId, "node1").isPresent());
+
+        collector.onShardCopyRequestSent(shardId, "node1");
+        collector.onShardCopyRequestSent(shardId, "node1");
+        // no response yet
+        assertFalse(collector.getShardCopyStatistics(shardId, "node1").isPresent());
+        collector.addShardCopyStatistics(shardId, "node1", 100);
+        ResponseCollectorService.ComputedShardCopyStats stats = collector.getShardCopyStatistics(shardId, "node1").get();
+        assertThat(stats.responseTime, equalTo(100.0));
+        assertThat(stats.inFlight, equalTo(1));
+        assertThat(stats.predictedP95(), greaterThan(stats.responseTime));
+
+        collector.onShardCopyRequestFailed(shardId, "node1");
+        collector.onShardCopyRequestSent(shardId, "node1");
+        collector.addShardCopyStatistics(shardId, "node1", 1000);
+        stats = collector.getShardCopyStatistics(shardId, "node1").get();
+        assertThat(stats.inFlight, equalTo(0));
+        assertThat(stats.responseTime, greaterThan(100.0));
+        assertThat(stats.responseTime, lessThan(1000.0));
+        assertFalse(collector.getShardCopyStatistics(shardId, "node2").isPresent());
+        assertFalse(collector.getShardCopyStatistics(new ShardId("index", "_na_", 1), "node1").isPresent());
+
+        // copies on the same node rank differently
+        collector.addNodeStatistics("node1", 1, 100, 10);
+        collector.addShardCopyStatistics(new ShardId("index", "_na_", 1), "node1", 10);
+        ResponseCollectorService.ComputedNodeStats nodeStats = collector.getNodeStatistics("node1").get();
+        assertThat(nodeStats.rank(1, stats),
+            greaterThan(nodeStats.rank(1, collector.getShardCopyStatistics(new ShardId("index", "_na_", 1), "node1").get())));
+
+        collector.removeNode("node1");
+        assertFalse(collector.getShardCopyStatistics(shardId, "node1").isPresent());
+    }
+
     /*
      * Test that concurrently adding values and removing nodes does not cause exceptions
      */
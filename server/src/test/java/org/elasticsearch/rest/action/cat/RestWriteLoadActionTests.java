@@ -0,0 +1,84 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.rest.action.cat;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.action.admin.cluster.state.ClusterStateResponse;
+import org.elasticsearch.action.admin.indices.stats.CommonStats;
+import org.elasticsearch.action.admin.indices.stats.IndicesStatsResponse;
+import org.elasticsearch.action.admin.indices.stats.ShardStats;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.ShardRoutingState;
+import org.elasticsearch.cluster.routing.TestShardRouting;
+import org.elasticsearch.common.Table;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.shard.ShardPath;
+import org.elasticsearch.index.shard.WriteLoadStats;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.rest.FakeRestRequest;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RestWriteLoadActionTests extends ESTestCase {
+
+    public void testBuildTableRanksHottestShardsFirst() {
+        final int numShards = randomIntBetween(1, 10);
+        final DiscoveryNode localNode = new DiscoveryNode("local", buildNewFakeTransportAddress(), Version.CURRENT);
+
+        final ShardStats[] shardStats = new ShardStats[numShards];
+        for (int i = 0; i < numShards; i++) {
+            final ShardRouting shardRouting =
+                TestShardRouting.newShardRouting("index", i, localNode.getId(), randomBoolean(), ShardRoutingState.STARTED);
+            final Path path = createTempDir().resolve("indices").resolve(shardRouting.shardId().getIndex().getUUID())
+                .resolve(String.valueOf(shardRouting.shardId().id()));
+            final CommonStats commonStats = new CommonStats();
+            commonStats.writeLoad = new WriteLoadStats(randomNonNegativeLong(), randomLongBetween(0, 100000), randomLongBetween(0, 100),
+                randomLongBetween(0, 100), randomLongBetween(0, 100), randomLongBetween(0, 100));
+            shardStats[i] = new ShardStats(shardRouting, new ShardPath(false, path, path, shardRouting.shardId()),
+                commonStats, null, null, null);
+        }
+
+        final IndicesStatsResponse stats = mock(IndicesStatsResponse.class);
+        when(stats.getShards()).thenReturn(shardStats);
+
+        final DiscoveryNodes discoveryNodes = mock(DiscoveryNodes.class);
+        when(discoveryNodes.get(localNode.getId())).thenReturn(localNode);
+        final ClusterState clusterState = mock(ClusterState.class);
+        when(clusterState.nodes()).thenReturn(discoveryNodes);
+        final ClusterStateResponse state = mock(ClusterStateResponse.class);
+        when(state.getState()).thenReturn(clusterState);
+
+        final Table table = new RestWriteLoadAction().buildTable(new FakeRestRequest(), state, stats);
+
+        final List<Table.Cell> headers = table.getHeaders();
+        assertThat(headers.get(0).value, equalTo("index"));
+        assertThat(headers.get(1).value, equalTo("shard"));
+        assertThat(headers.get(6).value, equalTo("total_time"));
+
+        final List<List<Table.Cell>> rows = table.getRows();
+        assertThat(rows.size(), equalTo(numShards));
+        long previousTotalTime = Long.MAX_VALUE;
+        for (List<Table.Cell> row : rows) {
+            assertThat(row.get(0).value, equalTo("index"));
+            assertThat(row.get(4).value, equalTo(localNode.getName()));
+            final long totalTime = ((TimeValue) row.get(6).value).millis();
+            assertThat(previousTotalTime, greaterThanOrEqualTo(totalTime));
+            previousTotalTime = totalTime;
+        }
+    }
+}
@@ -10,6 +10,7 @@ package org.elasticsearch.rest.action.search;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.core.RestApiVersion;
 import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.search.SearchTaskScheduler;
 import org.elasticsearch.test.rest.FakeRestRequest;
 import org.elasticsearch.test.rest.RestActionTestCase;
 import org.junit.Before;
@@ -73,4 +74,13 @@ public class RestSearchActionTests extends RestActionTestCase {
         Exception ex = expectThrows(IllegalArgumentException.class, () -> action.prepareRequest(request, verifyingClient));
         assertEquals("No search type for [some_search_type]", ex.getMessage());
     }
+
+    public void testIllegalSearchPriority() {
+        RestRequest request = new FakeRestRequest.Builder(xContentRegistry()).withHeaders(
+            Map.of("Content-Type", contentTypeHeader, "Accept", contentTypeHeader, SearchTaskScheduler.PRIORITY_HEADER, List.of("urgent"))
+        ).withMethod(RestRequest.Method.GET).withPath("/some_index/_search").build();
+
+        Exception ex = expectThrows(IllegalArgumentException.class, () -> action.prepareRequest(request, verifyingClient));
+        assertEquals("unknown search priority [urgent], must be one of [interactive, background]", ex.getMessage());
+    }
 }
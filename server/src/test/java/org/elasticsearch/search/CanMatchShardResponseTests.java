@@ -0,0 +1,46 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.index.shard.ShardFieldRanges;
+import org.elasticsearch.index.shard.ShardFieldRangesTests;
+import org.elasticsearch.search.sort.MinAndMax;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.VersionUtils;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class CanMatchShardResponseTests extends ESTestCase {
+
+    public void testSerialization() throws IOException {
+        ShardFieldRanges fieldRanges = randomBoolean() ? ShardFieldRangesTests.randomShardFieldRanges() : null;
+        CanMatchShardResponse response = new CanMatchShardResponse(randomBoolean(), new MinAndMax<>(1L, 2L), fieldRanges);
+        CanMatchShardResponse copy = copyWriteable(response, new NamedWriteableRegistry(Collections.emptyList()),
+            CanMatchShardResponse::new, Version.CURRENT);
+        assertThat(copy.canMatch(), equalTo(response.canMatch()));
+        assertThat(copy.estimatedMinAndMax().getMin(), equalTo(1L));
+        assertThat(copy.estimatedMinAndMax().getMax(), equalTo(2L));
+        assertThat(copy.fieldRanges(), equalTo(fieldRanges));
+    }
+
+    public void testSerializationBwc() throws IOException {
+        CanMatchShardResponse response = new CanMatchShardResponse(true, null, ShardFieldRangesTests.randomShardFieldRanges());
+        Version version = VersionUtils.randomVersionBetween(random(), Version.CURRENT.minimumCompatibilityVersion(),
+            VersionUtils.getPreviousVersion(Version.V_8_0_0));
+        CanMatchShardResponse copy = copyWriteable(response, new NamedWriteableRegistry(Collections.emptyList()),
+            CanMatchShardResponse::new, version);
+        assertTrue(copy.canMatch());
+        assertNull(copy.fieldRanges());
+    }
+}
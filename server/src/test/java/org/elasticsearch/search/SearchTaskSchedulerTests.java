@@ -0,0 +1,91 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search;
+
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+
+public class SearchTaskSchedulerTests extends ESTestCase {
+
+    private final ArrayDeque<Runnable> pool = new ArrayDeque<>();
+
+    private SearchTaskScheduler newScheduler(Settings settings, int maxConcurrency, int maxQueueSize) {
+        ClusterSettings clusterSettings = new ClusterSettings(settings, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS);
+        return new SearchTaskScheduler(settings, clusterSettings, new ThreadContext(settings), pool::add, maxConcurrency, maxQueueSize);
+    }
+
+    private void runPool() {
+        Runnable next;
+        while ((next = pool.poll()) != null) {
+            next.run();
+        }
+    }
+
+    public void testWeightedFairOrder() {
+        Settings settings = Settings.builder().put(SearchTaskScheduler.INTERACTIVE_WEIGHT_SETTING.getKey(), 2).build();
+        SearchTaskScheduler scheduler = newScheduler(settings, 1, -1);
+        List<String> executed = new ArrayList<>();
+        scheduler.execute(() -> executed.add("first"), SearchTaskScheduler.Priority.BACKGROUND);
+        for (int i = 0; i < 3; i++) {
+            String id = Integer.toString(i);
+            scheduler.execute(() -> executed.add("background-" + id), SearchTaskScheduler.Priority.BACKGROUND);
+        }
+        for (int i = 0; i < 4; i++) {
+            String id = Integer.toString(i);
+            scheduler.execute(() -> executed.add("interactive-" + id), SearchTaskScheduler.Priority.INTERACTIVE);
+        }
+        // only one task is dispatched at a time
+        assertThat(pool.size(), equalTo(1));
+        assertThat(scheduler.queueSize(), equalTo(7));
+        runPool();
+        assertThat(executed, contains("first", "interactive-0", "interactive-1", "background-0", "interactive-2", "interactive-3",
+            "background-1", "background-2"));
+        assertThat(scheduler.queueSize(), equalTo(0));
+    }
+
+    public void testPriorityFromHeader() {
+        ThreadContext threadContext = new ThreadContext(Settings.EMPTY);
+        SearchTaskScheduler scheduler = new SearchTaskScheduler(Settings.EMPTY,
+            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS), threadContext, pool::add, 1, -1);
+        List<String> executed = new ArrayList<>();
+        scheduler.execute(() -> executed.add("first"));
+        try (ThreadContext.StoredContext ignored = threadContext.stashContext()) {
+            threadContext.putHeader(SearchTaskScheduler.PRIORITY_HEADER, "background");
+            scheduler.execute(() -> executed.add("background"));
+        }
+        scheduler.execute(() -> executed.add("interactive"));
+        try (ThreadContext.StoredContext ignored = threadContext.stashContext()) {
+            // unknown priorities are rejected by the REST layer, the shard requests of other clients run as interactive searches
+            threadContext.putHeader(SearchTaskScheduler.PRIORITY_HEADER, "urgent");
+            scheduler.execute(() -> executed.add("unknown"));
+        }
+        runPool();
+        assertThat(executed, contains("first", "interactive", "unknown", "background"));
+    }
+
+    public void testRejection() {
+        SearchTaskScheduler scheduler = newScheduler(Settings.EMPTY, 1, 2);
+        scheduler.execute(() -> {}, SearchTaskScheduler.Priority.INTERACTIVE);
+        scheduler.execute(() -> {}, SearchTaskScheduler.Priority.INTERACTIVE);
+        scheduler.execute(() -> {}, SearchTaskScheduler.Priority.BACKGROUND);
+        expectThrows(EsRejectedExecutionException.class, () -> scheduler.execute(() -> {}, SearchTaskScheduler.Priority.INTERACTIVE));
+        runPool();
+        assertThat(scheduler.queueSize(), equalTo(0));
+    }
+}
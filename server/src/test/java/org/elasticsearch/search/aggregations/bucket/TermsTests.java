@@ -14,8 +14,10 @@ import org.elasticsearch.search.aggregations.Aggregator.SubAggCollectionMode;
 import org.elasticsearch.search.aggregations.BaseAggregationTestCase;
 import org.elasticsearch.search.aggregations.BucketOrder;
 import org.elasticsearch.search.aggregations.bucket.terms.IncludeExclude;
+import org.elasticsearch.search.aggregations.bucket.terms.RareTermsAggregationBuilder;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregatorFactory.ExecutionMode;
+import org.elasticsearch.search.aggregations.metrics.AvgAggregationBuilder;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -172,4 +174,20 @@ public class TermsTests extends BaseAggregationTestCase<TermsAggregationBuilder>
         return orders;
     }
 
+
+    public void testSupportsConcurrentCollection() {
+        // the default order is by doc count, slices would each prune their own terms
+        assertFalse(new TermsAggregationBuilder("terms").field("field").supportsConcurrentCollection());
+        TermsAggregationBuilder byKey = new TermsAggregationBuilder("terms").field("field").order(BucketOrder.key(randomBoolean()));
+        assertTrue(byKey.supportsConcurrentCollection());
+        byKey.shardMinDocCount(2);
+        assertFalse(byKey.supportsConcurrentCollection());
+
+        // aggregations have to opt in, and so do all of their sub-aggregations
+        byKey.shardMinDocCount(1);
+        byKey.subAggregation(new AvgAggregationBuilder("avg").field("value"));
+        assertTrue(byKey.supportsConcurrentCollection());
+        byKey.subAggregation(new RareTermsAggregationBuilder("rare").field("other"));
+        assertFalse(byKey.supportsConcurrentCollection());
+    }
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.composite;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.search.internal.ContextIndexSearcher;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class CompositeAggregationCursorTests extends ESTestCase {
+
+    public void testCanResume() throws IOException {
+        try (Directory directory = newDirectory()) {
+            writeSegments(directory);
+            try (DirectoryReader reader = DirectoryReader.open(directory); IndexReader otherReader = DirectoryReader.open(directory)) {
+                CompositeAggregationCursor first = cursor(reader, null, new int[] { 0, 0 }, new int[] { 10, 10 });
+                assertTrue(first.canResume(reader, null));
+                assertTrue(first.canResume(reader, new Comparable<?>[] { 5L, "a" }));
+                assertFalse(first.canResume(otherReader, null));
+                // every request wraps the reader of the point in time in its own reader
+                IndexReader wrapped = new ContextIndexSearcher(reader, IndexSearcher.getDefaultSimilarity(),
+                    IndexSearcher.getDefaultQueryCache(), IndexSearcher.getDefaultQueryCachingPolicy(), true).getIndexReader();
+                assertNotSame(reader, wrapped);
+                assertTrue(first.canResume(wrapped, null));
+
+                Comparable<?>[] afterKey = new Comparable<?>[] { 5L, "b" };
+                CompositeAggregationCursor second = cursor(reader, afterKey, new int[] { 3, 0 }, new int[] { 10, 7 });
+                assertFalse(second.canResume(reader, null));
+                assertFalse(second.canResume(reader, new Comparable<?>[] { 4L, "z" }));
+                assertFalse(second.canResume(reader, new Comparable<?>[] { 5L, "a" }));
+                assertTrue(second.canResume(reader, new Comparable<?>[] { 5L, "b" }));
+                assertTrue(second.canResume(reader, new Comparable<?>[] { 6L, "a" }));
+                // missing values sort first in ascending order by default
+                assertFalse(second.canResume(reader, new Comparable<?>[] { null, "z" }));
+            }
+        }
+    }
+
+    public void testMerge() throws IOException {
+        try (Directory directory = newDirectory()) {
+            writeSegments(directory);
+            try (IndexReader reader = DirectoryReader.open(directory); IndexReader otherReader = DirectoryReader.open(directory)) {
+                Comparable<?>[] firstAfterKey = new Comparable<?>[] { 2L, "a" };
+                Comparable<?>[] secondAfterKey = new Comparable<?>[] { 5L, "b" };
+                CompositeAggregationCursor first = cursor(reader, firstAfterKey, new int[] { 2, 0 }, new int[] { 10, 4 });
+                CompositeAggregationCursor second = cursor(reader, secondAfterKey, new int[] { 0, 6 }, new int[] { 8, 10 });
+                CompositeAggregationCursor merged = first.merge(second);
+                assertThat(merged.minDoc(0), equalTo(2));
+                assertThat(merged.maxDoc(0), equalTo(8));
+                // the ranges don't overlap so there is nothing left to visit in the second segment
+                assertThat(merged.maxDoc(1), equalTo(merged.minDoc(1)));
+                // the merged cursor is only valid for the latest after key
+                assertFalse(merged.canResume(reader, new Comparable<?>[] { 3L, "a" }));
+                assertTrue(merged.canResume(reader, new Comparable<?>[] { 5L, "b" }));
+
+                CompositeAggregationCursor other = cursor(otherReader, null, new int[] { 0, 0 }, new int[] { 10, 10 });
+                assertThat(first.merge(other), sameInstance(other));
+            }
+        }
+    }
+
+    private static CompositeAggregationCursor cursor(IndexReader reader, Comparable<?>[] afterKey, int[] minDocs, int[] maxDocs) {
+        return new CompositeAggregationCursor(
+            reader,
+            new int[] { 1, 1 },
+            new MissingOrder[] { MissingOrder.DEFAULT, MissingOrder.DEFAULT },
+            afterKey,
+            minDocs,
+            maxDocs
+        );
+    }
+
+    private static void writeSegments(Directory directory) throws IOException {
+        try (IndexWriter writer = new IndexWriter(directory, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+            for (int segment = 0; segment < 2; segment++) {
+                for (int i = 0; i < 10; i++) {
+                    writer.addDocument(new Document());
+                }
+                writer.flush();
+            }
+        }
+    }
+}
@@ -20,10 +20,15 @@ import org.apache.lucene.document.SortedNumericDocValuesField;
 import org.apache.lucene.document.SortedSetDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.FilterDirectoryReader;
+import org.apache.lucene.index.FilterLeafReader;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.SortedNumericDocValues;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.DocValuesFieldExistsQuery;
 import org.apache.lucene.search.IndexSearcher;
@@ -70,6 +75,8 @@ import org.elasticsearch.search.aggregations.metrics.MaxAggregationBuilder;
 import org.elasticsearch.search.aggregations.metrics.TopHits;
 import org.elasticsearch.search.aggregations.metrics.TopHitsAggregationBuilder;
 import org.elasticsearch.search.aggregations.support.ValueType;
+import org.elasticsearch.search.internal.ContextIndexSearcher;
+import org.elasticsearch.search.internal.ReaderContext;
 import org.elasticsearch.search.sort.SortOrder;
 import org.elasticsearch.test.IndexSettingsModule;
 import org.junit.After;
@@ -98,10 +105,15 @@ import static org.elasticsearch.search.aggregations.bucket.nested.NestedAggregat
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class CompositeAggregatorTests extends AggregatorTestCase {
     private static MappedFieldType[] FIELD_TYPES;
     private List<ObjectMapper> objectMappers;
+    private ReaderContext pointInTimeContext;
 
     @Override
     @Before
@@ -126,6 +138,7 @@ public class CompositeAggregatorTests extends AggregatorTestCase {
         super.tearDown();
         FIELD_TYPES = null;
         objectMappers = null;
+        pointInTimeContext = null;
     }
 
     @Override
@@ -133,6 +146,11 @@ public class CompositeAggregatorTests extends AggregatorTestCase {
         return objectMappers;
     }
 
+    @Override
+    protected ReaderContext pointInTimeContext() {
+        return pointInTimeContext;
+    }
+
     @Override
     protected IndexReader wrapDirectoryReader(DirectoryReader reader) throws IOException {
         if (false == objectMappers().isEmpty()) {
@@ -2806,6 +2824,175 @@ public class CompositeAggregatorTests extends AggregatorTestCase {
         }
     }
 
+    public void testResumeFromPointInTime() throws IOException {
+        Map<String, Object> pointInTimeState = new HashMap<>();
+        pointInTimeContext = mock(ReaderContext.class);
+        when(pointInTimeContext.computeIfAbsentInContext(anyString(), any())).thenAnswer(
+            invocation -> pointInTimeState.computeIfAbsent(invocation.getArgument(0), k -> {
+                Supplier<?> supplier = invocation.getArgument(1);
+                return supplier.get();
+            })
+        );
+        int numSegments = 5;
+        int docsPerSegment = 20;
+        try (Directory directory = newDirectory()) {
+            // index the values in order in many segments, like a time series
+            try (IndexWriter writer = new IndexWriter(directory, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+                for (int segment = 0; segment < numSegments; segment++) {
+                    for (int i = 0; i < docsPerSegment; i++) {
+                        Document document = new Document();
+                        document.add(new SortedNumericDocValuesField("long", segment * docsPerSegment + i));
+                        document.add(new SortedSetDocValuesField("keyword", new BytesRef("a")));
+                        writer.addDocument(document);
+                    }
+                    writer.flush();
+                }
+            }
+            Set<Long> visited = new HashSet<>();
+            try (DirectoryReader reader = new ValueTrackingDirectoryReader(DirectoryReader.open(directory), visited)) {
+                assertThat(reader.leaves().size(), equalTo(numSegments));
+                // a query that isn't a match all so that the composite agg doesn't visit the docs sorted by the leading source
+                Query query = new DocValuesFieldExistsQuery("keyword");
+                List<Long> keys = new ArrayList<>();
+                Map<String, Object> afterKey = null;
+                do {
+                    // like every request on a point in time, every page wraps the reader in its own exitable reader
+                    IndexSearcher searcher = new ContextIndexSearcher(reader, IndexSearcher.getDefaultSimilarity(), null,
+                        IndexSearcher.getDefaultQueryCachingPolicy(), true);
+                    CompositeAggregationBuilder builder = new CompositeAggregationBuilder(
+                        "name",
+                        Collections.singletonList(new TermsValuesSourceBuilder("long").field("long"))
+                    ).size(randomIntBetween(5, 15)).aggregateAfter(afterKey);
+                    visited.clear();
+                    InternalComposite result = searchAndReduce(searcher, query, builder, FIELD_TYPES);
+                    for (InternalComposite.InternalBucket bucket : result.getBuckets()) {
+                        keys.add((Long) bucket.getKey().get("long"));
+                    }
+
+                    // the page only visited the docs after its after key, the value of a doc is its position in the index
+                    long after = afterKey == null ? -1 : (Long) afterKey.get("long");
+                    Set<Long> expectedVisited = new HashSet<>();
+                    for (long value = after + 1; value < numSegments * docsPerSegment; value++) {
+                        expectedVisited.add(value);
+                    }
+                    assertThat(visited, equalTo(expectedVisited));
+
+                    // the next pages only visit the docs after the after key of this page
+                    Map<?, ?> cursors = (Map<?, ?>) pointInTimeState.get(CompositeAggregationCursor.POINT_IN_TIME_STATE_KEY);
+                    assertThat(cursors.size(), equalTo(1));
+                    CompositeAggregationCursor cursor = (CompositeAggregationCursor) cursors.values().iterator().next();
+                    for (int segment = 0; segment < numSegments; segment++) {
+                        int firstDocAfter = (int) Math.min(Math.max(after + 1 - segment * docsPerSegment, 0), docsPerSegment);
+                        if (firstDocAfter == docsPerSegment) {
+                            assertThat(cursor.maxDoc(segment), equalTo(cursor.minDoc(segment)));
+                        } else {
+                            assertThat(cursor.minDoc(segment), equalTo(firstDocAfter));
+                            assertThat(cursor.maxDoc(segment), equalTo(docsPerSegment));
+                        }
+                    }
+                    afterKey = result.afterKey();
+                } while (afterKey != null);
+                List<Long> expected = new ArrayList<>();
+                for (long i = 0; i < numSegments * docsPerSegment; i++) {
+                    expected.add(i);
+                }
+                assertThat(keys, equalTo(expected));
+            }
+        }
+    }
+
+    /**
+     * Records the values of the {@code long} field that are read, which tells which documents an aggregation visited.
+     */
+    private static class ValueTrackingDirectoryReader extends FilterDirectoryReader {
+        private final Set<Long> visited;
+
+        ValueTrackingDirectoryReader(DirectoryReader in, Set<Long> visited) throws IOException {
+            super(in, new SubReaderWrapper() {
+                @Override
+                public LeafReader wrap(LeafReader reader) {
+                    return new ValueTrackingLeafReader(reader, visited);
+                }
+            });
+            this.visited = visited;
+        }
+
+        @Override
+        protected DirectoryReader doWrapDirectoryReader(DirectoryReader in) throws IOException {
+            return new ValueTrackingDirectoryReader(in, visited);
+        }
+
+        @Override
+        public CacheHelper getReaderCacheHelper() {
+            return in.getReaderCacheHelper();
+        }
+    }
+
+    private static class ValueTrackingLeafReader extends FilterLeafReader {
+        private final Set<Long> visited;
+
+        ValueTrackingLeafReader(LeafReader in, Set<Long> visited) {
+            super(in);
+            this.visited = visited;
+        }
+
+        @Override
+        public SortedNumericDocValues getSortedNumericDocValues(String field) throws IOException {
+            SortedNumericDocValues values = in.getSortedNumericDocValues(field);
+            if (values == null || field.equals("long") == false) {
+                return values;
+            }
+            return new SortedNumericDocValues() {
+                @Override
+                public long nextValue() throws IOException {
+                    long value = values.nextValue();
+                    visited.add(value);
+                    return value;
+                }
+
+                @Override
+                public int docValueCount() {
+                    return values.docValueCount();
+                }
+
+                @Override
+                public boolean advanceExact(int target) throws IOException {
+                    return values.advanceExact(target);
+                }
+
+                @Override
+                public int docID() {
+                    return values.docID();
+                }
+
+                @Override
+                public int nextDoc() throws IOException {
+                    return values.nextDoc();
+                }
+
+                @Override
+                public int advance(int target) throws IOException {
+                    return values.advance(target);
+                }
+
+                @Override
+                public long cost() {
+                    return values.cost();
+                }
+            };
+        }
+
+        @Override
+        public CacheHelper getCoreCacheHelper() {
+            return in.getCoreCacheHelper();
+        }
+
+        @Override
+        public CacheHelper getReaderCacheHelper() {
+            return in.getReaderCacheHelper();
+        }
+    }
+
     private void testSearchCase(
         List<Query> queries,
         List<Map<String, List<Object>>> dataset,
@@ -99,6 +99,15 @@ public class LongKeyedBucketOrdsTests extends ESTestCase {
         }
     }
 
+    public void testCollectsFromManyBucketsInSwissTable() {
+        // assertCollectsFromManyBuckets adds at least three ords, the ords move to the swiss table once there are as many as the threshold
+        long swissTableThreshold = randomLongBetween(0, 3);
+        try (LongKeyedBucketOrds ords = new LongKeyedBucketOrds.FromMany(bigArrays, swissTableThreshold)) {
+            assertCollectsFromManyBuckets(ords, scaledRandomIntBetween(1, 10000), Long.MIN_VALUE, Long.MAX_VALUE);
+            assertThat(ords.decribe(), equalTo("many bucket ords in a swiss table"));
+        }
+    }
+
     public void testCollectsFromManyBucketsSmall() {
         int owningBucketOrds = scaledRandomIntBetween(2, 10000);
         long maxValue = randomLongBetween(10000 / owningBucketOrds, 2 << (16 * 3));
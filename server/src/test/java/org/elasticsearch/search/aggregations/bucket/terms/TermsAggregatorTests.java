@@ -22,7 +22,10 @@ import org.apache.lucene.document.SortedSetDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.index.RandomIndexWriter;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause.Occur;
@@ -40,11 +43,13 @@ import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.geo.GeoPoint;
 import org.elasticsearch.common.lucene.search.Queries;
 import org.elasticsearch.common.network.InetAddresses;
+import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.MockBigArrays;
 import org.elasticsearch.common.util.MockPageCacheRecycler;
 import org.elasticsearch.core.CheckedConsumer;
+import org.elasticsearch.core.Releasables;
 import org.elasticsearch.index.mapper.DateFieldMapper.DateFieldType;
 import org.elasticsearch.index.mapper.GeoPointFieldMapper;
 import org.elasticsearch.index.mapper.IdFieldMapper;
@@ -65,6 +70,8 @@ import org.elasticsearch.index.mapper.SeqNoFieldMapper;
 import org.elasticsearch.index.mapper.Uid;
 import org.elasticsearch.index.query.MatchAllQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
+import org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService;
 import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
 import org.elasticsearch.script.MockScriptEngine;
 import org.elasticsearch.script.Script;
@@ -82,7 +89,9 @@ import org.elasticsearch.search.aggregations.AggregatorTestCase;
 import org.elasticsearch.search.aggregations.BucketOrder;
 import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.InternalMultiBucketAggregation;
+import org.elasticsearch.search.aggregations.LeafBucketCollector;
 import org.elasticsearch.search.aggregations.MultiBucketConsumerService;
+import org.elasticsearch.search.aggregations.MultiBucketConsumerService.MultiBucketConsumer;
 import org.elasticsearch.search.aggregations.MultiBucketConsumerService.TooManyBucketsException;
 import org.elasticsearch.search.aggregations.bucket.MultiBucketsAggregation;
 import org.elasticsearch.search.aggregations.bucket.filter.Filter;
@@ -104,6 +113,7 @@ import org.elasticsearch.search.aggregations.metrics.TopHitsAggregationBuilder;
 import org.elasticsearch.search.aggregations.pipeline.BucketScriptPipelineAggregationBuilder;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator.PipelineTree;
 import org.elasticsearch.search.aggregations.support.AggregationContext;
+import org.elasticsearch.search.aggregations.support.AggregationContext.ProductionAggregationContext;
 import org.elasticsearch.search.aggregations.support.AggregationInspectionHelper;
 import org.elasticsearch.search.aggregations.support.CoreValuesSourceType;
 import org.elasticsearch.search.aggregations.support.ValueType;
@@ -125,9 +135,13 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.IntFunction;
 import java.util.stream.LongStream;
 
 import static io.github.nik9000.mapmatcher.MapMatcher.assertMap;
@@ -145,6 +159,7 @@ import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.hasEntry;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
 
 public class TermsAggregatorTests extends AggregatorTestCase {
 
@@ -253,6 +268,103 @@ public class TermsAggregatorTests extends AggregatorTestCase {
         directory.close();
     }
 
+    public void testSegmentOrdinals() throws Exception {
+        MappedFieldType fieldType = new KeywordFieldMapper.KeywordFieldType("string", randomBoolean(), true, Collections.emptyMap());
+        TermsAggregationBuilder aggregationBuilder = new TermsAggregationBuilder("_name").executionHint("segment_ordinals")
+            .field("string")
+            .includeExclude(new IncludeExclude(null, "d"))
+            .order(BucketOrder.key(true));
+        testCase(aggregationBuilder, new MatchAllDocsQuery(), iw -> {
+            iw.addDocument(doc(fieldType, "a", "b"));
+            iw.commit();
+            iw.addDocument(doc(fieldType, "c", "a"));
+            iw.addDocument(doc(fieldType, "d"));
+            iw.commit();
+            iw.addDocument(doc(fieldType, "b", "d"));
+            iw.addDocument(doc(fieldType, "a"));
+        }, (InternalTerms<?, ?> result) -> {
+            assertEquals(3, result.getBuckets().size());
+            assertEquals("a", result.getBuckets().get(0).getKeyAsString());
+            assertEquals(3L, result.getBuckets().get(0).getDocCount());
+            assertEquals("b", result.getBuckets().get(1).getKeyAsString());
+            assertEquals(2L, result.getBuckets().get(1).getDocCount());
+            assertEquals("c", result.getBuckets().get(2).getKeyAsString());
+            assertEquals(1L, result.getBuckets().get(2).getDocCount());
+        }, fieldType);
+    }
+
+    public void testSegmentOrdinalsExecutionHint() throws Exception {
+        randomizeAggregatorImpl = false;
+        try (Directory directory = newDirectory()) {
+            RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory);
+            indexWriter.close();
+            try (IndexReader indexReader = DirectoryReader.open(directory)) {
+                IndexSearcher indexSearcher = new IndexSearcher(indexReader);
+                MappedFieldType fieldType = new KeywordFieldMapper.KeywordFieldType("string");
+                TermsAggregationBuilder aggregationBuilder = new TermsAggregationBuilder("_name").field("string");
+                TermsAggregator aggregator = createAggregator(aggregationBuilder, indexSearcher, fieldType);
+                assertThat(aggregator, instanceOf(GlobalOrdinalsStringTermsAggregator.class));
+
+                aggregationBuilder.executionHint("segment_ordinals");
+                aggregator = createAggregator(aggregationBuilder, indexSearcher, fieldType);
+                assertThat(aggregator, instanceOf(MapStringTermsAggregator.SegmentOrdinals.class));
+
+                // the bucket of a term isn't known until its segment is done so sub-aggregations fall back to map
+                aggregationBuilder.subAggregation(AggregationBuilders.cardinality("card").field("string"));
+                aggregator = createAggregator(aggregationBuilder, indexSearcher, fieldType);
+                assertThat(aggregator, instanceOf(MapStringTermsAggregator.class));
+                assertThat(aggregator, not(instanceOf(MapStringTermsAggregator.SegmentOrdinals.class)));
+            }
+        }
+    }
+
+    public void testPicksSegmentOrdinalsForHighCardinalityFields() throws Exception {
+        assertPicksAggregator(i -> Integer.toString(i), 10L, false, MapStringTermsAggregator.SegmentOrdinals.class);
+        // the bucket of a term isn't known until its segment is done so sub-aggregations need global ordinals
+        assertPicksAggregator(i -> Integer.toString(i), 10L, true, GlobalOrdinalsStringTermsAggregator.class);
+    }
+
+    public void testKeepsGlobalOrdinalsForFieldsWithFewSegmentOrdinals() throws Exception {
+        // every document has its own value but there aren't enough of them for global ordinals to be expensive
+        assertPicksAggregator(i -> Integer.toString(i), null, false, GlobalOrdinalsStringTermsAggregator.class);
+        // the segments share most of their values
+        assertPicksAggregator(i -> Integer.toString(i % 2), 10L, false, GlobalOrdinalsStringTermsAggregator.class);
+    }
+
+    private void assertPicksAggregator(
+        IntFunction<String> value,
+        Long minSegmentOrds,
+        boolean withSubAggregation,
+        Class<? extends Aggregator> expected
+    ) throws IOException {
+        randomizeAggregatorImpl = false;
+        try (Directory directory = newDirectory()) {
+            try (IndexWriter indexWriter = new IndexWriter(directory, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+                for (int i = 0; i < 100; i++) {
+                    indexWriter.addDocument(List.of(new SortedSetDocValuesField("string", new BytesRef(value.apply(i)))));
+                    if (i % 10 == 9) {
+                        indexWriter.flush();
+                    }
+                }
+            }
+            try (IndexReader indexReader = DirectoryReader.open(directory)) {
+                IndexSearcher indexSearcher = new IndexSearcher(indexReader);
+                MappedFieldType fieldType = new KeywordFieldMapper.KeywordFieldType("string");
+                TermsAggregationBuilder aggregationBuilder = new TermsAggregationBuilder("_name").field("string");
+                if (withSubAggregation) {
+                    aggregationBuilder.subAggregation(AggregationBuilders.cardinality("card").field("string"));
+                }
+                TermsAggregatorFactory.MIN_SEGMENT_ORDS = minSegmentOrds;
+                try {
+                    TermsAggregator aggregator = createAggregator(aggregationBuilder, indexSearcher, fieldType);
+                    assertThat(aggregator, instanceOf(expected));
+                } finally {
+                    TermsAggregatorFactory.MIN_SEGMENT_ORDS = null;
+                }
+            }
+        }
+    }
+
     public void testSimple() throws Exception {
         MappedFieldType fieldType = new KeywordFieldMapper.KeywordFieldType("string", randomBoolean(), true, Collections.emptyMap());
         TermsAggregationBuilder aggregationBuilder = new TermsAggregationBuilder("_name").executionHint(
@@ -279,6 +391,84 @@ public class TermsAggregatorTests extends AggregatorTestCase {
         }, fieldType);
     }
 
+    /**
+     * Collects each segment in its own slice on its own thread like a concurrent search does and checks that the slices
+     * account their memory on the real breaker and release all of it.
+     */
+    public void testConcurrentSlicesWithRealBreaker() throws Exception {
+        MappedFieldType fieldType = new NumberFieldMapper.NumberFieldType("number", NumberFieldMapper.NumberType.LONG);
+        TermsAggregationBuilder aggregationBuilder = new TermsAggregationBuilder("_name").field("number")
+            .subAggregation(new MaxAggregationBuilder("max").field("number"));
+        int numSegments = randomIntBetween(2, 8);
+        int docsPerSegment = randomIntBetween(10, 200);
+        CircuitBreakerService breakerService = new HierarchyCircuitBreakerService(
+            Settings.EMPTY,
+            List.of(),
+            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS)
+        );
+        CircuitBreaker breaker = breakerService.getBreaker(CircuitBreaker.REQUEST);
+        ExecutorService executor = Executors.newFixedThreadPool(randomIntBetween(2, numSegments));
+        try {
+            withNonMergingIndex(iw -> {
+                for (int s = 0; s < numSegments; s++) {
+                    for (int d = 0; d < docsPerSegment; d++) {
+                        iw.addDocument(List.of(new SortedNumericDocValuesField("number", d % 10)));
+                    }
+                    iw.commit();
+                }
+            }, searcher -> {
+                ProductionAggregationContext context = (ProductionAggregationContext) createAggregationContext(
+                    searcher,
+                    createIndexSettings(),
+                    new MatchAllDocsQuery(),
+                    breakerService,
+                    randomFrom(0L, 1024L, AggregationBuilder.DEFAULT_PREALLOCATION),
+                    DEFAULT_MAX_BUCKETS,
+                    fieldType
+                );
+                long usedBeforeSlices = breaker.getUsed();
+                List<AggregationContext> sliceContexts = new ArrayList<>();
+                List<Future<InternalAggregation>> slices = new ArrayList<>();
+                for (LeafReaderContext leaf : searcher.getIndexReader().leaves()) {
+                    AggregationContext sliceContext = context.forSlice(new MultiBucketConsumer(DEFAULT_MAX_BUCKETS, breaker));
+                    sliceContexts.add(sliceContext);
+                    Aggregator aggregator = createAggregator(aggregationBuilder, sliceContext);
+                    slices.add(executor.submit(() -> {
+                        aggregator.preCollection();
+                        LeafBucketCollector collector = aggregator.getLeafCollector(leaf);
+                        for (int doc = 0; doc < leaf.reader().maxDoc(); doc++) {
+                            collector.collect(doc, 0);
+                        }
+                        aggregator.postCollection();
+                        return aggregator.buildTopLevel();
+                    }));
+                }
+                List<InternalAggregation> results = new ArrayList<>();
+                for (Future<InternalAggregation> slice : slices) {
+                    results.add(slice.get());
+                }
+                assertThat(breaker.getUsed(), greaterThan(usedBeforeSlices));
+
+                LongTerms result = (LongTerms) results.get(0).reduce(
+                    results,
+                    InternalAggregation.ReduceContext.forPartialReduction(context.bigArrays(), null, () -> PipelineTree.EMPTY, () -> false)
+                );
+                assertThat(result.getBuckets(), hasSize(Math.min(10, docsPerSegment)));
+                for (LongTerms.Bucket bucket : result.getBuckets()) {
+                    long key = (long) bucket.getKey();
+                    long docsPerSegmentWithKey = (docsPerSegment - key + 9) / 10;
+                    assertThat(bucket.getDocCount(), equalTo(numSegments * docsPerSegmentWithKey));
+                    assertThat(((InternalMax) bucket.getAggregations().get("max")).getValue(), equalTo((double) key));
+                }
+
+                Releasables.close(sliceContexts);
+                assertThat(breaker.getUsed(), equalTo(usedBeforeSlices));
+            });
+        } finally {
+            terminate(executor);
+        }
+    }
+
     public void testStringShardMinDocCount() throws IOException {
         MappedFieldType fieldType = new KeywordFieldMapper.KeywordFieldType("string", true, true, Collections.emptyMap());
         for (TermsAggregatorFactory.ExecutionMode executionMode : TermsAggregatorFactory.ExecutionMode.values()) {
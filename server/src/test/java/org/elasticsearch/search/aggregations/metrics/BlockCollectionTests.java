@@ -0,0 +1,120 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.metrics;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.NumericUtils;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper.NumberFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper.NumberType;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.AggregatorTestCase;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.LeafBucketCollector;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Checks that the numeric metric aggregations get the same results when they collect blocks of docs that fall into the same bucket,
+ * as filter by filter aggregations do, as when they collect the docs one at a time.
+ */
+public class BlockCollectionTests extends AggregatorTestCase {
+
+    private static final int NUM_BUCKETS = 3;
+
+    public void testSameResultsAsPerDocCollection() throws IOException {
+        MappedFieldType single = new NumberFieldType("single", NumberType.DOUBLE);
+        MappedFieldType multi = new NumberFieldType("multi", NumberType.LONG);
+        try (Directory directory = newDirectory()) {
+            try (RandomIndexWriter iw = new RandomIndexWriter(random(), directory)) {
+                int numDocs = randomIntBetween(1, 1000);
+                for (int i = 0; i < numDocs; i++) {
+                    Document document = new Document();
+                    if (randomBoolean()) {
+                        document.add(new SortedNumericDocValuesField("single", NumericUtils.doubleToSortableLong(randomDouble() * 100)));
+                    }
+                    int numValues = randomIntBetween(0, 3);
+                    for (int v = 0; v < numValues; v++) {
+                        document.add(new SortedNumericDocValuesField("multi", randomLongBetween(-1000, 1000)));
+                    }
+                    iw.addDocument(document);
+                }
+            }
+            try (IndexReader reader = DirectoryReader.open(directory)) {
+                IndexSearcher searcher = newIndexSearcher(reader);
+                for (String field : List.of("single", "multi")) {
+                    List<AggregationBuilder> builders = List.of(
+                        new SumAggregationBuilder("sum").field(field),
+                        new AvgAggregationBuilder("avg").field(field),
+                        new MinAggregationBuilder("min").field(field),
+                        new MaxAggregationBuilder("max").field(field),
+                        new StatsAggregationBuilder("stats").field(field)
+                    );
+                    for (AggregationBuilder builder : builders) {
+                        InternalAggregation[] perDoc = collect(builder, searcher, false, single, multi);
+                        InternalAggregation[] blocks = collect(builder, searcher, true, single, multi);
+                        assertThat(builder.getName() + " on " + field, Arrays.asList(blocks), equalTo(Arrays.asList(perDoc)));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends runs of consecutive docs to the buckets in turn, either one doc at a time or each run as a block.
+     */
+    private InternalAggregation[] collect(AggregationBuilder builder, IndexSearcher searcher, boolean inBlocks,
+                                          MappedFieldType... fieldTypes) throws IOException {
+        Aggregator aggregator = createAggregator(builder, searcher, fieldTypes);
+        try {
+            aggregator.preCollection();
+            for (LeafReaderContext ctx : searcher.getIndexReader().leaves()) {
+                LeafBucketCollector collector = aggregator.getLeafCollector(ctx);
+                int maxDoc = ctx.reader().maxDoc();
+                int[] docs = new int[maxDoc];
+                int doc = 0;
+                while (doc < maxDoc) {
+                    long bucket = (ctx.ord + doc) % NUM_BUCKETS;
+                    int count = Math.min(maxDoc - doc, 1 + doc % 7 * 20);
+                    for (int i = 0; i < count; i++) {
+                        docs[i] = doc + i;
+                    }
+                    if (inBlocks) {
+                        collector.collect(docs, count, bucket);
+                    } else {
+                        for (int i = 0; i < count; i++) {
+                            collector.collect(docs[i], bucket);
+                        }
+                    }
+                    doc += count;
+                }
+            }
+            aggregator.postCollection();
+            long[] buckets = new long[NUM_BUCKETS];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = i;
+            }
+            return aggregator.buildAggregations(buckets);
+        } finally {
+            aggregator.close();
+        }
+    }
+}
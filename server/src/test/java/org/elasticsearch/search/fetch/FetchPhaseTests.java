@@ -18,7 +18,9 @@ public class FetchPhaseTests extends ESTestCase {
             docs[i] = new FetchPhase.DocIdToIndex(start, i);
             ++ start;
         }
-        assertTrue(FetchPhase.hasSequentialDocs(docs));
+        assertTrue(FetchPhase.hasDenseDocs(docs, 0, docs.length));
+        // too few docs
+        assertFalse(FetchPhase.hasDenseDocs(docs, 1, docs.length));
 
         int from = randomIntBetween(0, 9);
         start = docs[from].docId;
@@ -26,6 +28,14 @@ public class FetchPhaseTests extends ESTestCase {
             start += randomIntBetween(2, 10);
             docs[i] = new FetchPhase.DocIdToIndex(start, i);
         }
-        assertFalse(FetchPhase.hasSequentialDocs(docs));
+        // small gaps
+        assertTrue(FetchPhase.hasDenseDocs(docs, 0, docs.length));
+
+        start = docs[from].docId;
+        for (int i = from; i < 10; i++) {
+            start += randomIntBetween(1000, 2000);
+            docs[i] = new FetchPhase.DocIdToIndex(start, i);
+        }
+        assertFalse(FetchPhase.hasDenseDocs(docs, 0, docs.length));
     }
 }
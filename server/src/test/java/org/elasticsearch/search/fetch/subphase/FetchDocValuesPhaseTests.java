@@ -0,0 +1,130 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.fetch.subphase;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.index.fielddata.IndexNumericFieldData.NumericType;
+import org.elasticsearch.index.fielddata.plain.SortedNumericIndexFieldData;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.query.SearchExecutionContext;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.fetch.FetchContext;
+import org.elasticsearch.search.fetch.FetchSubPhase.HitContext;
+import org.elasticsearch.search.fetch.FetchSubPhaseProcessor;
+import org.elasticsearch.search.lookup.SearchLookup;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class FetchDocValuesPhaseTests extends ESTestCase {
+
+    private static final int NUM_DOCS = 100;
+
+    public void testProcess() throws IOException {
+        try (Directory directory = newDirectory()) {
+            writeDocs(directory);
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                LeafReaderContext leaf = reader.leaves().get(0);
+                FetchSubPhaseProcessor processor = processor();
+                processor.setNextReader(leaf);
+                for (int docId : randomDocIds()) {
+                    assertValues(process(processor, leaf, docId), docId);
+                }
+            }
+        }
+    }
+
+    public void testSetNextReaderStartsOver() throws IOException {
+        try (Directory directory = newDirectory()) {
+            writeDocs(directory);
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                LeafReaderContext leaf = reader.leaves().get(0);
+                FetchSubPhaseProcessor processor = processor();
+                processor.setNextReader(leaf);
+                assertValues(process(processor, leaf, 50), 50);
+                assertValues(process(processor, leaf, 70), 70);
+
+                // doc values can't go backwards, moving to the reader again reads the hits before the last one
+                processor.setNextReader(leaf);
+                assertValues(process(processor, leaf, 10), 10);
+                assertValues(process(processor, leaf, 50), 50);
+            }
+        }
+    }
+
+    private static FetchSubPhaseProcessor processor() {
+        MappedFieldType fieldType = mock(MappedFieldType.class);
+        when(fieldType.docValueFormat(null, null)).thenReturn(DocValueFormat.RAW);
+        SearchExecutionContext searchExecutionContext = mock(SearchExecutionContext.class);
+        when(searchExecutionContext.getFieldType("field")).thenReturn(fieldType);
+        SearchLookup searchLookup = mock(SearchLookup.class);
+        when(searchLookup.getForField(fieldType)).thenReturn(new SortedNumericIndexFieldData("field", NumericType.LONG));
+        FetchDocValuesContext docValuesContext = mock(FetchDocValuesContext.class);
+        when(docValuesContext.fields()).thenReturn(Collections.singletonList(new FieldAndFormat("field", null)));
+
+        FetchContext fetchContext = mock(FetchContext.class);
+        when(fetchContext.docValuesContext()).thenReturn(docValuesContext);
+        when(fetchContext.getSearchExecutionContext()).thenReturn(searchExecutionContext);
+        when(fetchContext.searchLookup()).thenReturn(searchLookup);
+        return new FetchDocValuesPhase().getProcessor(fetchContext);
+    }
+
+    private static SearchHit process(FetchSubPhaseProcessor processor, LeafReaderContext leaf, int docId) throws IOException {
+        HitContext hitContext = new HitContext(new SearchHit(docId), leaf, docId);
+        processor.process(hitContext);
+        return hitContext.hit();
+    }
+
+    private static void assertValues(SearchHit hit, int docId) {
+        if (docId % 3 == 0) {
+            assertThat(hit.field("field").getValues(), empty());
+        } else {
+            assertThat(hit.field("field").getValues(), equalTo(List.of((long) docId, (long) docId * 2)));
+        }
+    }
+
+    private static int[] randomDocIds() {
+        List<Integer> docIds = new ArrayList<>();
+        for (int docId = 0; docId < NUM_DOCS; docId++) {
+            if (randomBoolean()) {
+                docIds.add(docId);
+            }
+        }
+        return docIds.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static void writeDocs(Directory directory) throws IOException {
+        try (IndexWriter writer = new IndexWriter(directory, newIndexWriterConfig())) {
+            for (int docId = 0; docId < NUM_DOCS; docId++) {
+                Document document = new Document();
+                // every third doc has no value
+                if (docId % 3 != 0) {
+                    document.add(new SortedNumericDocValuesField("field", docId));
+                    document.add(new SortedNumericDocValuesField("field", docId * 2));
+                }
+                writer.addDocument(document);
+            }
+            writer.forceMerge(1);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.query;
+
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class CompactTopDocsTests extends ESTestCase {
+
+    public void testScoreDocs() throws IOException {
+        int numHits = randomIntBetween(0, 1000);
+        ScoreDoc[] scoreDocs = new ScoreDoc[numHits];
+        boolean singleScore = randomBoolean();
+        for (int i = 0; i < numHits; i++) {
+            scoreDocs[i] = new ScoreDoc(randomIntBetween(0, Integer.MAX_VALUE), singleScore ? 1f : randomFloat());
+        }
+        TopDocs topDocs = new TopDocs(new TotalHits(randomNonNegativeLong(), randomFrom(TotalHits.Relation.values())), scoreDocs);
+        assertRoundTrip(new TopDocsAndMaxScore(topDocs, randomBoolean() ? Float.NaN : randomFloat()));
+    }
+
+    public void testFieldDocs() throws IOException {
+        SortField[] sortFields = new SortField[] {
+            new SortField("long", SortField.Type.LONG),
+            new SortField("keyword", SortField.Type.STRING, true),
+            new SortField("double", SortField.Type.DOUBLE) };
+        int numHits = randomIntBetween(0, 1000);
+        ScoreDoc[] scoreDocs = new ScoreDoc[numHits];
+        for (int i = 0; i < numHits; i++) {
+            Object[] values = new Object[] {
+                randomLong(),
+                randomBoolean() ? null : new BytesRef(randomFrom("a", "b", "c")),
+                randomDouble() };
+            scoreDocs[i] = new FieldDoc(randomIntBetween(0, Integer.MAX_VALUE), Float.NaN, values);
+        }
+        TopDocs topDocs = new TopFieldDocs(new TotalHits(numHits, TotalHits.Relation.EQUAL_TO), scoreDocs, sortFields);
+        assertRoundTrip(new TopDocsAndMaxScore(topDocs, Float.NaN));
+    }
+
+    public void testSmallerThanLuceneEncoding() throws IOException {
+        SortField[] sortFields = new SortField[] { new SortField("keyword", SortField.Type.STRING) };
+        ScoreDoc[] scoreDocs = new ScoreDoc[1000];
+        for (int i = 0; i < scoreDocs.length; i++) {
+            scoreDocs[i] = new FieldDoc(i * 3, Float.NaN, new Object[] { new BytesRef("value-" + (i / 100)) });
+        }
+        TopDocsAndMaxScore topDocs = new TopDocsAndMaxScore(
+            new TopFieldDocs(new TotalHits(5000, TotalHits.Relation.EQUAL_TO), scoreDocs, sortFields), Float.NaN);
+        BytesStreamOutput compact = new BytesStreamOutput();
+        CompactTopDocs.write(compact, topDocs);
+        BytesStreamOutput lucene = new BytesStreamOutput();
+        Lucene.writeTopDocs(lucene, topDocs);
+        assertThat(compact.size() * 3, lessThan(lucene.size()));
+    }
+
+    private static void assertRoundTrip(TopDocsAndMaxScore topDocs) throws IOException {
+        BytesStreamOutput out = new BytesStreamOutput();
+        CompactTopDocs.write(out, topDocs);
+        TopDocsAndMaxScore copy;
+        try (StreamInput in = out.bytes().streamInput()) {
+            copy = CompactTopDocs.read(in);
+        }
+        assertThat(copy.maxScore, equalTo(topDocs.maxScore));
+        assertThat(copy.topDocs.getClass(), sameInstance(topDocs.topDocs.getClass()));
+        assertThat(copy.topDocs.totalHits, equalTo(topDocs.topDocs.totalHits));
+        if (topDocs.topDocs instanceof TopFieldDocs) {
+            assertArrayEquals(((TopFieldDocs) topDocs.topDocs).fields, ((TopFieldDocs) copy.topDocs).fields);
+        }
+        assertThat(copy.topDocs.scoreDocs.length, equalTo(topDocs.topDocs.scoreDocs.length));
+        for (int i = 0; i < topDocs.topDocs.scoreDocs.length; i++) {
+            ScoreDoc expected = topDocs.topDocs.scoreDocs[i];
+            ScoreDoc actual = copy.topDocs.scoreDocs[i];
+            assertThat(actual.doc, equalTo(expected.doc));
+            assertThat(actual.score, equalTo(expected.score));
+            if (expected instanceof FieldDoc) {
+                assertArrayEquals(((FieldDoc) expected).fields, ((FieldDoc) actual).fields);
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.query;
+
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.SearchSortValuesAndFormats;
+import org.elasticsearch.test.ESTestCase;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class NonCompetitiveHitsPrunerTests extends ESTestCase {
+
+    private static final DocValueFormat[] RAW = new DocValueFormat[] { DocValueFormat.RAW };
+
+    public void testScoreDocs() {
+        QuerySearchResult result = new QuerySearchResult();
+        ScoreDoc[] scoreDocs = new ScoreDoc[] { new ScoreDoc(0, 5f), new ScoreDoc(1, 3f), new ScoreDoc(2, 3f), new ScoreDoc(3, 1f) };
+        TotalHits totalHits = new TotalHits(10, TotalHits.Relation.EQUAL_TO);
+        result.topDocs(new TopDocsAndMaxScore(new TopDocs(totalHits, scoreDocs), 5f), new DocValueFormat[0]);
+
+        assertThat(NonCompetitiveHitsPruner.prune(result, null), equalTo(0));
+        assertThat(NonCompetitiveHitsPruner.prune(result, new SearchSortValuesAndFormats(new Object[] { 3f }, RAW)), equalTo(1));
+        // ties are kept
+        assertThat(result.topDocs().topDocs.scoreDocs.length, equalTo(3));
+        assertThat(result.topDocs().topDocs.totalHits, equalTo(totalHits));
+        assertThat(result.topDocs().maxScore, equalTo(5f));
+
+        assertThat(NonCompetitiveHitsPruner.prune(result, new SearchSortValuesAndFormats(new Object[] { 10f }, RAW)), equalTo(3));
+        assertThat(result.topDocs().topDocs.scoreDocs.length, equalTo(0));
+        assertFalse(result.hasSearchContext());
+    }
+
+    public void testFieldDocs() {
+        for (boolean reverse : new boolean[] { true, false }) {
+            SortField[] sortFields = new SortField[] { new SortField("foo", SortField.Type.LONG, reverse) };
+            long[] values = reverse ? new long[] { 40, 30, 20, 10 } : new long[] { 10, 20, 30, 40 };
+            QuerySearchResult result = newFieldDocsResult(sortFields, values);
+            Object[] bottom = new Object[] { values[1] };
+            assertThat(NonCompetitiveHitsPruner.prune(result, new SearchSortValuesAndFormats(bottom, RAW)), equalTo(2));
+            assertThat(result.topDocs().topDocs.scoreDocs.length, equalTo(2));
+            assertThat(result.topDocs().topDocs.getClass(), equalTo(TopFieldDocs.class));
+            assertArrayEquals(sortFields, ((TopFieldDocs) result.topDocs().topDocs).fields);
+
+            // the bottom of a shard that formats the sort values differently doesn't apply
+            result = newFieldDocsResult(sortFields, values);
+            DocValueFormat[] otherFormats = new DocValueFormat[] { DocValueFormat.BOOLEAN };
+            assertThat(NonCompetitiveHitsPruner.prune(result, new SearchSortValuesAndFormats(bottom, otherFormats)), equalTo(0));
+            // neither does a bottom of a different type
+            Object[] doubleBottom = new Object[] { (double) values[1] };
+            assertThat(NonCompetitiveHitsPruner.prune(result, new SearchSortValuesAndFormats(doubleBottom, RAW)), equalTo(0));
+        }
+    }
+
+    private static QuerySearchResult newFieldDocsResult(SortField[] sortFields, long[] values) {
+        ScoreDoc[] scoreDocs = new ScoreDoc[values.length];
+        for (int i = 0; i < values.length; i++) {
+            scoreDocs[i] = new FieldDoc(i, Float.NaN, new Object[] { values[i] });
+        }
+        QuerySearchResult result = new QuerySearchResult();
+        TopFieldDocs topDocs = new TopFieldDocs(new TotalHits(values.length, TotalHits.Relation.EQUAL_TO), scoreDocs, sortFields);
+        result.topDocs(new TopDocsAndMaxScore(topDocs, Float.NaN), RAW);
+        return result;
+    }
+}
@@ -81,6 +81,8 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.elasticsearch.search.query.TopDocsCollectorContext.hasInfMaxScore;
 import static org.hamcrest.Matchers.anyOf;
@@ -808,6 +810,141 @@ public class QueryPhaseTests extends IndexShardTestCase {
         dir.close();
     }
 
+    public void testNumericSortSkipsNonCompetitiveSegments() throws Exception {
+        final String fieldName = "@timestamp";
+        Directory dir = newDirectory();
+        IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig(null).setMergePolicy(NoMergePolicy.INSTANCE));
+        final int numSegments = 5;
+        final int docsPerSegment = 100;
+        // the most recent documents are in the first segment
+        final long maxValue = numSegments * docsPerSegment - 1;
+        long value = maxValue;
+        for (int i = 0; i < numSegments; i++) {
+            for (int j = 0; j < docsPerSegment; j++) {
+                Document doc = new Document();
+                doc.add(new LongPoint(fieldName, value));
+                doc.add(new NumericDocValuesField(fieldName, value));
+                writer.addDocument(doc);
+                value--;
+            }
+            writer.flush();
+        }
+        writer.close();
+        final IndexReader reader = DirectoryReader.open(dir);
+        final List<Integer> visitedLeaves = new ArrayList<>();
+        final ContextIndexSearcher searcher = new ContextIndexSearcher(reader, IndexSearcher.getDefaultSimilarity(),
+            IndexSearcher.getDefaultQueryCache(), IndexSearcher.getDefaultQueryCachingPolicy(), true) {
+
+            @Override
+            public void search(List<LeafReaderContext> leaves, Weight weight, Collector collector) throws IOException {
+                super.search(leaves, weight, new FilterCollector(collector) {
+                    @Override
+                    public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+                        final LeafCollector in = super.getLeafCollector(context);
+                        visitedLeaves.add(context.ord);
+                        return in;
+                    }
+                });
+            }
+        };
+        final SortField sortField = new SortField(fieldName, SortField.Type.LONG, true);
+        final SortAndFormats sort = new SortAndFormats(new Sort(sortField), new DocValueFormat[] { DocValueFormat.RAW });
+        final TaskId parentTaskId = new TaskId("node", 1);
+        final SharedBottomSortValues sharedBottomSortValues = new SharedBottomSortValues();
+
+        // the most recent segment fills the top hits, the others can't compete
+        TestSearchContext context = new TestSearchContext(null, indexShard, searcher);
+        context.parsedQuery(new ParsedQuery(new MatchAllDocsQuery()));
+        context.sort(sort);
+        context.setSize(10);
+        context.setTask(new SearchShardTask(123L, "", "", "", parentTaskId, Collections.emptyMap()));
+        SharedBottomSortValues.Bottom bottom = sharedBottomSortValues.acquire(parentTaskId, sortField, DocValueFormat.RAW, 10);
+        QueryPhase.executeInternal(context, sharedBottomSortValues);
+        assertThat(visitedLeaves, equalTo(List.of(0)));
+        TopDocs topDocs = context.queryResult().topDocs().topDocs;
+        // match_all counts hits without collecting them
+        assertThat(topDocs.totalHits.value, equalTo((long) numSegments * docsPerSegment));
+        assertThat(topDocs.scoreDocs.length, equalTo(10));
+        assertThat(((FieldDoc) topDocs.scoreDocs[9]).fields[0], equalTo(maxValue - 9));
+        // the bottom was shared with the other shards of the request
+        assertThat(bottom.get(), equalTo(maxValue - 9));
+        bottom.release();
+        assertThat(sharedBottomSortValues.size(), equalTo(0));
+
+        // segments are visited in index order and all of them are collected when hits are counted
+        visitedLeaves.clear();
+        context = new TestSearchContext(null, indexShard, searcher);
+        context.parsedQuery(new ParsedQuery(LongPoint.newRangeQuery(fieldName, 0, Long.MAX_VALUE)));
+        context.sort(sort);
+        context.setSize(10);
+        context.trackTotalHitsUpTo(SearchContext.TRACK_TOTAL_HITS_ACCURATE);
+        context.setTask(new SearchShardTask(123L, "", "", "", parentTaskId, Collections.emptyMap()));
+        QueryPhase.executeInternal(context, sharedBottomSortValues);
+        assertThat(visitedLeaves, equalTo(List.of(0, 1, 2, 3, 4)));
+        assertThat(context.queryResult().topDocs().topDocs.totalHits.value, equalTo((long) numSegments * docsPerSegment));
+
+        // another shard of the request already collected more competitive hits
+        visitedLeaves.clear();
+        context = new TestSearchContext(null, indexShard, searcher);
+        context.parsedQuery(new ParsedQuery(LongPoint.newRangeQuery(fieldName, 0, Long.MAX_VALUE)));
+        context.sort(sort);
+        context.setSize(10);
+        context.trackTotalHitsUpTo(SearchContext.TRACK_TOTAL_HITS_DISABLED);
+        context.setTask(new SearchShardTask(123L, "", "", "", parentTaskId, Collections.emptyMap()));
+        bottom = sharedBottomSortValues.acquire(parentTaskId, sortField, DocValueFormat.RAW, 10);
+        bottom.update(maxValue + 100);
+        QueryPhase.executeInternal(context, sharedBottomSortValues);
+        assertThat(visitedLeaves, equalTo(List.of()));
+        assertThat(context.queryResult().topDocs().topDocs.scoreDocs.length, equalTo(0));
+        bottom.release();
+
+        reader.close();
+        dir.close();
+    }
+
+    public void testNumericSortBreaksTiesByDocId() throws Exception {
+        final String fieldName = "@timestamp";
+        Directory dir = newDirectory();
+        IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig(null).setMergePolicy(NoMergePolicy.INSTANCE));
+        final int numSegments = randomIntBetween(2, 5);
+        for (int i = 0; i < numSegments; i++) {
+            final int numDocs = randomIntBetween(1, 20);
+            for (int j = 0; j < numDocs; j++) {
+                // few distinct values so that many hits tie, the later segments have the greater values
+                final long value = i + randomIntBetween(0, 2);
+                Document doc = new Document();
+                doc.add(new LongPoint(fieldName, value));
+                doc.add(new NumericDocValuesField(fieldName, value));
+                writer.addDocument(doc);
+            }
+            writer.flush();
+        }
+        writer.close();
+        final IndexReader reader = DirectoryReader.open(dir);
+        final ContextIndexSearcher searcher = new ContextIndexSearcher(reader, IndexSearcher.getDefaultSimilarity(),
+            IndexSearcher.getDefaultQueryCache(), IndexSearcher.getDefaultQueryCachingPolicy(), true);
+        final Sort sort = new Sort(new SortField(fieldName, SortField.Type.LONG, true));
+        final int size = randomIntBetween(1, 10);
+
+        TestSearchContext context = new TestSearchContext(null, indexShard, searcher);
+        context.parsedQuery(new ParsedQuery(new MatchAllDocsQuery()));
+        context.sort(new SortAndFormats(sort, new DocValueFormat[] { DocValueFormat.RAW }));
+        context.setSize(size);
+        context.trackTotalHitsUpTo(SearchContext.TRACK_TOTAL_HITS_DISABLED);
+        QueryPhase.executeInternal(context);
+        final ScoreDoc[] scoreDocs = context.queryResult().topDocs().topDocs.scoreDocs;
+
+        // the same hits in the same order as without skipping segments
+        final ScoreDoc[] expected = new IndexSearcher(reader).search(new MatchAllDocsQuery(), size, sort).scoreDocs;
+        assertThat(scoreDocs.length, equalTo(expected.length));
+        for (int i = 0; i < expected.length; i++) {
+            assertThat(scoreDocs[i].doc, equalTo(expected[i].doc));
+        }
+
+        reader.close();
+        dir.close();
+    }
+
     public void testMaxScoreQueryVisitor() {
         BitSetProducer producer = context -> new FixedBitSet(1);
         Query query = new ESToParentBlockJoinQuery(new MatchAllDocsQuery(), producer, ScoreMode.Avg, "nested");
@@ -912,6 +1049,74 @@ public class QueryPhaseTests extends IndexShardTestCase {
         dir.close();
     }
 
+    public void testConcurrentSegmentSearch() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+        final int numSegments = randomIntBetween(6, 20);
+        for (int i = 0; i < numSegments; i++) {
+            final int numDocs = randomIntBetween(1, 50);
+            for (int j = 0; j < numDocs; j++) {
+                Document doc = new Document();
+                doc.add(new StringField("foo", randomBoolean() ? "bar" : "baz", Store.NO));
+                doc.add(new TextField("text", randomFrom("a", "a b", "a b c"), Store.NO));
+                doc.add(new NumericDocValuesField("rank", randomIntBetween(0, 100)));
+                w.addDocument(doc);
+            }
+            w.flush();
+        }
+        w.close();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(randomIntBetween(1, 4));
+        try (IndexReader reader = DirectoryReader.open(dir)) {
+            final ContextIndexSearcher concurrentSearcher = newContextSearcher(reader);
+            concurrentSearcher.setConcurrentSearchExecutor(executor);
+            // at most 5 segments are searched in the same slice
+            assertThat(concurrentSearcher.getConcurrentSliceCount(), greaterThan(1));
+
+            final Query query = new BooleanQuery.Builder()
+                .add(new TermQuery(new Term("foo", "bar")), Occur.MUST)
+                .add(new TermQuery(new Term("text", "b")), Occur.SHOULD)
+                .build();
+            final SortAndFormats sort = randomBoolean() ? null : new SortAndFormats(
+                new Sort(new SortField("rank", SortField.Type.LONG), SortField.FIELD_DOC),
+                new DocValueFormat[] { DocValueFormat.RAW, DocValueFormat.RAW });
+            final int size = randomIntBetween(0, 20);
+            final int trackTotalHitsUpTo = randomFrom(SearchContext.TRACK_TOTAL_HITS_ACCURATE, SearchContext.TRACK_TOTAL_HITS_DISABLED);
+            final boolean postFilter = randomBoolean();
+
+            final List<TopDocs> results = new ArrayList<>();
+            for (ContextIndexSearcher searcher : List.of(newContextSearcher(reader), concurrentSearcher)) {
+                TestSearchContext context = new TestSearchContext(null, indexShard, searcher);
+                context.parsedQuery(new ParsedQuery(query));
+                context.setTask(new SearchShardTask(123L, "", "", "", null, Collections.emptyMap()));
+                context.setSize(size);
+                context.sort(sort);
+                context.trackTotalHitsUpTo(trackTotalHitsUpTo);
+                if (postFilter) {
+                    context.parsedPostFilter(new ParsedQuery(new TermQuery(new Term("text", "c"))));
+                }
+                assertEquals(searcher == concurrentSearcher, QueryPhase.canSearchConcurrently(context));
+                QueryPhase.executeInternal(context);
+                results.add(context.queryResult().topDocs().topDocs);
+
+                context.terminateAfter(1);
+                assertFalse(QueryPhase.canSearchConcurrently(context));
+            }
+
+            final TopDocs expected = results.get(0);
+            final TopDocs actual = results.get(1);
+            assertEquals(expected.totalHits, actual.totalHits);
+            assertEquals(expected.scoreDocs.length, actual.scoreDocs.length);
+            for (int i = 0; i < expected.scoreDocs.length; i++) {
+                assertEquals(expected.scoreDocs[i].doc, actual.scoreDocs[i].doc);
+                assertEquals(expected.scoreDocs[i].score, actual.scoreDocs[i].score, 0f);
+            }
+        } finally {
+            terminate(executor);
+            dir.close();
+        }
+    }
+
     public void testCancellationDuringRewrite() throws IOException {
         try (Directory dir = newDirectory();
              RandomIndexWriter w = new RandomIndexWriter(random(), dir, newIndexWriterConfig())) {
@@ -208,6 +208,22 @@ public class ThreadPoolTests extends ESTestCase {
         terminate(threadPool);
     }
 
+    public void testExternalQueueIsPartOfStats() {
+        TestThreadPool threadPool = new TestThreadPool("test");
+        try {
+            final int externalQueueSize = randomIntBetween(1, 100);
+            threadPool.registerExternalQueue(ThreadPool.Names.SEARCH, () -> externalQueueSize);
+            for (ThreadPoolStats.Stats stats : threadPool.stats()) {
+                if (stats.getName().equals(ThreadPool.Names.SEARCH)) {
+                    // nothing waits in the queue of the search pool itself
+                    assertThat(stats.getQueue(), equalTo(externalQueueSize));
+                }
+            }
+        } finally {
+            terminate(threadPool);
+        }
+    }
+
     public void testInheritContextOnSchedule() throws InterruptedException {
         final CountDownLatch latch = new CountDownLatch(1);
         final CountDownLatch executed = new CountDownLatch(1);
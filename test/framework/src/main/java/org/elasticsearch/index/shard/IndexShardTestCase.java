@@ -398,7 +398,8 @@ public abstract class IndexShardTestCase extends ESTestCase {
                     globalCheckpointSyncer,
                     retentionLeaseSyncer,
                     breakerService,
-                    IndexModule.DEFAULT_SNAPSHOT_COMMIT_SUPPLIER);
+                    IndexModule.DEFAULT_SNAPSHOT_COMMIT_SUPPLIER,
+                    new TranslogSyncCoordinator(nodeSettings, threadPool.getThreadContext()));
             indexShard.addShardFailureCallback(DEFAULT_SHARD_FAILURE_HANDLER);
             success = true;
         } finally {
@@ -121,6 +121,7 @@ import org.elasticsearch.search.fetch.FetchPhase;
 import org.elasticsearch.search.fetch.subphase.FetchDocValuesPhase;
 import org.elasticsearch.search.fetch.subphase.FetchSourcePhase;
 import org.elasticsearch.search.internal.ContextIndexSearcher;
+import org.elasticsearch.search.internal.ReaderContext;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.internal.SubSearchContext;
 import org.elasticsearch.search.lookup.SearchLookup;
@@ -313,7 +314,8 @@ public abstract class AggregatorTestCase extends ESTestCase {
             () -> 0L,
             () -> false,
             q -> q,
-            true
+            true,
+            pointInTimeContext()
         );
         releasables.add(context);
         return context;
@@ -335,6 +337,15 @@ public abstract class AggregatorTestCase extends ESTestCase {
         return List.of();
     }
 
+    /**
+     * The {@link ReaderContext} of the point in time that the aggs search.
+     * By default they don't search a point in time but testing state that
+     * aggregations carry over to the next request will require one.
+     */
+    protected ReaderContext pointInTimeContext() {
+        return null;
+    }
+
     /**
      * Build a {@link SubSearchContext}s to power {@code top_hits}.
      */